@@ -0,0 +1,97 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
+
+/**
+ * Measures {@link CustomEntryConcurrentHashMap}, the map that backs every
+ * region, with several threads reading and writing at once.
+ *
+ * @since 9.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4)
+public class CustomEntryConcurrentHashMapBenchmark {
+
+  /** The number of keys, rounded up to a power of two */
+  @Param({"1024", "262144"})
+  public int keyCount;
+
+  private CustomEntryConcurrentHashMap<Object, Object> map;
+  private Object[] keys;
+  private int keyMask;
+
+  @Setup
+  public void setUp() {
+    int n = Integer.highestOneBit(Math.max(1, this.keyCount - 1)) << 1;
+    this.keyMask = n - 1;
+    this.keys = new Object[n];
+    this.map = new CustomEntryConcurrentHashMap<Object, Object>(n);
+    for (int i = 0; i < n; i++) {
+      this.keys[i] = Integer.valueOf(i * 31);
+      this.map.put(this.keys[i], this.keys[i]);
+    }
+  }
+
+  /**
+   * The position of each benchmark thread in the key array.
+   */
+  @State(Scope.Thread)
+  public static class KeyCursor {
+    int next = (int)Thread.currentThread().getId() * 7919;
+  }
+
+  @Benchmark
+  public Object get(KeyCursor cursor) {
+    return this.map.get(this.keys[cursor.next++ & this.keyMask]);
+  }
+
+  @Benchmark
+  public Object put(KeyCursor cursor) {
+    Object key = this.keys[cursor.next++ & this.keyMask];
+    return this.map.put(key, key);
+  }
+
+  @Benchmark
+  public Object putIfAbsent(KeyCursor cursor) {
+    Object key = this.keys[cursor.next++ & this.keyMask];
+    return this.map.putIfAbsent(key, key);
+  }
+
+  /** Three gets for every put */
+  @Benchmark
+  public Object mixed(KeyCursor cursor) {
+    int n = cursor.next++;
+    Object key = this.keys[n & this.keyMask];
+    if ((n & 3) == 0) {
+      return this.map.put(key, key);
+    }
+    return this.map.get(key);
+  }
+}
@@ -0,0 +1,102 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializer;
+import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+
+/**
+ * Measures serializing and deserializing common value types with
+ * {@link DataSerializer}, which goes through InternalDataSerializer.
+ *
+ * @since 9.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DataSerializerBenchmark {
+
+  @Param({"string", "integer", "bytes", "hashMap", "arrayList"})
+  public String valueType;
+
+  private Object value;
+  private byte[] serialized;
+  private HeapDataOutputStream out;
+  private final ByteArrayDataInput in = new ByteArrayDataInput();
+
+  @Setup
+  public void setUp() throws IOException {
+    if ("string".equals(this.valueType)) {
+      this.value = "a typical string value of about fifty characters..";
+    } else if ("integer".equals(this.valueType)) {
+      this.value = Integer.valueOf(123456789);
+    } else if ("bytes".equals(this.valueType)) {
+      this.value = new byte[1024];
+    } else if ("hashMap".equals(this.valueType)) {
+      HashMap<String, Integer> map = new HashMap<String, Integer>();
+      for (int i = 0; i < 16; i++) {
+        map.put("field" + i, Integer.valueOf(i));
+      }
+      this.value = map;
+    } else if ("arrayList".equals(this.valueType)) {
+      ArrayList<Long> list = new ArrayList<Long>();
+      for (int i = 0; i < 16; i++) {
+        list.add(Long.valueOf(i));
+      }
+      this.value = list;
+    } else {
+      throw new IllegalArgumentException("Unknown value type " + this.valueType);
+    }
+    this.out = new HeapDataOutputStream(Version.CURRENT);
+    DataSerializer.writeObject(this.value, this.out);
+    this.serialized = this.out.toByteArray();
+  }
+
+  @Benchmark
+  public int serialize() throws IOException {
+    this.out.reset();
+    DataSerializer.writeObject(this.value, this.out);
+    return this.out.size();
+  }
+
+  @Benchmark
+  public Object deserialize() throws IOException, ClassNotFoundException {
+    this.in.initialize(this.serialized, null);
+    return DataSerializer.readObject(this.in);
+  }
+
+  @Benchmark
+  public Object roundTrip() throws IOException, ClassNotFoundException {
+    this.out.reset();
+    DataSerializer.writeObject(this.value, this.out);
+    this.in.initialize(this.out.toByteArray(), null);
+    return DataSerializer.readObject(this.in);
+  }
+}
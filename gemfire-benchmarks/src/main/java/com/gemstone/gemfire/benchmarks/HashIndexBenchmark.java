@@ -0,0 +1,95 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.benchmarks.QueryBenchmark.Trade;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.index.HashIndexSet;
+
+/**
+ * Measures concurrent updates of an indexed local region, which exercises
+ * {@link HashIndexSet} maintenance when the index is a hash index. Running it
+ * on the commit before a change to the index gives the baseline.
+ *
+ * @since 9.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(8)
+public class HashIndexBenchmark {
+
+  @Param({"100000"})
+  public int entryCount;
+
+  /** The kind of index on the symbol field: none, hash or range */
+  @Param({"none", "hash", "range"})
+  public String indexType;
+
+  private Cache cache;
+  private Region<Integer, Trade> region;
+  private Query equalityQuery;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.cache = LonerCache.create();
+    this.region = this.cache.<Integer, Trade>createRegionFactory(RegionShortcut.LOCAL).create("trades");
+    QueryService qs = this.cache.getQueryService();
+    if ("hash".equals(this.indexType)) {
+      qs.createHashIndex("symbolIndex", "t.symbol", "/trades t");
+    } else if ("range".equals(this.indexType)) {
+      qs.createIndex("symbolIndex", "t.symbol", "/trades t");
+    }
+    for (int i = 0; i < this.entryCount; i++) {
+      this.region.put(Integer.valueOf(i), new Trade(i, "SYM" + (i % 1000), i % 1000));
+    }
+    this.equalityQuery = qs.newQuery("SELECT * FROM /trades t WHERE t.symbol = $1");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Benchmark
+  public Object put() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int id = random.nextInt(this.entryCount);
+    return this.region.put(Integer.valueOf(id), new Trade(id, "SYM" + random.nextInt(1000), id % 1000));
+  }
+
+  @Benchmark
+  public Object equality() throws Exception {
+    return this.equalityQuery.execute(new Object[] {"SYM" + ThreadLocalRandom.current().nextInt(1000)});
+  }
+}
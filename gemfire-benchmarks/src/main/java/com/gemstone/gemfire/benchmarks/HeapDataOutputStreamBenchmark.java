@@ -0,0 +1,104 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+
+/**
+ * Measures the primitive writes of {@link HeapDataOutputStream}, including
+ * the cost of growing its chunk list, by writing one message of
+ * <code>messageSize</code> bytes per operation.
+ *
+ * @since 9.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HeapDataOutputStreamBenchmark {
+
+  /** The approximate number of bytes written by each operation */
+  @Param({"64", "1024", "65536"})
+  public int messageSize;
+
+  private byte[] chunk;
+  private String string;
+
+  @Setup
+  public void setUp() {
+    this.chunk = new byte[256];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 16; i++) {
+      sb.append((char)('a' + i));
+    }
+    this.string = sb.toString();
+  }
+
+  @Benchmark
+  public int writeInts() {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < this.messageSize; i += 4) {
+      out.writeInt(i);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeLongs() {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < this.messageSize; i += 8) {
+      out.writeLong(i);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeUTF() throws IOException {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < this.messageSize; i += this.string.length() + 2) {
+      out.writeUTF(this.string);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public int writeBytes() {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < this.messageSize; i += this.chunk.length) {
+      out.write(this.chunk, 0, this.chunk.length);
+    }
+    return out.size();
+  }
+
+  @Benchmark
+  public byte[] writeAndCopy() {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    for (int i = 0; i < this.messageSize; i += this.chunk.length) {
+      out.write(this.chunk, 0, this.chunk.length);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,45 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.Properties;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+
+/**
+ * Creates the stand alone caches used by the benchmarks.
+ *
+ * @since 9.0
+ */
+final class LonerCache {
+
+  private LonerCache() {
+  }
+
+  /**
+   * Returns a new cache that is not connected to any other member, with
+   * <code>extraProps</code> added to its gemfire properties.
+   */
+  static Cache create(Properties extraProps) {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    props.setProperty(DistributionConfig.LOG_LEVEL_NAME, "warning");
+    props.setProperty(DistributionConfig.STATISTIC_SAMPLING_ENABLED_NAME, "false");
+    if (extraProps != null) {
+      props.putAll(extraProps);
+    }
+    return new CacheFactory(props).create();
+  }
+
+  static Cache create() {
+    return create(null);
+  }
+}
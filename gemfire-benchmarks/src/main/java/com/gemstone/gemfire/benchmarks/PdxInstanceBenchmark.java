@@ -0,0 +1,89 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+
+/**
+ * Measures reading fields of a {@link PdxInstanceImpl}, the path taken by
+ * queries and functions on servers that keep PDX values serialized.
+ *
+ * @since 9.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class PdxInstanceBenchmark {
+
+  private Cache cache;
+  private PdxInstance instance;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.cache = LonerCache.create(new Properties());
+    this.instance = this.cache.createPdxInstanceFactory("com.gemstone.gemfire.benchmarks.Position")
+        .writeString("secId", "IBM")
+        .writeInt("id", 42)
+        .writeLong("qty", 1000L)
+        .writeDouble("mktValue", 187.5d)
+        .writeString("sharesOutstanding", "100000")
+        .writeString("secType", "equity")
+        .writeString("pid", "p-1")
+        .writeBoolean("active", true)
+        .create();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  /** Reads the first fixed width field */
+  @Benchmark
+  public Object readIntField() {
+    return this.instance.getField("id");
+  }
+
+  /** Reads a fixed width field after variable width ones */
+  @Benchmark
+  public Object readTrailingField() {
+    return this.instance.getField("active");
+  }
+
+  /** Reads a variable width field that needs an offset lookup */
+  @Benchmark
+  public Object readStringField() {
+    return this.instance.getField("secType");
+  }
+
+  @Benchmark
+  public boolean hasField() {
+    return this.instance.hasField("mktValue");
+  }
+}
@@ -0,0 +1,130 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.CompiledSelect;
+
+/**
+ * Measures OQL queries on a local region, which exercises the
+ * {@link CompiledSelect} evaluation path with and without indexes.
+ *
+ * @since 9.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class QueryBenchmark {
+
+  @Param({"10000"})
+  public int entryCount;
+
+  /** Whether the queried fields are indexed */
+  @Param({"false", "true"})
+  public boolean indexed;
+
+  private Cache cache;
+  private Query equalityQuery;
+  private Query rangeQuery;
+  private Query projectionQuery;
+  private Object[] equalityParams;
+  private Object[] rangeParams;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.cache = LonerCache.create();
+    Region<Integer, Trade> region = this.cache.<Integer, Trade>createRegionFactory(RegionShortcut.LOCAL)
+        .create("trades");
+    for (int i = 0; i < this.entryCount; i++) {
+      region.put(Integer.valueOf(i), new Trade(i, "SYM" + (i % 100), i % 1000));
+    }
+    QueryService qs = this.cache.getQueryService();
+    if (this.indexed) {
+      qs.createIndex("symbolIndex", "t.symbol", "/trades t");
+      qs.createIndex("qtyIndex", "t.qty", "/trades t");
+    }
+    this.equalityQuery = qs.newQuery("SELECT * FROM /trades t WHERE t.symbol = $1");
+    this.rangeQuery = qs.newQuery("SELECT * FROM /trades t WHERE t.qty >= $1 AND t.qty < $2");
+    this.projectionQuery = qs.newQuery("SELECT t.id, t.symbol FROM /trades t WHERE t.symbol = $1");
+    this.equalityParams = new Object[] {"SYM42"};
+    this.rangeParams = new Object[] {Integer.valueOf(100), Integer.valueOf(110)};
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  @Benchmark
+  public Object equality() throws Exception {
+    return this.equalityQuery.execute(this.equalityParams);
+  }
+
+  @Benchmark
+  public Object range() throws Exception {
+    return this.rangeQuery.execute(this.rangeParams);
+  }
+
+  @Benchmark
+  public Object projection() throws Exception {
+    return this.projectionQuery.execute(this.equalityParams);
+  }
+
+  /**
+   * The value type stored in the queried region.
+   */
+  public static class Trade implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private final String symbol;
+    private final int qty;
+
+    public Trade(int id, String symbol, int qty) {
+      this.id = id;
+      this.symbol = symbol;
+      this.qty = qty;
+    }
+
+    public int getId() {
+      return this.id;
+    }
+
+    public String getSymbol() {
+      return this.symbol;
+    }
+
+    public int getQty() {
+      return this.qty;
+    }
+  }
+}
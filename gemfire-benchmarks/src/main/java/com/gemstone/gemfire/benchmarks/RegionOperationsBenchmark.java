@@ -0,0 +1,145 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionFactory;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.FileUtil;
+
+/**
+ * Measures {@link Region#put} and {@link Region#get} on a local cache for
+ * each of the main families of generated region entry classes.
+ *
+ * @since 9.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class RegionOperationsBenchmark {
+
+  /**
+   * The kind of region, which picks the region entry class:
+   * <ul>
+   * <li>thin - VMThinRegionEntryHeap
+   * <li>stats - VMStatsRegionEntryHeap
+   * <li>lru - VMThinLRURegionEntryHeap
+   * <li>disk - VersionedThinDiskRegionEntryHeap
+   * <li>versioned - VersionedThinRegionEntryHeap
+   * <li>offheap - VMThinRegionEntryOffHeap
+   * </ul>
+   */
+  @Param({"thin", "stats", "lru", "disk", "versioned", "offheap"})
+  public String entryType;
+
+  /** The number of keys, rounded up to a power of two */
+  @Param({"16384"})
+  public int keyCount;
+
+  private Cache cache;
+  private Region<Object, Object> region;
+  private Object[] keys;
+  private Object[] values;
+  private int keyMask;
+  private File diskDir;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Properties props = new Properties();
+    if ("offheap".equals(this.entryType)) {
+      props.setProperty(DistributionConfig.OFF_HEAP_MEMORY_SIZE_NAME, "256m");
+    }
+    this.cache = LonerCache.create(props);
+
+    RegionFactory<Object, Object> factory;
+    if ("versioned".equals(this.entryType)) {
+      factory = this.cache.createRegionFactory(RegionShortcut.REPLICATE);
+    } else if ("disk".equals(this.entryType)) {
+      this.diskDir = File.createTempFile("RegionOperationsBenchmark", "");
+      this.diskDir.delete();
+      this.diskDir.mkdirs();
+      this.cache.createDiskStoreFactory().setDiskDirs(new File[] {this.diskDir}).create("benchmark");
+      factory = this.cache.createRegionFactory(RegionShortcut.LOCAL_PERSISTENT);
+      factory.setDiskStoreName("benchmark");
+    } else {
+      factory = this.cache.createRegionFactory(RegionShortcut.LOCAL);
+      factory.setConcurrencyChecksEnabled(false);
+      if ("stats".equals(this.entryType)) {
+        factory.setStatisticsEnabled(true);
+      } else if ("lru".equals(this.entryType)) {
+        // big enough that nothing is evicted; this measures the clock upkeep
+        factory.setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(this.keyCount * 4));
+      } else if ("offheap".equals(this.entryType)) {
+        factory.setOffHeap(true);
+      }
+    }
+    this.region = factory.create("benchmark");
+
+    int n = Integer.highestOneBit(Math.max(1, this.keyCount - 1)) << 1;
+    this.keyMask = n - 1;
+    this.keys = new Object[n];
+    this.values = new Object[n];
+    for (int i = 0; i < n; i++) {
+      this.keys[i] = "key-" + i;
+      this.values[i] = "value-" + i;
+      this.region.put(this.keys[i], this.values[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    this.cache.close();
+    if (this.diskDir != null) {
+      FileUtil.delete(this.diskDir);
+    }
+  }
+
+  /**
+   * The position of each benchmark thread in the key array.
+   */
+  @State(Scope.Thread)
+  public static class KeyCursor {
+    int next = (int)Thread.currentThread().getId() * 7919;
+  }
+
+  @Benchmark
+  public Object get(KeyCursor cursor) {
+    return this.region.get(this.keys[cursor.next++ & this.keyMask]);
+  }
+
+  @Benchmark
+  public Object put(KeyCursor cursor) {
+    int idx = cursor.next++ & this.keyMask;
+    return this.region.put(this.keys[idx], this.values[idx]);
+  }
+}
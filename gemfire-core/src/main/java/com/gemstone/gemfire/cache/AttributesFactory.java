@@ -177,6 +177,11 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
  *          Setting <code>EvictionAttributes</code> installs an eviction controller
  *          on the Region instantiated with the associated RegionAttributes </dd>
  *
+ * <dt>OffHeap [<em>default:</em> <code>false</code>]</dt>
+ *     <dd>Whether or not entry values are stored outside of the Java heap in
+ *         the memory reserved by the <code>off-heap-memory-size</code> gemfire property.<br>
+ *         {@link #setOffHeap} {@link RegionAttributes#getOffHeap}</dd>
+ *
  * <dt>KeyConstraint [<em>default:</em> <code>null</code>, meaning no constraint]</dt>
  *     <dd>The Class to constrain the keys to in the region.<br>
  *         {@link #setKeyConstraint} {@link RegionAttributes#getKeyConstraint}</dd>
@@ -477,6 +482,7 @@ public class AttributesFactory<K,V> {
     }
     
     this.regionAttributes.compressor = regionAttributes.getCompressor();
+    this.regionAttributes.offHeap = regionAttributes.getOffHeap();
   }
 
   // CALLBACKS
@@ -1286,6 +1292,20 @@ public class AttributesFactory<K,V> {
     }
   }
 
+  /**
+   * Enables this region's usage of off-heap memory for storing entry values.
+   * The off-heap memory itself is reserved with the
+   * <code>off-heap-memory-size</code> gemfire property; creating an off-heap
+   * region in a member that has not reserved any will fail.
+   *
+   * @param offHeap true if this region should store its values off-heap
+   * @since 9.0
+   */
+  public void setOffHeap(boolean offHeap) {
+    this.regionAttributes.offHeap = offHeap;
+    this.regionAttributes.setHasOffHeap(true);
+  }
+
   // FACTORY METHOD
 
   /** Creates a <code>RegionAttributes</code> with the current settings.
@@ -1616,6 +1636,7 @@ public class AttributesFactory<K,V> {
     protected boolean isBucketRegion = false;
     private boolean isCloningEnabled = false;
     Compressor compressor = null;
+    boolean offHeap = false;
     
     /** Constructs an instance of <code>RegionAttributes</code> with default settings.
      * @see AttributesFactory
@@ -1671,6 +1692,7 @@ public class AttributesFactory<K,V> {
       buf.append("; GatewaySenderIds=").append(gatewaySenderIds);
       buf.append("; AsyncEventQueueIds=").append(asyncEventQueueIds);
       buf.append("; compressor=").append(compressor == null ? null : compressor.getClass().getName());
+      buf.append("; offHeap=").append(offHeap);
       return buf.toString();
     }
     public CacheLoader<K,V> getCacheLoader() {
@@ -1995,5 +2017,9 @@ public class AttributesFactory<K,V> {
     public Compressor getCompressor() {
       return this.compressor;
     }
+
+    public boolean getOffHeap() {
+      return this.offHeap;
+    }
   }
 }
@@ -190,6 +190,16 @@ public interface DiskStore {
    * @since 8.0
    */
   public float getDiskUsageCriticalPercentage();
+
+  /**
+   * Returns the number of milliseconds that a synchronous write may be delayed
+   * so that it can be written to disk together with the writes of other
+   * threads. Zero means that group commit is disabled.
+   * 
+   * @see DiskStoreFactory#setGroupCommitMaxDelay
+   * @since 9.0
+   */
+  public long getGroupCommitMaxDelay();
   
   /**
    * Sets the value of the disk usage warning percentage.
@@ -101,6 +101,13 @@ public interface DiskStoreFactory
    * <p>Current value: <code>99</code>.
    */
   public static final float DEFAULT_DISK_USAGE_CRITICAL_PERCENTAGE = 99;
+
+  /**
+   * The default group commit max delay in milliseconds.
+   * <p>Current value: <code>0</code> which disables group commit.
+   * @since 9.0
+   */
+  public static final long DEFAULT_GROUP_COMMIT_MAX_DELAY = 0;
   
   /** 
    * Set to <code>true</code> to cause the disk files to be automatically compacted.
@@ -221,6 +228,24 @@ public interface DiskStoreFactory
    */
   public DiskStoreFactory setDiskUsageCriticalPercentage(float criticalPercent);
 
+  /**
+   * Sets the number of milliseconds that a synchronous write may be delayed so
+   * that it can be written and synced to disk together with the writes of
+   * other threads. When set to a value greater than zero, threads doing
+   * synchronous writes append their records to the oplog's buffer and one of
+   * them writes, and if <code>gemfire.syncWrites</code> is set syncs, the whole
+   * batch for all of them. Each thread still waits until its own record is on
+   * disk before returning.
+   * <p>
+   * A value of zero, the default, writes each synchronous operation on its own.
+   * 
+   * @param milliseconds the maximum time to wait for more writes to batch
+   * @return a reference to <code>this</code>
+   * @throws IllegalArgumentException if <code>milliseconds</code> is negative
+   * @since 9.0
+   */
+  public DiskStoreFactory setGroupCommitMaxDelay(long milliseconds);
+
   /**
    * Create a new disk store or find an existing one. In either case the returned disk store's
    * configuration will be the same as this factory's configuration.
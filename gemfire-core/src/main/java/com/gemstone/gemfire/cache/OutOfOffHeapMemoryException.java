@@ -0,0 +1,39 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache;
+
+/**
+ * Indicates that a value could not be stored in a region because the
+ * off-heap memory configured with the <code>off-heap-memory-size</code>
+ * gemfire property has been exhausted.
+ *
+ * @see RegionAttributes#getOffHeap()
+ *
+ * @since 9.0
+ */
+public class OutOfOffHeapMemoryException extends ResourceException {
+
+  private static final long serialVersionUID = -2418297327463215672L;
+
+  /**
+   * Creates a new instance of <code>OutOfOffHeapMemoryException</code>.
+   */
+  public OutOfOffHeapMemoryException() {
+    super();
+  }
+
+  /**
+   * Constructs an instance of <code>OutOfOffHeapMemoryException</code> with
+   * the specified detail message.
+   *
+   * @param msg the detail message
+   */
+  public OutOfOffHeapMemoryException(String msg) {
+    super(msg);
+  }
+}
@@ -444,6 +444,18 @@ public interface RegionAttributes<K,V> {
    * @return null if the region does not have compression enabled.
    */
   public Compressor getCompressor();
+
+  /**
+   * Returns true if this region stores its entry values in off-heap memory.
+   * The off-heap memory is reserved with the <code>off-heap-memory-size</code>
+   * gemfire property.
+   * <p>
+   * Default is set to false.
+   *
+   * @since 9.0
+   * @return true if this region uses off-heap memory for its entry values
+   */
+  public boolean getOffHeap();
 }
 
 
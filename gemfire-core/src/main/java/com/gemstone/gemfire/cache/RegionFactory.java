@@ -890,4 +890,16 @@ public class RegionFactory<K,V>
     this.attrsFactory.setCompressor(compressor);
     return this;
   }
+
+  /**
+   * Enables this region's usage of off-heap memory for storing entry values.
+   * @param offHeap true if the region should store its values off-heap
+   * @return a reference to this RegionFactory instance
+   * @see AttributesFactory#setOffHeap
+   * @since 9.0
+   */
+  public RegionFactory<K,V> setOffHeap(boolean offHeap) {
+    this.attrsFactory.setOffHeap(offHeap);
+    return this;
+  }
 }
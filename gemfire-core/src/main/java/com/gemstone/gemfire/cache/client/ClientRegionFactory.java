@@ -294,6 +294,15 @@ public interface ClientRegionFactory<K,V> {
    * @since 8.0
    */
   public ClientRegionFactory<K,V> setCompressor(Compressor compressor);
+
+  /**
+   * Enables this region's usage of off-heap memory for storing entry values.
+   * @param offHeap true if the region should store its values off-heap
+   * @return a reference to this ClientRegionFactory object
+   * @see AttributesFactory#setOffHeap
+   * @since 9.0
+   */
+  public ClientRegionFactory<K,V> setOffHeap(boolean offHeap);
   
   /**
    * Creates a region in the {@link ClientCache} using
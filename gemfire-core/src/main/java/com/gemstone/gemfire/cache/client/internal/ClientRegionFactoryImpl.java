@@ -217,6 +217,12 @@ public class ClientRegionFactoryImpl<K,V> implements ClientRegionFactory<K,V>
     return this;
   }
 
+  @Override
+  public ClientRegionFactory<K, V> setOffHeap(boolean offHeap) {
+    this.attrsFactory.setOffHeap(offHeap);
+    return this;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public Region<K,V> create(String name) throws RegionExistsException {
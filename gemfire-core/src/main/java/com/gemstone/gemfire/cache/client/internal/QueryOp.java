@@ -8,12 +8,17 @@
 package com.gemstone.gemfire.cache.client.internal;
 
 import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import com.gemstone.gemfire.InternalGemFireError;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ChunkedMessage;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ObjectPartList;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Part;
+import com.gemstone.gemfire.cache.client.ServerConnectivityException;
+import com.gemstone.gemfire.cache.query.QueryResultIterator;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.types.CollectionType;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
@@ -50,6 +55,97 @@ public class QueryOp {
     }
     return (SelectResults)pool.execute(op);
   }
+
+  /**
+   * Does a region query on a server and returns an iterator that reads the
+   * results from the server as it advances. The iterator keeps a connection
+   * of the pool to itself until it is used up or closed.
+   * @param pool the pool to use to communicate with the server.
+   * @param queryPredicate A query language boolean query predicate
+   * @return an iterator over the values that match the
+   *         <code>queryPredicate</code>.
+   * @since 9.0
+   */
+  public static QueryResultIterator<Object> executeStreaming(PoolImpl pool,
+      String queryPredicate, Object[] queryParams)
+  {
+    StreamingQueryOpImpl op;
+    if (queryParams != null && queryParams.length > 0) {
+      op = new StreamingQueryOpImpl(queryPredicate, queryParams);
+    } else {
+      op = new StreamingQueryOpImpl(queryPredicate);
+    }
+    Connection cnx = pool.acquireConnection();
+    StreamingResultIterator result;
+    try {
+      result = (StreamingResultIterator)pool.executeOn(cnx, op);
+    } catch (RuntimeException e) {
+      pool.returnConnection(cnx);
+      throw e;
+    }
+    // the iterator now owns the connection
+    result.start(pool, cnx);
+    return result;
+  }
+
+  /**
+   * Reads the results in the current chunk of a query response.
+   * @param typeRef set to the collection type of the results, or to null if
+   *        the chunk holds the result of a count
+   * @return the results in the chunk
+   * @throws Exception if the server failed to execute the query or the
+   *         results could not be deserialized
+   */
+  static Object[] readResultChunk(ChunkedMessage cm, String opName,
+      CollectionType[] typeRef) throws Exception {
+    Part collectionTypePart = cm.getPart(0);
+    Object o = collectionTypePart.getObject();
+    if (o instanceof Throwable) {
+      String s = "While performing a remote " + opName;
+      throw new ServerOperationException(s, (Throwable)o);
+    }
+    CollectionType collectionType = (CollectionType)o;
+    Part resultPart = cm.getPart(1);
+    Object queryResult = null;
+    try {
+      queryResult = resultPart.getObject();
+    } catch (Exception e) {
+      String s = "While deserializing " + opName + " result";
+      throw new SerializationException(s, e);
+    }
+    if (queryResult instanceof Throwable) {
+      String s = "While performing a remote " + opName;
+      throw new ServerOperationException(s, (Throwable)queryResult);
+    } else if (queryResult instanceof Integer) {
+      typeRef[0] = null;
+      return new Object[] {queryResult};
+    }
+    // typical query result
+    typeRef[0] = collectionType;
+    ObjectType objectType = collectionType.getElementType();
+    Object[] resultArray;
+    // for select * queries, the serialized object byte arrays are
+    // returned as part of ObjectPartList
+    boolean isObjectPartList = false;
+    if (queryResult instanceof ObjectPartList) {
+      isObjectPartList = true;
+      resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
+    } else{ 
+      resultArray = (Object[]) queryResult;
+    }
+    if (objectType.isStructType()) {
+      for (int i = 0; i < resultArray.length; i++) {
+        if (isObjectPartList) {
+          resultArray[i] = new StructImpl((StructTypeImpl) objectType,
+              ((ObjectPartList) resultArray[i]).getObjects().toArray());
+        } else {
+          resultArray[i] = new StructImpl((StructTypeImpl) objectType,
+              (Object[]) resultArray[i]);
+        }
+      }
+    }
+    return resultArray;
+  }
                                                                
   private QueryOp() {
     // no instances allowed
@@ -94,71 +190,26 @@ public class QueryOp {
     protected Object processResponse(Message msg) throws Exception {
       final SelectResults[] resultRef = new SelectResults[1];
       final Exception[] exceptionRef = new Exception[1];
+      final CollectionType[] typeRef = new CollectionType[1];
       ChunkHandler ch = new ChunkHandler() {
           public void handle(ChunkedMessage cm) throws Exception {
-            Part collectionTypePart = cm.getPart(0);
-            Object o = collectionTypePart.getObject();
-            if (o instanceof Throwable) {
-              String s = "While performing a remote " + getOpName();
-              exceptionRef[0] = new ServerOperationException(s, (Throwable)o);
-              return;
-            }
-            CollectionType collectionType = (CollectionType)o;
-            Part resultPart = cm.getPart(1);
-            Object queryResult = null;
+            Object[] resultArray;
             try {
-              queryResult = resultPart.getObject();
+              resultArray = readResultChunk(cm, getOpName(), typeRef);
             } catch (Exception e) {
-              String s = "While deserializing " + getOpName() + " result";
-              exceptionRef[0] = new SerializationException(s, e);
+              // keep reading so that the whole response is consumed
+              exceptionRef[0] = e;
               return;
             }
-            if (queryResult instanceof Throwable) {
-              String s = "While performing a remote " + getOpName();
-              exceptionRef[0] = new ServerOperationException(s, (Throwable)queryResult);
-              return;
-            } else if (queryResult instanceof Integer) {
-              // Create the appropriate SelectResults instance if necessary
-              if (resultRef[0] == null) {
-                resultRef[0] = QueryUtils.
-                               getEmptySelectResults(TypeUtils.OBJECT_TYPE,
-                                                     null);
-              }
-              resultRef[0].add(queryResult);
-            } else { // typical query result
-              // Create the appropriate SelectResults instance if necessary
-              if (resultRef[0] == null) {
-                resultRef[0] = QueryUtils.getEmptySelectResults(collectionType,
-                                                                null);
-              }
-              SelectResults selectResults = resultRef[0];
-              ObjectType objectType = collectionType.getElementType();
-              Object[] resultArray;
-             // for select * queries, the serialized object byte arrays are
-             // returned as part of ObjectPartList
-              boolean isObjectPartList = false;
-              if (queryResult instanceof ObjectPartList) {
-                isObjectPartList = true;
-                resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
-              } else{ 
-                // Add the results to the SelectResults
-                resultArray = (Object[]) queryResult;
-              }
-              if (objectType.isStructType()) {
-                for (int i = 0; i < resultArray.length; i++) {
-                  if (isObjectPartList) {
-                    selectResults
-                        .add(new StructImpl((StructTypeImpl) objectType,
-                            ((ObjectPartList) resultArray[i]).getObjects()
-                                .toArray()));
-                  } else {
-                    selectResults.add(new StructImpl((StructTypeImpl) objectType,
-                        (Object[]) resultArray[i]));
-                  }
-                }
-              } else {
-                selectResults.addAll(Arrays.asList(resultArray));
-              }
+            // Create the appropriate SelectResults instance if necessary
+            if (resultRef[0] == null) {
+              resultRef[0] = QueryUtils.getEmptySelectResults(
+                  typeRef[0] == null ? TypeUtils.OBJECT_TYPE : typeRef[0], null);
+            }
+            if (resultArray.length == 1) {
+              resultRef[0].add(resultArray[0]);
+            } else {
+              resultRef[0].addAll(Arrays.asList(resultArray));
             }
           }
         };
@@ -191,4 +242,194 @@ public class QueryOp {
       stats.endQuery(start, hasTimedOut(), hasFailed());
     }
   }
+
+  /**
+   * Sends a query and reads only the first chunk of the response, leaving the
+   * rest of the response to a {@link StreamingResultIterator}.
+   */
+  private static class StreamingQueryOpImpl extends QueryOpImpl {
+    public StreamingQueryOpImpl(String queryPredicate) {
+      super(queryPredicate);
+    }
+
+    public StreamingQueryOpImpl(String queryPredicate, Object[] queryParams) {
+      super(queryPredicate, queryParams);
+    }
+
+    @Override
+    protected Object attemptReadResponse(Connection cnx) throws Exception {
+      ChunkedMessage msg = (ChunkedMessage)createResponseMessage();
+      msg.setComms(cnx.getSocket(), cnx.getInputStream(),
+          cnx.getOutputStream(), cnx.getCommBuffer(), cnx.getStats());
+      boolean streaming = false;
+      try {
+        msg.readHeader();
+        final int msgType = msg.getMessageType();
+        if (msgType == MessageType.RESPONSE) {
+          StreamingResultIterator result = new StreamingResultIterator(this, msg);
+          result.readNextChunk();
+          streaming = !msg.isLastChunk();
+          return result;
+        } else if (msgType == MessageType.EXCEPTION) {
+          msg.receiveChunk();
+          Part part = msg.getPart(0);
+          String s = "While performing a remote " + getOpName();
+          throw new ServerOperationException(s, (Throwable) part.getObject());
+        } else if (isErrorResponse(msgType)) {
+          msg.receiveChunk();
+          Part part = msg.getPart(0);
+          throw new ServerOperationException(part.getString());
+        } else {
+          throw new InternalGemFireError("Unexpected message type "
+                                         + MessageType.getString(msgType));
+        }
+      } finally {
+        if (!streaming) {
+          msg.unsetComms();
+          processSecureBytes(cnx, msg);
+        }
+      }
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      throw new UnsupportedOperationException();
+    }
+
+    void finishResponse(Connection cnx, ChunkedMessage msg) throws Exception {
+      msg.unsetComms();
+      processSecureBytes(cnx, msg);
+    }
+  }
+
+  /**
+   * Iterates over the results of a query, reading the next chunk of the
+   * response from the connection when the current one is used up. The
+   * connection goes back to the pool once the last chunk has been read, or
+   * is destroyed if the iterator is closed before.
+   */
+  private static final class StreamingResultIterator implements QueryResultIterator<Object> {
+    private final StreamingQueryOpImpl op;
+    private final ChunkedMessage msg;
+    private final CollectionType[] typeRef = new CollectionType[1];
+    private PoolImpl pool;
+    private Connection cnx;
+    private Object[] rows;
+    private int index;
+    /** An exception sent by the server, thrown once the response is read */
+    private Exception failure;
+    private boolean lastChunk;
+    private boolean closed;
+
+    StreamingResultIterator(StreamingQueryOpImpl op, ChunkedMessage msg) {
+      this.op = op;
+      this.msg = msg;
+    }
+
+    /**
+     * Hands the connection over to this iterator once the first chunk has
+     * been read.
+     */
+    void start(PoolImpl pool, Connection cnx) {
+      this.pool = pool;
+      this.cnx = cnx;
+      if (this.failure != null) {
+        // drains the response and throws the failure
+        this.rows = new Object[0];
+        hasNext();
+      } else if (this.lastChunk) {
+        release(false);
+      }
+    }
+
+    void readNextChunk() throws Exception {
+      this.msg.receiveChunk();
+      this.lastChunk = this.msg.isLastChunk();
+      this.index = 0;
+      if (this.failure != null) {
+        // nothing more is returned once the server has reported a failure
+        this.rows = new Object[0];
+        return;
+      }
+      try {
+        this.rows = readResultChunk(this.msg, this.op.getOpName(), this.typeRef);
+      } catch (Exception e) {
+        // the rest of the response is still read to keep the connection usable
+        this.rows = new Object[0];
+        this.failure = e;
+      }
+    }
+
+    public boolean hasNext() {
+      while (this.index >= this.rows.length) {
+        if (this.closed) {
+          return false;
+        }
+        if (this.lastChunk) {
+          release(false);
+          throwFailure();
+          return false;
+        }
+        try {
+          readNextChunk();
+          if (this.lastChunk) {
+            this.op.finishResponse(this.cnx, this.msg);
+          }
+        } catch (Exception e) {
+          release(true);
+          if (e instanceof RuntimeException) {
+            throw (RuntimeException)e;
+          }
+          throw new ServerConnectivityException("While reading a remote " + this.op.getOpName() + " result", e);
+        }
+      }
+      return true;
+    }
+
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Object result = this.rows[this.index];
+      this.rows[this.index++] = null;
+      return result;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      if (!this.closed) {
+        // the unread chunks are dropped with the connection
+        release(!this.lastChunk);
+        this.rows = new Object[0];
+      }
+    }
+
+    private void release(boolean destroy) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      if (this.cnx != null) {
+        if (destroy) {
+          this.msg.unsetComms();
+          this.cnx.destroy();
+        }
+        this.pool.returnConnection(this.cnx);
+      }
+    }
+
+    private void throwFailure() {
+      Exception e = this.failure;
+      if (e != null) {
+        this.failure = null;
+        if (e instanceof RuntimeException) {
+          throw (RuntimeException)e;
+        }
+        throw new ServerOperationException("While performing a remote " + this.op.getOpName(), e);
+      }
+    }
+  }
 }
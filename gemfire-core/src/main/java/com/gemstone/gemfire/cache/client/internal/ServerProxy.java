@@ -9,6 +9,7 @@ package com.gemstone.gemfire.cache.client.internal;
 
 import java.util.List;
 
+import com.gemstone.gemfire.cache.query.QueryResultIterator;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
 
@@ -56,5 +57,17 @@ public class ServerProxy {
   {
     return QueryOp.execute(this.pool, queryPredicate, queryParams);
   }
+
+  /**
+   * Does a query on a server, reading the results as they are iterated
+   * @param queryPredicate A query language boolean query predicate
+   * @return  An iterator over the values that match the
+   *            <code>queryPredicate</code>.
+   * @since 9.0
+   */
+  public QueryResultIterator<Object> queryStreaming(String queryPredicate, Object[] queryParams)
+  {
+    return QueryOp.executeStreaming((PoolImpl)this.pool, queryPredicate, queryParams);
+  }
   
 }
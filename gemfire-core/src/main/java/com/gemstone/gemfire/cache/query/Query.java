@@ -148,6 +148,41 @@ public interface Query {
     throws FunctionDomainException, TypeMismatchException, NameResolutionException,
            QueryInvocationTargetException;
 
+  /**
+   * Executes this query with the given parameters and returns an iterator
+   * over its results. If the query is executed on a server through a
+   * {@link com.gemstone.gemfire.cache.client.Pool}, the results are sent by
+   * the server in chunks and read by the iterator as it advances, so a
+   * query with a large result does not need to fit in the client's heap. If
+   * the query resolves to a single object, such as a count, the iterator
+   * returns that object.
+   * <p>
+   * The returned iterator must be {@link QueryResultIterator#close() closed}
+   * if it is not used up.
+   *
+   * @param params
+   *        Values that are bound to parameters (such as
+   *        <code>$1</code>) in this query.
+   *
+   * @return an iterator over the results of the query
+   *
+   * @throws FunctionDomainException
+   *         A function was applied to a parameter that is improper
+   *         for that function.
+   * @throws TypeMismatchException
+   *         If a bound parameter is not of the expected type.
+   * @throws NameResolutionException
+   *         If a name in the query cannot be resolved.
+   * @throws QueryInvocationTargetException
+   *         If the data referenced in from clause is not available for
+   *         querying.
+   * @see #execute(Object[])
+   * @since 9.0
+   */
+  public QueryResultIterator<Object> executeStreaming(Object[] params)
+    throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+           QueryInvocationTargetException;
+
   /**
    * Executes this query on the partitioned data-store associated with the given
    * RegionFunctionContext and returns an object that represents its result. An
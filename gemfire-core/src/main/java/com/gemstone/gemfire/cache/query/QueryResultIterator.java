@@ -0,0 +1,43 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query;
+
+import java.util.Iterator;
+
+/**
+ * Iterates over the results of a query returned by
+ * {@link Query#executeStreaming(Object[])}. When the query is executed on a
+ * server the results are read from the server in chunks as the iterator
+ * advances, so that only one chunk at a time is held by the client.
+ * <p>
+ * The iterator holds a connection to the server until it has returned all
+ * the results or is {@link #close() closed}. An iterator that is not used up
+ * must always be closed.
+ *
+ * <pre>
+ * QueryResultIterator&lt;Object&gt; it = query.executeStreaming(new Object[0]);
+ * try {
+ *   while (it.hasNext()) {
+ *     process(it.next());
+ *   }
+ * } finally {
+ *   it.close();
+ * }
+ * </pre>
+ *
+ * @since 9.0
+ */
+public interface QueryResultIterator<E> extends Iterator<E> {
+
+  /**
+   * Stops the iteration and releases the connection to the server, if any.
+   * The results that have not been read yet are dropped. Calling this method
+   * more than once has no effect.
+   */
+  public void close();
+}
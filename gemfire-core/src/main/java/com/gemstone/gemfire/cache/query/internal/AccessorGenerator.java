@@ -0,0 +1,138 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static com.gemstone.gemfire.internal.ClassFileWriter.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.gemstone.gemfire.InternalGemFireError;
+import com.gemstone.gemfire.internal.ClassFileWriter;
+
+/**
+ * Generates the bytecode of an {@link AttributeAccessor} that reads a public
+ * field or calls a public method without arguments directly, boxing a
+ * primitive result. The generated <code>read</code> method is equivalent to
+ *
+ * <pre>
+ * public Object read(Object target) {
+ *   return Integer.valueOf(((Owner)target).getX());
+ * }
+ * </pre>
+ *
+ * @since 9.0
+ */
+final class AccessorGenerator {
+
+  private static final String SUPER_CLASS = internalName(AttributeAccessor.class);
+
+  private static final String CLASS_NAME_PREFIX = SUPER_CLASS + "$Generated";
+
+  private static final AtomicInteger classCount = new AtomicInteger();
+
+  private AccessorGenerator() {
+  }
+
+  /**
+   * Returns a new accessor for the given member of <code>targetClass</code>,
+   * or null if generated code could not access it.
+   */
+  static AttributeAccessor generate(Class targetClass, Member member) {
+    if (!Modifier.isPublic(member.getModifiers())
+        || Modifier.isStatic(member.getModifiers())) {
+      return null;
+    }
+    // refer to the member through a public class so that the generated
+    // class, which is in a package of its own, can link to it
+    Class owner;
+    if (Modifier.isPublic(targetClass.getModifiers())) {
+      owner = targetClass;
+    } else if (Modifier.isPublic(member.getDeclaringClass().getModifiers())) {
+      owner = member.getDeclaringClass();
+    } else {
+      return null;
+    }
+    Class type;
+    if (member instanceof Method) {
+      type = ((Method)member).getReturnType();
+      if (type == void.class) {
+        return null;
+      }
+    } else {
+      type = ((Field)member).getType();
+    }
+    String className = CLASS_NAME_PREFIX + classCount.incrementAndGet();
+    byte[] bytes = writeClass(className, owner, member, type);
+    Class generated = ClassFileWriter.defineClass(className, bytes,
+        targetClass.getClassLoader(), AccessorGenerator.class);
+    try {
+      return (AttributeAccessor)generated.newInstance();
+    } catch (InstantiationException e) {
+      throw new InternalGemFireError(e);
+    } catch (IllegalAccessException e) {
+      throw new InternalGemFireError(e);
+    }
+  }
+
+  private static byte[] writeClass(String className, Class owner,
+      Member member, Class type) {
+    ClassFileWriter writer = new ClassFileWriter(className, SUPER_CLASS);
+    writer.addDefaultConstructor(SUPER_CLASS);
+
+    Code read = new Code();
+    read.op(ALOAD_1);
+    read.op(CHECKCAST, writer.classRef(internalName(owner)));
+    if (member instanceof Method) {
+      String descriptor = "()" + descriptor(type);
+      if (owner.isInterface()) {
+        read.invokeInterface(writer.interfaceMethodRef(internalName(owner),
+            member.getName(), descriptor), 1);
+      } else {
+        read.op(INVOKEVIRTUAL, writer.methodRef(internalName(owner),
+            member.getName(), descriptor));
+      }
+    } else {
+      read.op(GETFIELD, writer.fieldRef(internalName(owner), member.getName(),
+          descriptor(type)));
+    }
+    if (type.isPrimitive()) {
+      String boxClass = internalName(boxType(type));
+      read.op(INVOKESTATIC, writer.methodRef(boxClass, "valueOf", "("
+          + descriptor(type) + ")L" + boxClass + ";"));
+    }
+    read.op(ARETURN);
+    // a long or double result takes two stack slots
+    writer.addMethod("read", "(Ljava/lang/Object;)Ljava/lang/Object;", 2, 2, read);
+    return writer.toByteArray();
+  }
+
+  private static Class boxType(Class c) {
+    if (c == int.class) {
+      return Integer.class;
+    } else if (c == long.class) {
+      return Long.class;
+    } else if (c == double.class) {
+      return Double.class;
+    } else if (c == float.class) {
+      return Float.class;
+    } else if (c == boolean.class) {
+      return Boolean.class;
+    } else if (c == char.class) {
+      return Character.class;
+    } else if (c == short.class) {
+      return Short.class;
+    } else if (c == byte.class) {
+      return Byte.class;
+    }
+    throw new IllegalArgumentException(c.getName());
+  }
+}
@@ -0,0 +1,156 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.cache.query.NameNotFoundException;
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * Reads an attribute or calls a method without arguments on objects of one
+ * class. Compiled query expressions use accessors instead of reflection to
+ * evaluate paths; the accessors for public members of public classes are
+ * generated by {@link AccessorGenerator} and call the member directly.
+ * <p>
+ * This class is public only because the generated subclasses are defined in
+ * their own class loaders.
+ *
+ * @since 9.0
+ */
+public abstract class AttributeAccessor {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /** the accessors created so far, by class and then by member name */
+  private static final ConcurrentMap<Class, ConcurrentMap<String, AttributeAccessor>> accessors =
+      new ConcurrentHashMap<Class, ConcurrentMap<String, AttributeAccessor>>();
+
+  protected AttributeAccessor() {
+  }
+
+  /**
+   * Returns the value of the attribute of the given target, which must be an
+   * instance of the class this accessor was created for. Exceptions thrown
+   * by the member, checked or not, are passed on unwrapped.
+   */
+  public abstract Object read(Object target);
+
+  /**
+   * Returns the accessor that evaluates the given attribute, or the method
+   * with the given name and no arguments if <code>isMethod</code> is true, on
+   * instances of <code>targetClass</code>.
+   *
+   * @throws NameNotFoundException if the class has no such public attribute
+   *           or method
+   */
+  static AttributeAccessor getAccessor(Class targetClass, String name,
+      boolean isMethod) throws NameNotFoundException {
+    ConcurrentMap<String, AttributeAccessor> classAccessors = accessors.get(targetClass);
+    if (classAccessors == null) {
+      classAccessors = new ConcurrentHashMap<String, AttributeAccessor>();
+      ConcurrentMap<String, AttributeAccessor> old = accessors.putIfAbsent(
+          targetClass, classAccessors);
+      if (old != null) {
+        classAccessors = old;
+      }
+    }
+    String key = isMethod ? name + "()" : name;
+    AttributeAccessor accessor = classAccessors.get(key);
+    if (accessor == null) {
+      Member member;
+      if (isMethod) {
+        try {
+          member = targetClass.getMethod(name, (Class[])null);
+        } catch (NoSuchMethodException e) {
+          throw new NameNotFoundException(name, e);
+        }
+      } else {
+        member = new AttributeDescriptor(name).getReadMember(targetClass);
+      }
+      accessor = createAccessor(targetClass, member);
+      AttributeAccessor old = classAccessors.putIfAbsent(key, accessor);
+      if (old != null) {
+        accessor = old;
+      }
+    }
+    return accessor;
+  }
+
+  private static AttributeAccessor createAccessor(Class targetClass,
+      Member member) {
+    try {
+      AttributeAccessor accessor = AccessorGenerator.generate(targetClass, member);
+      if (accessor != null) {
+        return accessor;
+      }
+    } catch (LinkageError e) {
+      // the class loader of the target class may not be able to see the
+      // accessor class, for instance
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not generate an accessor for {} in {}: {}",
+            member.getName(), targetClass.getName(), e);
+      }
+    }
+    return new ReflectiveAccessor(member);
+  }
+
+  /**
+   * Accesses a member that generated code cannot call directly, such as a
+   * public method of a class that is not public, through reflection.
+   */
+  static final class ReflectiveAccessor extends AttributeAccessor {
+
+    private final Member member;
+
+    ReflectiveAccessor(Member member) {
+      this.member = member;
+      ((java.lang.reflect.AccessibleObject)member).setAccessible(true);
+    }
+
+    @Override
+    public Object read(Object target) {
+      try {
+        if (this.member instanceof Method) {
+          return ((Method)this.member).invoke(target, (Object[])null);
+        }
+        return ((Field)this.member).get(target);
+      } catch (InvocationTargetException e) {
+        Throwable t = e.getTargetException();
+        if (t instanceof RuntimeException) {
+          throw (RuntimeException)t;
+        }
+        if (t instanceof Error) {
+          throw (Error)t;
+        }
+        throw new AccessorException(t);
+      } catch (IllegalAccessException e) {
+        throw new AccessorException(e);
+      }
+    }
+  }
+
+  /**
+   * Wraps a checked exception thrown while reading an attribute through
+   * reflection.
+   */
+  static final class AccessorException extends RuntimeException {
+    private static final long serialVersionUID = 5469380497123745423L;
+
+    AccessorException(Throwable cause) {
+      super(cause);
+    }
+  }
+}
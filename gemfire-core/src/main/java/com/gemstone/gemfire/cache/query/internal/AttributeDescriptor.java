@@ -31,6 +31,7 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.pdx.internal.FieldNotFoundInPdxVersion;
+import com.gemstone.gemfire.pdx.internal.PdxField;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
 import com.gemstone.gemfire.pdx.JSONFormatter;
 
@@ -304,9 +305,10 @@ public class AttributeDescriptor {
     if (target instanceof PdxInstanceImpl) {
       PdxInstanceImpl pdxInstance = (PdxInstanceImpl) target;
       // if the field is present in the pdxinstance
-      if (pdxInstance.hasField(_name)) { 
+      PdxField field = pdxInstance.getPdxType().getPdxField(_name);
+      if (field != null) {
         // return PdxString if field is a String otherwise invoke readField
-        return pdxInstance.getRawField(_name);
+        return pdxInstance.getRawField(field);
       }
       else {
         // field not found in the pdx instance, look for the field in any of the
@@ -0,0 +1,173 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import com.gemstone.gemfire.cache.EntryDestroyedException;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameNotFoundException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.Struct;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.internal.PdxField;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+import com.gemstone.gemfire.pdx.internal.PdxType;
+
+/**
+ * Reads an attribute, or calls a method without arguments, of the value of
+ * a compiled receiver. Stands in for a {@link CompiledPath}, an implicit
+ * attribute {@link CompiledID} or a {@link CompiledOperation} in the
+ * expressions compiled by {@link QueryCompiler}.
+ * <p>
+ * Plain objects are read through the {@link AttributeAccessor} of their
+ * class, and PDX instances through the {@link PdxField} of their type. The
+ * last class and type seen are remembered, so that the lookup is only
+ * repeated when the receivers change class. Any other receiver is handed to
+ * the original expression, which evaluates the receiver again.
+ *
+ * @since 9.0
+ */
+class CompiledAccessorPath extends AbstractCompiledValue {
+
+  private static final String TOKEN_CLASS_PREFIX = "com.gemstone.gemfire.internal.cache.Token$";
+
+  /** the expression this path was compiled from */
+  private final CompiledValue original;
+
+  private final CompiledValue receiver;
+
+  private final String name;
+
+  /** true if the name is the name of a method rather than an attribute */
+  private final boolean isMethod;
+
+  private volatile AccessorEntry accessorEntry;
+
+  private volatile PdxFieldEntry pdxFieldEntry;
+
+  CompiledAccessorPath(CompiledValue original, CompiledValue receiver,
+      String name, boolean isMethod) {
+    this.original = original;
+    this.receiver = receiver;
+    this.name = name;
+    this.isMethod = isMethod;
+  }
+
+  public int getType() {
+    return this.original.getType();
+  }
+
+  public Object evaluate(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object target = this.receiver.evaluate(context);
+    if (target == null || target == QueryService.UNDEFINED) {
+      return QueryService.UNDEFINED;
+    }
+    Class targetClass = target.getClass();
+    Object result;
+    if (targetClass == PdxInstanceImpl.class && !this.isMethod) {
+      PdxField field = getPdxField((PdxInstanceImpl)target);
+      if (field == null) {
+        return this.original.evaluate(context);
+      }
+      result = ((PdxInstanceImpl)target).getRawField(field);
+    } else {
+      AttributeAccessor accessor = getAccessor(targetClass);
+      if (accessor == null) {
+        return this.original.evaluate(context);
+      }
+      try {
+        result = accessor.read(target);
+      } catch (EntryDestroyedException e) {
+        if (this.isMethod) {
+          throw new QueryInvocationTargetException(e);
+        }
+        return QueryService.UNDEFINED;
+      } catch (AttributeAccessor.AccessorException e) {
+        throw new QueryInvocationTargetException(e.getCause());
+      } catch (Exception e) {
+        throw new QueryInvocationTargetException(e);
+      }
+    }
+    // check for BucketRegion substitution
+    if (result instanceof Region) {
+      PartitionedRegion pr = context.getPartitionedRegion();
+      if (pr != null && pr.getFullPath().equals(((Region)result).getFullPath())) {
+        result = context.getBucketRegion();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the accessor for receivers of the given class, or null if they
+   * are to be evaluated by the original expression.
+   */
+  private AttributeAccessor getAccessor(Class targetClass) {
+    AccessorEntry entry = this.accessorEntry;
+    if (entry == null || entry.targetClass != targetClass) {
+      AttributeAccessor accessor = null;
+      if (!Struct.class.isAssignableFrom(targetClass)
+          && !PdxInstance.class.isAssignableFrom(targetClass)
+          && targetClass != PdxString.class
+          && !targetClass.getName().startsWith(TOKEN_CLASS_PREFIX)) {
+        try {
+          accessor = AttributeAccessor.getAccessor(targetClass, this.name,
+              this.isMethod);
+        } catch (NameNotFoundException e) {
+          // leave it to the original expression to report
+        }
+      }
+      entry = new AccessorEntry(targetClass, accessor);
+      this.accessorEntry = entry;
+    }
+    return entry.accessor;
+  }
+
+  private PdxField getPdxField(PdxInstanceImpl target) {
+    PdxType type = target.getPdxType();
+    PdxFieldEntry entry = this.pdxFieldEntry;
+    if (entry == null || entry.type != type) {
+      entry = new PdxFieldEntry(type, type.getPdxField(this.name));
+      this.pdxFieldEntry = entry;
+    }
+    return entry.field;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledAccessorPath[" + this.receiver + "." + this.name
+        + (this.isMethod ? "()]" : "]");
+  }
+
+  private static final class AccessorEntry {
+    final Class targetClass;
+    final AttributeAccessor accessor;
+
+    AccessorEntry(Class targetClass, AttributeAccessor accessor) {
+      this.targetClass = targetClass;
+      this.accessor = accessor;
+    }
+  }
+
+  private static final class PdxFieldEntry {
+    final PdxType type;
+    final PdxField field;
+
+    PdxFieldEntry(PdxType type, PdxField field) {
+      this.type = type;
+      this.field = field;
+    }
+  }
+}
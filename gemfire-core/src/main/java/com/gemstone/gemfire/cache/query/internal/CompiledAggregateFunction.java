@@ -0,0 +1,261 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+
+/**
+ * An aggregate function of a grouped select: SUM, AVG, MIN, MAX or COUNT.
+ * <p>
+ * The function is computed by {@link CompiledGroupBySelect}, which keeps one
+ * state per group and feeds it the value of the argument for each row with
+ * {@link #accumulate}. States computed on different members are combined with
+ * {@link #merge}, so they only hold numbers and query values that can be sent
+ * to another member. Evaluating the function returns the result for the
+ * current group. Null and UNDEFINED arguments are ignored, and the functions
+ * other than COUNT return null for a group without any other value.
+ *
+ * @since 9.0
+ */
+public class CompiledAggregateFunction extends AbstractCompiledValue {
+
+  /** the token type of the function */
+  private final int aggregateType;
+  /** the argument, null for COUNT(*) */
+  private final CompiledValue expr;
+  /** the index of this function in the group states */
+  private int index;
+
+  public CompiledAggregateFunction(int aggregateType, CompiledValue expr) {
+    this.aggregateType = aggregateType;
+    this.expr = expr;
+  }
+
+  public int getType() {
+    return AGG_FUNC;
+  }
+
+  public int getAggregateType() {
+    return this.aggregateType;
+  }
+
+  public CompiledValue getExpr() {
+    return this.expr;
+  }
+
+  void setIndex(int index) {
+    this.index = index;
+  }
+
+  /**
+   * Returns the name of the function, used as the name of its projection
+   */
+  public String getFunctionName() {
+    switch (this.aggregateType) {
+    case LITERAL_sum:
+      return "sum";
+    case LITERAL_avg:
+      return "avg";
+    case LITERAL_min:
+      return "min";
+    case LITERAL_max:
+      return "max";
+    default:
+      return "count";
+    }
+  }
+
+  @Override
+  public List getChildren() {
+    if (this.expr == null) {
+      return Collections.EMPTY_LIST;
+    }
+    return Collections.singletonList(this.expr);
+  }
+
+  /**
+   * An aggregate depends on the rows of its group, not on the current row, so
+   * it has no dependencies of its own.
+   */
+  @Override
+  public Set computeDependencies(ExecutionContext context) throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    if (this.expr != null) {
+      this.expr.computeDependencies(context);
+    }
+    return Collections.EMPTY_SET;
+  }
+
+  public Object evaluate(ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object[] states = (Object[])context.cacheGet(GROUP_AGGREGATES);
+    if (states == null) {
+      throw new TypeMismatchException(getFunctionName() + " can only be used in the projection, having or order by clause");
+    }
+    return getResult(states[this.index]);
+  }
+
+  /**
+   * Evaluates the argument for the current row and adds it to
+   * <code>state</code>.
+   *
+   * @return the new state
+   */
+  Object accumulate(Object state, ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    if (this.expr == null) {
+      return add(state, 1);
+    }
+    Object value = this.expr.evaluate(context);
+    if (value == null || value == QueryService.UNDEFINED) {
+      return state;
+    }
+    if (value instanceof PdxString) {
+      value = value.toString();
+    }
+    switch (this.aggregateType) {
+    case LITERAL_count:
+      return add(state, 1);
+    case LITERAL_sum:
+      return sum(state, checkNumber(value));
+    case LITERAL_avg: {
+      Object[] avg = (Object[])state;
+      if (avg == null) {
+        return new Object[] { sum(null, checkNumber(value)), 1 };
+      }
+      avg[0] = sum(avg[0], checkNumber(value));
+      avg[1] = add(avg[1], 1);
+      return avg;
+    }
+    case LITERAL_min:
+      return state == null || isLess(value, state) ? value : state;
+    default:
+      return state == null || isLess(state, value) ? value : state;
+    }
+  }
+
+  /**
+   * Combines the states of the same group computed over different rows.
+   *
+   * @return the combined state
+   */
+  Object merge(Object state1, Object state2) throws TypeMismatchException {
+    if (state1 == null) {
+      return state2;
+    }
+    if (state2 == null) {
+      return state1;
+    }
+    switch (this.aggregateType) {
+    case LITERAL_count:
+      return add(state1, ((Integer)state2).intValue());
+    case LITERAL_sum:
+      return sum(state1, (Number)state2);
+    case LITERAL_avg: {
+      Object[] avg1 = (Object[])state1;
+      Object[] avg2 = (Object[])state2;
+      return new Object[] { sum(avg1[0], (Number)avg2[0]), add(avg1[1], ((Integer)avg2[1]).intValue()) };
+    }
+    case LITERAL_min:
+      return isLess(state2, state1) ? state2 : state1;
+    default:
+      return isLess(state1, state2) ? state2 : state1;
+    }
+  }
+
+  /**
+   * Returns the value of the function for a group with <code>state</code>.
+   */
+  Object getResult(Object state) {
+    switch (this.aggregateType) {
+    case LITERAL_count:
+      return state == null ? Integer.valueOf(0) : state;
+    case LITERAL_avg: {
+      if (state == null) {
+        return null;
+      }
+      Object[] avg = (Object[])state;
+      double count = ((Integer)avg[1]).doubleValue();
+      if (avg[0] instanceof BigDecimal) {
+        return Double.valueOf(((BigDecimal)avg[0]).doubleValue() / count);
+      }
+      return Double.valueOf(((Number)avg[0]).doubleValue() / count);
+    }
+    default:
+      return state;
+    }
+  }
+
+  private static Integer add(Object count, int n) {
+    return Integer.valueOf(count == null ? n : ((Integer)count).intValue() + n);
+  }
+
+  /**
+   * Adds two numbers. Integral values are summed as a Long, floating point
+   * values as a Double and the others as a BigDecimal.
+   */
+  private static Number sum(Object sum, Number value) {
+    if (sum == null) {
+      if (isIntegral(value)) {
+        return Long.valueOf(value.longValue());
+      }
+      if (value instanceof BigDecimal || value instanceof BigInteger) {
+        return toBigDecimal(value);
+      }
+      return Double.valueOf(value.doubleValue());
+    }
+    if (sum instanceof Long && isIntegral(value)) {
+      return Long.valueOf(((Long)sum).longValue() + value.longValue());
+    }
+    if (sum instanceof BigDecimal || value instanceof BigDecimal || value instanceof BigInteger) {
+      return toBigDecimal((Number)sum).add(toBigDecimal(value));
+    }
+    return Double.valueOf(((Number)sum).doubleValue() + value.doubleValue());
+  }
+
+  private static boolean isIntegral(Number n) {
+    return n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte;
+  }
+
+  private static BigDecimal toBigDecimal(Number n) {
+    if (n instanceof BigDecimal) {
+      return (BigDecimal)n;
+    }
+    if (n instanceof BigInteger) {
+      return new BigDecimal((BigInteger)n);
+    }
+    if (isIntegral(n)) {
+      return BigDecimal.valueOf(n.longValue());
+    }
+    return BigDecimal.valueOf(n.doubleValue());
+  }
+
+  private Number checkNumber(Object value) throws TypeMismatchException {
+    if (!(value instanceof Number)) {
+      throw new TypeMismatchException(getFunctionName() + " requires a number, not " + value.getClass().getName());
+    }
+    return (Number)value;
+  }
+
+  private static boolean isLess(Object v1, Object v2) throws TypeMismatchException {
+    return Boolean.TRUE.equals(TypeUtils.compare(v1, v2, TOK_LT));
+  }
+}
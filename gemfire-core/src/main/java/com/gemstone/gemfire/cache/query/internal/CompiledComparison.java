@@ -804,6 +804,9 @@ public class CompiledComparison extends AbstractCompiledValue implements
     if (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints()) {
       return thisSize <= thatSize;
     }
+    if (IndexCostModel.ENABLED) {
+      return IndexCostModel.isBetterFilter(this, thisSize, comparedTo, thatSize);
+    }
     
     //There may be some hard rules that give unoptimal selections based on these switch cases.
     if(this._operator == TOK_EQ || this._operator == TOK_NE || this._operator == TOK_NE_ALT) {
@@ -0,0 +1,473 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.Struct;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.cache.query.types.ObjectType;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+
+/**
+ * A select with a GROUP BY clause or aggregate functions.
+ * <p>
+ * The from and where clauses are evaluated by {@link CompiledSelect}, which
+ * returns the matching rows. The rows are then grouped by the values of the
+ * GROUP BY expressions and the state of each aggregate function is computed
+ * for every group. Finally the HAVING condition, the projections, the ORDER BY
+ * criteria, DISTINCT and LIMIT are applied to the groups in that order.
+ * <p>
+ * When the select runs on the buckets of a partitioned region the groups are
+ * not finished. Instead the select returns one partial row per group, holding
+ * the group keys followed by the aggregate states, and the member that runs
+ * the query combines the partial rows of all the members with
+ * {@link #mergePartialResults}.
+ *
+ * @since 9.0
+ */
+public class CompiledGroupBySelect extends CompiledSelect {
+
+  /** projection attributes: list of Object[2] of name and CompiledValue */
+  private final List projAttrs;
+  /** the GROUP BY expressions or null */
+  private final List groupByAttrs;
+  private final CompiledValue having;
+  private final List<CompiledAggregateFunction> aggregates;
+  /** list of CompiledSortCriterion or null */
+  private final List orderByAttrs;
+  private final CompiledValue limit;
+  private final boolean groupDistinct;
+
+  public CompiledGroupBySelect(boolean distinct, CompiledValue whereClause, List iterators, List projAttrs,
+      List groupByAttrs, CompiledValue having, List<CompiledAggregateFunction> aggregates, List orderByAttrs,
+      CompiledValue limit, ArrayList hints) {
+    // the superclass returns the rows that are grouped
+    super(false, false, whereClause, iterators, null, null, null, hints);
+    this.projAttrs = projAttrs;
+    this.groupByAttrs = groupByAttrs;
+    this.having = having;
+    this.aggregates = aggregates;
+    this.orderByAttrs = orderByAttrs;
+    this.limit = limit;
+    this.groupDistinct = distinct;
+    for (int i = 0; i < aggregates.size(); i++) {
+      aggregates.get(i).setIndex(i);
+    }
+  }
+
+  @Override
+  public List getChildren() {
+    List list = super.getChildren();
+    for (Iterator itr = this.projAttrs.iterator(); itr.hasNext();) {
+      list.add(((Object[])itr.next())[1]);
+    }
+    if (this.groupByAttrs != null) {
+      list.addAll(this.groupByAttrs);
+    }
+    if (this.having != null) {
+      list.add(this.having);
+    }
+    if (this.orderByAttrs != null) {
+      list.addAll(this.orderByAttrs);
+    }
+    return list;
+  }
+
+  @Override
+  public List getProjectionAttributes() {
+    return this.projAttrs;
+  }
+
+  @Override
+  public List getOrderByAttrs() {
+    return this.orderByAttrs;
+  }
+
+  public List getGroupByAttrs() {
+    return this.groupByAttrs;
+  }
+
+  @Override
+  public boolean isGroupBy() {
+    return true;
+  }
+
+  @Override
+  public Set computeDependencies(ExecutionContext context) throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    Set result = super.computeDependencies(context);
+    context.newScope(getScopeID());
+    context.pushExecCache(getScopeID());
+    try {
+      bindIterators(context);
+      if (this.groupByAttrs != null) {
+        for (Iterator itr = this.groupByAttrs.iterator(); itr.hasNext();) {
+          ((CompiledValue)itr.next()).computeDependencies(context);
+        }
+      }
+      // the group keys and aggregates have no dependencies so anything else
+      // that depends on the rows is not grouped
+      for (Iterator itr = this.projAttrs.iterator(); itr.hasNext();) {
+        checkGrouped((CompiledValue)((Object[])itr.next())[1], context);
+      }
+      if (this.having != null) {
+        checkGrouped(this.having, context);
+      }
+      if (this.orderByAttrs != null) {
+        for (Iterator itr = this.orderByAttrs.iterator(); itr.hasNext();) {
+          CompiledSortCriterion csc = (CompiledSortCriterion)itr.next();
+          if (getAliasIndex(csc) < 0) {
+            checkGrouped(csc.getExpr(), context);
+          }
+        }
+      }
+    }
+    finally {
+      context.popExecCache();
+      context.popScope();
+    }
+    return result;
+  }
+
+  private static void checkGrouped(CompiledValue value, ExecutionContext context) throws TypeMismatchException,
+      AmbiguousNameException, NameResolutionException {
+    Set dependencies = value.computeDependencies(context);
+    if (dependencies != null && !dependencies.isEmpty()) {
+      throw new TypeMismatchException(
+          "Expressions of the projection, having and order by clauses must be aggregate functions or appear in the group by clause");
+    }
+  }
+
+  /**
+   * Returns the index of the projection named by a sort criterion, or -1 if
+   * the criterion is not a projection alias.
+   */
+  private int getAliasIndex(CompiledSortCriterion csc) {
+    CompiledValue expr = csc.getExpr();
+    if (expr.getType() != Identifier) {
+      return -1;
+    }
+    String id = ((CompiledID)expr).getId();
+    for (int i = 0; i < this.projAttrs.size(); i++) {
+      if (id.equals(((Object[])this.projAttrs.get(i))[0])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private List bindIterators(ExecutionContext context) throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    for (Iterator itr = getIterators().iterator(); itr.hasNext();) {
+      RuntimeIterator rIter = ((CompiledIteratorDef)itr.next()).getRuntimeIterator(context);
+      context.bindIterator(rIter);
+    }
+    return context.getCurrentIterators();
+  }
+
+  @Override
+  public SelectResults getEmptyResultSet(Object[] parameters, Cache cache) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    ExecutionContext context = new QueryExecutionContext(parameters, cache);
+    computeDependencies(context);
+    return new ResultsCollectionWrapper(getResultType(context), new ArrayList());
+  }
+
+  @Override
+  public Object evaluate(ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Collection rows = (Collection)super.evaluate(context);
+    context.newScope(getScopeID());
+    context.pushExecCache(getScopeID());
+    try {
+      List iterators = bindIterators(context);
+      Map<List, Object[]> groups = new LinkedHashMap<List, Object[]>();
+      int numKeys = this.groupByAttrs == null ? 0 : this.groupByAttrs.size();
+      for (Object row : rows) {
+        if (iterators.size() == 1) {
+          ((RuntimeIterator)iterators.get(0)).setCurrent(row);
+        }
+        else {
+          Object[] values = ((Struct)row).getFieldValues();
+          for (int i = 0; i < values.length; i++) {
+            ((RuntimeIterator)iterators.get(i)).setCurrent(values[i]);
+          }
+        }
+        Object[] keys = new Object[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+          keys[i] = normalizeKey(((CompiledValue)this.groupByAttrs.get(i)).evaluate(context));
+        }
+        List key = Arrays.asList(keys);
+        Object[] states = groups.get(key);
+        if (states == null) {
+          states = new Object[this.aggregates.size()];
+          groups.put(key, states);
+        }
+        for (int i = 0; i < states.length; i++) {
+          states[i] = this.aggregates.get(i).accumulate(states[i], context);
+        }
+      }
+      if (context.getBucketList() != null) {
+        // running on buckets of a partitioned region; the member that runs
+        // the query finishes the groups
+        List partialRows = new ArrayList(groups.size());
+        for (Map.Entry<List, Object[]> group : groups.entrySet()) {
+          partialRows.add(toPartialRow(group.getKey(), group.getValue()));
+        }
+        return new ResultsCollectionWrapper(TypeUtils.OBJECT_TYPE, partialRows);
+      }
+      return finish(groups, context);
+    }
+    finally {
+      context.popExecCache();
+      context.popScope();
+    }
+  }
+
+  private static Object normalizeKey(Object key) {
+    if (key instanceof PdxString) {
+      return key.toString();
+    }
+    return key;
+  }
+
+  private static Object[] toPartialRow(List keys, Object[] states) {
+    Object[] partialRow = new Object[keys.size() + states.length];
+    for (int i = 0; i < keys.size(); i++) {
+      partialRow[i] = keys.get(i);
+    }
+    System.arraycopy(states, 0, partialRow, keys.size(), states.length);
+    return partialRow;
+  }
+
+  /**
+   * Combines the partial rows computed on the buckets of a partitioned region
+   * and returns the result of the query.
+   *
+   * @param partialResults
+   *          collections of partial rows, as returned by {@link #evaluate}
+   *          when it runs on buckets
+   */
+  public SelectResults mergePartialResults(Collection<Collection> partialResults, ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    int numKeys = this.groupByAttrs == null ? 0 : this.groupByAttrs.size();
+    Map<List, Object[]> groups = new LinkedHashMap<List, Object[]>();
+    for (Collection partialRows : partialResults) {
+      if (partialRows == null) {
+        continue;
+      }
+      for (Object o : partialRows) {
+        if (!(o instanceof Object[])) {
+          // end of bucket markers and the like
+          continue;
+        }
+        Object[] partialRow = (Object[])o;
+        Object[] keys = new Object[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+          keys[i] = normalizeKey(partialRow[i]);
+        }
+        List key = Arrays.asList(keys);
+        Object[] states = groups.get(key);
+        if (states == null) {
+          states = new Object[this.aggregates.size()];
+          groups.put(key, states);
+        }
+        for (int i = 0; i < states.length; i++) {
+          states[i] = this.aggregates.get(i).merge(states[i], partialRow[numKeys + i]);
+        }
+      }
+    }
+    computeDependencies(context);
+    context.newScope(getScopeID());
+    context.pushExecCache(getScopeID());
+    try {
+      bindIterators(context);
+      return finish(groups, context);
+    }
+    finally {
+      context.popExecCache();
+      context.popScope();
+    }
+  }
+
+  /**
+   * Applies the having, projection, order by, distinct and limit clauses to
+   * the groups. Called in the scope of this select.
+   */
+  private SelectResults finish(Map<List, Object[]> groups, ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (groups.isEmpty() && this.groupByAttrs == null) {
+      // aggregates without GROUP BY always return one row
+      groups.put(Collections.EMPTY_LIST, new Object[this.aggregates.size()]);
+    }
+    ObjectType elementType = getResultType(context);
+    StructTypeImpl structType = elementType instanceof StructTypeImpl ? (StructTypeImpl)elementType : null;
+    List<Object[]> sorted = new ArrayList<Object[]>(groups.size());
+    List results = new ArrayList(groups.size());
+    try {
+      for (Map.Entry<List, Object[]> group : groups.entrySet()) {
+        context.cachePut(GROUP_KEYS, group.getKey().toArray());
+        context.cachePut(GROUP_AGGREGATES, group.getValue());
+        if (this.having != null) {
+          Object b = this.having.evaluate(context);
+          if (b == null || b == QueryService.UNDEFINED) {
+            continue;
+          }
+          if (!(b instanceof Boolean)) {
+            throw new TypeMismatchException("The having clause was type " + b.getClass().getName()
+                + " instead of boolean");
+          }
+          if (!((Boolean)b).booleanValue()) {
+            continue;
+          }
+        }
+        Object[] values = new Object[this.projAttrs.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = ((CompiledValue)((Object[])this.projAttrs.get(i))[1]).evaluate(context);
+        }
+        Object row = structType != null ? new StructImpl(structType, values) : values[0];
+        if (this.orderByAttrs != null) {
+          Object[] sortKeys = new Object[this.orderByAttrs.size()];
+          for (int i = 0; i < sortKeys.length; i++) {
+            CompiledSortCriterion csc = (CompiledSortCriterion)this.orderByAttrs.get(i);
+            int alias = getAliasIndex(csc);
+            sortKeys[i] = alias >= 0 ? values[alias] : csc.evaluate(context);
+          }
+          sorted.add(new Object[] { row, sortKeys });
+        }
+        else {
+          results.add(row);
+        }
+      }
+    }
+    finally {
+      context.cachePut(GROUP_KEYS, null);
+      context.cachePut(GROUP_AGGREGATES, null);
+    }
+    if (this.orderByAttrs != null) {
+      Collections.sort(sorted, new SortKeyComparator(this.orderByAttrs));
+      for (Object[] s : sorted) {
+        results.add(s[0]);
+      }
+    }
+    if (this.groupDistinct) {
+      results = new ArrayList(new LinkedHashSet(results));
+    }
+    int limitValue = evaluateLimit(context);
+    if (limitValue >= 0 && results.size() > limitValue) {
+      results = new ArrayList(results.subList(0, limitValue));
+    }
+    return new ResultsCollectionWrapper(elementType, results);
+  }
+
+  private int evaluateLimit(ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    if (this.limit == null) {
+      return -1;
+    }
+    Integer limitValue = (Integer)this.limit.evaluate(context);
+    return limitValue == null ? -1 : limitValue.intValue();
+  }
+
+  /**
+   * Returns the type of the rows of the result: a struct if there is more
+   * than one projection or an alias, otherwise an object.
+   */
+  private ObjectType getResultType(ExecutionContext context) {
+    int projCount = this.projAttrs.size();
+    boolean createStruct = projCount > 1 || ((Object[])this.projAttrs.get(0))[0] != null;
+    if (!createStruct) {
+      return TypeUtils.OBJECT_TYPE;
+    }
+    String[] fieldNames = new String[projCount];
+    ObjectType[] fieldTypes = new ObjectType[projCount];
+    for (int i = 0; i < projCount; i++) {
+      Object[] projDef = (Object[])this.projAttrs.get(i);
+      fieldNames[i] = projDef[0] != null ? (String)projDef[0] : generateProjectionName((CompiledValue)projDef[1],
+          context);
+      fieldTypes[i] = TypeUtils.OBJECT_TYPE;
+    }
+    return new StructTypeImpl(fieldNames, fieldTypes);
+  }
+
+  /**
+   * Orders the rows of a grouped select by their sort keys. Nulls come first,
+   * followed by UNDEFINED, as with an ungrouped select.
+   */
+  private static class SortKeyComparator implements Comparator<Object[]> {
+    private final boolean[] descending;
+
+    SortKeyComparator(List orderByAttrs) {
+      this.descending = new boolean[orderByAttrs.size()];
+      for (int i = 0; i < this.descending.length; i++) {
+        this.descending[i] = ((CompiledSortCriterion)orderByAttrs.get(i)).getCriterion();
+      }
+    }
+
+    public int compare(Object[] o1, Object[] o2) {
+      Object[] keys1 = (Object[])o1[1];
+      Object[] keys2 = (Object[])o2[1];
+      for (int i = 0; i < keys1.length; i++) {
+        int result = compareValues(keys1[i], keys2[i]);
+        if (result != 0) {
+          return this.descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+
+    private static int rank(Object value) {
+      if (value == null) {
+        return 0;
+      }
+      return value == QueryService.UNDEFINED ? 1 : 2;
+    }
+
+    private static int compareValues(Object v1, Object v2) {
+      int r1 = rank(v1);
+      int r2 = rank(v2);
+      if (r1 != 2 || r2 != 2) {
+        return r1 - r2;
+      }
+      v1 = normalizeKey(v1);
+      v2 = normalizeKey(v2);
+      try {
+        if (Boolean.TRUE.equals(TypeUtils.compare(v1, v2, TOK_LT))) {
+          return -1;
+        }
+        if (Boolean.TRUE.equals(TypeUtils.compare(v2, v1, TOK_LT))) {
+          return 1;
+        }
+        return 0;
+      }
+      catch (TypeMismatchException e) {
+        throw new ClassCastException(e.getMessage());
+      }
+    }
+  }
+}
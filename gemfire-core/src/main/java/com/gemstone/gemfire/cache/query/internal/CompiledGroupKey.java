@@ -0,0 +1,71 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+
+/**
+ * An expression of the projection, having or order by clause of a grouped
+ * select that is one of the GROUP BY expressions. It evaluates to the value of
+ * that expression for the current group.
+ *
+ * @since 9.0
+ */
+public class CompiledGroupKey extends AbstractCompiledValue {
+
+  /** the original expression */
+  private final CompiledValue expr;
+  /** the index of the expression in the GROUP BY clause */
+  private final int index;
+
+  public CompiledGroupKey(CompiledValue expr, int index) {
+    this.expr = expr;
+    this.index = index;
+  }
+
+  public int getType() {
+    return GROUP_KEY;
+  }
+
+  public CompiledValue getExpr() {
+    return this.expr;
+  }
+
+  /**
+   * A group key is only evaluated once the rows have been grouped so it has
+   * no dependencies of its own.
+   */
+  @Override
+  public Set computeDependencies(ExecutionContext context) throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    this.expr.computeDependencies(context);
+    return Collections.EMPTY_SET;
+  }
+
+  @Override
+  public List getChildren() {
+    return Collections.EMPTY_LIST;
+  }
+
+  public Object evaluate(ExecutionContext context) throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object[] keys = (Object[])context.cacheGet(GROUP_KEYS);
+    if (keys == null) {
+      throw new TypeMismatchException("A group by expression can not be evaluated outside of a group");
+    }
+    return keys[this.index];
+  }
+}
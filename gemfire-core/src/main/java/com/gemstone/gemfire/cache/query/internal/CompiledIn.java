@@ -881,6 +881,9 @@ public class CompiledIn extends AbstractCompiledValue implements Indexable {
     if (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints()) {
       return thisSize <= thatSize;
     }
+    if (IndexCostModel.ENABLED) {
+      return IndexCostModel.isBetterFilter(this, thisSize, comparedTo, thatSize);
+    }
         
     switch(thatOperator) {
         case TOK_EQ:
@@ -0,0 +1,56 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+
+/**
+ * Evaluates to the current value of one of the iterators of the current
+ * scope, found by its position in the scope instead of by resolving its name
+ * for every evaluation. Stands in for the identifier of the iterator in the
+ * expressions compiled by {@link QueryCompiler}.
+ *
+ * @since 9.0
+ */
+class CompiledIteratorRef extends AbstractCompiledValue {
+
+  /** the identifier this reference was compiled from */
+  private final CompiledValue original;
+
+  /** the position of the iterator in its scope */
+  private final int index;
+
+  CompiledIteratorRef(CompiledValue original, int index) {
+    this.original = original;
+    this.index = index;
+  }
+
+  public int getType() {
+    return this.original.getType();
+  }
+
+  public Object evaluate(ExecutionContext context) {
+    RuntimeIterator itr = (RuntimeIterator)context.getCurrentIterators().get(
+        this.index);
+    Object obj = itr.evaluate(context);
+    // check for BucketRegion substitution, as CompiledID does
+    if (obj instanceof Region) {
+      PartitionedRegion pr = context.getPartitionedRegion();
+      if (pr != null && pr.getFullPath().equals(((Region)obj).getFullPath())) {
+        obj = context.getBucketRegion();
+      }
+    }
+    return obj;
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledIteratorRef[" + this.index + "]";
+  }
+}
@@ -36,6 +36,10 @@ import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.index.AbstractIndex;
+import com.gemstone.gemfire.cache.query.internal.index.CompactRangeIndex;
+import com.gemstone.gemfire.cache.query.internal.index.IndexData;
+import com.gemstone.gemfire.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import com.gemstone.gemfire.cache.query.internal.index.IndexUtils;
 import com.gemstone.gemfire.cache.query.internal.index.PartitionedIndex;
 import com.gemstone.gemfire.cache.query.internal.types.ObjectTypeImpl;
 import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
@@ -43,6 +47,8 @@ import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
 import com.gemstone.gemfire.cache.query.types.CollectionType;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
 import com.gemstone.gemfire.cache.query.types.StructType;
+import com.gemstone.gemfire.internal.cache.Token;
+import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.internal.PdxString;
@@ -55,7 +61,20 @@ import com.gemstone.gemfire.pdx.internal.PdxString;
  * @author asif
  */
 public class CompiledSelect extends AbstractCompiledValue {
-  
+
+  /**
+   * Whether a select with a limit that orders its results by an indexed
+   * expression reads them in the order of the index, see
+   * {@link #evaluateInIndexOrder}. Set
+   * <code>gemfire.Query.INDEX_ORDERED_SCAN</code> to false to always sort.
+   * Not final so that tests can compare both ways of evaluating.
+   *
+   * @since 9.0
+   */
+  static boolean INDEX_ORDERED_SCAN = Boolean.valueOf(
+      System.getProperty("gemfire.Query.INDEX_ORDERED_SCAN", "true"))
+      .booleanValue();
+
   private List orderByAttrs; //order by attributes: list of CompiledValue
   private CompiledValue whereClause; // can be null if there isn't one
   private List iterators; // fromClause: list of CompiledIteratorDefs
@@ -66,13 +85,13 @@ public class CompiledSelect extends AbstractCompiledValue {
   private int scopeID;
   //Asif: limits the SelectResults by the number specified.
   private CompiledValue limit;
-  //Shobhit: counts the no of results satisfying where condition for
-  // count(*) non-distinct queries where no indexes are used.
-  private int countStartQueryResult = 0;
   
   //Are not serialized and are recreated when compiling the query
   private ArrayList hints;
 
+  /** the compiled where clause and projections, if expressions are compiled */
+  private volatile QueryCompiler.Plan compiledPlan;
+
   /** 
    * Identifies the scope ID assosciated with the Select. The CompiledSelect object
    * is shared across by multiple query executing threads, but since the scopeID 
@@ -151,6 +170,18 @@ public class CompiledSelect extends AbstractCompiledValue {
   public List getOrderByAttrs() {
     return this.orderByAttrs;
   }
+
+  int getScopeID() {
+    return this.scopeID;
+  }
+
+  /**
+   * Returns true if this select groups its rows, see
+   * {@link CompiledGroupBySelect}
+   */
+  public boolean isGroupBy() {
+    return false;
+  }
   
   @Override
   public Set computeDependencies(ExecutionContext context)
@@ -268,7 +299,10 @@ public class CompiledSelect extends AbstractCompiledValue {
       Object result = null;
       boolean evalAsFilters = false;
       if (this.whereClause == null) {
-        result = doIterationEvaluate(context, false);
+        result = evaluateInIndexOrder(context, limitValue);
+        if (result == null) {
+          result = doIterationEvaluate(context, false);
+        }
       }
       else {
         if (!this.whereClause.isDependentOnCurrentScope(context)) { // independent
@@ -393,8 +427,11 @@ public class CompiledSelect extends AbstractCompiledValue {
                     !needsTopLevelOrdering);
               }
             } else {
-              // otherwise iterate over the single from var to evaluate
-              result = doIterationEvaluate(context, true);
+              result = evaluateInIndexOrder(context, limitValue);
+              if (result == null) {
+                // otherwise iterate over the single from var to evaluate
+                result = doIterationEvaluate(context, true);
+              }
             }
           } finally {
             // The Read lock is acquired in {@link
@@ -445,6 +482,7 @@ public class CompiledSelect extends AbstractCompiledValue {
         if (this.count) {
           SelectResults res = (SelectResults) result;
           
+          int countStartQueryResult = getCountStartQueryResult(context)[0];
           if ((this.distinct || evalAsFilters || countStartQueryResult == 0)) {
             // Retrun results as it is as distinct is applied
             // at coordinator node for PR queries.
@@ -472,6 +510,21 @@ public class CompiledSelect extends AbstractCompiledValue {
     }
   }
   
+  /**
+   * Returns the number of results satisfying the where condition for
+   * count(*) non-distinct queries where no indexes are used. The count is
+   * kept in the context rather than in this select so that threads can
+   * execute the same query on different buckets at the same time.
+   */
+  private int[] getCountStartQueryResult(ExecutionContext context) {
+    int[] count = (int[])context.cacheGet(COUNT_START_QUERY_RESULT);
+    if (count == null) {
+      count = new int[1];
+      context.cachePut(COUNT_START_QUERY_RESULT, count);
+    }
+    return count;
+  }
+
   /**
    * The index is locked during query to prevent it from being
    * removed by another thread. So we have to release the lock only after
@@ -558,13 +611,99 @@ public class CompiledSelect extends AbstractCompiledValue {
     }
     int numElementsInResult = 0;
     try {
-      doNestedIterations(0, results, context, evaluateWhereClause,numElementsInResult);
+      doNestedIterations(0, results, context, evaluateWhereClause,numElementsInResult,
+          getCompiledPlan(context));
     }catch(CompiledSelect.NullIteratorException cnie) {
       return null;
     }
     return results;
   }
-  
+
+  /**
+   * Evaluates a select that orders its results by the expression of a
+   * {@link CompactRangeIndex} and has a limit by reading the values of its
+   * region in the order of the index, so that the results need not be sorted
+   * and the iteration stops once the limit is reached. The where clause, if
+   * any, is evaluated on every value read. On the buckets of a partitioned
+   * region the indexes of the buckets are merged.
+   *
+   * @return the results in order, or null if the select must be evaluated
+   *         by iterating over its region and sorting
+   * @since 9.0
+   */
+  private SelectResults evaluateInIndexOrder(ExecutionContext context,
+      int limitValue) throws TypeMismatchException, FunctionDomainException,
+      NameResolutionException, QueryInvocationTargetException {
+    if (!INDEX_ORDERED_SCAN || limitValue < 0 || this.orderByAttrs == null
+        || this.orderByAttrs.size() != 1 || !this.distinct || this.count
+        || isGroupBy() || !IndexUtils.indexesEnabled
+        || context.getResults() != null || context.isCqQueryContext()
+        || context.getCurrentIterators().size() != 1) {
+      return null;
+    }
+    CompiledSortCriterion csc = (CompiledSortCriterion)this.orderByAttrs.get(0);
+    // the dependencies of the sort criteria are not computed with the ones
+    // of the select, but finding an index needs them
+    csc.getExpr().computeDependencies(context);
+    IndexData indexData = QueryUtils.getAvailableIndexIfAny(csc.getExpr(),
+        context, TOK_LT);
+    if (indexData == null) {
+      return null;
+    }
+    AbstractIndex index = (AbstractIndex)indexData.getIndex();
+    try {
+      if (!(index instanceof CompactRangeIndex)
+          || indexData.getMatchLevel() != 0 || !index.isValid()) {
+        return null;
+      }
+      ((QueryExecutionContext)context).setIndexUsed(true);
+      RuntimeIterator rIter = (RuntimeIterator)context.getCurrentIterators().get(0);
+      QueryCompiler.Plan plan = getCompiledPlan(context);
+      CompiledValue where = plan != null ? plan.getWhereClause() : this.whereClause;
+      CompiledValue[] projections = plan != null ? plan.getProjections() : null;
+      SelectResults results = prepareEmptyResultSet(context, true);
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      CloseableIterator<IndexStoreEntry> entries = ((CompactRangeIndex)index)
+          .getOrderedEntries(context, csc.getCriterion());
+      try {
+        while (results.size() < limitValue && entries.hasNext()) {
+          IndexStoreEntry entry = entries.next();
+          Object value = entry.getDeserializedValue();
+          if (value == null || Token.isInvalidOrRemoved(value)) {
+            continue;
+          }
+          rIter.setCurrent(value);
+          // the value of an entry being updated may no longer have the key
+          // it is read under
+          if (entry.isUpdateInProgress()
+              && !((CompactRangeIndex)index).isIndexKeyOf(
+                  csc.getExpr().evaluate(context), entry)) {
+            continue;
+          }
+          observer.beforeIterationEvaluation(rIter, value);
+          if (where != null) {
+            boolean ok = QueryUtils.applyCondition(where, context);
+            observer.afterIterationEvaluation(Boolean.valueOf(ok));
+            if (!ok) {
+              continue;
+            }
+          }
+          applyProjectionAndAddToResultSet(context, results, true, projections);
+        }
+      } finally {
+        entries.close();
+      }
+      return results;
+    } finally {
+      Index prIndex = index.getPRIndex();
+      if (prIndex != null) {
+        ((PartitionedIndex)prIndex).releaseIndexReadLockForRemove();
+      } else {
+        index.releaseIndexReadLockForRemove();
+      }
+    }
+  }
+
   // @todo make this more general to work for any kind of map, not just regions
   /**
    * Check for the bulk-get pattern and if it applies do an optimized execution.
@@ -622,15 +761,49 @@ public class CompiledSelect extends AbstractCompiledValue {
     return cIn.optimizeBulkGet(rgn, context);
   }
 
+  /**
+   * Returns the compiled where clause and projections of this select, or null
+   * if expressions are not compiled. The plan is compiled the first time
+   * this select is iterated over, unless a query with the same query string
+   * has already compiled one.
+   */
+  private QueryCompiler.Plan getCompiledPlan(ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException {
+    if (!QueryCompiler.ENABLED || context.isCqQueryContext()) {
+      return null;
+    }
+    QueryCompiler.Plan plan = this.compiledPlan;
+    if (plan == null) {
+      // only the plans of top level selects are shared, as the query string
+      // identifies them
+      DefaultQuery query = (DefaultQuery)context.getQuery();
+      String queryString = (query != null && query.getSimpleSelect() == this)
+          ? query.getQueryString() : null;
+      int iteratorCount = context.getCurrentIterators().size();
+      if (queryString != null) {
+        plan = DefaultQueryService.getCompiledPlan(queryString);
+      }
+      if (plan == null || plan.getIteratorCount() != iteratorCount) {
+        plan = QueryCompiler.compile(this.whereClause, this.projAttrs, context);
+        if (queryString != null && plan.isShareable()) {
+          DefaultQueryService.putCompiledPlan(queryString, plan);
+        }
+      }
+      this.compiledPlan = plan;
+    }
+    return plan;
+  }
+
   // returns the number of elements added in the return ResultSet
   private int doNestedIterations(int level, SelectResults results, ExecutionContext context,
-      boolean evaluateWhereClause, int numElementsInResult) throws TypeMismatchException, AmbiguousNameException, FunctionDomainException,
+      boolean evaluateWhereClause, int numElementsInResult, QueryCompiler.Plan plan) throws TypeMismatchException, AmbiguousNameException, FunctionDomainException,
       NameResolutionException, QueryInvocationTargetException, CompiledSelect.NullIteratorException {
     List iterList = context.getCurrentIterators();
     if (level == iterList.size()) {
       boolean addToResults = true;
       if (evaluateWhereClause) {
-        Object result = this.whereClause.evaluate(context);
+        CompiledValue where = plan != null ? plan.getWhereClause() : this.whereClause;
+        Object result = where.evaluate(context);
         QueryObserver observer = QueryObserverHolder.getInstance();
         observer.afterIterationEvaluation(result);
         if (result == null) {
@@ -655,7 +828,8 @@ public class CompiledSelect extends AbstractCompiledValue {
         }
       }
       if (addToResults) {
-        int occurence = applyProjectionAndAddToResultSet(context, results, this.orderByAttrs == null);
+        int occurence = applyProjectionAndAddToResultSet(context, results,
+            this.orderByAttrs == null, plan != null ? plan.getProjections() : null);
         // Asif: If the occurence is greater than 1, then only in case of
         // non distinct query should it be treated as contributing to size
         // else duplication will be eliminated when making it distinct using
@@ -679,7 +853,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       if (this.whereClause == null && iterators.size() == 1 && isCount() && !isDistinct() && 
           sr instanceof QRegion) {
         QRegion qr = (QRegion)sr;
-        countStartQueryResult = qr.getRegion().size();
+        getCountStartQueryResult(context)[0] = qr.getRegion().size();
         return 1;
       }
 
@@ -703,7 +877,7 @@ public class CompiledSelect extends AbstractCompiledValue {
         QueryObserver observer = QueryObserverHolder.getInstance();
         observer.beforeIterationEvaluation(rIter, currObj);
         numElementsInResult = doNestedIterations(level + 1, results, context,
-            evaluateWhereClause, numElementsInResult);
+            evaluateWhereClause, numElementsInResult, plan);
         Integer limitValue = evaluateLimitValue(context);
         if (this.orderByAttrs == null && limitValue > -1 && numElementsInResult == limitValue) {
           break;
@@ -832,7 +1006,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       // Shobhit: If its a 'COUNT' query and no End processing required Like for 'DISTINCT'
       // we can directly keep count in ResultSet and ResultBag is good enough for that.
       results = new ResultsBag(new ObjectTypeImpl(Integer.class), 1 /*initial capacity for count value*/, context.getCachePerfStats());
-      countStartQueryResult = 0;
+      getCountStartQueryResult(context)[0] = 0;
       
     }
     
@@ -1008,6 +1182,17 @@ public class CompiledSelect extends AbstractCompiledValue {
   private int applyProjectionAndAddToResultSet(ExecutionContext context,
       Object resultSet, boolean ignoreOrderBy) throws FunctionDomainException, TypeMismatchException,
       NameResolutionException, QueryInvocationTargetException {
+    return applyProjectionAndAddToResultSet(context, resultSet, ignoreOrderBy, null);
+  }
+
+  /**
+   * @param projections the compiled expressions of the projection attributes
+   *          to evaluate instead of the ones of the attributes, or null
+   */
+  private int applyProjectionAndAddToResultSet(ExecutionContext context,
+      Object resultSet, boolean ignoreOrderBy, CompiledValue[] projections)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
     List currrentRuntimeIters = context.getCurrentIterators();
     // Asif : Code modified to fix the bug of incorrect composition of
     // ResultSet
@@ -1061,7 +1246,7 @@ public class CompiledSelect extends AbstractCompiledValue {
       if (isCount() && !this.distinct) {
         //Counter is local to CompileSelect and not available in ResultSet until
         //the end of evaluate call to this CompiledSelect object.
-        this.countStartQueryResult++;
+        getCountStartQueryResult(context)[0]++;
         occurence = 1;
       } else {
         // if order by is present
@@ -1133,7 +1318,9 @@ public class CompiledSelect extends AbstractCompiledValue {
       Object[] values = new Object[projCount];
       for (int i = 0; i < projCount; i++) {
         Object projDef[] = (Object[])projAttrs.get(i);
-        values[i] = ((CompiledValue)projDef[1]).evaluate(context);
+        CompiledValue projection = projections != null ? projections[i]
+            : (CompiledValue)projDef[1];
+        values[i] = projection.evaluate(context);
         // For local queries with distinct, deserialize all PdxInstances
         // as we do not have a way to compare Pdx and non Pdx objects in case
         // the cache has a mix of pdx and non pdx objects.
@@ -1192,7 +1379,7 @@ public class CompiledSelect extends AbstractCompiledValue {
     return occurence;
   }
 
-  private String generateProjectionName(CompiledValue projExpr, ExecutionContext context) {
+  String generateProjectionName(CompiledValue projExpr, ExecutionContext context) {
     String name = null;
     if (projExpr instanceof RuntimeIterator) {
       RuntimeIterator rIter = (RuntimeIterator) projExpr;
@@ -1223,6 +1410,12 @@ public class CompiledSelect extends AbstractCompiledValue {
       else if (type == METHOD_INV) {
         name = ((CompiledOperation) projExpr).getMethodName();
       }
+      else if (type == AGG_FUNC) {
+        name = ((CompiledAggregateFunction) projExpr).getFunctionName();
+      }
+      else if (type == GROUP_KEY) {
+        name = generateProjectionName(((CompiledGroupKey) projExpr).getExpr(), context);
+      }
       else {
         name = new StringBuffer("field$").append(context.nextFieldNum()).toString();
         // name = projExpr.toString();
@@ -284,6 +284,9 @@ public class CompiledUndefined extends AbstractCompiledValue implements
     if (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints()) {
       return thisSize <= thatSize;
     }
+    if (IndexCostModel.ENABLED) {
+      return IndexCostModel.isBetterFilter(this, thisSize, comparedTo, thatSize);
+    }
         
     switch(thatOperator) {
       case TOK_EQ:
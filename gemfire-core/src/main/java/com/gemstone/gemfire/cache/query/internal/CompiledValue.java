@@ -37,6 +37,8 @@ public interface CompiledValue {
   public final static int SINGLECONDNEVALUATOR= -13;
   public final static int DOUBLECONDNRANGEJUNCTIONEVALUATOR = -14;
   public final static int LIKE = -15;
+  public final static int AGG_FUNC = -16;
+  public final static int GROUP_KEY = -17;
   public static  final int INDEX_RESULT_THRESHOLD_DEFAULT = 100;
   public static final String INDX_THRESHOLD_PROP_STR = "gemfire.Query.INDEX_THRESHOLD_SIZE";
   public static final String INDEX_INFO = "index_info";
@@ -50,6 +52,9 @@ public interface CompiledValue {
   public static final String CAN_APPLY_ORDER_BY_AT_INDEX = "can_apply_orderby_at_index";
   public static final String PREF_INDEX_COND = "preferred_index_condition"; 
   public static final String QUERY_INDEX_HINTS = "query_index_hints";
+  public static final String GROUP_KEYS = "group_keys";
+  public static final String GROUP_AGGREGATES = "group_aggregates";
+  public static final String COUNT_START_QUERY_RESULT = "count_start_query_result";
   public static final CompiledValue MAP_INDEX_ALL_KEYS = new AbstractCompiledValue() {
     
     @Override
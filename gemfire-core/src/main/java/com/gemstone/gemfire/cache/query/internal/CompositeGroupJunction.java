@@ -218,8 +218,12 @@ public class CompositeGroupJunction extends AbstractCompiledValue implements
     // group junction");
     boolean delayIterOpEval = (this.groupJunctions != null && this.groupJunctions
         .size() != 0);
-    Iterator itr = this.filterableCC.iterator();
     int filterableCCSize = this.filterableCC.size();
+    // evaluate the most selective join first so that the following joins are
+    // conditioned on the smallest possible intermediate results
+    Iterator itr = (IndexCostModel.ENABLED && filterableCCSize > 1)
+        ? IndexCostModel.orderJoinConditions(this.filterableCC, context).iterator()
+        : this.filterableCC.iterator();
     if (filterableCCSize > 1) {
       for (int i = 0; i < (filterableCCSize - 1); i++) {
         CompiledValue cc = (CompiledValue) itr.next();
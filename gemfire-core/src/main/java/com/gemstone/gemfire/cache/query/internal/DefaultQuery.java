@@ -17,6 +17,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -34,19 +35,23 @@ import com.gemstone.gemfire.cache.query.FunctionDomainException;
 import com.gemstone.gemfire.cache.query.NameResolutionException;
 import com.gemstone.gemfire.cache.query.Query;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryResultIterator;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.QueryStatistics;
 import com.gemstone.gemfire.cache.query.RegionNotFoundException;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.cq.InternalCqQuery;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
 import com.gemstone.gemfire.internal.NanoTimer;
 import com.gemstone.gemfire.internal.cache.BucketRegion;
 import com.gemstone.gemfire.internal.cache.CachePerfStats;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.cache.LocalDataSet;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.PRQueryProcessor;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegionDataStore;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.TXStateProxy;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -351,19 +356,40 @@ public class DefaultQuery implements Query {
         return result;
       }
 
-      // Get QueryMonitor.
-      if (GemFireCacheImpl.getInstance() != null){
-        queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
+      // Look for the results of an earlier execution if the regions of the
+      // query keep their query results
+      QueryResultCache resultCache = ((GemFireCacheImpl)this.cache).getQueryResultCache();
+      QueryResultCache.Lookup lookup = null;
+      QueryResultCache.CachedResult cached = null;
+      if (resultCache != null && !this.isCqQuery) {
+        lookup = resultCache.lookup(this, parameters, this.cache);
+        if (lookup != null) {
+          cached = resultCache.get(lookup);
+        }
       }
-      // If QueryMonitor is enabled add query to be monitored.
-      if (queryMonitor != null) {
-        // Add current thread to be monitored by QueryMonitor.
-        // In case of partitioned region it will be added before the query execution
-        // starts on the Local Buckets.
-        queryMonitor.monitorQueryThread(Thread.currentThread(), this);
+      boolean indexUsed;
+      if (cached != null) {
+        result = cached.getResult();
+        indexUsed = cached.isIndexUsed();
+      } else {
+        // Get QueryMonitor.
+        if (GemFireCacheImpl.getInstance() != null){
+          queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
+        }
+        // If QueryMonitor is enabled add query to be monitored.
+        if (queryMonitor != null) {
+          // Add current thread to be monitored by QueryMonitor.
+          // In case of partitioned region it will be added before the query execution
+          // starts on the Local Buckets.
+          queryMonitor.monitorQueryThread(Thread.currentThread(), this);
+        }
+        context.setCqQueryContext(this.isCqQuery);
+        result = executeUsingContext(context);
+        indexUsed = ((QueryExecutionContext)context).isIndexUsed();
+        if (lookup != null) {
+          result = resultCache.put(lookup, result, indexUsed);
+        }
       }
-      context.setCqQueryContext(this.isCqQuery);
-      result = executeUsingContext(context);
       //Only wrap/copy results when copy on read is set and an index is used
       //This is because when an index is used, the results are actual references to values in the cache
       //Currently as 7.0.1 when indexes are not used, iteration uses non tx entries to retrieve the value.
@@ -374,7 +400,7 @@ public class DefaultQuery implements Query {
       //this flag is true if copy on read is set to true and we are copying at the entry level for queries is set to false (default) 
       //OR copy on read is true and we used an index where copy on entry level for queries is set to true.  
       //Due to bug#46970  index usage does not actually copy at the entry level so that is why we have the OR condition
-      boolean needsCopyOnReadWrapper = this.cache.getCopyOnRead() && !DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL || (((QueryExecutionContext)context).isIndexUsed() && DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL);
+      boolean needsCopyOnReadWrapper = this.cache.getCopyOnRead() && !DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL || (indexUsed && DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL);
       // For local queries returning pdx objects wrap the resultset with ResultsCollectionPdxDeserializerWrapper
       // which deserializes these pdx objects.
       if(!isRemoteQuery() && !this.cache.getPdxReadSerialized() && result instanceof SelectResults) {
@@ -408,6 +434,75 @@ public class DefaultQuery implements Query {
 
   }
 
+  public QueryResultIterator<Object> executeStreaming(Object[] parameters)
+  throws FunctionDomainException, TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    if (parameters == null) {
+        throw new IllegalArgumentException(LocalizedStrings.DefaultQuery_PARAMETERS_CANNOT_BE_NULL.toLocalizedString());
+    }
+    if (this.serverProxy != null) {
+      return executeStreamingOnServer(parameters);
+    }
+    // A local query has all of its results in memory already
+    Object result = execute(parameters);
+    Iterator<?> it;
+    if (result instanceof SelectResults) {
+      it = ((SelectResults<?>)result).iterator();
+    } else {
+      it = Collections.singleton(result).iterator();
+    }
+    return new LocalResultIterator(it);
+  }
+
+  private QueryResultIterator<Object> executeStreamingOnServer(Object[] parameters) {
+    long startTime = CachePerfStats.getStatTime();
+    try {
+      if (proxyCache != null) {
+        if (this.proxyCache.isClosed()) {
+          throw new CacheClosedException("Cache is closed for this user.");
+        }
+        UserAttributes.userAttributes.set(this.proxyCache.getUserAttributes());
+      }
+      // the user is authenticated when the query is sent, so the iterator
+      // reads the rest of the results without the user attributes
+      return this.serverProxy.queryStreaming(this.queryString, parameters);
+    } finally {
+      UserAttributes.userAttributes.set(null);
+      long endTime = CachePerfStats.getStatTime();
+      updateStatistics(endTime - startTime);
+    }
+  }
+
+  /**
+   * Adapts the iterator of local query results to a
+   * {@link QueryResultIterator}.
+   */
+  static final class LocalResultIterator implements QueryResultIterator<Object> {
+    private Iterator<?> it;
+
+    LocalResultIterator(Iterator<?> it) {
+      this.it = it;
+    }
+
+    public boolean hasNext() {
+      return this.it != null && this.it.hasNext();
+    }
+
+    public Object next() {
+      if (this.it == null) {
+        throw new NoSuchElementException();
+      }
+      return this.it.next();
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void close() {
+      this.it = null;
+    }
+  }
+
   private Object executeOnServer(Object[] parameters) {
     long startTime = CachePerfStats.getStatTime();
     Object result = null;
@@ -521,6 +616,9 @@ public class DefaultQuery implements Query {
       observer.beforeQueryEvaluation(compiledQuery, context);
       Object results = null;
       try {
+        if (IndexManager.hasAsynchronousMaintenance() && IndexManager.ASYNC_QUERY_WAIT) {
+          waitForIndexMaintenance(context);
+        }
         // two-pass evaluation.
         // first pre-compute dependencies, cached in the context.
         this.compiledQuery.computeDependencies(context);
@@ -559,6 +657,37 @@ public class DefaultQuery implements Query {
   }
 
 
+  /**
+   * Waits for the asynchronous index maintenance of the regions read by this
+   * query to catch up with the updates made before it started. For a
+   * partitioned region only the buckets the query is executed on are waited
+   * for.
+   */
+  private void waitForIndexMaintenance(ExecutionContext context) {
+    if (context.isCqQueryContext()) {
+      return;
+    }
+    for (Iterator itr = getRegionsInQuery(context.bindArguments).iterator(); itr.hasNext(); ) {
+      Region rgn = this.cache.getRegion((String)itr.next());
+      if (rgn instanceof PartitionedRegion) {
+        PartitionedRegionDataStore dataStore = ((PartitionedRegion)rgn).getDataStore();
+        List buckets = context.getBucketList();
+        if (dataStore == null || buckets == null) {
+          continue;
+        }
+        for (Object bucketId : buckets) {
+          BucketRegion bucket = dataStore.getLocalBucketById((Integer)bucketId);
+          if (bucket != null && bucket.getIndexManager() != null) {
+            bucket.getIndexManager().waitForPendingUpdates();
+          }
+        }
+      }
+      else if (rgn instanceof LocalRegion && ((LocalRegion)rgn).getIndexManager() != null) {
+        ((LocalRegion)rgn).getIndexManager().waitForPendingUpdates();
+      }
+    }
+  }
+
   private QueryExecutor checkQueryOnPR(Object[] parameters) throws RegionNotFoundException {
 
     // check for PartititionedRegions. If a PartitionedRegion is referred to in the query,
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.logging.log4j.Logger;
 
@@ -89,6 +91,17 @@ public class DefaultQueryService implements QueryService {
   /** Test purpose only */
   public static boolean TEST_QUERY_HETEROGENEOUS_OBJECTS = false;
 
+  /**
+   * The maximum number of compiled query plans kept, after which the plans
+   * are dropped and compiled again as queries are executed.
+   */
+  static final int MAX_COMPILED_PLANS = Integer.getInteger(
+      "gemfire.Query.MAX_COMPILED_PLANS", 1000).intValue();
+
+  /** The compiled plans of the queries executed so far, by query string */
+  private static final ConcurrentMap<String, QueryCompiler.Plan> compiledPlans =
+      new ConcurrentHashMap<String, QueryCompiler.Plan>();
+
   private final InternalCache cache;
 
   private InternalPool pool;
@@ -124,6 +137,21 @@ public class DefaultQueryService implements QueryService {
     return query;
   }
   
+  /**
+   * Returns the compiled plan of the query with the given query string, or
+   * null if it has not been compiled.
+   */
+  static QueryCompiler.Plan getCompiledPlan(String queryString) {
+    return compiledPlans.get(queryString);
+  }
+
+  static void putCompiledPlan(String queryString, QueryCompiler.Plan plan) {
+    if (compiledPlans.size() >= MAX_COMPILED_PLANS) {
+      compiledPlans.clear();
+    }
+    compiledPlans.put(queryString, plan);
+  }
+
   public Query newQuery(String queryString,ProxyCache proxyCache){
     Query query = newQuery(queryString);
     ((DefaultQuery) query).setProxyCache(proxyCache);
@@ -481,7 +509,37 @@ public class DefaultQueryService implements QueryService {
     indexManager.removeIndexes();
   }
 
-  
+  /**
+   * Sets whether the results of queries on the given region may be kept in
+   * the query result cache, which is enabled by the
+   * gemfire.Query.RESULT_CACHE_SIZE system property. Queries on a
+   * partitioned region are never cached. The <code>SelectResults</code> of
+   * cached queries cannot be modified.
+   *
+   * @throws UnsupportedOperationException if the region is not a local or
+   *           replicated region of this member
+   * @see QueryResultCache
+   * @since 9.0
+   */
+  public void setResultCacheEnabled(Region region, boolean enabled) {
+    if (pool != null || !(region instanceof LocalRegion)
+        || region instanceof PartitionedRegion) {
+      throw new UnsupportedOperationException("Query results can only be cached for local and replicated regions.");
+    }
+    ((LocalRegion)region).setQueryResultCacheEnabled(enabled);
+  }
+
+  /**
+   * Returns true if the results of queries on the given region may be kept
+   * in the query result cache.
+   * @since 9.0
+   */
+  public boolean isResultCacheEnabled(Region region) {
+    return region instanceof LocalRegion
+        && ((LocalRegion)region).isQueryResultCacheEnabled();
+  }
+
+
   // CqService Related API implementation.
   
   /**
@@ -11,6 +11,7 @@
 package com.gemstone.gemfire.cache.query.internal;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import com.gemstone.gemfire.cache.query.FunctionDomainException;
 import com.gemstone.gemfire.cache.query.NameResolutionException;
@@ -103,6 +104,9 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
         Filter currentBestFilter = null;
         int currentBestFilterSize =-1;
         indexCount = 1;
+        // the filter operands passed over, which the cost model may still
+        // choose to intersect with the best one
+        List otherFilters = new ArrayList(_operands.length);
       
         for (int i = 0; i < _operands.length; i++) {
           // Asif : If we are inside this function this iteslf indicates
@@ -127,6 +131,7 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
             if(pi.isPreferred) {
               if(currentBestFilter != null) {
                 evalOperands.add(currentBestFilter);
+                otherFilters.add(currentBestFilter);
               }
               // new best
               currentBestFilter = (Filter)_operands[i];
@@ -140,9 +145,11 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
             }
             else if ( foundPreferredCondition ||currentBestFilter.isBetterFilter((Filter)_operands[i], context, currentBestFilterSize)) {
               evalOperands.add(_operands[i]);
+              otherFilters.add(_operands[i]);
             }
             else {
               evalOperands.add(currentBestFilter);
+              otherFilters.add(currentBestFilter);
               currentBestFilter = (Filter)_operands[i];
               // TODO:Asif: Avoid this call. Let the function which is doing the
               // comparison return some how the size of comparedTo operand. 
@@ -161,6 +168,21 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
           }
         }
         evalOperands.add(0, currentBestFilter);
+        if (IndexCostModel.ENABLED && !foundPreferredCondition) {
+          IndexCostModel.reportSelection((CompiledValue)currentBestFilter,
+              currentBestFilterSize, context);
+          // also use the index of any other condition that is selective
+          // enough to make the intersection cheaper than iterating
+          for (Iterator itr = otherFilters.iterator(); itr.hasNext();) {
+            Filter filter = (Filter)itr.next();
+            int size = filter.getSizeEstimate(context);
+            if (IndexCostModel.shouldIntersect(currentBestFilterSize, filter, size)) {
+              evalOperands.remove(filter);
+              evalOperands.add(indexCount++, filter);
+              IndexCostModel.reportSelection((CompiledValue)filter, size, context);
+            }
+          }
+        }
       }
     }else {
       indexCount =_operands.length ;
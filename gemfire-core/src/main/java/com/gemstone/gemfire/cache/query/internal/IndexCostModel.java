@@ -0,0 +1,197 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.Index;
+import com.gemstone.gemfire.cache.query.IndexStatistics;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.index.IndexProtocol;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+
+/**
+ * The cost model the query planner uses to choose between the indexes that
+ * could evaluate the conditions of a where clause. Costs are relative units:
+ * a lookup costs a few probes into the index plus one unit for each value it
+ * returns, as estimated by {@link Filter#getSizeEstimate}. Evaluating a
+ * condition by iterating over results costs more per result than fetching a
+ * result from an index, which is what makes it worth intersecting the
+ * results of a second index when it is selective enough.
+ * <p>
+ * Setting the system property
+ * <code>gemfire.Query.COST_BASED_INDEX_SELECTION</code> to false restores the
+ * fixed preference of equality over range over inequality conditions.
+ *
+ * @since 9.0
+ */
+public final class IndexCostModel implements OQLLexerTokenTypes {
+
+  public static final boolean ENABLED = Boolean.valueOf(
+      System.getProperty("gemfire.Query.COST_BASED_INDEX_SELECTION", "true"))
+      .booleanValue();
+
+  /** The cost of positioning on a key of an index */
+  static final double INDEX_PROBE_COST = 2.0;
+
+  /** The cost of fetching one result of an index lookup */
+  static final double INDEX_ROW_COST = 1.0;
+
+  /** The cost of intersecting one result with the results so far */
+  static final double INTERSECTION_ROW_COST = 1.0;
+
+  /** The cost of evaluating a condition on one result by iteration */
+  static final double ITERATION_ROW_COST = 4.0;
+
+  private IndexCostModel() {
+  }
+
+  /**
+   * Returns the cost of looking up the values of a condition with the given
+   * operator in an index.
+   */
+  static double getLookupCost(int operator, int estimatedSize) {
+    double probes;
+    switch (operator) {
+    case TOK_EQ:
+      probes = 1;
+      break;
+    case TOK_NE:
+    case TOK_NE_ALT:
+      // walks the whole index around the excluded key
+      probes = 3;
+      break;
+    default:
+      // a range is bounded by up to two positions in the index
+      probes = 2;
+      break;
+    }
+    return probes * INDEX_PROBE_COST + estimatedSize * INDEX_ROW_COST;
+  }
+
+  /**
+   * Returns true if looking up <code>filter</code> is not more expensive than
+   * looking up <code>comparedTo</code>.
+   */
+  static boolean isBetterFilter(Filter filter, int size, Filter comparedTo,
+      int comparedToSize) {
+    return getLookupCost(filter.getOperator(), size) <= getLookupCost(
+        comparedTo.getOperator(), comparedToSize);
+  }
+
+  /**
+   * Returns true if it is cheaper to intersect the results of an AND junction
+   * with the index lookup of <code>filter</code> than to evaluate the
+   * condition on each of them.
+   * @param resultSize the estimated size of the results so far
+   */
+  static boolean shouldIntersect(int resultSize, Filter filter, int size) {
+    double intersectionCost = getLookupCost(filter.getOperator(), size)
+        + ((double)resultSize + size) * INTERSECTION_ROW_COST;
+    return intersectionCost < resultSize * ITERATION_ROW_COST;
+  }
+
+  /**
+   * Estimates the size of an equi-join of the values of two indexes from
+   * their statistics, assuming that the keys of the index with fewer keys
+   * all appear in the other one.
+   */
+  static double estimateJoinSize(IndexProtocol index1, IndexProtocol index2) {
+    IndexStatistics stats1 = index1.getStatistics();
+    IndexStatistics stats2 = index2.getStatistics();
+    if (stats1 == null || stats2 == null) {
+      return Double.MAX_VALUE;
+    }
+    double values = (double)stats1.getNumberOfValues() * stats2.getNumberOfValues();
+    long keys = Math.max(stats1.getNumberOfKeys(), stats2.getNumberOfKeys());
+    return keys > 0 ? values / keys : values;
+  }
+
+  /**
+   * Orders the join conditions of a composite junction so that the most
+   * selective join is evaluated first, which keeps the intermediate results
+   * that the following joins are conditioned on as small as possible.
+   */
+  static List orderJoinConditions(List joinConditions,
+      ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    int len = joinConditions.size();
+    final double[] estimates = new double[len];
+    List<Integer> order = new ArrayList<Integer>(len);
+    for (int i = 0; i < len; i++) {
+      Object condition = joinConditions.get(i);
+      estimates[i] = Double.MAX_VALUE;
+      if (condition instanceof Indexable) {
+        IndexInfo[] indexInfo = ((Indexable)condition).getIndexInfo(context);
+        if (indexInfo != null && indexInfo.length == 2) {
+          estimates[i] = estimateJoinSize(indexInfo[0]._index, indexInfo[1]._index);
+        }
+      }
+      order.add(Integer.valueOf(i));
+    }
+    // a stable sort keeps the written order among equal estimates
+    Collections.sort(order, new Comparator<Integer>() {
+      public int compare(Integer i1, Integer i2) {
+        return Double.compare(estimates[i1.intValue()], estimates[i2.intValue()]);
+      }
+    });
+    List ordered = new ArrayList(len);
+    for (Integer i : order) {
+      ordered.add(joinConditions.get(i.intValue()));
+    }
+    return ordered;
+  }
+
+  /**
+   * Reports the index chosen to evaluate a condition to the query observer,
+   * if there is one.
+   */
+  static void reportSelection(CompiledValue condition, int estimatedSize,
+      ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (!QueryObserverHolder.hasObserver()) {
+      return;
+    }
+    Index index = getIndex(condition, context);
+    if (index != null) {
+      QueryObserverHolder.getInstance().indexSelected(index, estimatedSize,
+          getLookupCost(((Filter)condition).getOperator(), estimatedSize));
+    }
+  }
+
+  /**
+   * Returns the index a condition is evaluated with, or null if there is no
+   * single such index.
+   */
+  private static Index getIndex(CompiledValue condition,
+      ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (condition instanceof AbstractGroupOrRangeJunction) {
+      // all the conditions of a range junction use the same index
+      CompiledValue[] operands = ((AbstractGroupOrRangeJunction)condition)._operands;
+      for (int i = 0; i < operands.length; i++) {
+        Index index = getIndex(operands[i], context);
+        if (index != null) {
+          return index;
+        }
+      }
+      return null;
+    }
+    List indexes = condition.getPlanInfo(context).indexes;
+    return indexes.size() == 1 ? (Index)indexes.get(0) : null;
+  }
+}
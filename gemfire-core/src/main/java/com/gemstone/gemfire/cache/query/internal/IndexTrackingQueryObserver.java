@@ -42,6 +42,8 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
   
   private static final ThreadLocal indexInfo = new ThreadLocal();
   private static final ThreadLocal lastIndexUsed = new ThreadLocal();
+  // Estimates of the indexes selected by the planner but not looked up yet
+  private static final ThreadLocal selectedIndexes = new ThreadLocal();
   private volatile TestHook th;
   
   public void beforeIndexLookup(Index index, int oper, Object key) {
@@ -65,6 +67,7 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       iInfo = new IndexInfo();
     }
     iInfo.addRegionId(index.getRegion().getFullPath());
+    addEstimate(index, iInfo);
     indexMap.put(indexName, iInfo);
     this.lastIndexUsed.set(index);
     if(th != null){
@@ -89,6 +92,7 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       iInfo = new IndexInfo();
     }
     iInfo.addRegionId(index.getRegion().getFullPath());
+    addEstimate(index, iInfo);
     indexMap.put(index.getName(), iInfo);
     this.lastIndexUsed.set(index);
     if(th != null){
@@ -96,6 +100,34 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
     }
   }
   
+  /**
+   * Records the planner's estimate of the size of the lookup, which the
+   * trace output shows next to the actual size.
+   */
+  @Override
+  public void indexSelected(Index index, int estimatedSize, double estimatedCost) {
+    Map<Index, Integer> estimates = (Map)this.selectedIndexes.get();
+    if (estimates == null) {
+      estimates = new HashMap<Index, Integer>();
+      this.selectedIndexes.set(estimates);
+    }
+    estimates.put(index, Integer.valueOf(estimatedSize));
+  }
+
+  /**
+   * Moves the estimate recorded when the index was selected, if any, to the
+   * information about its lookup.
+   */
+  private void addEstimate(Index index, IndexInfo iInfo) {
+    Map<Index, Integer> estimates = (Map)this.selectedIndexes.get();
+    if (estimates != null) {
+      Integer estimate = estimates.remove(index);
+      if (estimate != null) {
+        iInfo.getEstimates().put(index.getRegion().getFullPath(), estimate);
+      }
+    }
+  }
+
   /**
    * appends the size of the lookup to the last index name in the list
    */
@@ -133,6 +165,7 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       th.hook(4);
     }
     this.indexInfo.set(null);
+    this.selectedIndexes.set(null);
   }
 
   public void setIndexInfo(Map indexInfoMap) {
@@ -159,6 +192,9 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
   public class IndexInfo{
     // A {RegionFullPath, results} map for an Index lookup on a Region.
     private Map<String, Integer> results = new Object2ObjectOpenHashMap();
+
+    // A {RegionFullPath, estimated results} map of the planner's estimates.
+    private Map<String, Integer> estimates = new Object2ObjectOpenHashMap();
     
     public Map getResults() {
       return results;
@@ -174,6 +210,10 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
         this.results.put(ent.getKey(), ent.getValue());
       }
     }
+    public Map getEstimates() {
+      return estimates;
+    }
+
     public Set getRegionIds() {
       return results.keySet();
     }
@@ -187,10 +227,18 @@ public class IndexTrackingQueryObserver extends QueryObserverAdapter {
       for (Integer i: results.values()){
         total+=i.intValue();
       }
-      return "(Results: "+ total +")";
+      if (estimates.isEmpty()) {
+        return "(Results: "+ total +")";
+      }
+      int estimated = 0;
+      for (Integer i: estimates.values()){
+        estimated+=i.intValue();
+      }
+      return "(Results: "+ total +", Estimated: "+ estimated +")";
     }
     public void merge(IndexInfo src) {
       this.addResults(src.getResults());
+      this.estimates.putAll(src.getEstimates());
     }
   }
 
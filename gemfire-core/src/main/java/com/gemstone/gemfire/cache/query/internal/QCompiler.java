@@ -188,6 +188,10 @@ public class QCompiler implements OQLLexerTokenTypes {
       limit = (CompiledBindArgument) limitObject;
     }
     List orderByAttrs = (List)pop();
+    // having condition
+    CompiledValue having = (CompiledValue)pop();
+    // List of group by expressions
+    List groupByAttrs = (List)pop();
     // whereClause
     CompiledValue where = (CompiledValue)pop();
     // fromClause: list of CompiledIteratorDefs
@@ -205,10 +209,87 @@ public class QCompiler implements OQLLexerTokenTypes {
       hints = (ArrayList<String>) hintObject;
     }
     
-    CompiledSelect select = new CompiledSelect(distinct != null, aggrExpr != null, where,
-        iterators, projAttrs, orderByAttrs, limit, hints);
+    List<CompiledAggregateFunction> aggregates = new ArrayList<CompiledAggregateFunction>();
+    if (where != null) {
+      collectAggregates(where, aggregates, false);
+    }
+    if (groupByAttrs != null) {
+      for (Object groupByAttr : groupByAttrs) {
+        collectAggregates((CompiledValue)groupByAttr, aggregates, false);
+      }
+    }
+    if (!aggregates.isEmpty()) {
+      throw new QueryInvalidException(LocalizedStrings.QCompiler_SYNTAX_ERROR_IN_QUERY_0
+          .toLocalizedString("aggregate functions are not allowed in the where or group by clause"));
+    }
+    if (projAttrs != null) {
+      for (Object projAttr : projAttrs) {
+        collectAggregates((CompiledValue)((Object[])projAttr)[1], aggregates, false);
+      }
+    }
+    if (having != null) {
+      collectAggregates(having, aggregates, false);
+    }
+    if (orderByAttrs != null) {
+      for (Object orderByAttr : orderByAttrs) {
+        collectAggregates((CompiledValue)orderByAttr, aggregates, false);
+      }
+    }
+
+    CompiledSelect select;
+    if (groupByAttrs != null || !aggregates.isEmpty()) {
+      if (projAttrs == null) {
+        throw new QueryInvalidException(LocalizedStrings.QCompiler_SYNTAX_ERROR_IN_QUERY_0
+            .toLocalizedString("select * is not allowed with group by"));
+      }
+      select = new CompiledGroupBySelect(distinct != null, where, iterators, projAttrs, groupByAttrs, having,
+          aggregates, orderByAttrs, limit, hints);
+    }
+    else {
+      select = new CompiledSelect(distinct != null, aggrExpr != null, where,
+          iterators, projAttrs, orderByAttrs, limit, hints);
+    }
     push(select);
   }
+
+  /**
+   * Adds the aggregate functions found in <code>value</code> to
+   * <code>aggregates</code>. Subqueries have their own aggregates and are not
+   * searched.
+   */
+  private void collectAggregates(CompiledValue value, List<CompiledAggregateFunction> aggregates,
+      boolean inAggregate) {
+    if (value == null || value instanceof CompiledSelect) {
+      return;
+    }
+    if (value.getType() == CompiledValue.AGG_FUNC) {
+      if (inAggregate) {
+        throw new QueryInvalidException(LocalizedStrings.QCompiler_SYNTAX_ERROR_IN_QUERY_0
+            .toLocalizedString("aggregate functions can not be nested"));
+      }
+      aggregates.add((CompiledAggregateFunction)value);
+      inAggregate = true;
+    }
+    List children = value.getChildren();
+    if (children != null) {
+      for (Object child : children) {
+        if (child instanceof CompiledValue) {
+          collectAggregates((CompiledValue)child, aggregates, inAggregate);
+        }
+      }
+    }
+  }
+
+  public void aggregateFunction(int aggregateType) {
+    // the argument, or null for count(*)
+    CompiledValue expr = (CompiledValue)pop();
+    push(new CompiledAggregateFunction(aggregateType, expr));
+  }
+
+  public void groupKey(int index) {
+    CompiledValue expr = (CompiledValue)pop();
+    push(new CompiledGroupKey(expr, index));
+  }
   
   public void projection () {
     // find an id or null on the stack, then an expr CompiledValue
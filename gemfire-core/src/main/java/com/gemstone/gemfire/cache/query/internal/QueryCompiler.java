@@ -0,0 +1,217 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.List;
+
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+
+/**
+ * Compiles the where clause and the projections of a select for evaluation
+ * on every iteration. Compiling resolves the identifiers of the iterators of
+ * the select once instead of for every evaluation, and replaces the paths
+ * and method calls on them with {@link CompiledAccessorPath}s, which access
+ * plain objects through generated bytecode and PDX instances through their
+ * fields instead of through reflection and name lookups.
+ * <p>
+ * Comparisons, junctions and negations are rebuilt around their compiled
+ * operands. Any other expression is kept as it is and evaluated as before.
+ * <p>
+ * Compiling is enabled by setting the system property
+ * <code>gemfire.Query.COMPILE_EXPRESSIONS</code> to true.
+ *
+ * @since 9.0
+ */
+final class QueryCompiler implements OQLLexerTokenTypes {
+
+  static final boolean ENABLED = Boolean.getBoolean("gemfire.Query.COMPILE_EXPRESSIONS");
+
+  private final ExecutionContext context;
+
+  private final List iterators;
+
+  /**
+   * false once an expression that may hold state specific to one query has
+   * been kept in the plan
+   */
+  private boolean shareable = true;
+
+  private QueryCompiler(ExecutionContext context) {
+    this.context = context;
+    this.iterators = context.getCurrentIterators();
+  }
+
+  /**
+   * Compiles a where clause and projection attributes in the scope of their
+   * select, which must be the current scope of the given context.
+   *
+   * @param whereClause the where clause, or null
+   * @param projAttrs the projection attributes of the select as a list of
+   *          Object[2] of name and expression, or null
+   */
+  static Plan compile(CompiledValue whereClause, List projAttrs,
+      ExecutionContext context) throws AmbiguousNameException,
+      TypeMismatchException {
+    QueryCompiler compiler = new QueryCompiler(context);
+    CompiledValue compiledWhereClause = null;
+    if (whereClause != null) {
+      compiledWhereClause = compiler.compile(whereClause);
+    }
+    CompiledValue[] projections = null;
+    if (projAttrs != null) {
+      projections = new CompiledValue[projAttrs.size()];
+      for (int i = 0; i < projections.length; i++) {
+        Object[] projDef = (Object[])projAttrs.get(i);
+        projections[i] = compiler.compile((CompiledValue)projDef[1]);
+      }
+    }
+    return new Plan(compiledWhereClause, projections,
+        compiler.iterators.size(), compiler.shareable);
+  }
+
+  private CompiledValue compile(CompiledValue cv)
+      throws AmbiguousNameException, TypeMismatchException {
+    switch (cv.getType()) {
+    case CompiledValue.LITERAL:
+    case QUERY_PARAM:
+      return cv;
+    case Identifier:
+      return compileIdentifier((CompiledID)cv);
+    case CompiledValue.PATH: {
+      CompiledPath path = (CompiledPath)cv;
+      CompiledValue receiver = compile(path.getReceiver());
+      if (receiver == path.getReceiver()) {
+        return cv;
+      }
+      return new CompiledAccessorPath(cv, receiver, path.getTailID(), false);
+    }
+    case METHOD_INV: {
+      CompiledOperation operation = (CompiledOperation)cv;
+      CompiledValue rcvr = operation.getReceiver();
+      if (rcvr == null || !operation.getArguments().isEmpty()) {
+        // implicit receivers and arguments are left to the operation
+        this.shareable = false;
+        return cv;
+      }
+      CompiledValue receiver = compile(rcvr);
+      if (receiver == rcvr) {
+        return cv;
+      }
+      return new CompiledAccessorPath(cv, receiver,
+          operation.getMethodName(), true);
+    }
+    case CompiledValue.COMPARISON: {
+      CompiledComparison comparison = (CompiledComparison)cv;
+      List operands = comparison.getChildren();
+      CompiledValue left = (CompiledValue)operands.get(0);
+      CompiledValue right = (CompiledValue)operands.get(1);
+      CompiledValue compiledLeft = compile(left);
+      CompiledValue compiledRight = compile(right);
+      if (compiledLeft == left && compiledRight == right) {
+        return cv;
+      }
+      return new CompiledComparison(compiledLeft, compiledRight,
+          comparison.getOperator());
+    }
+    case CompiledValue.JUNCTION: {
+      CompiledJunction junction = (CompiledJunction)cv;
+      List operands = junction.getOperands();
+      CompiledValue[] compiledOperands = new CompiledValue[operands.size()];
+      boolean changed = false;
+      for (int i = 0; i < compiledOperands.length; i++) {
+        CompiledValue operand = (CompiledValue)operands.get(i);
+        compiledOperands[i] = compile(operand);
+        changed |= compiledOperands[i] != operand;
+      }
+      if (!changed) {
+        return cv;
+      }
+      return new CompiledJunction(compiledOperands, junction.getOperator());
+    }
+    case LITERAL_not: {
+      CompiledValue value = (CompiledValue)cv.getChildren().get(0);
+      CompiledValue compiledValue = compile(value);
+      if (compiledValue == value) {
+        return cv;
+      }
+      return new CompiledNegation(compiledValue);
+    }
+    default:
+      this.shareable = false;
+      return cv;
+    }
+  }
+
+  private CompiledValue compileIdentifier(CompiledID id)
+      throws AmbiguousNameException, TypeMismatchException {
+    CompiledValue resolved = this.context.resolve(id.getId());
+    if (resolved instanceof RuntimeIterator) {
+      int index = this.iterators.indexOf(resolved);
+      // an iterator of an enclosing scope is left to the identifier
+      return index < 0 ? id : new CompiledIteratorRef(id, index);
+    }
+    if (resolved instanceof CompiledPath) {
+      // an implicit attribute of an iterator
+      CompiledPath path = (CompiledPath)resolved;
+      int index = this.iterators.indexOf(path.getReceiver());
+      if (index >= 0) {
+        return new CompiledAccessorPath(id, new CompiledIteratorRef(id, index),
+            path.getTailID(), false);
+      }
+    }
+    return id;
+  }
+
+  /**
+   * The compiled expressions of a select. A plan does not refer to the
+   * iterators of any one execution of the select, and one that is shareable
+   * can be used by every query with the same query string.
+   */
+  static final class Plan {
+    private final CompiledValue whereClause;
+    private final CompiledValue[] projections;
+    private final int iteratorCount;
+    private final boolean shareable;
+
+    Plan(CompiledValue whereClause, CompiledValue[] projections,
+        int iteratorCount, boolean shareable) {
+      this.whereClause = whereClause;
+      this.projections = projections;
+      this.iteratorCount = iteratorCount;
+      this.shareable = shareable;
+    }
+
+    /** Returns the compiled where clause, or null if there is none */
+    CompiledValue getWhereClause() {
+      return this.whereClause;
+    }
+
+    /**
+     * Returns the compiled expressions of the projection attributes, or null
+     * if there are none
+     */
+    CompiledValue[] getProjections() {
+      return this.projections;
+    }
+
+    /** Returns the number of iterators of the scope the plan was compiled in */
+    int getIteratorCount() {
+      return this.iteratorCount;
+    }
+
+    /**
+     * Returns true if the plan only keeps expressions that can be evaluated
+     * in the context of any query with the same query string
+     */
+    boolean isShareable() {
+      return this.shareable;
+    }
+  }
+}
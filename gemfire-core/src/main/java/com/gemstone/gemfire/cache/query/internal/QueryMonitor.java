@@ -171,12 +171,36 @@ public class QueryMonitor implements Runnable {
    * The max query execution time is set using the system property 
    * gemfire.Cache.MAX_QUERY_EXECUTION_TIME 
    */  
-  public static void isQueryExecutionCanceled(){    
+  public static void isQueryExecutionCanceled(){
     if (queryExecutionStatus.get() != null && queryExecutionStatus.get().get()){
       throw new QueryExecutionCanceledException();
     }
   }
- 
+
+  /**
+   * Returns the query execution status of the current thread. Threads that
+   * help the current thread execute its query can share the status with
+   * {@link #setQueryExecutionStatus} so that canceling the query stops them
+   * too.
+   * @since 9.0
+   */
+  public static AtomicBoolean getQueryExecutionStatus() {
+    return queryExecutionStatus.get();
+  }
+
+  /**
+   * Sets the query execution status of the current thread. Passing null
+   * gives the thread a status of its own again.
+   * @since 9.0
+   */
+  public static void setQueryExecutionStatus(AtomicBoolean status) {
+    if (status == null) {
+      queryExecutionStatus.remove();
+    } else {
+      queryExecutionStatus.set(status);
+    }
+  }
+
   /**
    * Stops query monitoring.
    */
@@ -320,4 +320,17 @@ public interface QueryObserver {
   
   void limitAppliedAtIndexLevel(Index index, int limit , Collection indexResult);
 
+  /**
+   * Called when the query planner has chosen an index to evaluate a
+   * condition of an AND junction, before the index is looked up.
+   * 
+   * @param index the index chosen
+   * @param estimatedSize the number of results the planner expects the lookup
+   *          to return
+   * @param estimatedCost the cost of the lookup in the relative units of
+   *          {@link IndexCostModel}
+   * @since 9.0
+   */
+  void indexSelected(Index index, int estimatedSize, double estimatedCost);
+
 }
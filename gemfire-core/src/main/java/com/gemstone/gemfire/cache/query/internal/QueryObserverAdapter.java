@@ -325,4 +325,7 @@ public class QueryObserverAdapter implements QueryObserver {
   public void limitAppliedAtIndexLevel(Index index, int limit , Collection indexResult){
     
   }
+
+  public void indexSelected(Index index, int estimatedSize, double estimatedCost) {
+  }
 }
@@ -0,0 +1,283 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.internal.cache.CachePerfStats;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+
+/**
+ * Keeps the results of queries on regions that change rarely, so that a
+ * query that is executed again with the same bind parameters is answered
+ * without evaluating it.
+ * <p>
+ * A result is kept with the versions that the regions of the query had
+ * before it was evaluated, and is only used while none of those regions has
+ * changed. Every create, update, invalidate and destroy of an entry, and
+ * every clear, of a region that enables result caching advances its version
+ * (see {@link LocalRegion#getQueryResultCacheVersion()}).
+ * <p>
+ * Only the queries whose regions all enable result caching are cached.
+ * Partitioned regions are never cached since their buckets also change on
+ * other members. The results of a query are shared by every execution that
+ * finds them in the cache, so the <code>SelectResults</code> of a cached
+ * query cannot be modified, including those of the execution that cached
+ * them.
+ * <p>
+ * The cache holds the results of at most
+ * <code>gemfire.Query.RESULT_CACHE_SIZE</code> queries, evicting the least
+ * recently used, and is disabled if it is not set. Regions enable result
+ * caching through {@link DefaultQueryService#setResultCacheEnabled} or by
+ * being listed by their full paths, separated by commas, in
+ * <code>gemfire.Query.RESULT_CACHE_REGIONS</code>.
+ *
+ * @since 9.0
+ */
+public final class QueryResultCache {
+
+  public static final int MAX_SIZE = Integer.getInteger(
+      "gemfire.Query.RESULT_CACHE_SIZE", 0).intValue();
+
+  private static final Set<String> ENABLED_REGIONS = parseRegions(System
+      .getProperty("gemfire.Query.RESULT_CACHE_REGIONS"));
+
+  /** the cached results in least recently used order; guarded by itself */
+  private final LinkedHashMap<Key, CachedResult> results;
+
+  private final CachePerfStats stats;
+
+  public QueryResultCache(final int maxSize, CachePerfStats stats) {
+    this.results = new LinkedHashMap<Key, CachedResult>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CachedResult> eldest) {
+        return size() > maxSize;
+      }
+    };
+    this.stats = stats;
+  }
+
+  private static Set<String> parseRegions(String regions) {
+    if (regions == null) {
+      return Collections.emptySet();
+    }
+    Set<String> result = new HashSet<String>();
+    for (String region : regions.split(",")) {
+      region = region.trim();
+      if (region.length() > 0) {
+        result.add(region.startsWith(Region.SEPARATOR) ? region
+            : Region.SEPARATOR + region);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if result caching is enabled for the region with the given
+   * full path when the region is created.
+   */
+  public static boolean isEnabledByDefault(String regionPath) {
+    return ENABLED_REGIONS.contains(regionPath);
+  }
+
+  /**
+   * Returns the key and the current region versions for the results of a
+   * query, or null if they cannot be cached.
+   */
+  Lookup lookup(DefaultQuery query, Object[] parameters, Cache cache) {
+    if (cache.getCopyOnRead() && DefaultQueryService.COPY_ON_READ_AT_ENTRY_LEVEL) {
+      // the results hold copies made for one execution
+      return null;
+    }
+    for (int i = 0; i < parameters.length; i++) {
+      if (!isImmutable(parameters[i])) {
+        return null;
+      }
+    }
+    Set regionPaths = query.getRegionsInQuery(parameters);
+    if (regionPaths.isEmpty()) {
+      return null;
+    }
+    LocalRegion[] regions = new LocalRegion[regionPaths.size()];
+    long[] versions = new long[regions.length];
+    int i = 0;
+    for (Iterator itr = regionPaths.iterator(); itr.hasNext(); i++) {
+      Region region = cache.getRegion((String)itr.next());
+      if (!(region instanceof LocalRegion) || region instanceof PartitionedRegion
+          || !((LocalRegion)region).isQueryResultCacheEnabled()) {
+        return null;
+      }
+      regions[i] = (LocalRegion)region;
+      versions[i] = regions[i].getQueryResultCacheVersion();
+    }
+    return new Lookup(new Key(query.getQueryString(), parameters,
+        query.isKeepSerialized()), regions, versions);
+  }
+
+  /**
+   * Parameters that are compared by value and cannot change once the
+   * results are cached.
+   */
+  private static boolean isImmutable(Object parameter) {
+    return parameter == null || parameter instanceof String
+        || parameter instanceof Number || parameter instanceof Boolean
+        || parameter instanceof Character || parameter instanceof Enum;
+  }
+
+  /**
+   * Returns the cached results for the given lookup if none of the regions
+   * of the query has changed since they were cached, otherwise null.
+   */
+  CachedResult get(Lookup lookup) {
+    CachedResult cached;
+    synchronized (this.results) {
+      cached = this.results.get(lookup.key);
+    }
+    if (cached != null && cached.isCurrent(lookup)) {
+      this.stats.incQueryResultCacheHits();
+      return cached;
+    }
+    this.stats.incQueryResultCacheMisses();
+    return null;
+  }
+
+  /**
+   * Caches the results of a query evaluated after the given lookup was made.
+   * @return the results to return from this execution
+   */
+  Object put(Lookup lookup, Object result, boolean indexUsed) {
+    CachedResult cached = new CachedResult(lookup, result, indexUsed);
+    synchronized (this.results) {
+      this.results.put(lookup.key, cached);
+    }
+    return cached.getResult();
+  }
+
+  /** Returns the number of cached results */
+  public int size() {
+    synchronized (this.results) {
+      return this.results.size();
+    }
+  }
+
+  public void clear() {
+    synchronized (this.results) {
+      this.results.clear();
+    }
+  }
+
+  /**
+   * Identifies the results of a query: the query string, the bind
+   * parameters and whether values are kept serialized.
+   */
+  private static final class Key {
+    private final String queryString;
+    private final Object[] parameters;
+    private final boolean keepSerialized;
+    private final int hashCode;
+
+    Key(String queryString, Object[] parameters, boolean keepSerialized) {
+      this.queryString = queryString;
+      this.parameters = parameters.clone();
+      this.keepSerialized = keepSerialized;
+      this.hashCode = queryString.hashCode() * 31
+          + Arrays.hashCode(this.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key)obj;
+      return this.hashCode == other.hashCode
+          && this.keepSerialized == other.keepSerialized
+          && this.queryString.equals(other.queryString)
+          && Arrays.equals(this.parameters, other.parameters);
+    }
+  }
+
+  /** The key of a query and the versions of its regions at one time */
+  static final class Lookup {
+    final Key key;
+    final LocalRegion[] regions;
+    final long[] versions;
+
+    Lookup(Key key, LocalRegion[] regions, long[] versions) {
+      this.key = key;
+      this.regions = regions;
+      this.versions = versions;
+    }
+  }
+
+  /** The results of a query and the region versions they were computed at */
+  static final class CachedResult {
+    private final LocalRegion[] regions;
+    private final long[] versions;
+    private final Object result;
+    private final boolean indexUsed;
+
+    CachedResult(Lookup lookup, Object result, boolean indexUsed) {
+      this.regions = lookup.regions;
+      this.versions = lookup.versions;
+      this.result = result;
+      this.indexUsed = indexUsed;
+    }
+
+    /**
+     * Returns true if the regions of the lookup are the regions these
+     * results were computed on, with the same versions. A region that was
+     * destroyed and created again is a different region.
+     */
+    boolean isCurrent(Lookup lookup) {
+      if (lookup.regions.length != this.regions.length) {
+        return false;
+      }
+      for (int i = 0; i < this.regions.length; i++) {
+        if (lookup.regions[i] != this.regions[i]
+            || lookup.versions[i] != this.versions[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the results for one execution; <code>SelectResults</code> are
+     * wrapped so that they cannot be modified.
+     */
+    Object getResult() {
+      if (this.result instanceof SelectResults) {
+        return new ResultsCollectionUnmodifiableWrapper((SelectResults)this.result);
+      }
+      return this.result;
+    }
+
+    /** Returns true if an index was used to compute the results */
+    boolean isIndexUsed() {
+      return this.indexUsed;
+    }
+  }
+}
@@ -26,6 +26,7 @@ import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.cache.query.internal.index.IndexProtocol;
 import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
 import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
 import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
@@ -111,6 +112,10 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     if (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints()) {
       return thisSize <= comparedTo.getSizeEstimate(context);
     }
+    if (IndexCostModel.ENABLED) {
+      return IndexCostModel.isBetterFilter(this, thisSize, comparedTo,
+          comparedTo.getSizeEstimate(context));
+    }
     
     int thatOperator = comparedTo.getOperator() ;    
     switch(thatOperator) {
@@ -554,9 +559,15 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
   }
 
   public int getSizeEstimate(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException
   {
-    //TODO:Asif:Try to estimate better
-     return RANGE_SIZE_ESTIMATE;
+    // The size is that of the evaluator the conditions are combined into
+    OrganizedOperands newOperands = organizeOperands(context);
+    if (newOperands.isSingleFilter) {
+      return newOperands.filterOperand.getSizeEstimate(context);
+    }
+    return RANGE_SIZE_ESTIMATE;
   }
 
   /*
@@ -892,8 +903,19 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
     public int getType() {
       return NOTEQUALCONDITIONEVALUATOR;
     }
-    public int getSizeEstimate(ExecutionContext context) {
-  	  return RANGE_SIZE_ESTIMATE;
+    public int getSizeEstimate(ExecutionContext context)
+        throws TypeMismatchException {
+      if (this.notEqualTypeKeys == null || this.notEqualTypeKeys.isEmpty()) {
+        return RANGE_SIZE_ESTIMATE;
+      }
+      IndexProtocol index = this.indxInfo._index;
+      int matchLevel = this.indxInfo._matchLevel;
+      Iterator itr = this.notEqualTypeKeys.iterator();
+      long size = index.getSizeEstimate(itr.next(), TOK_NE, matchLevel);
+      while (itr.hasNext()) {
+        size -= index.getSizeEstimate(itr.next(), TOK_EQ, matchLevel);
+      }
+      return (int)Math.max(0L, size);
     }
     @Override
     public void visitNodes(NodeVisitor visitor) {
@@ -917,6 +939,10 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       if (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints()) {
         return thisSize <= comparedTo.getSizeEstimate(context);
       }
+      if (IndexCostModel.ENABLED) {
+        return IndexCostModel.isBetterFilter(this, thisSize, comparedTo,
+            comparedTo.getSizeEstimate(context));
+      }
       
       switch(thatOperator) {
           case TOK_EQ:        
@@ -980,6 +1006,13 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       this.condnKey = key;
     }
 
+    @Override
+    public int getSizeEstimate(ExecutionContext context)
+        throws TypeMismatchException {
+      return this.indxInfo._index.getSizeEstimate(this.condnKey, this.condnOp,
+          this.indxInfo._matchLevel);
+    }
+
     @Override
     public SelectResults filterEvaluate(ExecutionContext context,
         SelectResults iterationLimit, boolean completeExpansionNeeded,
@@ -1124,6 +1157,14 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
       this.greaterCondnKey = greaterCondnKey;
     }
 
+    @Override
+    public int getSizeEstimate(ExecutionContext context)
+        throws TypeMismatchException {
+      return this.indxInfo._index.getSizeEstimate(this.greaterCondnKey,
+          this.greaterCondnOp, this.lessCondnKey, this.lessCondnOp,
+          this.indxInfo._matchLevel);
+    }
+
     @Override
     public SelectResults filterEvaluate(ExecutionContext context,
         SelectResults iterationLimit) throws FunctionDomainException,
@@ -0,0 +1,150 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.types.CollectionType;
+import com.gemstone.gemfire.cache.query.types.ObjectType;
+
+/**
+ * Wraps the results of a query kept in the {@link QueryResultCache}, which
+ * are shared by every execution that finds them there, so that they cannot
+ * be modified. asSet and asList return copies.
+ *
+ * @since 9.0
+ */
+final class ResultsCollectionUnmodifiableWrapper implements SelectResults {
+  private final SelectResults results;
+
+  ResultsCollectionUnmodifiableWrapper(SelectResults results) {
+    this.results = results;
+  }
+
+  @Override
+  public Iterator iterator() {
+    final Iterator iterator = this.results.iterator();
+    return new Iterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Object next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("Cached query results cannot be modified");
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return this.results.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.results.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return this.results.contains(o);
+  }
+
+  @Override
+  public boolean containsAll(Collection c) {
+    return this.results.containsAll(c);
+  }
+
+  @Override
+  public Object[] toArray() {
+    return this.results.toArray();
+  }
+
+  @Override
+  public Object[] toArray(Object[] a) {
+    return this.results.toArray(a);
+  }
+
+  @Override
+  public boolean isModifiable() {
+    return false;
+  }
+
+  @Override
+  public int occurrences(Object element) {
+    return this.results.occurrences(element);
+  }
+
+  @Override
+  public Set asSet() {
+    return new HashSet(this.results);
+  }
+
+  @Override
+  public List asList() {
+    return new ArrayList(this.results);
+  }
+
+  @Override
+  public CollectionType getCollectionType() {
+    return this.results.getCollectionType();
+  }
+
+  @Override
+  public String toString() {
+    return this.results.toString();
+  }
+
+  @Override
+  public boolean add(Object e) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public boolean addAll(Collection c) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public boolean removeAll(Collection c) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public boolean retainAll(Collection c) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+
+  @Override
+  public void setElementType(ObjectType elementType) {
+    throw new UnsupportedOperationException("Cached query results cannot be modified");
+  }
+}
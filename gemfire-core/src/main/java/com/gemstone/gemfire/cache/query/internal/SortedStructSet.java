@@ -249,6 +249,21 @@ public final class SortedStructSet extends TreeSet implements SelectResults, Dat
 	    return this.modifiable;
 	  }
 
+	  /**
+	   * Removes the greatest elements of this set, and their evaluated sort
+	   * keys, until it holds at most the given number of elements.
+	   *
+	   * @since 9.0
+	   */
+	  public void applyLimit(int limit) {
+	    while (size() > limit) {
+	      Object last = pollLast();
+	      if (comparator() instanceof OrderByComparator) {
+	        ((OrderByComparator)comparator()).orderByMap.remove(last);
+	      }
+	    }
+	  }
+
     public int occurrences(Object element) {
       return contains(element) ? 1 : 0;
     }
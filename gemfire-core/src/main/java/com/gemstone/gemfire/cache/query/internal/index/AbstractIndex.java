@@ -790,6 +790,19 @@ public abstract class AbstractIndex implements IndexProtocol
 
   public abstract boolean isEmpty();
 
+  /**
+   * Estimates a range from the estimates of its two bounds. Without knowing
+   * how the keys are spread, the smaller of the two is the best bound on
+   * the number of values between them.
+   */
+  public int getSizeEstimate(Object lowerBoundKey, int lowerBoundOperator,
+      Object upperBoundKey, int upperBoundOperator, int matchLevel)
+      throws TypeMismatchException {
+    int lower = getSizeEstimate(lowerBoundKey, lowerBoundOperator, matchLevel);
+    int upper = getSizeEstimate(upperBoundKey, upperBoundOperator, matchLevel);
+    return Math.min(lower, upper);
+  }
+
   protected abstract boolean isCompactRangeIndex();
   
   protected abstract InternalIndexStatistics createStats(String indexName);
@@ -955,6 +968,25 @@ public abstract class AbstractIndex implements IndexProtocol
     public void incNumBucketIndexes(int delta) 
     {
     }
+
+    /**
+     * Counts <code>delta</code> more values with the given key in the
+     * histogram of the index keys, if the index keeps one.
+     * @since 9.0
+     */
+    public void incKeyCount(Object key, int delta)
+    {
+    }
+
+    /**
+     * Returns the histogram of the index keys, or null if the index does not
+     * keep one.
+     * @since 9.0
+     */
+    public KeyHistogram getKeyHistogram()
+    {
+      return null;
+    }
   }
 
   /**
@@ -54,7 +54,9 @@ import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
 import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
 import com.gemstone.gemfire.cache.query.types.StructType;
+import com.gemstone.gemfire.internal.cache.BucketRegion;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
 import com.gemstone.gemfire.internal.cache.RegionEntry;
 import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.cache.VMThinRegionEntryHeap;
@@ -103,6 +105,48 @@ public class CompactRangeIndex extends AbstractIndex {
     return indexStore;
   }
 
+  /**
+   * Returns the entries of this index in the order in which an ORDER BY on
+   * the indexed expression sorts their values. If this is the index of a
+   * bucket and the query runs on buckets, the entries of the indexes of all
+   * the buckets of the context are merged. The caller must hold the read
+   * lock of this index and close the iterator.
+   *
+   * @since 9.0
+   */
+  public CloseableIterator<IndexStoreEntry> getOrderedEntries(
+      ExecutionContext context, boolean descending)
+      throws QueryInvocationTargetException {
+    List<IndexStore> stores = new ArrayList<IndexStore>();
+    if (context.getBucketList() != null && this.region instanceof BucketRegion) {
+      PartitionedRegion pr = ((BucketRegion)this.region).getPartitionedRegion();
+      for (Object b : context.getBucketList()) {
+        AbstractIndex i = PartitionedIndex.getBucketIndex(pr, this.indexName,
+            (Integer)b);
+        if (i != null) {
+          stores.add(((CompactRangeIndex)i).indexStore);
+        }
+      }
+    } else {
+      stores.add(this.indexStore);
+    }
+    return new OrderedIndexEntryIterator(stores, descending);
+  }
+
+  /**
+   * Returns true if the given value of the indexed expression, evaluated on
+   * the current value of an entry whose update is in progress, still maps to
+   * the index key of the entry.
+   *
+   * @since 9.0
+   */
+  public boolean isIndexKeyOf(Object value, IndexStoreEntry entry)
+      throws TypeMismatchException {
+    Object key = value == null ? IndexManager.NULL : TypeUtils.indexKeyFor(value);
+    key = getPdxStringForIndexedPdxKeys(key);
+    return key.equals(entry.getDeserializedKey());
+  }
+
   /**
    * Get the index type
    * 
@@ -317,6 +361,13 @@ public class CompactRangeIndex extends AbstractIndex {
         break;
       case OQLLexerTokenTypes.TOK_LE:
       case OQLLexerTokenTypes.TOK_LT:
+        if (matchLevel <= 0) {
+          int estimate = getHistogramSizeEstimate(key, operator);
+          if (estimate >= 0) {
+            size = estimate;
+            break;
+          }
+        }
         if (matchLevel <= 0 && (key instanceof Number)) {
 
           int totalSize = indexStore.size();
@@ -381,6 +432,13 @@ public class CompactRangeIndex extends AbstractIndex {
 
       case OQLLexerTokenTypes.TOK_GE:
       case OQLLexerTokenTypes.TOK_GT:
+        if (matchLevel <= 0) {
+          int estimate = getHistogramSizeEstimate(key, operator);
+          if (estimate >= 0) {
+            size = estimate;
+            break;
+          }
+        }
         if (matchLevel <= 0 && (key instanceof Number)) {
           int totalSize = indexStore.size();
           if (CompactRangeIndex.testHook != null) {
@@ -444,6 +502,67 @@ public class CompactRangeIndex extends AbstractIndex {
     return size;
   }
 
+  @Override
+  public int getSizeEstimate(Object lowerBoundKey, int lowerBoundOperator,
+      Object upperBoundKey, int upperBoundOperator, int matchLevel)
+      throws TypeMismatchException {
+    if (matchLevel <= 0) {
+      int lower = getHistogramSizeEstimate(lowerBoundKey, lowerBoundOperator);
+      int upper = getHistogramSizeEstimate(upperBoundKey, upperBoundOperator);
+      if (lower >= 0 && upper >= 0) {
+        // the values above the lower bound less those above the upper bound
+        long total = this.internalIndexStats.getKeyHistogram().getTotal();
+        return (int)Math.max(0L, lower + upper - total);
+      }
+    }
+    return super.getSizeEstimate(lowerBoundKey, lowerBoundOperator,
+        upperBoundKey, upperBoundOperator, matchLevel);
+  }
+
+  /**
+   * Estimates the number of values matching an inequality from the histogram
+   * of the index keys. Unlike the interpolation between the first and last
+   * keys, this counts values rather than keys and copes with keys that are
+   * not evenly spread.
+   *
+   * @return the estimate, or -1 if the histogram cannot give one
+   */
+  private int getHistogramSizeEstimate(Object key, int operator)
+      throws TypeMismatchException {
+    KeyHistogram histogram = this.internalIndexStats.getKeyHistogram();
+    if (histogram == null) {
+      return -1;
+    }
+    long below = histogram.estimateBelow(key);
+    if (below < 0) {
+      return -1;
+    }
+    long equal = 0;
+    if (operator == OQLLexerTokenTypes.TOK_LE
+        || operator == OQLLexerTokenTypes.TOK_GT) {
+      equal = indexStore.size(TypeUtils.indexKeyFor(key));
+    }
+    long total = histogram.getTotal();
+    long size;
+    switch (operator) {
+    case OQLLexerTokenTypes.TOK_LT:
+      size = below;
+      break;
+    case OQLLexerTokenTypes.TOK_LE:
+      size = below + equal;
+      break;
+    case OQLLexerTokenTypes.TOK_GT:
+      size = total - below - equal;
+      break;
+    case OQLLexerTokenTypes.TOK_GE:
+      size = total - below;
+      break;
+    default:
+      return -1;
+    }
+    return (int)Math.min(Integer.MAX_VALUE, Math.max(0L, Math.min(size, total)));
+  }
+
   /** Method called while appropriate lock held on index */
   private void lockedQueryPrivate(Object key, int operator, Collection results,
       CompiledValue iterOps, RuntimeIterator runtimeItr,
@@ -1031,7 +1150,17 @@ public class CompactRangeIndex extends AbstractIndex {
 
     public RangeIndexStatistics(String indexName) {
       this.vsdStats = new IndexStats(getRegion().getCache()
-          .getDistributedSystem(), indexName);
+          .getDistributedSystem(), indexName, true);
+    }
+
+    @Override
+    public void incKeyCount(Object key, int delta) {
+      this.vsdStats.incKeyCount(key, delta);
+    }
+
+    @Override
+    public KeyHistogram getKeyHistogram() {
+      return this.vsdStats.getKeyHistogram();
     }
 
     /**
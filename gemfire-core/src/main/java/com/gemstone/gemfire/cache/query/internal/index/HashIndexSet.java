@@ -16,6 +16,9 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.AttributeDescriptor;
@@ -29,10 +32,17 @@ import com.gemstone.gemfire.internal.util.PrimeFinder;
 
 /**
  * An implementation of the <tt>Set</tt> interface that uses an open-addressed
- * hash table to store its contents.
- * 
- * On collisions, will store contents in an IndexElemArray and once a threshold
- * has been hit, will store in ConcurrentHashSets.
+ * hash table to store its contents. Each slot holds one region entry and the
+ * index key of an entry is computed from the entry when needed, so the keys
+ * are not stored.
+ * <p>
+ * Lookups take no lock. Adds and removes claim and release slots with compare
+ * and set, so they run concurrently under the shared side of a read write
+ * lock, and only rehashing takes the exclusive side. A rehash builds a new
+ * table and then publishes it, so a lookup that started on the old table
+ * sees a consistent snapshot. A removed slot is marked with {@link #REMOVED}
+ * rather than cleared so that probe sequences stay intact, and at least one
+ * slot is always free so that a probe always ends.
  */
 
 public class HashIndexSet implements Set {
@@ -44,13 +54,16 @@ public class HashIndexSet implements Set {
   private transient CachePerfStats cacheStats;
 
   /** the current number of occupied slots in the hash. */
-  protected transient int _size;
+  protected final AtomicInteger _size = new AtomicInteger();
   
-  /** the current number of free slots in the hash. */
-  protected transient int _free;
+  /**
+   * the number of slots that are not free: the occupied slots, the removed
+   * slots and the slots reserved by adds in progress.
+   */
+  protected final AtomicInteger _used = new AtomicInteger();
   
-  /** the current number of occupied slots in the hash. */
-  protected transient int _removedTokens;
+  /** the current number of removed slots in the hash. */
+  protected final AtomicInteger _removedTokens = new AtomicInteger();
 
   /** the load above which rehashing occurs. */
   protected static final float DEFAULT_LOAD_FACTOR = 0.5f;
@@ -82,8 +95,14 @@ public class HashIndexSet implements Set {
   //we will compact and rehash to remove the tokens.
   protected static final float CONDITIONAL_REMOVED_TOKEN_REHASH_FACTOR = .7f;
 
-  /** the set of Objects */
-  protected transient Object[] _set;
+  /** the set of Objects. Replaced, never resized, when rehashing. */
+  protected volatile AtomicReferenceArray<Object> _set;
+
+  /**
+   * Adds and removes hold the read lock so that they can run together, a
+   * rehash holds the write lock.
+   */
+  private final ReentrantReadWriteLock updateLock = new ReentrantReadWriteLock();
 
   /** the strategy used to hash objects in this collection. */
   protected HashIndexStrategy _hashingStrategy;
@@ -265,14 +284,14 @@ public class HashIndexSet implements Set {
    */
   protected int index(Object key, Object obj, int ignoreThisSlot) {
     int hash, probe, index, length;
-    Object[] set;
+    AtomicReferenceArray<Object> set;
     Object cur;
 
     set = _set;
-    length = set.length;
+    length = set.length();
     hash = computeHash(key, false);
     index = hash % length;
-    cur = set[index];
+    cur = set.get(index);
     
     long start = -1L;
     if (this.cacheStats != null) {
@@ -295,7 +314,7 @@ public class HashIndexSet implements Set {
       if (index < 0) {
         index += length;
       }
-      cur = set[index];
+      cur = set.get(index);
     }
     return -1;
   }
@@ -321,43 +340,30 @@ public class HashIndexSet implements Set {
   }
 
   /**
+   * Claims a free or removed slot for <code>newObject</code>, starting at the
+   * slot given by {@link #insertionIndex(Object, Object, AtomicReferenceArray)}
+   * and following the probe sequence of <code>indexKey</code> if other adds
+   * claim slots first. The caller must have reserved a slot in
+   * {@link #_used}.
    * 
-   * @param set the array that all elements are stored in
-   * @param index
-   *          the array index location to store the object. This should be
-   *          calculated by one of the insertionIndex methods
-   * @param newObject the object to add to the set
-   * @return true if object was added
+   * @return the slot used if it was free, or <tt>-slot - 1</tt> if it was a
+   *         removed slot
    */
-  private boolean addObjectToSet(Object[] set, int index, Object newObject) {
-    boolean added = true;
-    if (index < 0) {
-      throwObjectContractViolation(set[(-index - 1)], newObject);
-    }
-    Object oldObject = set[index];
-    if (oldObject == null || oldObject == REMOVED) {
-      set[index] = newObject;
-    } else if (oldObject instanceof RegionEntry) {
-      IndexElemArray elemArray = new IndexElemArray();
-      elemArray.add(oldObject);
-      elemArray.add(newObject);
-      set[index] = elemArray;
-    } else if (oldObject instanceof IndexConcurrentHashSet) {
-      added = ((IndexConcurrentHashSet) oldObject).add(newObject);
-    } else if (oldObject instanceof IndexElemArray) {
-      IndexElemArray elemArray = (IndexElemArray) oldObject;
-      if (elemArray.size() >= IndexManager.INDEX_ELEMARRAY_THRESHOLD) {
-        IndexConcurrentHashSet newSet = new IndexConcurrentHashSet(
-            IndexManager.INDEX_ELEMARRAY_THRESHOLD + 20, 0.75f, 1);
-        newSet.addAll(elemArray);
-        newSet.add(newObject);
-        set[index] = newSet;
-      } else {
-        elemArray.add(newObject);
+  private int addObjectToSet(AtomicReferenceArray<Object> set, Object indexKey, Object newObject) {
+    int length = set.length();
+    int hash = computeHash(indexKey, false);
+    int probe = 1 + (hash % (length - 2));
+    int indexSlot = insertionIndex(indexKey, newObject, set);
+    for (;;) {
+      Object cur = set.get(indexSlot);
+      if ((cur == null || cur == REMOVED) && set.compareAndSet(indexSlot, cur, newObject)) {
+        return cur == null ? indexSlot : -indexSlot - 1;
+      }
+      indexSlot -= probe;
+      if (indexSlot < 0) {
+        indexSlot += length;
       }
     }
-
-    return added;
   }
 
   /**
@@ -366,12 +372,12 @@ public class HashIndexSet implements Set {
    * @param obj an <code>Object</code> value
    * @return true if the set was modified by the add operation
    */
-  public synchronized boolean add(Object obj){
+  public boolean add(Object obj){
     throw new UnsupportedOperationException(
         "add(Object) not supported, try add(Object key, Object obj) instead");
   }
 
-  public synchronized boolean add(Object indexKey, Object obj) throws TypeMismatchException {   
+  public boolean add(Object indexKey, Object obj) throws TypeMismatchException {   
     // Before adding the entry with new value, remove it from reverse map and
     // using the oldValue remove entry from the forward map.
     // Reverse-map is used based on the system property
@@ -394,17 +400,27 @@ public class HashIndexSet implements Set {
     // return false;
     // }
     
-    //grow/shrink capacity if needed
-    preInsertHook();
-    int indexSlot = insertionIndex(indexKey, obj, _set);
-    if (indexSlot < 0) {
-      return false; // already present in set, nothing to add
+    //grow/shrink capacity if needed, then reserve a slot
+    final ReentrantReadWriteLock.ReadLock readLock = this.updateLock.readLock();
+    for (;;) {
+      preInsertHook();
+      readLock.lock();
+      if (_used.incrementAndGet() < _set.length()) {
+        break;
+      }
+      // a free slot must always remain so rehash first
+      _used.decrementAndGet();
+      readLock.unlock();
+      rehashIfFull();
     }
-
-    Object old = _set[indexSlot];
-    boolean added = addObjectToSet(_set, indexSlot, obj);
-    
-    if (added) {
+    try {
+      AtomicReferenceArray<Object> set = _set;
+      int indexSlot = addObjectToSet(set, indexKey, obj);
+      boolean usedFreeSlot = indexSlot >= 0;
+      if (!usedFreeSlot) {
+        indexSlot = -indexSlot - 1;
+      }
+      
       //Update the reverse map
       if ( IndexManager.isObjectModificationInplace()) {
         this.entryToValuesMap.put(obj, indexKey);
@@ -414,18 +430,13 @@ public class HashIndexSet implements Set {
       }
       // Update Stats after real addition
       internalIndexStats.incNumValues(1);
+      
+      postInsertHook(usedFreeSlot);
+      return true; // yes, we added something
     }
-    
-    // only call this now if we are adding to an actual empty slot, otherwise we
-    // have reused
-    // and inserted into a set or array
-    if (old == null) {
-      postInsertHook(true);
-    }
-    else {
-      postInsertHook(false);
+    finally {
+      readLock.unlock();
     }
-    return added; // yes, we added something
   }
 
   /**
@@ -443,7 +454,7 @@ public class HashIndexSet implements Set {
     return insertionIndex(_hashingStrategy.computeKey(obj), obj, _set);
   }
   
-  protected int insertionIndex(Object obj, Object[] set) {
+  protected int insertionIndex(Object obj, AtomicReferenceArray<Object> set) {
     return insertionIndex(_hashingStrategy.computeKey(obj), obj, set);
   }
   
@@ -459,15 +470,15 @@ public class HashIndexSet implements Set {
    *         already stored in the hash, the negative value of that index, minus
    *         1: -index -1.
    */
-  protected int insertionIndex(Object indexKey, Object obj, Object[] set) {
+  protected int insertionIndex(Object indexKey, Object obj, AtomicReferenceArray<Object> set) {
     int hash, probe, indexSlot, length;
     Object cur;
 
-    length = set.length;
+    length = set.length();
     hash = computeHash(indexKey, false);
     indexSlot = hash % length;
 
-    cur = set[indexSlot];
+    cur = set.get(indexSlot);
 
     if (cur == null) {
       return indexSlot; // empty, all done
@@ -504,7 +515,7 @@ public class HashIndexSet implements Set {
           if (indexSlot < 0) {
             indexSlot += length;
           }
-          cur = set[indexSlot];
+          cur = set.get(indexSlot);
         } while (cur != null && cur != REMOVED);
       }
       return indexSlot;
@@ -545,9 +556,10 @@ public class HashIndexSet implements Set {
    *         returned false for some value.
    */
   public boolean forEach(ObjectProcedure procedure) {
-    Object[] set = _set;
-    for (int i = set.length; i-- > 0;) {
-      if (set[i] != null && set[i] != REMOVED && !procedure.executeWith(set[i])) {
+    AtomicReferenceArray<Object> set = _set;
+    for (int i = set.length(); i-- > 0;) {
+      Object cur = set.get(i);
+      if (cur != null && cur != REMOVED && !procedure.executeWith(cur)) {
         return false;
       }
     }
@@ -579,35 +591,35 @@ public class HashIndexSet implements Set {
     if (TEST_ALWAYS_REHASH) {
         Thread.yield();
     }
-    int oldCapacity = _set.length;
-    Object[] oldSet = _set;
+    AtomicReferenceArray<Object> oldSet = _set;
+    int oldCapacity = oldSet.length();
     
-    Object[] newSet = new Object[newCapacity];
-    _removedTokens = 0;
-    //adds/removes/rehash should all be synchronized by the hashindex
-    //we are ok to clear this map and repopulate
-    //we do not do this for _set because we could still be querying 
+    AtomicReferenceArray<Object> newSet = new AtomicReferenceArray<Object>(newCapacity);
+    //rehash holds the write lock so there are no adds or removes in progress
+    //and we are ok to clear this map and repopulate
+    //we do not clear _set because we could still be querying 
     //but the reversemap is only used for adds/removes/rehash
     if (IndexManager.isObjectModificationInplace()) {
       entryToValuesMap.clear();
     }
+    int size = 0;
     for (int i = oldCapacity; i-- > 0;) {
-      if (oldSet[i] != null && oldSet[i] != REMOVED) {
-        Object o = oldSet[i];
-
+      Object o = oldSet.get(i);
+      if (o != null && o != REMOVED) {
         if (o instanceof RegionEntry) {
           Object key = _hashingStrategy.computeKey(o);
           if (key == null) {
             key = IndexManager.NULL;
           }
-          int index = insertionIndex(key, o, newSet);
-          if (index >= 0)
-            if (addObjectToSet(newSet, index, o)) {
-              updateReverseMap(o, key);
-            }
+          newSet.set(insertionIndex(key, o, newSet), o);
+          size++;
+          updateReverseMap(o, key);
         } 
       }
     }
+    _size.set(size);
+    _used.set(size);
+    _removedTokens.set(0);
     _set = newSet;
   }
   
@@ -681,21 +693,23 @@ public class HashIndexSet implements Set {
    */
   // GemStoneAddition
   public void clear() {
-    _size = 0;
-    _free = capacity();
-    _removedTokens = 0;
-    if (IndexManager.isObjectModificationInplace()) {
-      entryToValuesMap.clear();
+    this.updateLock.writeLock().lock();
+    try {
+      _size.set(0);
+      _used.set(0);
+      _removedTokens.set(0);
+      if (IndexManager.isObjectModificationInplace()) {
+        entryToValuesMap.clear();
+      }
+      _set = new AtomicReferenceArray<Object>(capacity());
     }
-    Object[] set = _set;
-
-    for (int i = set.length; i-- > 0;) {
-      set[i] = null;
+    finally {
+      this.updateLock.writeLock().unlock();
     }
   }
 
   protected int capacity() {
-    return _set.length;
+    return _set.length();
   }
 
   /**
@@ -712,7 +726,7 @@ public class HashIndexSet implements Set {
   }
   
   
-  public synchronized boolean remove(Object key, Object obj, boolean updateReverseMap) {
+  public boolean remove(Object key, Object obj, boolean updateReverseMap) {
     return remove(key, obj, updateReverseMap, -1);
   }
   
@@ -726,7 +740,17 @@ public class HashIndexSet implements Set {
    *  but not the newly added (correct) slot.  Rather only the "old/wrong" slot
    * @return true if object was removed, false otherwise
    */
-  public synchronized boolean remove(Object key, Object obj, boolean updateReverseMap, int newIndexSlot) {
+  public boolean remove(Object key, Object obj, boolean updateReverseMap, int newIndexSlot) {
+    this.updateLock.readLock().lock();
+    try {
+      return basicRemove(key, obj, updateReverseMap, newIndexSlot);
+    }
+    finally {
+      this.updateLock.readLock().unlock();
+    }
+  }
+
+  private boolean basicRemove(Object key, Object obj, boolean updateReverseMap, int newIndexSlot) {
     int indexSlot = index(key, obj, newIndexSlot);
     boolean removed = false;
     //The check for newIndexSlot != indexSlot is incase of in place modification.
@@ -859,7 +883,7 @@ public class HashIndexSet implements Set {
    * @return a <code>boolean</code> value
    */
   public boolean isEmpty() {
-    return 0 == _size;
+    return 0 == _size.get();
   }
 
   /**
@@ -869,21 +893,21 @@ public class HashIndexSet implements Set {
    * @return an <code>int</code> value
    */
   public int size() {
-    return _size;
+    return _size.get();
   }
   
   public int size(Object indexKey) {
     int hash, probe, index, length;
-    Object[] set;
+    AtomicReferenceArray<Object> set;
     Object cur;
     int size = 0;
 
     //find the first array index location
     set = _set;
-    length = set.length;
+    length = set.length();
     hash = computeHash(indexKey, false);
     index = hash % length;
-    cur = set[index];
+    cur = set.get(index);
 
     if (cur == null) {
       // return
@@ -906,7 +930,7 @@ public class HashIndexSet implements Set {
       if (index < 0) {
         index += length;
       }
-      cur = set[index];
+      cur = set.get(index);
     }
     return size;
   }
@@ -920,10 +944,16 @@ public class HashIndexSet implements Set {
    * @param desiredCapacity an <code>int</code> value
    */
   public void ensureCapacity(int desiredCapacity) {
-    if (desiredCapacity > (_maxSize - size())) {
-      rehash(PrimeFinder.nextPrime((int) Math.ceil(desiredCapacity + size()
-          / _loadFactor) + 1));
-      computeMaxSize(capacity());
+    this.updateLock.writeLock().lock();
+    try {
+      if (desiredCapacity > (_maxSize - size())) {
+        rehash(PrimeFinder.nextPrime((int) Math.ceil(desiredCapacity + size()
+            / _loadFactor) + 1));
+        computeMaxSize(capacity());
+      }
+    }
+    finally {
+      this.updateLock.writeLock().unlock();
     }
   }
 
@@ -944,9 +974,15 @@ public class HashIndexSet implements Set {
    * </ol>
    */
   public void compact() {
-    // need at least one free spot for open addressing
-    rehash(PrimeFinder.nextPrime((int) Math.ceil(size() / _loadFactor) + 1));
-    computeMaxSize(capacity());
+    this.updateLock.writeLock().lock();
+    try {
+      // need at least one free spot for open addressing
+      rehash(PrimeFinder.nextPrime((int) Math.ceil(size() / _loadFactor) + 1));
+      computeMaxSize(capacity());
+    }
+    finally {
+      this.updateLock.writeLock().unlock();
+    }
   }
 
   // GemStoneAddition
@@ -956,7 +992,7 @@ public class HashIndexSet implements Set {
    * calls the compact if the size is well below next expansion.
    */
   public void conditionalCompact() {
-    if (_size < (capacity() * (_loadFactor / CONDITIONAL_COMPACT_FACTOR))) {
+    if (_size.get() < (capacity() * (_loadFactor / CONDITIONAL_COMPACT_FACTOR))) {
       compact();
     }
   }
@@ -975,21 +1011,21 @@ public class HashIndexSet implements Set {
 
   /**
    * Delete the record at <tt>index</tt>. Reduces the size of the collection by
-   * one.
+   * one. Must be called with the read lock held so that the table is not
+   * rehashed underneath. The slot stays used until the next rehash.
    * 
    * @param index an <code>int</code> value
    */
   protected boolean removeAt(int index) {
-    Object cur;
-    cur = _set[index];
+    AtomicReferenceArray<Object> set = _set;
+    Object cur = set.get(index);
 
-    if (cur == null || cur == REMOVED) {
+    if (cur == null || cur == REMOVED || !set.compareAndSet(index, cur, REMOVED)) {
       //nothing removed
       return false;
     } else {
-      _set[index] = REMOVED;
-      _size--;
-      _removedTokens ++;
+      _size.decrementAndGet();
+      _removedTokens.incrementAndGet();
       return true;
     } 
   }
@@ -1005,7 +1041,7 @@ public class HashIndexSet implements Set {
     int capacity;
     capacity = PrimeFinder.nextPrime(initialCapacity);
     computeMaxSize(capacity);
-    _set = new Object[capacity];
+    _set = new AtomicReferenceArray<Object>(capacity);
     return capacity;
   }
 
@@ -1018,38 +1054,69 @@ public class HashIndexSet implements Set {
   private final void computeMaxSize(int capacity) {
     // need at least one free slot for open addressing
     _maxSize = Math.min(capacity - 1, (int) Math.floor(capacity * _loadFactor));
-    _free = capacity - _size; // reset the free element count
   }
 
   /**
-   * After an insert, this hook is called to adjust the size/free values of the
-   * set and to perform rehashing if necessary.
+   * After an insert, this hook is called to adjust the size/used values of the
+   * set. The slot reserved by {@link #add} is given back if the insert reused
+   * a removed slot instead of a free one.
    */
   protected final void postInsertHook(boolean usedFreeSlot) {
-    if (usedFreeSlot) {
-      _free--;
-    }
-    else {
+    if (!usedFreeSlot) {
       //we used a removeToken
-      _removedTokens--;
+      _used.decrementAndGet();
+      _removedTokens.decrementAndGet();
     }
-    _size++;
+    _size.incrementAndGet();
   }
   
+  /**
+   * Before an insert, rehashes the table if it has grown beyond its maximum
+   * size or is running out of free slots. Must be called without the read
+   * lock.
+   */
   protected final void preInsertHook() {
- // rehash whenever we exhaust the available space in the table
-    if (_size > _maxSize || _free == 0 || TEST_ALWAYS_REHASH) {
-      // choose a new capacity suited to the new state of the table
-      // if we've grown beyond our maximum size, double capacity;
-      // if we've exhausted the free spots, rehash to the same capacity,
-      // which will free up any stale removed slots for reuse.
-      int newCapacity = _size > _maxSize ? PrimeFinder
-          .nextPrime(capacity() << 1) : capacity();
-      rehash(newCapacity);
-      computeMaxSize(capacity());
+    if (_size.get() > _maxSize || _used.get() >= capacity() - 1 || TEST_ALWAYS_REHASH
+        || _removedTokens.get() > _maxSize * CONDITIONAL_REMOVED_TOKEN_REHASH_FACTOR) {
+      this.updateLock.writeLock().lock();
+      try {
+        // rehash whenever we exhaust the available space in the table
+        if (_size.get() > _maxSize || _used.get() >= capacity() - 1 || TEST_ALWAYS_REHASH) {
+          // choose a new capacity suited to the new state of the table
+          // if we've grown beyond our maximum size, double capacity;
+          // if we've exhausted the free spots, rehash to the same capacity,
+          // which will free up any stale removed slots for reuse.
+          int newCapacity = _size.get() > _maxSize ? PrimeFinder
+              .nextPrime(capacity() << 1) : capacity();
+          rehash(newCapacity);
+          computeMaxSize(capacity());
+        }
+        else if (_removedTokens.get() > _maxSize * CONDITIONAL_REMOVED_TOKEN_REHASH_FACTOR) {
+          compact();
+        }
+      }
+      finally {
+        this.updateLock.writeLock().unlock();
+      }
     }
-    else if (_removedTokens > _maxSize * CONDITIONAL_REMOVED_TOKEN_REHASH_FACTOR) {
-      compact();
+  }
+
+  /**
+   * Rehashes the table if concurrent adds have reserved all but its last
+   * free slot.
+   */
+  private void rehashIfFull() {
+    this.updateLock.writeLock().lock();
+    try {
+      if (_used.get() >= capacity() - 1) {
+        int newCapacity = _size.get() >= _maxSize ? PrimeFinder
+            .nextPrime(capacity() << 1) : capacity();
+        rehash(newCapacity);
+        computeMaxSize(capacity());
+      }
+    }
+    finally {
+      this.updateLock.writeLock().unlock();
     }
   }
 
@@ -1069,8 +1136,9 @@ public class HashIndexSet implements Set {
 
   public String printAll() {
     StringBuffer s = new StringBuffer();
-    for (int i = 0; i < _set.length; i++) {
-      Object object = _set[i];
+    AtomicReferenceArray<Object> set = _set;
+    for (int i = 0; i < set.length(); i++) {
+      Object object = set.get(i);
       if (object != null && object != REMOVED) {
         s.append("\n slot[" + i + "]:");
         if (object instanceof Collection) {
@@ -1101,38 +1169,39 @@ public class HashIndexSet implements Set {
   private class HashIndexSetIterator implements Iterator {
     private Object keyToMatch;
     //objects at time of iterator creation
-    private final Object[] objects;
+    private final AtomicReferenceArray<Object> objects;
     private int indexSlot;
     private Collection keysToRemove;
     private Object current;
+    private Object lastReturned;
     private int hash;
     private int length;
     private int probe;
     
-    private HashIndexSetIterator(Collection keysToRemove, Object[] objects ) {
+    private HashIndexSetIterator(Collection keysToRemove, AtomicReferenceArray<Object> objects ) {
       this.keysToRemove = keysToRemove;
       this.indexSlot = 0;
       this.objects = objects;
-      current = objects[indexSlot];
+      current = objects.get(indexSlot);
     }
     
-    private HashIndexSetIterator(Object keyToMatch, Object[] objects) {
+    private HashIndexSetIterator(Object keyToMatch, AtomicReferenceArray<Object> objects) {
       this.keyToMatch = keyToMatch;
       this.objects = objects;
       
-      length = objects.length;
+      length = objects.length();
       hash = computeHash(keyToMatch, false);
       probe = 1 + (hash % (length - 2));
       indexSlot = hash % length;
-      current = objects[indexSlot];
+      current = objects.get(indexSlot);
     }
     
     @Override
     public boolean hasNext() {
       // For Not Equals we need to look in the entire set
       if (keysToRemove != null) {
-        while (indexSlot < objects.length) {
-          current = objects[indexSlot];
+        while (indexSlot < objects.length()) {
+          current = objects.get(indexSlot);
           if (current == null || current.equals(REMOVED)) {
             //continue searching
           }
@@ -1145,7 +1214,7 @@ public class HashIndexSet implements Set {
         return false;
       } else {
 
-        current = objects[indexSlot];
+        current = objects.get(indexSlot);
         // For Equals query
         while (current != null) {
           if (current != REMOVED) {
@@ -1160,7 +1229,7 @@ public class HashIndexSet implements Set {
             indexSlot += length;
           }
           
-          current = objects[indexSlot];
+          current = objects.get(indexSlot);
         } 
       }
       return false;
@@ -1179,6 +1248,7 @@ public class HashIndexSet implements Set {
     @Override
     public Object next() throws NoSuchElementException {
         Object obj = current;
+        lastReturned = obj;
         if (keysToRemove != null) {
           // for Not equals we need to continue looking
           // so increment the index here
@@ -1203,7 +1273,7 @@ public class HashIndexSet implements Set {
       } else {
         //move back the pointer
         indexToRemove = indexSlot + probe;
-        if (indexSlot >= objects.length) {
+        if (indexSlot >= objects.length()) {
           indexToRemove = indexSlot - length;
         }
       }
@@ -1212,7 +1282,20 @@ public class HashIndexSet implements Set {
     
     @Override
     public void remove() {
-      removeAt(currentObjectIndex());
+      updateLock.readLock().lock();
+      try {
+        if (objects == _set) {
+          removeAt(currentObjectIndex());
+        }
+        else if (lastReturned != null) {
+          // the set was rehashed since this iterator was created
+          Object key = _hashingStrategy.computeKey(lastReturned);
+          basicRemove(key == null ? IndexManager.NULL : key, lastReturned, true, -1);
+        }
+      }
+      finally {
+        updateLock.readLock().unlock();
+      }
     }
     
   }
@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -99,10 +100,37 @@ public class IndexManager  {
   //TODO Asif : Fix the appropriate size of the Map & the concurrency level
   private ConcurrentMap canonicalizedIteratorNameMap = new ConcurrentHashMap();
   private IndexUpdaterThread updater;
+  /** The updater threads, the updates of an entry always go to the same one */
+  private IndexUpdaterThread[] updaters;
 
   // Threshold for Queue.
   private final int INDEX_MAINTENANCE_BUFFER = Integer.getInteger("gemfire.AsynchIndexMaintenanceThreshold", -1).intValue();
 
+  /**
+   * System property for the number of threads maintaining the indexes of a
+   * region whose index maintenance is asynchronous. The updates of an entry
+   * are always applied by the same thread, in the order they were made.
+   */
+  public static final int INDEX_MAINTENANCE_THREADS =
+    Math.max(1, Integer.getInteger("gemfire.AsynchIndexMaintenanceThreads", 1).intValue());
+
+  /**
+   * System property for the largest number of queued updates an updater
+   * thread applies in one batch.
+   */
+  public static final int INDEX_MAINTENANCE_BATCH_SIZE =
+    Math.max(1, Integer.getInteger("gemfire.AsynchIndexMaintenanceBatchSize", 100).intValue());
+
+  /**
+   * System property to turn off waiting, before a query is executed, for the
+   * asynchronous index updates made on the regions it reads.
+   */
+  public static final boolean ASYNC_QUERY_WAIT =
+    !Boolean.getBoolean("gemfire.index.DISABLE_ASYNC_QUERY_WAIT");
+
+  /** The number of index managers whose index maintenance is asynchronous */
+  private static final AtomicInteger asyncManagers = new AtomicInteger();
+
   // Added for test purposes only.
   public static boolean INPLACE_OBJECT_MODIFICATION_FOR_TEST = false;    
 
@@ -155,9 +183,18 @@ public class IndexManager  {
     if (!indexMaintenanceSynchronous) {
       final LoggingThreadGroup group =
         LoggingThreadGroup.createThreadGroup("QueryMonitor Thread Group", logger);
-      updater = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
-                                       "OqlIndexUpdater:" + region.getFullPath());
-      updater.start();
+      updaters = new IndexUpdaterThread[INDEX_MAINTENANCE_THREADS];
+      for (int i = 0; i < updaters.length; i++) {
+        String threadName = "OqlIndexUpdater:" + region.getFullPath();
+        if (i > 0) {
+          threadName += ":" + i;
+        }
+        updaters[i] = new IndexUpdaterThread(group, this.INDEX_MAINTENANCE_BUFFER,
+                                             threadName);
+        updaters[i].start();
+      }
+      updater = updaters[0];
+      asyncManagers.incrementAndGet();
     }
   }
    
@@ -246,6 +283,39 @@ public class IndexManager  {
     return this.updater;
   }
 
+  /**
+   * Returns true if the indexes of any region are maintained asynchronously.
+   */
+  public static boolean hasAsynchronousMaintenance() {
+    return asyncManagers.get() > 0;
+  }
+
+  /**
+   * Waits until the updates queued for asynchronous index maintenance, up to
+   * the time of this call, have been applied to the indexes, so that a query
+   * sees the entries changed before it started. Returns immediately if the
+   * index maintenance is synchronous.
+   * 
+   * @throws com.gemstone.gemfire.cache.query.QueryExecutionCanceledException
+   *           if the query of the calling thread is canceled while waiting
+   */
+  public void waitForPendingUpdates() {
+    if (indexMaintenanceSynchronous) {
+      return;
+    }
+    for (IndexUpdaterThread u : updaters) {
+      u.waitForPendingTasks();
+    }
+  }
+
+  private IndexUpdaterThread getUpdaterFor(RegionEntry entry) {
+    if (updaters.length == 1) {
+      return updater;
+    }
+    int hash = entry.getKey().hashCode();
+    return updaters[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % updaters.length];
+  }
+
   // @todo need more specific list of exceptions
   /**
    * Create an index that can be used when executing queries.
@@ -980,7 +1050,7 @@ public class IndexManager  {
     }
     else {
       //System.out.println("Aynchronous update");
-      updater.addTask(action, entry, opCode);
+      getUpdaterFor(entry).addTask(action, entry, opCode);
     }
   }
 
@@ -997,148 +1067,207 @@ public class IndexManager  {
     }
 
     try {
-      //Asif: Allow the thread to update iff there is no current index
-      //creator thread in progress. There will not be any issue if
-      // allow the updater thread to proceed if there is any index
-      //creator thread in waiting , but that can cause starvation
-      //for index creator thread. So we will give priorityto index
-      //creation thread
-      if (IndexManager.testHook != null) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("IndexManager TestHook is set.");
+      applyAction(entry, action, opCode);
+    }
+    finally {
+      DefaultQuery.setPdxReadSerialized(this.region.getCache(), false);
+      if (tx != null) {
+        ((TXManagerImpl) this.region.getCache().getCacheTransactionManager())
+          .resume(tx);
+      }
+      getCachePerfStats().endIndexUpdate(startPA);
+    }
+  }
+
+  /**
+   * Applies a batch of queued updates, each an array of the action, the
+   * entry and the opCode. The pdx and transaction state of the thread is
+   * set up once for the whole batch.
+   */
+  private void processActions(List<Object[]> tasks) {
+    DefaultQuery.setPdxReadSerialized(this.region.getCache(), true);
+    TXStateProxy tx = null;
+    if (!((GemFireCacheImpl)this.region.getCache()).isClient()) {
+      tx = ((TXManagerImpl) this.region.getCache().getCacheTransactionManager()).internalSuspend();
+    }
+    try {
+      for (Object[] task : tasks) {
+        int action = ((Integer)task[0]).intValue();
+        RegionEntry entry = (RegionEntry)task[1];
+        int opCode = ((Integer)task[2]).intValue();
+        if (action == RECREATE_INDEX) {
+          try {
+            recreateAllIndexesForRegion();
+          }
+          catch (Exception e) {
+            logger.warn("Recreating the indexes of region {} failed", region.getFullPath(), e);
+          }
+          continue;
+        }
+        if (entry == null) {
+          continue;
+        }
+        final long startPA = getCachePerfStats().startIndexUpdate();
+        entry.setUpdateInProgress(true);
+        try {
+          applyAction(entry, action, opCode);
+        }
+        catch (Exception e) {
+          logger.warn("Updating the indexes of region {} for key {} failed", region.getFullPath(), entry.getKey(), e);
+        }
+        finally {
+          entry.setUpdateInProgress(false);
+          getCachePerfStats().endIndexUpdate(startPA);
         }
-        testHook.hook(6); //ConcurrentIndexInitOnOverflowRegionDUnitTest
       }
-      
-      long start = 0;
-      boolean indexLockAcquired = false;
-      switch (action) {
-        case ADD_ENTRY: {
-          if (IndexManager.testHook != null) {
-            if (logger.isDebugEnabled()) {
-              logger.debug("IndexManager TestHook in ADD_ENTRY.");
-            }
-            testHook.hook(5);
+    }
+    finally {
+      DefaultQuery.setPdxReadSerialized(this.region.getCache(), false);
+      if (tx != null) {
+        ((TXManagerImpl) this.region.getCache().getCacheTransactionManager())
+          .resume(tx);
+      }
+    }
+  }
+
+  /**
+   * @param opCode one of IndexProtocol.OTHER_OP, BEFORE_UPDATE_OP, AFTER_UPDATE_OP.
+   */
+  private void applyAction(RegionEntry entry, int action, int opCode)
+      throws QueryException {
+    //Asif: Allow the thread to update iff there is no current index
+    //creator thread in progress. There will not be any issue if
+    // allow the updater thread to proceed if there is any index
+    //creator thread in waiting , but that can cause starvation
+    //for index creator thread. So we will give priorityto index
+    //creation thread
+    if (IndexManager.testHook != null) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("IndexManager TestHook is set.");
+      }
+      testHook.hook(6); //ConcurrentIndexInitOnOverflowRegionDUnitTest
+    }
+    
+    long start = 0;
+    boolean indexLockAcquired = false;
+    switch (action) {
+      case ADD_ENTRY: {
+        if (IndexManager.testHook != null) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("IndexManager TestHook in ADD_ENTRY.");
+          }
+          testHook.hook(5);
+        }
+        // this action is only called after update
+        assert opCode == IndexProtocol.OTHER_OP;
+        
+        //Asif The behaviour can arise if an index creation has already
+        // acted upon a newly added entry , but by the time callback
+        // occurs , the index is added to the map & thus
+        // the add operation will now have an effect of update.
+        // so we need to remove the mapping even if it is an Add action
+        // as otherwise the new results will get added into the
+        // old results instead of replacement
+        Iterator iter = this.indexes.values().iterator();
+        while (iter.hasNext()) {
+          Object ind = iter.next();
+          // Check if the value is instance of FutureTask, this means
+          // the index is in create phase.
+          if (ind instanceof FutureTask){
+            continue;
           }
-          // this action is only called after update
-          assert opCode == IndexProtocol.OTHER_OP;
+          IndexProtocol index = (IndexProtocol)ind;            
           
-          //Asif The behaviour can arise if an index creation has already
-          // acted upon a newly added entry , but by the time callback
-          // occurs , the index is added to the map & thus
-          // the add operation will now have an effect of update.
-          // so we need to remove the mapping even if it is an Add action
-          // as otherwise the new results will get added into the
-          // old results instead of replacement
-          Iterator iter = this.indexes.values().iterator();
-          while (iter.hasNext()) {
-            Object ind = iter.next();
-            // Check if the value is instance of FutureTask, this means
-            // the index is in create phase.
-            if (ind instanceof FutureTask){
-              continue;
-            }
-            IndexProtocol index = (IndexProtocol)ind;            
-            
-            if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
-              // Asif : If the current Index contains an entry inspite
-              // of add operation , this can only mean that Index
-              // has already acted on it during creation, so do not
-              // apply IMQ on it
-              if (!index.containsEntry(entry)) {
-                if (logger.isDebugEnabled()) {
-                  logger.debug("Adding to index: {}{} value: {}", index.getName(), this.region.getFullPath(), entry.getKey());
-                }
-                start = ((AbstractIndex) index).updateIndexUpdateStats();
-
-                index.addIndexMapping(entry);
-
-                ((AbstractIndex) index).updateIndexUpdateStats(start);
+          if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
+            // Asif : If the current Index contains an entry inspite
+            // of add operation , this can only mean that Index
+            // has already acted on it during creation, so do not
+            // apply IMQ on it
+            if (!index.containsEntry(entry)) {
+              if (logger.isDebugEnabled()) {
+                logger.debug("Adding to index: {}{} value: {}", index.getName(), this.region.getFullPath(), entry.getKey());
               }
+              start = ((AbstractIndex) index).updateIndexUpdateStats();
+
+              index.addIndexMapping(entry);
+
+              ((AbstractIndex) index).updateIndexUpdateStats(start);
             }
           }
-          break;
         }
-        case UPDATE_ENTRY: {
+        break;
+      }
+      case UPDATE_ENTRY: {
 
-          if (IndexManager.testHook != null) {
-            if (logger.isDebugEnabled()) {
-              logger.debug("IndexManager TestHook in UPDATE_ENTRY.");
-            }
-            testHook.hook(5);
-            testHook.hook(9); //QueryDataInconsistencyDUnitTest
+        if (IndexManager.testHook != null) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("IndexManager TestHook in UPDATE_ENTRY.");
           }
+          testHook.hook(5);
+          testHook.hook(9); //QueryDataInconsistencyDUnitTest
+        }
 
-          // this action is only called with opCode AFTER_UPDATE_OP
-          assert opCode == IndexProtocol.AFTER_UPDATE_OP;
-          Iterator iter = this.indexes.values().iterator();
-          while (iter.hasNext()) {
-            Object ind = iter.next();
-            // Check if the value is instance of FutureTask, this means
-            // the index is in create phase.
-            if (ind instanceof FutureTask){
-              continue;
-            }
-            IndexProtocol index = (IndexProtocol)ind;
-            
-            if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
-                if (logger.isDebugEnabled()) {
-                  logger.debug("Updating index: {}{} value: ", index.getName(), this.region.getFullPath(), entry.getKey());
-                }
-                start = ((AbstractIndex) index).updateIndexUpdateStats();
-
-                index.addIndexMapping(entry);
-
-                ((AbstractIndex) index).updateIndexUpdateStats(start);
-            }
+        // this action is only called with opCode AFTER_UPDATE_OP
+        assert opCode == IndexProtocol.AFTER_UPDATE_OP;
+        Iterator iter = this.indexes.values().iterator();
+        while (iter.hasNext()) {
+          Object ind = iter.next();
+          // Check if the value is instance of FutureTask, this means
+          // the index is in create phase.
+          if (ind instanceof FutureTask){
+            continue;
           }
-          break;
-        }
-        case REMOVE_ENTRY: {
+          IndexProtocol index = (IndexProtocol)ind;
           
-          if (IndexManager.testHook != null) {
-            if (logger.isDebugEnabled()) {
-              logger.debug("IndexManager TestHook in REMOVE_ENTRY.");
-            }
-            testHook.hook(5);
-            testHook.hook(10);
-          }
-          Iterator iter = this.indexes.values().iterator();
-          while (iter.hasNext()) {
-            Object ind = iter.next();
-            // Check if the value is instance of FutureTask, this means
-            // the index is in create phase.
-            if (ind instanceof FutureTask) {
-              continue;
-            }
-            IndexProtocol index = (IndexProtocol) ind;
-  
-            if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
-              AbstractIndex abstractIndex = (AbstractIndex) index;
+          if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
               if (logger.isDebugEnabled()) {
-                logger.debug("Removing from index: {}{} value: {}", index.getName(), this.region.getFullPath(), entry.getKey());
+                logger.debug("Updating index: {}{} value: ", index.getName(), this.region.getFullPath(), entry.getKey());
               }
               start = ((AbstractIndex) index).updateIndexUpdateStats();
-              
-              index.removeIndexMapping(entry, opCode);
+
+              index.addIndexMapping(entry);
 
               ((AbstractIndex) index).updateIndexUpdateStats(start);
-            }
           }
-          break;
         }
-        default: {
-          throw new IndexMaintenanceException(LocalizedStrings.IndexManager_INVALID_ACTION.toLocalizedString());
+        break;
+      }
+      case REMOVE_ENTRY: {
+        
+        if (IndexManager.testHook != null) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("IndexManager TestHook in REMOVE_ENTRY.");
+          }
+          testHook.hook(5);
+          testHook.hook(10);
+        }
+        Iterator iter = this.indexes.values().iterator();
+        while (iter.hasNext()) {
+          Object ind = iter.next();
+          // Check if the value is instance of FutureTask, this means
+          // the index is in create phase.
+          if (ind instanceof FutureTask) {
+            continue;
+          }
+          IndexProtocol index = (IndexProtocol) ind;
+
+          if (((AbstractIndex) index).isPopulated() && index.getType() != IndexType.PRIMARY_KEY) {
+            AbstractIndex abstractIndex = (AbstractIndex) index;
+            if (logger.isDebugEnabled()) {
+              logger.debug("Removing from index: {}{} value: {}", index.getName(), this.region.getFullPath(), entry.getKey());
+            }
+            start = ((AbstractIndex) index).updateIndexUpdateStats();
+            
+            index.removeIndexMapping(entry, opCode);
+
+            ((AbstractIndex) index).updateIndexUpdateStats(start);
+          }
         }
+        break;
       }
-    }
-    finally {
-      DefaultQuery.setPdxReadSerialized(this.region.getCache(), false);
-      if (tx != null) {
-        ((TXManagerImpl) this.region.getCache().getCacheTransactionManager())
-          .resume(tx);
+      default: {
+        throw new IndexMaintenanceException(LocalizedStrings.IndexManager_INVALID_ACTION.toLocalizedString());
       }
-      getCachePerfStats().endIndexUpdate(startPA);
     }
   }
 
@@ -1273,7 +1402,15 @@ public class IndexManager  {
    */
   public void destroy() throws QueryException {
     this.indexes.clear();
-    if (!indexMaintenanceSynchronous) updater.shutdown();
+    if (!indexMaintenanceSynchronous) {
+      boolean running = false;
+      for (IndexUpdaterThread u : updaters) {
+        running |= u.shutdown();
+      }
+      if (running) {
+        asyncManagers.decrementAndGet();
+      }
+    }
   }
   
   /**
@@ -1378,6 +1515,18 @@ public class IndexManager  {
 
     private volatile BlockingQueue pendingTasks;
 
+    /**
+     * Guards {@link #queued} and {@link #applied}, and is notified when a
+     * batch of tasks has been applied
+     */
+    private final Object progressLock = new Object();
+
+    /** the number of tasks added to the queue */
+    private long queued;
+
+    /** the number of tasks taken from the queue and applied */
+    private long applied;
+
     /**
      * Creates instance of IndexUpdaterThread
      * @param updateThreshold
@@ -1401,15 +1550,21 @@ public class IndexManager  {
       task[0] = Integer.valueOf(action);
       task[1] = entry;
       task[2] = Integer.valueOf(opCode);  // !!!:ezoerner:20081029 change to valueOf jdk 1.5+
-      pendingTasks.add(task);
+      // the task is counted in the same order it is queued, so that
+      // waitForPendingTasks knows when it has been applied
+      synchronized (this.progressLock) {
+        pendingTasks.add(task);
+        this.queued++;
+      }
     }
 
     /**
      * Stops this thread. Does not return until it has stopped.
+     * @return false if the thread had already stopped
      */
-    public void shutdown() {
+    public boolean shutdown() {
       if (!this.running) {
-        return;
+        return false;
       }
       this.shutdownRequested = true;
       this.interrupt();
@@ -1419,6 +1574,7 @@ public class IndexManager  {
         Thread.currentThread().interrupt();
         // just return, we're done
       }
+      return true;
     }
 
     @Override
@@ -1426,6 +1582,7 @@ public class IndexManager  {
       // async writers main loop
       // logger.debug("DiskRegion writer started (writer=" + this + ")");
       com.gemstone.gemfire.CancelCriterion stopper = ((LocalRegion)region).getCancelCriterion();
+      List<Object[]> batch = new ArrayList<Object[]>(INDEX_MAINTENANCE_BATCH_SIZE);
       try {
         while (!this.shutdownRequested) {
           // Termination checks
@@ -1434,43 +1591,51 @@ public class IndexManager  {
             break;
           }
           try {
-            Object[] task = (Object[])pendingTasks.take();
+            batch.add((Object[])pendingTasks.take());
+            pendingTasks.drainTo(batch, INDEX_MAINTENANCE_BATCH_SIZE - 1);
             if (this.shutdownRequested) {
               break;
             }
-            updateIndexes(task);
+            processActions(batch);
           }
           catch (InterruptedException ignore) {
             return; // give up (exit the thread)
           }
+          finally {
+            if (!batch.isEmpty()) {
+              synchronized (this.progressLock) {
+                this.applied += batch.size();
+                this.progressLock.notifyAll();
+              }
+              batch.clear();
+            }
+          }
         }
       }
       finally {
         this.running = false;
+        synchronized (this.progressLock) {
+          this.progressLock.notifyAll();
+        }
       }
     }
 
-    private void updateIndexes(Object[] task) {
-      int action = ((Integer)task[0]).intValue();
-      RegionEntry entry = (RegionEntry)task[1];
-      int opCode = ((Integer)task[2]).intValue();
-      //System.out.println("entry = "+entry.getKey());
-      if (entry != null || action == RECREATE_INDEX) {
-        try {
-          if (action == RECREATE_INDEX) {
-            recreateAllIndexesForRegion();
-          } else {
-            if (entry != null) {
-              entry.setUpdateInProgress(true);
-            }
-            processAction(entry, action, opCode);
+    /**
+     * Waits until the tasks queued before this call have been applied, or
+     * this thread has stopped.
+     */
+    void waitForPendingTasks() {
+      synchronized (this.progressLock) {
+        final long target = this.queued;
+        while (this.applied < target && this.running) {
+          ((LocalRegion)region).getCancelCriterion().checkCancelInProgress(null);
+          QueryMonitor.isQueryExecutionCanceled();
+          try {
+            this.progressLock.wait(100);
           }
-        }
-        catch (Exception e) {
-          e.printStackTrace();
-        } finally {
-          if (entry != null && action != RECREATE_INDEX) {
-            entry.setUpdateInProgress(false);
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
           }
         }
       }
@@ -1478,11 +1643,12 @@ public class IndexManager  {
 
     /**
      * Used by tests to determine if the updater thread has finished updating
-     * its indexes. The list is cleared without synchronization, which makes
-     * this methods somewhat unsafe from a threading point of view.
+     * its indexes.
      */
-    public synchronized boolean isDone() {
-      return this.pendingTasks.size() == 0;
+    public boolean isDone() {
+      synchronized (this.progressLock) {
+        return this.applied >= this.queued;
+      }
     }
 
   }
@@ -208,6 +208,18 @@ public interface IndexProtocol extends Index {
   public ObjectType getResultSetType();
   
   public int getSizeEstimate(Object key, int op, int matchLevel) throws TypeMismatchException;
+
+  /**
+   * Estimates the number of values with keys between a lower and an upper
+   * bound, as for the condition <code>lowerBoundKey &lt; key &lt;
+   * upperBoundKey</code>.
+   * @param lowerBoundOperator TOK_GT or TOK_GE
+   * @param upperBoundOperator TOK_LT or TOK_LE
+   * @since 9.0
+   */
+  public int getSizeEstimate(Object lowerBoundKey, int lowerBoundOperator,
+      Object upperBoundKey, int upperBoundOperator, int matchLevel)
+      throws TypeMismatchException;
   
   public boolean isMatchingWithIndexExpression(CompiledValue condnExpr, String condnExprStr,
       ExecutionContext context) throws AmbiguousNameException, TypeMismatchException, NameResolutionException;
@@ -37,6 +37,12 @@ public class IndexStats {
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
 
+  /**
+   * The histogram of the keys of the index, or null if the index does not
+   * keep one
+   */
+  private final KeyHistogram keyHistogram;
+
   ////////////////////////  Static methods  ////////////////////////
   
   static {
@@ -87,7 +93,18 @@ public class IndexStats {
    * with the given statistics factory.
    */
   public IndexStats(StatisticsFactory factory, String indexName) {
+    this(factory, indexName, false);
+  }
+
+  /**
+   * Creates a new <code>IndexStats</code> that also keeps a histogram of
+   * the keys of the index if <code>keepKeyHistogram</code> is true.
+   * @since 9.0
+   */
+  public IndexStats(StatisticsFactory factory, String indexName,
+      boolean keepKeyHistogram) {
     stats = factory.createAtomicStatistics(type, indexName);
+    keyHistogram = keepKeyHistogram ? new KeyHistogram() : null;
   }
 
   //////////////////////  Accessing Stats  //////////////////////
@@ -176,6 +193,26 @@ public class IndexStats {
      this.stats.incLong(numMapIndexKeysId, delta);
    }
    
+   /**
+    * Counts <code>delta</code> more values with the given key in the key
+    * histogram, if any.
+    * @since 9.0
+    */
+   public void incKeyCount(Object key, int delta) {
+     if (this.keyHistogram != null) {
+       this.keyHistogram.add(key, delta);
+     }
+   }
+
+   /**
+    * Returns the histogram of the keys of the index, or null if the index
+    * does not keep one.
+    * @since 9.0
+    */
+   public KeyHistogram getKeyHistogram() {
+     return this.keyHistogram;
+   }
+
    public void incNumBucketIndexes(int delta) {
      this.stats.incInt(numBucketIndexesId, delta);
    }   
@@ -0,0 +1,213 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An equi-width histogram of the numeric keys of an index, maintained as
+ * mappings are added to and removed from the index. The query planner uses it
+ * to estimate how many values a range condition will return.
+ * <p>
+ * The histogram covers a range of keys divided into a fixed number of
+ * buckets. A key that falls outside of the range widens it by doubling the
+ * bucket width and merging adjacent buckets, so the histogram never needs to
+ * be rebuilt from the index. Keys that are not numbers or dates are not
+ * counted.
+ *
+ * @since 9.0
+ */
+public class KeyHistogram {
+
+  /** The number of buckets in a histogram; must be even */
+  static final int NUM_BUCKETS = 64;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+  /** The number of keys counted in the buckets */
+  private final AtomicLong total = new AtomicLong();
+
+  /**
+   * Taken for reading to count a key and for writing to widen the range of
+   * the histogram.
+   */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /** The lowest key of the first bucket */
+  private volatile double lowerBound;
+
+  /** The width of a bucket, or zero if no key has been counted yet */
+  private volatile double width;
+
+  /**
+   * Returns the value of the given key in the histogram, or NaN if it is not
+   * a key that the histogram counts.
+   */
+  static double valueOf(Object key) {
+    if (key instanceof Number) {
+      double v = ((Number)key).doubleValue();
+      return Double.isInfinite(v) ? Double.NaN : v;
+    } else if (key instanceof Date) {
+      return ((Date)key).getTime();
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Adds <code>delta</code> values with the given key to the histogram. A
+   * negative delta removes values.
+   */
+  public void add(Object key, int delta) {
+    double v = valueOf(key);
+    if (Double.isNaN(v) || delta == 0) {
+      return;
+    }
+    this.lock.readLock().lock();
+    try {
+      int i = bucketFor(v);
+      if (i >= 0) {
+        this.counts.addAndGet(i, delta);
+        this.total.addAndGet(delta);
+        return;
+      }
+    } finally {
+      this.lock.readLock().unlock();
+    }
+    if (delta < 0) {
+      // the key was never counted
+      return;
+    }
+    this.lock.writeLock().lock();
+    try {
+      widenToInclude(v);
+      this.counts.addAndGet(bucketFor(v), delta);
+      this.total.addAndGet(delta);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of values counted in the histogram.
+   */
+  public long getTotal() {
+    return Math.max(0L, this.total.get());
+  }
+
+  /**
+   * Estimates the number of values with keys lower than the given key.
+   *
+   * @return the estimate, or -1 if the histogram has nothing to say about
+   *         the key
+   */
+  public long estimateBelow(Object key) {
+    double v = valueOf(key);
+    if (Double.isNaN(v)) {
+      return -1;
+    }
+    this.lock.readLock().lock();
+    try {
+      double w = this.width;
+      if (w == 0) {
+        return -1;
+      }
+      double position = (v - this.lowerBound) / w;
+      if (position <= 0) {
+        return 0;
+      }
+      if (position >= NUM_BUCKETS) {
+        return getTotal();
+      }
+      int bucket = (int)position;
+      double estimate = 0;
+      for (int i = 0; i < bucket; i++) {
+        estimate += Math.max(0L, this.counts.get(i));
+      }
+      // assume the keys are spread evenly within a bucket
+      estimate += (position - bucket) * Math.max(0L, this.counts.get(bucket));
+      return Math.round(estimate);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Forgets all the keys counted so far.
+   */
+  public void clear() {
+    this.lock.writeLock().lock();
+    try {
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        this.counts.set(i, 0L);
+      }
+      this.total.set(0L);
+      this.width = 0;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the bucket of the given value, or -1 if it is outside of the
+   * range of the histogram.
+   */
+  private int bucketFor(double v) {
+    double w = this.width;
+    if (w == 0) {
+      return -1;
+    }
+    double position = (v - this.lowerBound) / w;
+    if (position < 0 || position >= NUM_BUCKETS) {
+      return -1;
+    }
+    return (int)position;
+  }
+
+  /**
+   * Doubles the width of the buckets until the given value is in range.
+   * Must be called with the write lock held.
+   */
+  private void widenToInclude(double v) {
+    if (this.width == 0) {
+      // start with unit buckets so that integer keys get a bucket each
+      this.lowerBound = Math.floor(v) - NUM_BUCKETS / 2;
+      this.width = 1;
+    }
+    while (bucketFor(v) < 0) {
+      long[] merged = new long[NUM_BUCKETS];
+      int offset;
+      if (v < this.lowerBound) {
+        // the current buckets become the upper half of the new range
+        this.lowerBound -= this.width * NUM_BUCKETS;
+        offset = NUM_BUCKETS / 2;
+      } else {
+        offset = 0;
+      }
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        merged[offset + i / 2] += this.counts.get(i);
+      }
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        this.counts.set(i, merged[i]);
+      }
+      this.width *= 2;
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("KeyHistogram[total=").append(getTotal());
+    if (this.width != 0) {
+      sb.append(", range=[").append(this.lowerBound).append(", ")
+          .append(this.lowerBound + this.width * NUM_BUCKETS).append(")");
+    }
+    return sb.append("]").toString();
+  }
+}
@@ -223,6 +223,7 @@ public class MemoryIndexStore implements IndexStore {
           + newKey.getClass().getName(), ex);
     }
     internalIndexStats.incNumValues(1);
+    internalIndexStats.incKeyCount(newKey, 1);
   }
 
   /**
@@ -280,9 +281,9 @@ public class MemoryIndexStore implements IndexStore {
       throws IMQException {
     boolean found = false;
     boolean possiblyAlreadyRemoved = false;
+    Object newKey = null;
     try {
       boolean retry = false;
-      Object newKey;
       if (IndexManager.isObjectModificationInplace()
           && this.entryToValuesMap.containsKey(entry)) {
         newKey = this.entryToValuesMap.get(entry);
@@ -360,6 +361,7 @@ public class MemoryIndexStore implements IndexStore {
     if (found) {
       // Update stats if entry was actually removed
       internalIndexStats.incNumValues(-1);
+      internalIndexStats.incKeyCount(newKey, -1);
     } else if ((!found && !possiblyAlreadyRemoved) && !IndexManager.isObjectModificationInplace()
         && key != null) {
       // if there is an inplace-modification find old key by iterating
@@ -546,6 +548,10 @@ public class MemoryIndexStore implements IndexStore {
       this.entryToValuesMap.clear();
     }
     numIndexKeys.set(0);
+    KeyHistogram histogram = internalIndexStats.getKeyHistogram();
+    if (histogram != null) {
+      histogram.clear();
+    }
     return true;
   }
 
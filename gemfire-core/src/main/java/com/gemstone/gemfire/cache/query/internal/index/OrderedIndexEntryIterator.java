@@ -0,0 +1,177 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.index.IndexStore.IndexStoreEntry;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
+
+/**
+ * Iterates over the entries of one or more index stores in the order of
+ * their index keys, the order in which an ORDER BY on the indexed
+ * expression sorts the values: null first, then UNDEFINED, then every other
+ * key in ascending order, or the reverse of it.
+ * <p>
+ * The entries of several stores, such as the indexes of the buckets of a
+ * partitioned region, are merged by keeping the next entry of each store in
+ * a priority queue. A store iterator reuses its entry, so the store of the
+ * entry last returned is only advanced by the following call to
+ * {@link #hasNext()}.
+ *
+ * @since 9.0
+ */
+class OrderedIndexEntryIterator implements CloseableIterator<IndexStoreEntry> {
+
+  private final PriorityQueue<Source> queue;
+
+  private final List<Source> sources;
+
+  /** the source of the entry last returned, to be advanced */
+  private Source last;
+
+  OrderedIndexEntryIterator(List<IndexStore> stores, boolean descending) {
+    this.sources = new ArrayList<Source>(stores.size());
+    for (IndexStore store : stores) {
+      this.sources.add(new Source(store, descending));
+    }
+    this.queue = new PriorityQueue<Source>(Math.max(1, stores.size()),
+        new SourceComparator(descending));
+    for (Source source : this.sources) {
+      if (source.advance()) {
+        this.queue.add(source);
+      }
+    }
+  }
+
+  public boolean hasNext() {
+    if (this.last != null) {
+      if (this.last.advance()) {
+        this.queue.add(this.last);
+      }
+      this.last = null;
+    }
+    return !this.queue.isEmpty();
+  }
+
+  public IndexStoreEntry next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    this.last = this.queue.poll();
+    return this.last.current;
+  }
+
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  public void close() {
+    for (Source source : this.sources) {
+      source.close();
+    }
+  }
+
+  /**
+   * Returns the position of the group of a key: 0 for null, 1 for UNDEFINED
+   * and 2 for any other key.
+   */
+  private static int group(Object key) {
+    if (key == IndexManager.NULL) {
+      return 0;
+    }
+    return key == QueryService.UNDEFINED ? 1 : 2;
+  }
+
+  /**
+   * The entries of one store. The range iterators of a store skip the null
+   * and UNDEFINED keys, so they are read separately, before or after the
+   * other keys.
+   */
+  private static final class Source {
+    private final IndexStore store;
+    private final boolean descending;
+    /** the next group of keys to read, in the order of the groups */
+    private int nextGroup;
+    private CloseableIterator<IndexStoreEntry> iterator;
+    IndexStoreEntry current;
+
+    Source(IndexStore store, boolean descending) {
+      this.store = store;
+      this.descending = descending;
+    }
+
+    /** Moves to the next entry and returns false if there are no more */
+    boolean advance() {
+      for (;;) {
+        while (this.iterator != null && this.iterator.hasNext()) {
+          try {
+            this.current = this.iterator.next();
+            return true;
+          } catch (NoSuchElementException e) {
+            // the entry was removed concurrently
+          }
+        }
+        if (this.nextGroup > 2) {
+          this.current = null;
+          return false;
+        }
+        close();
+        int group = this.descending ? 2 - this.nextGroup : this.nextGroup;
+        this.nextGroup++;
+        if (group == 0) {
+          this.iterator = this.store.get(IndexManager.NULL);
+        } else if (group == 1) {
+          this.iterator = this.store.get(QueryService.UNDEFINED);
+        } else if (this.descending) {
+          this.iterator = this.store.descendingIterator(null);
+        } else {
+          this.iterator = this.store.iterator(null);
+        }
+      }
+    }
+
+    void close() {
+      if (this.iterator != null) {
+        this.iterator.close();
+        this.iterator = null;
+      }
+    }
+  }
+
+  private static final class SourceComparator implements Comparator<Source> {
+    private final Comparator keyComparator = TypeUtils.getExtendedNumericComparator();
+    private final boolean descending;
+
+    SourceComparator(boolean descending) {
+      this.descending = descending;
+    }
+
+    public int compare(Source s1, Source s2) {
+      Object key1 = s1.current.getDeserializedKey();
+      Object key2 = s2.current.getDeserializedKey();
+      int group1 = group(key1);
+      int group2 = group(key2);
+      int result;
+      if (group1 != group2) {
+        result = group1 < group2 ? -1 : 1;
+      } else if (group1 < 2) {
+        result = 0;
+      } else {
+        result = this.keyComparator.compare(key1, key2);
+      }
+      return this.descending ? -result : result;
+    }
+  }
+}
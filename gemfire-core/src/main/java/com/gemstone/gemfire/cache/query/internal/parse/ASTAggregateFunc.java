@@ -0,0 +1,51 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.parse;
+
+import antlr.Token;
+import antlr.collections.AST;
+
+import com.gemstone.gemfire.cache.query.internal.QCompiler;
+
+/**
+ * An aggregate function: SUM, AVG, MIN, MAX or COUNT. The only child is the
+ * argument, which is a TOK_STAR for COUNT(*).
+ *
+ * @since 9.0
+ */
+public class ASTAggregateFunc extends GemFireAST {
+  private static final long serialVersionUID = 8713926075314612730L;
+
+  public ASTAggregateFunc() {
+  }
+
+  public ASTAggregateFunc(Token t) {
+    super(t);
+  }
+
+  /**
+   * Returns true if this is COUNT(*)
+   */
+  public boolean isCountStar() {
+    AST child = getFirstChild();
+    return getType() == OQLLexerTokenTypes.LITERAL_count && child != null
+        && child.getType() == OQLLexerTokenTypes.TOK_STAR;
+  }
+
+  @Override
+  public void compile(QCompiler compiler) {
+    GemFireAST child = (GemFireAST)getFirstChild();
+    if (child.getType() == OQLLexerTokenTypes.TOK_STAR) {
+      compiler.pushNull();
+    }
+    else {
+      child.compile(compiler);
+    }
+    compiler.aggregateFunction(getType());
+  }
+}
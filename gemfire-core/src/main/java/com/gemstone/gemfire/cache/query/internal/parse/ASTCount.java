@@ -10,15 +10,13 @@
  */
 package com.gemstone.gemfire.cache.query.internal.parse;
 
-import com.gemstone.gemfire.cache.query.internal.QCompiler;
-
 import antlr.Token;
 
 /**
  * @author shobhit
  * @since 6.6
  */
-public class ASTCount extends GemFireAST {
+public class ASTCount extends ASTAggregateFunc {
 
   /**
    * 
@@ -33,13 +31,4 @@ public class ASTCount extends GemFireAST {
     super(tok);
   }
 
-  @Override
-  public void compile(QCompiler compiler) {
-    GemFireAST child = (GemFireAST)getFirstChild();
-    int tokenType = child.getType();
-    if (tokenType == OQLLexerTokenTypes.TOK_STAR) {
-      compiler.push("COUNT");
-    }
-  }
-
 }
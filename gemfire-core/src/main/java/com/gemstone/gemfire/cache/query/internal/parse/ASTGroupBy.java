@@ -0,0 +1,121 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.parse;
+
+import antlr.Token;
+import antlr.collections.AST;
+
+import com.gemstone.gemfire.cache.query.internal.QCompiler;
+
+/**
+ * The GROUP BY clause. The children are the grouping expressions followed by
+ * an optional HAVING node.
+ *
+ * @since 9.0
+ */
+public class ASTGroupBy extends GemFireAST {
+  private static final long serialVersionUID = 2254907181523170871L;
+
+  public ASTGroupBy() {
+  }
+
+  public ASTGroupBy(Token t) {
+    super(t);
+  }
+
+  /**
+   * Returns the HAVING node or null
+   */
+  public GemFireAST getHaving() {
+    for (AST child = getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getType() == OQLLexerTokenTypes.LITERAL_having) {
+        return (GemFireAST)child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the subtrees of <code>tree</code> that are the same as one of
+   * the grouping expressions with an {@link ASTGroupKey}, so that they are
+   * evaluated once per group rather than once per row. The arguments of
+   * aggregate functions and projection aliases are left alone.
+   */
+  public void substituteGroupKeys(AST tree) {
+    if (tree == null || tree instanceof ASTAggregateFunc || tree instanceof ASTGroupKey) {
+      return;
+    }
+    AST prev = null;
+    AST child = tree.getFirstChild();
+    while (child != null) {
+      AST next = child.getNextSibling();
+      int index = indexOfKey(child);
+      if (index >= 0) {
+        child.setNextSibling(null);
+        AST key = new ASTGroupKey(child, index);
+        key.setNextSibling(next);
+        if (prev == null) {
+          tree.setFirstChild(key);
+        }
+        else {
+          prev.setNextSibling(key);
+        }
+        child = key;
+      }
+      else {
+        substituteGroupKeys(child);
+      }
+      if (tree instanceof ASTProjection) {
+        // the second child is the alias
+        break;
+      }
+      prev = child;
+      child = next;
+    }
+  }
+
+  private int indexOfKey(AST expr) {
+    int index = 0;
+    for (AST key = getFirstChild(); key != null; key = key.getNextSibling()) {
+      if (key.getType() == OQLLexerTokenTypes.LITERAL_having) {
+        break;
+      }
+      if (key.equalsTree(expr)) {
+        return index;
+      }
+      index++;
+    }
+    return -1;
+  }
+
+  /**
+   * Pushes the list of grouping expressions and then the HAVING condition or
+   * null.
+   */
+  @Override
+  public void compile(QCompiler compiler) {
+    int numKeys = 0;
+    GemFireAST having = null;
+    for (AST child = getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getType() == OQLLexerTokenTypes.LITERAL_having) {
+        having = (GemFireAST)child;
+      }
+      else {
+        ((GemFireAST)child).compile(compiler);
+        numKeys++;
+      }
+    }
+    compiler.combine(numKeys);
+    if (having == null) {
+      compiler.pushNull();
+    }
+    else {
+      having.childrenCompile(compiler);
+    }
+  }
+}
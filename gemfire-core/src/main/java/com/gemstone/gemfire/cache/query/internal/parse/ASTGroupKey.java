@@ -0,0 +1,37 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.parse;
+
+import antlr.collections.AST;
+
+import com.gemstone.gemfire.cache.query.internal.QCompiler;
+
+/**
+ * Stands in for an expression of the projection, HAVING or ORDER BY clause
+ * that is the same as one of the GROUP BY expressions. The only child is the
+ * original expression, which is kept for naming the projection.
+ *
+ * @since 9.0
+ */
+public class ASTGroupKey extends GemFireAST {
+  private static final long serialVersionUID = -3380912776512039264L;
+
+  private final int index;
+
+  public ASTGroupKey(AST expr, int index) {
+    initialize(expr);
+    setFirstChild(expr);
+    this.index = index;
+  }
+
+  @Override
+  public void compile(QCompiler compiler) {
+    ((GemFireAST)getFirstChild()).compile(compiler);
+    compiler.groupKey(this.index);
+  }
+}
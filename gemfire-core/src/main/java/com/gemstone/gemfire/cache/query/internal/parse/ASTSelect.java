@@ -53,73 +53,90 @@ public class ASTSelect extends GemFireAST {
       compiler.pushNull(); // let child be next in line
     }
     
+    // the clauses after the from clause
+    AST projection = child;
+    AST from = projection.getNextSibling();
+    AST where = null;
+    ASTGroupBy groupBy = null;
+    AST orderBy = null;
+    AST limit = null;
+    for (AST clause = from.getNextSibling(); clause != null; clause = clause.getNextSibling()) {
+      clauseType = clause.getType();
+      if (clauseType == OQLLexerTokenTypes.LITERAL_group) {
+        groupBy = (ASTGroupBy)clause;
+      }
+      else if (clauseType == OQLLexerTokenTypes.LITERAL_order) {
+        orderBy = clause;
+      }
+      else if (clauseType == OQLLexerTokenTypes.LIMIT) {
+        limit = clause;
+      }
+      else {
+        where = clause;
+      }
+    }
+
+    if (groupBy != null) {
+      // evaluate the grouping expressions once per group
+      if (projection instanceof ASTCombination) {
+        groupBy.substituteGroupKeys(projection);
+      }
+      groupBy.substituteGroupKeys(groupBy.getHaving());
+      groupBy.substituteGroupKeys(orderBy);
+    }
+
     //Count(*) expression
-    if (child.getType() == OQLLexerTokenTypes.LITERAL_count) {
-      ((ASTCount)child).compile(compiler);
-      compiler.pushNull(); //For No projectionAttributes
+    if (projection instanceof ASTAggregateFunc) {
+      if (groupBy == null && ((ASTAggregateFunc)projection).isCountStar()) {
+        compiler.push("COUNT");
+        compiler.pushNull(); //For No projectionAttributes
+      }
+      else {
+        // a single aggregate projection
+        compiler.pushNull();
+        ((GemFireAST)projection).compile(compiler);
+        compiler.pushNull();
+        compiler.projection();
+        compiler.combine(1);
+      }
     } else {
       compiler.pushNull();
       // projectionAttributes
-      if (child.getType() == OQLLexerTokenTypes.TOK_STAR) {
+      if (projection.getType() == OQLLexerTokenTypes.TOK_STAR) {
         compiler.pushNull();
       }
       else {
         // child is ASTCombination; compile it
-        ((ASTCombination)child).compile(compiler);
+        ((ASTCombination)projection).compile(compiler);
       }
     }
 
     // fromClause
-    child = child.getNextSibling(); 
-    ((GemFireAST)child).compile(compiler);
-   
-      
-	/*If WHERE clause ,order by clause as well as Limit clause is missing, then push 3 null as a placeholder */ 
-    if (child.getNextSibling() == null) {
-      compiler.pushNull();
+    ((GemFireAST)from).compile(compiler);
+
+    // push a null placeholder for each missing clause
+    compileClause(compiler, where);
+    if (groupBy != null) {
+      // pushes both the group by list and the having condition
+      groupBy.compile(compiler);
+    }
+    else {
       compiler.pushNull();
-      //Asif: This placeholder is for limit 
       compiler.pushNull();
     }
-    else { 
-       child = child.getNextSibling();      
-       clauseType = child.getType();
-       if( clauseType != OQLLexerTokenTypes.LITERAL_order && clauseType != OQLLexerTokenTypes.LIMIT ) {
-         //  where is present , order by & limit may present |  may !present
-         ((GemFireAST)child).compile(compiler);
-         child = child.getNextSibling();
-         if(child != null) {
-           clauseType = child.getType();
-         }
-         
-       }else {
-         //Where clause is null
-         compiler.pushNull();         
-       }
-       if(clauseType == OQLLexerTokenTypes.LITERAL_order) {
-         ((GemFireAST)child).compile(compiler);
-         child = child.getNextSibling();
-         if(child != null) {
-           clauseType = child.getType();
-         } 
-       }else {
-         //Order by clause is null
-         compiler.pushNull();
-       }
-       
-       if(clauseType == OQLLexerTokenTypes.LIMIT) {
-         ((GemFireAST)child).compile(compiler);  
-         child = child.getNextSibling();
-         if(child != null) {
-           clauseType = child.getType();
-         } 
-       }else {
-         //Limit clause is null
-         compiler.pushNull();
-       }
-    }    
+    compileClause(compiler, orderBy);
+    compileClause(compiler, limit);
     compiler.select();
   }
+
+  private static void compileClause(QCompiler compiler, AST clause) {
+    if (clause == null) {
+      compiler.pushNull();
+    }
+    else {
+      ((GemFireAST)clause).compile(compiler);
+    }
+  }
   
   
 }
@@ -80,7 +80,7 @@ public OQLParser(ParserSharedInputState state) {
 			declaration();
 			astFactory.addASTChild(currentAST, returnAST);
 			{
-			_loop5085:
+			_loop107:
 			do {
 				if ((LA(1)==TOK_SEMIC) && (_tokenSet_2.member(LA(2)))) {
 					match(TOK_SEMIC);
@@ -88,7 +88,7 @@ public OQLParser(ParserSharedInputState state) {
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					break _loop5085;
+					break _loop107;
 				}
 				
 			} while (true);
@@ -239,7 +239,7 @@ public OQLParser(ParserSharedInputState state) {
 		iteratorDef();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5093:
+		_loop115:
 		do {
 			if ((LA(1)==TOK_COMMA)) {
 				match(TOK_COMMA);
@@ -247,7 +247,7 @@ public OQLParser(ParserSharedInputState state) {
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5093;
+				break _loop115;
 			}
 			
 		} while (true);
@@ -278,10 +278,10 @@ public OQLParser(ParserSharedInputState state) {
 		AST id2_AST = null;
 		AST t2_AST = null;
 		
-		boolean synPredMatched5131 = false;
+		boolean synPredMatched155 = false;
 		if (((LA(1)==QuotedIdentifier||LA(1)==Identifier) && (LA(2)==LITERAL_in))) {
-			int _m5131 = mark();
-			synPredMatched5131 = true;
+			int _m155 = mark();
+			synPredMatched155 = true;
 			inputState.guessing++;
 			try {
 				{
@@ -290,12 +290,12 @@ public OQLParser(ParserSharedInputState state) {
 				}
 			}
 			catch (RecognitionException pe) {
-				synPredMatched5131 = false;
+				synPredMatched155 = false;
 			}
-			rewind(_m5131);
+			rewind(_m155);
 inputState.guessing--;
 		}
-		if ( synPredMatched5131 ) {
+		if ( synPredMatched155 ) {
 			identifier();
 			id1_AST = (AST)returnAST;
 			match(LITERAL_in);
@@ -402,7 +402,7 @@ inputState.guessing--;
 			projection();
 			astFactory.addASTChild(currentAST, returnAST);
 			{
-			_loop5142:
+			_loop166:
 			do {
 				if ((LA(1)==TOK_COMMA)) {
 					match(TOK_COMMA);
@@ -410,7 +410,7 @@ inputState.guessing--;
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					break _loop5142;
+					break _loop166;
 				}
 				
 			} while (true);
@@ -470,7 +470,7 @@ inputState.guessing--;
 			identifier();
 			astFactory.addASTChild(currentAST, returnAST);
 			{
-			_loop5113:
+			_loop135:
 			do {
 				if ((LA(1)==TOK_COMMA)) {
 					match(TOK_COMMA);
@@ -480,7 +480,7 @@ inputState.guessing--;
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					break _loop5113;
+					break _loop135;
 				}
 				
 			} while (true);
@@ -575,7 +575,7 @@ inputState.guessing--;
 		astFactory.addASTChild(currentAST, returnAST);
 		}
 		{
-		_loop5105:
+		_loop127:
 		do {
 			if ((LA(1)==TOK_COMMA)) {
 				match(TOK_COMMA);
@@ -583,7 +583,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5105;
+				break _loop127;
 			}
 			
 		} while (true);
@@ -603,7 +603,7 @@ inputState.guessing--;
 		identifier();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5108:
+		_loop130:
 		do {
 			if ((LA(1)==TOK_DOT)) {
 				match(TOK_DOT);
@@ -611,7 +611,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5108;
+				break _loop130;
 			}
 			
 		} while (true);
@@ -661,7 +661,7 @@ inputState.guessing--;
 		importQuery();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5100:
+		_loop122:
 		do {
 			if ((LA(1)==TOK_SEMIC) && (LA(2)==LITERAL_import)) {
 				match(TOK_SEMIC);
@@ -669,7 +669,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5100;
+				break _loop122;
 			}
 			
 		} while (true);
@@ -1123,7 +1123,24 @@ inputState.guessing--;
 		
 		}
 		{
-		if (((LA(1) >= LITERAL_sum && LA(1) <= LITERAL_count)) && (LA(2)==TOK_LPAREN)) {
+		boolean synPredMatched145 = false;
+		if ((((LA(1) >= LITERAL_sum && LA(1) <= LITERAL_count)) && (LA(2)==TOK_LPAREN))) {
+			int _m145 = mark();
+			synPredMatched145 = true;
+			inputState.guessing++;
+			try {
+				{
+				aggregateExpr();
+				match(LITERAL_from);
+				}
+			}
+			catch (RecognitionException pe) {
+				synPredMatched145 = false;
+			}
+			rewind(_m145);
+inputState.guessing--;
+		}
+		if ( synPredMatched145 ) {
 			aggregateExpr();
 			astFactory.addASTChild(currentAST, returnAST);
 		}
@@ -1216,7 +1233,7 @@ inputState.guessing--;
 		hintIdentifier();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5149:
+		_loop176:
 		do {
 			if ((LA(1)==TOK_COMMA)) {
 				match(TOK_COMMA);
@@ -1224,7 +1241,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5149;
+				break _loop176;
 			}
 			
 		} while (true);
@@ -1246,32 +1263,32 @@ inputState.guessing--;
 			switch ( LA(1)) {
 			case LITERAL_sum:
 			{
-				AST tmp61_AST = null;
-				tmp61_AST = astFactory.create(LT(1));
+				com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc tmp61_AST = null;
+				tmp61_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc");
 				astFactory.makeASTRoot(currentAST, tmp61_AST);
 				match(LITERAL_sum);
 				break;
 			}
 			case LITERAL_min:
 			{
-				AST tmp62_AST = null;
-				tmp62_AST = astFactory.create(LT(1));
+				com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc tmp62_AST = null;
+				tmp62_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc");
 				astFactory.makeASTRoot(currentAST, tmp62_AST);
 				match(LITERAL_min);
 				break;
 			}
 			case LITERAL_max:
 			{
-				AST tmp63_AST = null;
-				tmp63_AST = astFactory.create(LT(1));
+				com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc tmp63_AST = null;
+				tmp63_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc");
 				astFactory.makeASTRoot(currentAST, tmp63_AST);
 				match(LITERAL_max);
 				break;
 			}
 			case LITERAL_avg:
 			{
-				AST tmp64_AST = null;
-				tmp64_AST = astFactory.create(LT(1));
+				com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc tmp64_AST = null;
+				tmp64_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc");
 				astFactory.makeASTRoot(currentAST, tmp64_AST);
 				match(LITERAL_avg);
 				break;
@@ -1333,7 +1350,7 @@ inputState.guessing--;
 		iteratorDef();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5128:
+		_loop152:
 		do {
 			if ((LA(1)==TOK_COMMA)) {
 				match(TOK_COMMA);
@@ -1341,7 +1358,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5128;
+				break _loop152;
 			}
 			
 		} while (true);
@@ -1369,17 +1386,30 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST groupClause_AST = null;
 		
-		AST tmp74_AST = null;
-		tmp74_AST = astFactory.create(LT(1));
+		com.gemstone.gemfire.cache.query.internal.parse.ASTGroupBy tmp74_AST = null;
+		tmp74_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTGroupBy)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTGroupBy");
 		astFactory.makeASTRoot(currentAST, tmp74_AST);
 		match(LITERAL_group);
 		match(LITERAL_by);
-		fieldList();
+		expr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
+		_loop171:
+		do {
+			if ((LA(1)==TOK_COMMA)) {
+				match(TOK_COMMA);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+			}
+			else {
+				break _loop171;
+			}
+			
+		} while (true);
+		}
+		{
 		if ((LA(1)==LITERAL_having)) {
-			match(LITERAL_having);
-			expr();
+			havingClause();
 			astFactory.addASTChild(currentAST, returnAST);
 		}
 		else if ((_tokenSet_12.member(LA(1)))) {
@@ -1407,7 +1437,7 @@ inputState.guessing--;
 		sortCriterion();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5153:
+		_loop180:
 		do {
 			if ((LA(1)==TOK_COMMA)) {
 				match(TOK_COMMA);
@@ -1415,7 +1445,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5153;
+				break _loop180;
 			}
 			
 		} while (true);
@@ -1528,44 +1558,20 @@ inputState.guessing--;
 		returnAST = projection_AST;
 	}
 	
-	public final void fieldList() throws RecognitionException, TokenStreamException {
+	public final void havingClause() throws RecognitionException, TokenStreamException {
 		
 		returnAST = null;
 		ASTPair currentAST = new ASTPair();
-		AST fieldList_AST = null;
+		AST havingClause_AST = null;
 		
-		identifier();
-		astFactory.addASTChild(currentAST, returnAST);
-		match(TOK_COLON);
+		com.gemstone.gemfire.cache.query.internal.parse.GemFireAST tmp85_AST = null;
+		tmp85_AST = (com.gemstone.gemfire.cache.query.internal.parse.GemFireAST)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.GemFireAST");
+		astFactory.makeASTRoot(currentAST, tmp85_AST);
+		match(LITERAL_having);
 		expr();
 		astFactory.addASTChild(currentAST, returnAST);
-		{
-		_loop5242:
-		do {
-			if ((LA(1)==TOK_COMMA)) {
-				match(TOK_COMMA);
-				identifier();
-				astFactory.addASTChild(currentAST, returnAST);
-				match(TOK_COLON);
-				expr();
-				astFactory.addASTChild(currentAST, returnAST);
-			}
-			else {
-				break _loop5242;
-			}
-			
-		} while (true);
-		}
-		if ( inputState.guessing==0 ) {
-			fieldList_AST = (AST)currentAST.root;
-			fieldList_AST = (AST)astFactory.make( (new ASTArray(2)).add((AST)astFactory.create(COMBO,"fieldList","com.gemstone.gemfire.cache.query.internal.parse.ASTCombination")).add(fieldList_AST));
-			currentAST.root = fieldList_AST;
-			currentAST.child = fieldList_AST!=null &&fieldList_AST.getFirstChild()!=null ?
-				fieldList_AST.getFirstChild() : fieldList_AST;
-			currentAST.advanceChildToEnd();
-		}
-		fieldList_AST = (AST)currentAST.root;
-		returnAST = fieldList_AST;
+		havingClause_AST = (AST)currentAST.root;
+		returnAST = havingClause_AST;
 	}
 	
 	public final void hintIdentifier() throws RecognitionException, TokenStreamException {
@@ -1656,10 +1662,10 @@ inputState.guessing--;
 		Token  lp = null;
 		com.gemstone.gemfire.cache.query.internal.parse.ASTTypeCast lp_AST = null;
 		
-		boolean synPredMatched5159 = false;
+		boolean synPredMatched186 = false;
 		if (((LA(1)==TOK_LPAREN) && (_tokenSet_15.member(LA(2))))) {
-			int _m5159 = mark();
-			synPredMatched5159 = true;
+			int _m186 = mark();
+			synPredMatched186 = true;
 			inputState.guessing++;
 			try {
 				{
@@ -1670,12 +1676,12 @@ inputState.guessing--;
 				}
 			}
 			catch (RecognitionException pe) {
-				synPredMatched5159 = false;
+				synPredMatched186 = false;
 			}
-			rewind(_m5159);
+			rewind(_m186);
 inputState.guessing--;
 		}
-		if ( synPredMatched5159 ) {
+		if ( synPredMatched186 ) {
 			lp = LT(1);
 			lp_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTTypeCast)astFactory.create(lp,"com.gemstone.gemfire.cache.query.internal.parse.ASTTypeCast");
 			astFactory.makeASTRoot(currentAST, lp_AST);
@@ -1712,7 +1718,7 @@ inputState.guessing--;
 		orelseExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5162:
+		_loop189:
 		do {
 			if ((LA(1)==LITERAL_or)) {
 				match(LITERAL_or);
@@ -1723,7 +1729,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5162;
+				break _loop189;
 			}
 			
 		} while (true);
@@ -1751,7 +1757,7 @@ inputState.guessing--;
 		andExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5165:
+		_loop192:
 		do {
 			if ((LA(1)==LITERAL_orelse)) {
 				match(LITERAL_orelse);
@@ -1762,7 +1768,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5165;
+				break _loop192;
 			}
 			
 		} while (true);
@@ -1789,7 +1795,7 @@ inputState.guessing--;
 		quantifierExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5168:
+		_loop195:
 		do {
 			if ((LA(1)==LITERAL_and)) {
 				match(LITERAL_and);
@@ -1800,7 +1806,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5168;
+				break _loop195;
 			}
 			
 		} while (true);
@@ -1825,9 +1831,9 @@ inputState.guessing--;
 		AST quantifierExpr_AST = null;
 		
 		if ((LA(1)==LITERAL_for)) {
-			AST tmp94_AST = null;
-			tmp94_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp94_AST);
+			AST tmp92_AST = null;
+			tmp92_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp92_AST);
 			match(LITERAL_for);
 			match(LITERAL_all);
 			inClause();
@@ -1838,10 +1844,10 @@ inputState.guessing--;
 			quantifierExpr_AST = (AST)currentAST.root;
 		}
 		else {
-			boolean synPredMatched5171 = false;
+			boolean synPredMatched198 = false;
 			if (((LA(1)==LITERAL_exists) && (LA(2)==QuotedIdentifier||LA(2)==Identifier))) {
-				int _m5171 = mark();
-				synPredMatched5171 = true;
+				int _m198 = mark();
+				synPredMatched198 = true;
 				inputState.guessing++;
 				try {
 					{
@@ -1851,15 +1857,15 @@ inputState.guessing--;
 					}
 				}
 				catch (RecognitionException pe) {
-					synPredMatched5171 = false;
+					synPredMatched198 = false;
 				}
-				rewind(_m5171);
+				rewind(_m198);
 inputState.guessing--;
 			}
-			if ( synPredMatched5171 ) {
-				AST tmp97_AST = null;
-				tmp97_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp97_AST);
+			if ( synPredMatched198 ) {
+				AST tmp95_AST = null;
+				tmp95_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp95_AST);
 				match(LITERAL_exists);
 				inClause();
 				astFactory.addASTChild(currentAST, returnAST);
@@ -1905,7 +1911,7 @@ inputState.guessing--;
 		equalityExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5175:
+		_loop202:
 		do {
 			if ((LA(1)==LITERAL_andthen)) {
 				match(LITERAL_andthen);
@@ -1916,7 +1922,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5175;
+				break _loop202;
 			}
 			
 		} while (true);
@@ -1944,21 +1950,21 @@ inputState.guessing--;
 		{
 		if ((LA(1)==TOK_EQ||LA(1)==TOK_NE)) {
 			{
-			int _cnt5181=0;
-			_loop5181:
+			int _cnt208=0;
+			_loop208:
 			do {
 				if ((LA(1)==TOK_EQ||LA(1)==TOK_NE)) {
 					{
 					if ((LA(1)==TOK_EQ)) {
-						com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp101_AST = null;
-						tmp101_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-						astFactory.makeASTRoot(currentAST, tmp101_AST);
+						com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp99_AST = null;
+						tmp99_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+						astFactory.makeASTRoot(currentAST, tmp99_AST);
 						match(TOK_EQ);
 					}
 					else if ((LA(1)==TOK_NE)) {
-						com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp102_AST = null;
-						tmp102_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-						astFactory.makeASTRoot(currentAST, tmp102_AST);
+						com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp100_AST = null;
+						tmp100_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+						astFactory.makeASTRoot(currentAST, tmp100_AST);
 						match(TOK_NE);
 					}
 					else {
@@ -1970,25 +1976,25 @@ inputState.guessing--;
 					switch ( LA(1)) {
 					case LITERAL_all:
 					{
-						AST tmp103_AST = null;
-						tmp103_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp103_AST);
+						AST tmp101_AST = null;
+						tmp101_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp101_AST);
 						match(LITERAL_all);
 						break;
 					}
 					case LITERAL_any:
 					{
-						AST tmp104_AST = null;
-						tmp104_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp104_AST);
+						AST tmp102_AST = null;
+						tmp102_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp102_AST);
 						match(LITERAL_any);
 						break;
 					}
 					case LITERAL_some:
 					{
-						AST tmp105_AST = null;
-						tmp105_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp105_AST);
+						AST tmp103_AST = null;
+						tmp103_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp103_AST);
 						match(LITERAL_some);
 						break;
 					}
@@ -2050,27 +2056,27 @@ inputState.guessing--;
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					if ( _cnt5181>=1 ) { break _loop5181; } else {throw new NoViableAltException(LT(1), getFilename());}
+					if ( _cnt208>=1 ) { break _loop208; } else {throw new NoViableAltException(LT(1), getFilename());}
 				}
 				
-				_cnt5181++;
+				_cnt208++;
 			} while (true);
 			}
 		}
 		else if ((_tokenSet_19.member(LA(1)))) {
 			{
-			_loop5183:
+			_loop210:
 			do {
 				if ((LA(1)==LITERAL_like)) {
-					com.gemstone.gemfire.cache.query.internal.parse.ASTLike tmp106_AST = null;
-					tmp106_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLike)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLike");
-					astFactory.makeASTRoot(currentAST, tmp106_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTLike tmp104_AST = null;
+					tmp104_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLike)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLike");
+					astFactory.makeASTRoot(currentAST, tmp104_AST);
 					match(LITERAL_like);
 					relationalExpr();
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					break _loop5183;
+					break _loop210;
 				}
 				
 			} while (true);
@@ -2094,40 +2100,40 @@ inputState.guessing--;
 		additiveExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5189:
+		_loop216:
 		do {
 			if ((_tokenSet_20.member(LA(1)))) {
 				{
 				switch ( LA(1)) {
 				case TOK_LT:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp107_AST = null;
-					tmp107_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-					astFactory.makeASTRoot(currentAST, tmp107_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp105_AST = null;
+					tmp105_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+					astFactory.makeASTRoot(currentAST, tmp105_AST);
 					match(TOK_LT);
 					break;
 				}
 				case TOK_GT:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp108_AST = null;
-					tmp108_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-					astFactory.makeASTRoot(currentAST, tmp108_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp106_AST = null;
+					tmp106_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+					astFactory.makeASTRoot(currentAST, tmp106_AST);
 					match(TOK_GT);
 					break;
 				}
 				case TOK_LE:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp109_AST = null;
-					tmp109_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-					astFactory.makeASTRoot(currentAST, tmp109_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp107_AST = null;
+					tmp107_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+					astFactory.makeASTRoot(currentAST, tmp107_AST);
 					match(TOK_LE);
 					break;
 				}
 				case TOK_GE:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp110_AST = null;
-					tmp110_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
-					astFactory.makeASTRoot(currentAST, tmp110_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp tmp108_AST = null;
+					tmp108_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTCompareOp");
+					astFactory.makeASTRoot(currentAST, tmp108_AST);
 					match(TOK_GE);
 					break;
 				}
@@ -2147,25 +2153,25 @@ inputState.guessing--;
 					switch ( LA(1)) {
 					case LITERAL_all:
 					{
-						AST tmp111_AST = null;
-						tmp111_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp111_AST);
+						AST tmp109_AST = null;
+						tmp109_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp109_AST);
 						match(LITERAL_all);
 						break;
 					}
 					case LITERAL_any:
 					{
-						AST tmp112_AST = null;
-						tmp112_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp112_AST);
+						AST tmp110_AST = null;
+						tmp110_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp110_AST);
 						match(LITERAL_any);
 						break;
 					}
 					case LITERAL_some:
 					{
-						AST tmp113_AST = null;
-						tmp113_AST = astFactory.create(LT(1));
-						astFactory.makeASTRoot(currentAST, tmp113_AST);
+						AST tmp111_AST = null;
+						tmp111_AST = astFactory.create(LT(1));
+						astFactory.makeASTRoot(currentAST, tmp111_AST);
 						match(LITERAL_some);
 						break;
 					}
@@ -2185,7 +2191,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5189;
+				break _loop216;
 			}
 			
 		} while (true);
@@ -2203,48 +2209,48 @@ inputState.guessing--;
 		multiplicativeExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5193:
+		_loop220:
 		do {
 			if ((_tokenSet_21.member(LA(1)))) {
 				{
 				switch ( LA(1)) {
 				case TOK_PLUS:
 				{
-					AST tmp114_AST = null;
-					tmp114_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp114_AST);
+					AST tmp112_AST = null;
+					tmp112_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp112_AST);
 					match(TOK_PLUS);
 					break;
 				}
 				case TOK_MINUS:
 				{
-					AST tmp115_AST = null;
-					tmp115_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp115_AST);
+					AST tmp113_AST = null;
+					tmp113_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp113_AST);
 					match(TOK_MINUS);
 					break;
 				}
 				case TOK_CONCAT:
 				{
-					AST tmp116_AST = null;
-					tmp116_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp116_AST);
+					AST tmp114_AST = null;
+					tmp114_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp114_AST);
 					match(TOK_CONCAT);
 					break;
 				}
 				case LITERAL_union:
 				{
-					AST tmp117_AST = null;
-					tmp117_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp117_AST);
+					AST tmp115_AST = null;
+					tmp115_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp115_AST);
 					match(LITERAL_union);
 					break;
 				}
 				case LITERAL_except:
 				{
-					AST tmp118_AST = null;
-					tmp118_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp118_AST);
+					AST tmp116_AST = null;
+					tmp116_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp116_AST);
 					match(LITERAL_except);
 					break;
 				}
@@ -2258,7 +2264,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5193;
+				break _loop220;
 			}
 			
 		} while (true);
@@ -2276,40 +2282,40 @@ inputState.guessing--;
 		inExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5197:
+		_loop224:
 		do {
 			if ((_tokenSet_22.member(LA(1)))) {
 				{
 				switch ( LA(1)) {
 				case TOK_STAR:
 				{
-					AST tmp119_AST = null;
-					tmp119_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp119_AST);
+					AST tmp117_AST = null;
+					tmp117_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp117_AST);
 					match(TOK_STAR);
 					break;
 				}
 				case TOK_SLASH:
 				{
-					AST tmp120_AST = null;
-					tmp120_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp120_AST);
+					AST tmp118_AST = null;
+					tmp118_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp118_AST);
 					match(TOK_SLASH);
 					break;
 				}
 				case LITERAL_mod:
 				{
-					AST tmp121_AST = null;
-					tmp121_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp121_AST);
+					AST tmp119_AST = null;
+					tmp119_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp119_AST);
 					match(LITERAL_mod);
 					break;
 				}
 				case LITERAL_intersect:
 				{
-					AST tmp122_AST = null;
-					tmp122_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp122_AST);
+					AST tmp120_AST = null;
+					tmp120_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp120_AST);
 					match(LITERAL_intersect);
 					break;
 				}
@@ -2323,7 +2329,7 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 			}
 			else {
-				break _loop5197;
+				break _loop224;
 			}
 			
 		} while (true);
@@ -2342,9 +2348,9 @@ inputState.guessing--;
 		astFactory.addASTChild(currentAST, returnAST);
 		{
 		if ((LA(1)==LITERAL_in)) {
-			com.gemstone.gemfire.cache.query.internal.parse.ASTIn tmp123_AST = null;
-			tmp123_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTIn)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTIn");
-			astFactory.makeASTRoot(currentAST, tmp123_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTIn tmp121_AST = null;
+			tmp121_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTIn)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTIn");
+			astFactory.makeASTRoot(currentAST, tmp121_AST);
 			match(LITERAL_in);
 			unaryExpr();
 			astFactory.addASTChild(currentAST, returnAST);
@@ -2367,7 +2373,7 @@ inputState.guessing--;
 		AST unaryExpr_AST = null;
 		
 		{
-		_loop5203:
+		_loop230:
 		do {
 			if ((_tokenSet_24.member(LA(1)))) {
 				{
@@ -2379,25 +2385,25 @@ inputState.guessing--;
 				}
 				case TOK_MINUS:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTUnary tmp125_AST = null;
-					tmp125_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUnary)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUnary");
-					astFactory.makeASTRoot(currentAST, tmp125_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTUnary tmp123_AST = null;
+					tmp123_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUnary)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUnary");
+					astFactory.makeASTRoot(currentAST, tmp123_AST);
 					match(TOK_MINUS);
 					break;
 				}
 				case LITERAL_abs:
 				{
-					AST tmp126_AST = null;
-					tmp126_AST = astFactory.create(LT(1));
-					astFactory.makeASTRoot(currentAST, tmp126_AST);
+					AST tmp124_AST = null;
+					tmp124_AST = astFactory.create(LT(1));
+					astFactory.makeASTRoot(currentAST, tmp124_AST);
 					match(LITERAL_abs);
 					break;
 				}
 				case LITERAL_not:
 				{
-					com.gemstone.gemfire.cache.query.internal.parse.ASTUnary tmp127_AST = null;
-					tmp127_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUnary)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUnary");
-					astFactory.makeASTRoot(currentAST, tmp127_AST);
+					com.gemstone.gemfire.cache.query.internal.parse.ASTUnary tmp125_AST = null;
+					tmp125_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUnary)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUnary");
+					astFactory.makeASTRoot(currentAST, tmp125_AST);
 					match(LITERAL_not);
 					break;
 				}
@@ -2409,7 +2415,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5203;
+				break _loop230;
 			}
 			
 		} while (true);
@@ -2430,7 +2436,7 @@ inputState.guessing--;
 		primaryExpr();
 		astFactory.addASTChild(currentAST, returnAST);
 		{
-		_loop5208:
+		_loop235:
 		do {
 			if ((LA(1)==TOK_LBRACK)) {
 				match(TOK_LBRACK);
@@ -2473,7 +2479,7 @@ inputState.guessing--;
 				}
 			}
 			else {
-				break _loop5208;
+				break _loop235;
 			}
 			
 		} while (true);
@@ -2588,17 +2594,17 @@ inputState.guessing--;
 		}
 		case RegionPath:
 		{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath tmp134_AST = null;
-			tmp134_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath");
-			astFactory.addASTChild(currentAST, tmp134_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath tmp132_AST = null;
+			tmp132_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTRegionPath");
+			astFactory.addASTChild(currentAST, tmp132_AST);
 			match(RegionPath);
 			break;
 		}
 		default:
-			boolean synPredMatched5222 = false;
+			boolean synPredMatched249 = false;
 			if (((LA(1)==QuotedIdentifier||LA(1)==Identifier) && (LA(2)==TOK_LPAREN))) {
-				int _m5222 = mark();
-				synPredMatched5222 = true;
+				int _m249 = mark();
+				synPredMatched249 = true;
 				inputState.guessing++;
 				try {
 					{
@@ -2609,12 +2615,12 @@ inputState.guessing--;
 					}
 				}
 				catch (RecognitionException pe) {
-					synPredMatched5222 = false;
+					synPredMatched249 = false;
 				}
-				rewind(_m5222);
+				rewind(_m249);
 inputState.guessing--;
 			}
-			if ( synPredMatched5222 ) {
+			if ( synPredMatched249 ) {
 				objectConstruction();
 				astFactory.addASTChild(currentAST, returnAST);
 			}
@@ -2648,7 +2654,7 @@ inputState.guessing--;
 			{
 			if ((LA(1)==TOK_COMMA||LA(1)==TOK_RBRACK)) {
 				{
-				_loop5214:
+				_loop241:
 				do {
 					if ((LA(1)==TOK_COMMA)) {
 						match(TOK_COMMA);
@@ -2656,16 +2662,16 @@ inputState.guessing--;
 						astFactory.addASTChild(currentAST, returnAST);
 					}
 					else {
-						break _loop5214;
+						break _loop241;
 					}
 					
 				} while (true);
 				}
 			}
 			else if ((LA(1)==TOK_COLON)) {
-				AST tmp136_AST = null;
-				tmp136_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp136_AST);
+				AST tmp134_AST = null;
+				tmp134_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp134_AST);
 				match(TOK_COLON);
 				expr();
 				astFactory.addASTChild(currentAST, returnAST);
@@ -2677,9 +2683,9 @@ inputState.guessing--;
 			}
 		}
 		else if ((LA(1)==TOK_STAR)) {
-			AST tmp137_AST = null;
-			tmp137_AST = astFactory.create(LT(1));
-			astFactory.addASTChild(currentAST, tmp137_AST);
+			AST tmp135_AST = null;
+			tmp135_AST = astFactory.create(LT(1));
+			astFactory.addASTChild(currentAST, tmp135_AST);
 			match(TOK_STAR);
 		}
 		else {
@@ -2744,7 +2750,7 @@ inputState.guessing--;
 			expr();
 			astFactory.addASTChild(currentAST, returnAST);
 			{
-			_loop5218:
+			_loop245:
 			do {
 				if ((LA(1)==TOK_COMMA)) {
 					match(TOK_COMMA);
@@ -2752,7 +2758,7 @@ inputState.guessing--;
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else {
-					break _loop5218;
+					break _loop245;
 				}
 				
 			} while (true);
@@ -2787,33 +2793,33 @@ inputState.guessing--;
 			switch ( LA(1)) {
 			case LITERAL_listtoset:
 			{
-				AST tmp140_AST = null;
-				tmp140_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp140_AST);
+				AST tmp138_AST = null;
+				tmp138_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp138_AST);
 				match(LITERAL_listtoset);
 				break;
 			}
 			case LITERAL_element:
 			{
-				com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp141_AST = null;
-				tmp141_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
-				astFactory.makeASTRoot(currentAST, tmp141_AST);
+				com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp139_AST = null;
+				tmp139_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
+				astFactory.makeASTRoot(currentAST, tmp139_AST);
 				match(LITERAL_element);
 				break;
 			}
 			case LITERAL_distinct:
 			{
-				AST tmp142_AST = null;
-				tmp142_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp142_AST);
+				AST tmp140_AST = null;
+				tmp140_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp140_AST);
 				match(LITERAL_distinct);
 				break;
 			}
 			case LITERAL_flatten:
 			{
-				AST tmp143_AST = null;
-				tmp143_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp143_AST);
+				AST tmp141_AST = null;
+				tmp141_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp141_AST);
 				match(LITERAL_flatten);
 				break;
 			}
@@ -2833,9 +2839,9 @@ inputState.guessing--;
 		{
 			{
 			{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp146_AST = null;
-			tmp146_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
-			astFactory.makeASTRoot(currentAST, tmp146_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp144_AST = null;
+			tmp144_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
+			astFactory.makeASTRoot(currentAST, tmp144_AST);
 			match(LITERAL_nvl);
 			}
 			match(TOK_LPAREN);
@@ -2852,9 +2858,9 @@ inputState.guessing--;
 		{
 			{
 			{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp150_AST = null;
-			tmp150_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
-			astFactory.makeASTRoot(currentAST, tmp150_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr tmp148_AST = null;
+			tmp148_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConversionExpr");
+			astFactory.makeASTRoot(currentAST, tmp148_AST);
 			match(LITERAL_to_date);
 			}
 			match(TOK_LPAREN);
@@ -2887,33 +2893,33 @@ inputState.guessing--;
 		switch ( LA(1)) {
 		case LITERAL_first:
 		{
-			AST tmp154_AST = null;
-			tmp154_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp154_AST);
+			AST tmp152_AST = null;
+			tmp152_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp152_AST);
 			match(LITERAL_first);
 			break;
 		}
 		case LITERAL_last:
 		{
-			AST tmp155_AST = null;
-			tmp155_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp155_AST);
+			AST tmp153_AST = null;
+			tmp153_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp153_AST);
 			match(LITERAL_last);
 			break;
 		}
 		case LITERAL_unique:
 		{
-			AST tmp156_AST = null;
-			tmp156_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp156_AST);
+			AST tmp154_AST = null;
+			tmp154_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp154_AST);
 			match(LITERAL_unique);
 			break;
 		}
 		case LITERAL_exists:
 		{
-			AST tmp157_AST = null;
-			tmp157_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp157_AST);
+			AST tmp155_AST = null;
+			tmp155_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp155_AST);
 			match(LITERAL_exists);
 			break;
 		}
@@ -2939,15 +2945,15 @@ inputState.guessing--;
 		
 		{
 		if ((LA(1)==LITERAL_is_undefined)) {
-			com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr tmp160_AST = null;
-			tmp160_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr");
-			astFactory.makeASTRoot(currentAST, tmp160_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr tmp158_AST = null;
+			tmp158_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr");
+			astFactory.makeASTRoot(currentAST, tmp158_AST);
 			match(LITERAL_is_undefined);
 		}
 		else if ((LA(1)==LITERAL_is_defined)) {
-			com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr tmp161_AST = null;
-			tmp161_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr");
-			astFactory.makeASTRoot(currentAST, tmp161_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr tmp159_AST = null;
+			tmp159_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTUndefinedExpr");
+			astFactory.makeASTRoot(currentAST, tmp159_AST);
 			match(LITERAL_is_defined);
 		}
 		else {
@@ -2993,9 +2999,9 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST structConstruction_AST = null;
 		
-		AST tmp165_AST = null;
-		tmp165_AST = astFactory.create(LT(1));
-		astFactory.makeASTRoot(currentAST, tmp165_AST);
+		AST tmp163_AST = null;
+		tmp163_AST = astFactory.create(LT(1));
+		astFactory.makeASTRoot(currentAST, tmp163_AST);
 		match(LITERAL_struct);
 		match(TOK_LPAREN);
 		fieldList();
@@ -3017,25 +3023,25 @@ inputState.guessing--;
 			switch ( LA(1)) {
 			case LITERAL_array:
 			{
-				AST tmp168_AST = null;
-				tmp168_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp168_AST);
+				AST tmp166_AST = null;
+				tmp166_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp166_AST);
 				match(LITERAL_array);
 				break;
 			}
 			case LITERAL_set:
 			{
-				com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction tmp169_AST = null;
-				tmp169_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction");
-				astFactory.makeASTRoot(currentAST, tmp169_AST);
+				com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction tmp167_AST = null;
+				tmp167_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTConstruction");
+				astFactory.makeASTRoot(currentAST, tmp167_AST);
 				match(LITERAL_set);
 				break;
 			}
 			case LITERAL_bag:
 			{
-				AST tmp170_AST = null;
-				tmp170_AST = astFactory.create(LT(1));
-				astFactory.makeASTRoot(currentAST, tmp170_AST);
+				AST tmp168_AST = null;
+				tmp168_AST = astFactory.create(LT(1));
+				astFactory.makeASTRoot(currentAST, tmp168_AST);
 				match(LITERAL_bag);
 				break;
 			}
@@ -3049,13 +3055,13 @@ inputState.guessing--;
 			astFactory.addASTChild(currentAST, returnAST);
 		}
 		else if ((LA(1)==LITERAL_list)) {
-			AST tmp171_AST = null;
-			tmp171_AST = astFactory.create(LT(1));
-			astFactory.makeASTRoot(currentAST, tmp171_AST);
+			AST tmp169_AST = null;
+			tmp169_AST = astFactory.create(LT(1));
+			astFactory.makeASTRoot(currentAST, tmp169_AST);
 			match(LITERAL_list);
-			AST tmp172_AST = null;
-			tmp172_AST = astFactory.create(LT(1));
-			astFactory.addASTChild(currentAST, tmp172_AST);
+			AST tmp170_AST = null;
+			tmp170_AST = astFactory.create(LT(1));
+			astFactory.addASTChild(currentAST, tmp170_AST);
 			match(TOK_LPAREN);
 			{
 			if ((_tokenSet_4.member(LA(1)))) {
@@ -3063,27 +3069,27 @@ inputState.guessing--;
 				astFactory.addASTChild(currentAST, returnAST);
 				{
 				if ((LA(1)==TOK_DOTDOT)) {
-					AST tmp173_AST = null;
-					tmp173_AST = astFactory.create(LT(1));
-					astFactory.addASTChild(currentAST, tmp173_AST);
+					AST tmp171_AST = null;
+					tmp171_AST = astFactory.create(LT(1));
+					astFactory.addASTChild(currentAST, tmp171_AST);
 					match(TOK_DOTDOT);
 					expr();
 					astFactory.addASTChild(currentAST, returnAST);
 				}
 				else if ((LA(1)==TOK_RPAREN||LA(1)==TOK_COMMA)) {
 					{
-					_loop5249:
+					_loop276:
 					do {
 						if ((LA(1)==TOK_COMMA)) {
-							AST tmp174_AST = null;
-							tmp174_AST = astFactory.create(LT(1));
-							astFactory.addASTChild(currentAST, tmp174_AST);
+							AST tmp172_AST = null;
+							tmp172_AST = astFactory.create(LT(1));
+							astFactory.addASTChild(currentAST, tmp172_AST);
 							match(TOK_COMMA);
 							expr();
 							astFactory.addASTChild(currentAST, returnAST);
 						}
 						else {
-							break _loop5249;
+							break _loop276;
 						}
 						
 					} while (true);
@@ -3102,9 +3108,9 @@ inputState.guessing--;
 			}
 			
 			}
-			AST tmp175_AST = null;
-			tmp175_AST = astFactory.create(LT(1));
-			astFactory.addASTChild(currentAST, tmp175_AST);
+			AST tmp173_AST = null;
+			tmp173_AST = astFactory.create(LT(1));
+			astFactory.addASTChild(currentAST, tmp173_AST);
 			match(TOK_RPAREN);
 		}
 		else {
@@ -3199,14 +3205,54 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST stringLiteral_AST = null;
 		
-		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp176_AST = null;
-		tmp176_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-		astFactory.addASTChild(currentAST, tmp176_AST);
+		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp174_AST = null;
+		tmp174_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+		astFactory.addASTChild(currentAST, tmp174_AST);
 		match(StringLiteral);
 		stringLiteral_AST = (AST)currentAST.root;
 		returnAST = stringLiteral_AST;
 	}
 	
+	public final void fieldList() throws RecognitionException, TokenStreamException {
+		
+		returnAST = null;
+		ASTPair currentAST = new ASTPair();
+		AST fieldList_AST = null;
+		
+		identifier();
+		astFactory.addASTChild(currentAST, returnAST);
+		match(TOK_COLON);
+		expr();
+		astFactory.addASTChild(currentAST, returnAST);
+		{
+		_loop269:
+		do {
+			if ((LA(1)==TOK_COMMA)) {
+				match(TOK_COMMA);
+				identifier();
+				astFactory.addASTChild(currentAST, returnAST);
+				match(TOK_COLON);
+				expr();
+				astFactory.addASTChild(currentAST, returnAST);
+			}
+			else {
+				break _loop269;
+			}
+			
+		} while (true);
+		}
+		if ( inputState.guessing==0 ) {
+			fieldList_AST = (AST)currentAST.root;
+			fieldList_AST = (AST)astFactory.make( (new ASTArray(2)).add((AST)astFactory.create(COMBO,"fieldList","com.gemstone.gemfire.cache.query.internal.parse.ASTCombination")).add(fieldList_AST));
+			currentAST.root = fieldList_AST;
+			currentAST.child = fieldList_AST!=null &&fieldList_AST.getFirstChild()!=null ?
+				fieldList_AST.getFirstChild() : fieldList_AST;
+			currentAST.advanceChildToEnd();
+		}
+		fieldList_AST = (AST)currentAST.root;
+		returnAST = fieldList_AST;
+	}
+	
 	public final void objectLiteral() throws RecognitionException, TokenStreamException {
 		
 		returnAST = null;
@@ -3216,27 +3262,27 @@ inputState.guessing--;
 		switch ( LA(1)) {
 		case LITERAL_nil:
 		{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp177_AST = null;
-			tmp177_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-			astFactory.addASTChild(currentAST, tmp177_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp178_AST = null;
+			tmp178_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+			astFactory.addASTChild(currentAST, tmp178_AST);
 			match(LITERAL_nil);
 			objectLiteral_AST = (AST)currentAST.root;
 			break;
 		}
 		case LITERAL_null:
 		{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp178_AST = null;
-			tmp178_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-			astFactory.addASTChild(currentAST, tmp178_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp179_AST = null;
+			tmp179_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+			astFactory.addASTChild(currentAST, tmp179_AST);
 			match(LITERAL_null);
 			objectLiteral_AST = (AST)currentAST.root;
 			break;
 		}
 		case LITERAL_undefined:
 		{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp179_AST = null;
-			tmp179_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-			astFactory.addASTChild(currentAST, tmp179_AST);
+			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp180_AST = null;
+			tmp180_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+			astFactory.addASTChild(currentAST, tmp180_AST);
 			match(LITERAL_undefined);
 			objectLiteral_AST = (AST)currentAST.root;
 			break;
@@ -3257,15 +3303,15 @@ inputState.guessing--;
 		
 		{
 		if ((LA(1)==LITERAL_true)) {
-			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp180_AST = null;
-			tmp180_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-			astFactory.addASTChild(currentAST, tmp180_AST);
-			match(LITERAL_true);
-		}
-		else if ((LA(1)==LITERAL_false)) {
 			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp181_AST = null;
 			tmp181_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
 			astFactory.addASTChild(currentAST, tmp181_AST);
+			match(LITERAL_true);
+		}
+		else if ((LA(1)==LITERAL_false)) {
+			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp182_AST = null;
+			tmp182_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+			astFactory.addASTChild(currentAST, tmp182_AST);
 			match(LITERAL_false);
 		}
 		else {
@@ -3286,34 +3332,34 @@ inputState.guessing--;
 		{
 		switch ( LA(1)) {
 		case NUM_INT:
-		{
-			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp182_AST = null;
-			tmp182_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-			astFactory.addASTChild(currentAST, tmp182_AST);
-			match(NUM_INT);
-			break;
-		}
-		case NUM_LONG:
 		{
 			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp183_AST = null;
 			tmp183_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
 			astFactory.addASTChild(currentAST, tmp183_AST);
-			match(NUM_LONG);
+			match(NUM_INT);
 			break;
 		}
-		case NUM_FLOAT:
+		case NUM_LONG:
 		{
 			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp184_AST = null;
 			tmp184_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
 			astFactory.addASTChild(currentAST, tmp184_AST);
-			match(NUM_FLOAT);
+			match(NUM_LONG);
 			break;
 		}
-		case NUM_DOUBLE:
+		case NUM_FLOAT:
 		{
 			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp185_AST = null;
 			tmp185_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
 			astFactory.addASTChild(currentAST, tmp185_AST);
+			match(NUM_FLOAT);
+			break;
+		}
+		case NUM_DOUBLE:
+		{
+			com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp186_AST = null;
+			tmp186_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+			astFactory.addASTChild(currentAST, tmp186_AST);
 			match(NUM_DOUBLE);
 			break;
 		}
@@ -3333,13 +3379,13 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST charLiteral_AST = null;
 		
-		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp186_AST = null;
-		tmp186_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-		astFactory.makeASTRoot(currentAST, tmp186_AST);
+		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp187_AST = null;
+		tmp187_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+		astFactory.makeASTRoot(currentAST, tmp187_AST);
 		match(LITERAL_char);
-		AST tmp187_AST = null;
-		tmp187_AST = astFactory.create(LT(1));
-		astFactory.addASTChild(currentAST, tmp187_AST);
+		AST tmp188_AST = null;
+		tmp188_AST = astFactory.create(LT(1));
+		astFactory.addASTChild(currentAST, tmp188_AST);
 		match(StringLiteral);
 		charLiteral_AST = (AST)currentAST.root;
 		returnAST = charLiteral_AST;
@@ -3351,13 +3397,13 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST dateLiteral_AST = null;
 		
-		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp188_AST = null;
-		tmp188_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-		astFactory.makeASTRoot(currentAST, tmp188_AST);
+		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp189_AST = null;
+		tmp189_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+		astFactory.makeASTRoot(currentAST, tmp189_AST);
 		match(LITERAL_date);
-		AST tmp189_AST = null;
-		tmp189_AST = astFactory.create(LT(1));
-		astFactory.addASTChild(currentAST, tmp189_AST);
+		AST tmp190_AST = null;
+		tmp190_AST = astFactory.create(LT(1));
+		astFactory.addASTChild(currentAST, tmp190_AST);
 		match(StringLiteral);
 		dateLiteral_AST = (AST)currentAST.root;
 		returnAST = dateLiteral_AST;
@@ -3369,13 +3415,13 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST timeLiteral_AST = null;
 		
-		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp190_AST = null;
-		tmp190_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-		astFactory.makeASTRoot(currentAST, tmp190_AST);
+		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp191_AST = null;
+		tmp191_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+		astFactory.makeASTRoot(currentAST, tmp191_AST);
 		match(LITERAL_time);
-		AST tmp191_AST = null;
-		tmp191_AST = astFactory.create(LT(1));
-		astFactory.addASTChild(currentAST, tmp191_AST);
+		AST tmp192_AST = null;
+		tmp192_AST = astFactory.create(LT(1));
+		astFactory.addASTChild(currentAST, tmp192_AST);
 		match(StringLiteral);
 		timeLiteral_AST = (AST)currentAST.root;
 		returnAST = timeLiteral_AST;
@@ -3387,13 +3433,13 @@ inputState.guessing--;
 		ASTPair currentAST = new ASTPair();
 		AST timestampLiteral_AST = null;
 		
-		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp192_AST = null;
-		tmp192_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
-		astFactory.makeASTRoot(currentAST, tmp192_AST);
+		com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral tmp193_AST = null;
+		tmp193_AST = (com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral)astFactory.create(LT(1),"com.gemstone.gemfire.cache.query.internal.parse.ASTLiteral");
+		astFactory.makeASTRoot(currentAST, tmp193_AST);
 		match(LITERAL_timestamp);
-		AST tmp193_AST = null;
-		tmp193_AST = astFactory.create(LT(1));
-		astFactory.addASTChild(currentAST, tmp193_AST);
+		AST tmp194_AST = null;
+		tmp194_AST = astFactory.create(LT(1));
+		astFactory.addASTChild(currentAST, tmp194_AST);
 		match(StringLiteral);
 		timestampLiteral_AST = (AST)currentAST.root;
 		returnAST = timestampLiteral_AST;
@@ -462,7 +462,9 @@ selectExpr :
 
         
 		(
-			aggregateExpr
+			// a lone aggregate is the whole projection, otherwise it is
+			// parsed as part of the projection attributes
+			( aggregateExpr "from" ) => aggregateExpr
         | 	projectionAttributes
 		)
         fromClause
@@ -549,13 +551,19 @@ projection! :
 
 groupClause :
 
-        "group"^
-        "by"!  fieldList
-
+        "group"^<AST=com.gemstone.gemfire.cache.query.internal.parse.ASTGroupBy>
+        "by"!
+        expr
         (
-            "having"!
-            expr
-        )?
+            TOK_COMMA! expr
+        )*
+        ( havingClause )?
+    ;
+
+havingClause :
+
+        "having"^<AST=com.gemstone.gemfire.cache.query.internal.parse.GemFireAST>
+        expr
     ;
     
 hintCommand :
@@ -915,10 +923,10 @@ aggregateExpr :
 
         (
             (
-                "sum"^
-            |   "min"^
-            |   "max"^
-            |   "avg"^
+                "sum"^<AST=com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc>
+            |   "min"^<AST=com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc>
+            |   "max"^<AST=com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc>
+            |   "avg"^<AST=com.gemstone.gemfire.cache.query.internal.parse.ASTAggregateFunc>
             )
             TOK_LPAREN! query TOK_RPAREN!
 
@@ -34,8 +34,9 @@ public class ExtendedNumericComparator extends NumericComparator implements Comp
     } else if(obj2 instanceof Undefined && !(obj1 instanceof Undefined)){
       // Everthing should be greater than Undefined
       return 1;
-    }else if(obj2 instanceof NullToken && !(obj1 instanceof NullToken)){
-      // Everthing should be greater than Null
+    }else if(obj2 instanceof NullToken && !(obj1 instanceof NullToken)
+        && !(obj1 instanceof Undefined)){
+      // Everthing but Undefined should be greater than Null
       return 1;
     }
 
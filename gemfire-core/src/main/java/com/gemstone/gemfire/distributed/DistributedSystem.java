@@ -821,6 +821,19 @@ import com.gemstone.gemfire.security.GemFireSecurityException;
  *   <dd><U>Default</U>: ""</dd>
  * </dl>
  * 
+ * <B>Off-Heap Memory Properties</B>
+ *
+ * <dl>
+ *   <a name="off-heap-memory-size"><dt>off-heap-memory-size</dt></a>
+ *   <dd><U>Description</U>: The amount of off-heap memory, in megabytes,
+ *   that this member reserves for the values of regions that have the
+ *   {@link com.gemstone.gemfire.cache.RegionAttributes#getOffHeap off-heap}
+ *   attribute set. A "m" or "g" suffix may be used to specify megabytes
+ *   or gigabytes.</dd>
+ *   <dd><U>Default</U>: "" which reserves no off-heap memory</dd>
+ *   <dd><U>Since</U>: 9.0</dd>
+ * </dl>
+ * 
  * <B>Asynchronous Message Properties</B>
  *
  * <dl>
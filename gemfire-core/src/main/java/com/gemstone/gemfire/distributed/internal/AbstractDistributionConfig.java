@@ -26,6 +26,7 @@ import com.gemstone.gemfire.internal.SocketCreator;
 import com.gemstone.gemfire.internal.admin.remote.DistributionLocatorId;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogWriterImpl;
+import com.gemstone.gemfire.internal.offheap.OffHeapMemoryAllocator;
 import com.gemstone.gemfire.memcached.GemFireMemcachedServer;
 
 /**
@@ -1382,6 +1383,14 @@ public abstract class AbstractDistributionConfig
     return _modifiableDefault();
   }
 
+  protected void checkOffHeapMemorySize(String value) {
+    _checkIfModifiable(OFF_HEAP_MEMORY_SIZE_NAME);
+    OffHeapMemoryAllocator.parseOffHeapMemorySize(value);
+  }
+  public boolean isOffHeapMemorySizeModifiable() {
+    return _modifiableDefault();
+  }
+
   protected void checkEnableSharedConfiguration() {
     _checkIfModifiable(ENABLE_CLUSTER_CONFIGURATION_NAME);
   }
@@ -1510,6 +1519,7 @@ public abstract class AbstractDistributionConfig
       MEMCACHED_PORT_NAME,
       MEMCACHED_PROTOCOL_NAME,
       MEMCACHED_BIND_ADDRESS_NAME,
+      OFF_HEAP_MEMORY_SIZE_NAME,
       USER_COMMAND_PACKAGES,
       ENABLE_CLUSTER_CONFIGURATION_NAME,
       USE_CLUSTER_CONFIGURATION_NAME,
@@ -1756,6 +1766,8 @@ public abstract class AbstractDistributionConfig
       this.setMemcachedProtocol((String)attValue);
     } else if (attName.equalsIgnoreCase(MEMCACHED_BIND_ADDRESS_NAME)) {
       this.setMemcachedBindAddress((String)attValue);
+    } else if (attName.equalsIgnoreCase(OFF_HEAP_MEMORY_SIZE_NAME)) {
+      this.setOffHeapMemorySize((String)attValue);
     } else if (attName.equalsIgnoreCase(USER_COMMAND_PACKAGES)) {
       this.setUserCommandPackages((String)attValue);
     } else if (attName.equalsIgnoreCase(ENABLE_CLUSTER_CONFIGURATION_NAME)) {
@@ -2034,6 +2046,8 @@ public abstract class AbstractDistributionConfig
       return this.getMemcachedProtocol();
     } else if (attName.equalsIgnoreCase(MEMCACHED_BIND_ADDRESS_NAME)) {
       return this.getMemcachedBindAddress();
+    } else if (attName.equalsIgnoreCase(OFF_HEAP_MEMORY_SIZE_NAME)) {
+      return this.getOffHeapMemorySize();
     } else if (attName.equalsIgnoreCase(USER_COMMAND_PACKAGES)) {
       return this.getUserCommandPackages();
     } else if (attName.equalsIgnoreCase(ENABLE_CLUSTER_CONFIGURATION_NAME)) {
@@ -2313,6 +2327,8 @@ public abstract class AbstractDistributionConfig
       return this.isMemcachedProtocolModifiable();
     } else if (attName.equalsIgnoreCase(MEMCACHED_BIND_ADDRESS_NAME)) {
       return this.isMemcachedBindAddressModifiable();
+    } else if (attName.equalsIgnoreCase(OFF_HEAP_MEMORY_SIZE_NAME)) {
+      return this.isOffHeapMemorySizeModifiable();
     } else if (attName.equalsIgnoreCase(USER_COMMAND_PACKAGES)) {
       return this.isUserCommandPackagesModifiable();
     } else if (attName.equalsIgnoreCase(ENABLE_CLUSTER_CONFIGURATION_NAME)) {
@@ -2594,6 +2610,8 @@ public abstract class AbstractDistributionConfig
       return String.class;
     } else if (attName.equalsIgnoreCase(MEMCACHED_BIND_ADDRESS_NAME)) {
       return String.class;
+    } else if (attName.equalsIgnoreCase(OFF_HEAP_MEMORY_SIZE_NAME)) {
+      return String.class;
     } else if (attName.equalsIgnoreCase(USER_COMMAND_PACKAGES)) {
       return String.class;
     } else if (attName.equalsIgnoreCase(ENABLE_CLUSTER_CONFIGURATION_NAME)) {
@@ -3041,6 +3059,7 @@ public abstract class AbstractDistributionConfig
     m.put(MEMCACHED_PORT_NAME, "The port GemFireMemcachedServer will listen on. Default is 0. Set to zero to disable GemFireMemcachedServer.");
     m.put(MEMCACHED_PROTOCOL_NAME, "The protocol that GemFireMemcachedServer understands. Default is ASCII. Values may be ASCII or BINARY");
     m.put(MEMCACHED_BIND_ADDRESS_NAME, "The address the GemFireMemcachedServer will listen on for remote connections. Default is \"\" which causes the GemFireMemcachedServer to listen on the host's default address. This property is ignored if memcached-port is \"0\".");
+    m.put(OFF_HEAP_MEMORY_SIZE_NAME, "The amount of off-heap memory, in megabytes, that this member reserves for region values. A \"m\" or \"g\" suffix may be used to specify megabytes or gigabytes. Regions must also set the off-heap region attribute to store their values in it. Default is \"\" which reserves no off-heap memory.");
 
     m.put(ENABLE_CLUSTER_CONFIGURATION_NAME, LocalizedStrings.AbstractDistributionConfig_ENABLE_SHARED_CONFIGURATION.toLocalizedString());
     m.put(USE_CLUSTER_CONFIGURATION_NAME, LocalizedStrings.AbstractDistributionConfig_USE_SHARED_CONFIGURATION.toLocalizedString());
@@ -2792,6 +2792,20 @@ public interface DistributionConfig extends Config, LogConfig {
   public static String MEMCACHED_BIND_ADDRESS_NAME = "memcached-bind-address";
   public static String DEFAULT_MEMCACHED_BIND_ADDRESS = "";
 
+  /**
+   * Returns the value of the <a
+   * href="../DistributedSystem.html#off-heap-memory-size">"off-heap-memory-size"</a> property
+   * @return the amount of off-heap memory to reserve for region values
+   * @since 9.0
+   */
+  public String getOffHeapMemorySize();
+  public void setOffHeapMemorySize(String value);
+  public boolean isOffHeapMemorySizeModifiable();
+  /** The name of the "off-heap-memory-size" property */
+  public static String OFF_HEAP_MEMORY_SIZE_NAME = "off-heap-memory-size";
+  /** The default value of the "off-heap-memory-size" property, which reserves no off-heap memory */
+  public static String DEFAULT_OFF_HEAP_MEMORY_SIZE = "";
+
   //Added for the HTTP service
   
   /**
@@ -302,6 +302,11 @@ public class DistributionConfigImpl
    */
   private String memcachedBindAddress = DEFAULT_MEMCACHED_BIND_ADDRESS;
 
+  /**
+   * Amount of off-heap memory to reserve for region values
+   */
+  private String offHeapMemorySize = DEFAULT_OFF_HEAP_MEMORY_SIZE;
+
   private boolean jmxManager = Boolean.getBoolean(InternalLocator.FORCE_LOCATOR_DM_TYPE) ? true : DEFAULT_JMX_MANAGER;
   private boolean jmxManagerStart = DEFAULT_JMX_MANAGER_START;
   
@@ -487,6 +492,7 @@ public class DistributionConfigImpl
     this.memcachedPort = other.getMemcachedPort();
     this.memcachedProtocol = other.getMemcachedProtocol();
     this.memcachedBindAddress = other.getMemcachedBindAddress();
+    this.offHeapMemorySize = other.getOffHeapMemorySize();
     this.userCommandPackages = other.getUserCommandPackages();
     
     // following added for 8.0
@@ -3180,6 +3186,17 @@ public class DistributionConfigImpl
     this.memcachedBindAddress = bindAddress;
   }
 
+  @Override
+  public String getOffHeapMemorySize() {
+    return this.offHeapMemorySize;
+  }
+
+  @Override
+  public void setOffHeapMemorySize(String value) {
+    checkOffHeapMemorySize(value);
+    this.offHeapMemorySize = value;
+  }
+
   @Override
   public void setEnableClusterConfiguration(boolean value) {
     checkEnableSharedConfiguration();
@@ -0,0 +1,344 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.gemstone.gemfire.InternalGemFireError;
+
+/**
+ * Writes the class file of a small generated class: a public final class
+ * with public methods of straight-line code, no fields and no interfaces.
+ * The class file version does not need stack map frames, which code without
+ * branches would not have anyway, so a method is just its instructions.
+ * <p>
+ * Generated classes are defined by {@link #defineClass} in a loader of their
+ * own, so they can only link to public classes and members.
+ *
+ * @since 9.0
+ */
+public final class ClassFileWriter {
+
+  /** Java 5; the verifier does not require a StackMapTable */
+  private static final int CLASS_VERSION = 49;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final byte CONSTANT_Utf8 = 1;
+  private static final byte CONSTANT_Long = 5;
+  private static final byte CONSTANT_Class = 7;
+  private static final byte CONSTANT_Fieldref = 9;
+  private static final byte CONSTANT_Methodref = 10;
+  private static final byte CONSTANT_InterfaceMethodref = 11;
+  private static final byte CONSTANT_NameAndType = 12;
+
+  public static final int LDC2_W = 0x14;
+  public static final int ALOAD_0 = 0x2a;
+  public static final int ALOAD_1 = 0x2b;
+  public static final int ALOAD_2 = 0x2c;
+  public static final int DUP = 0x59;
+  public static final int ARETURN = 0xb0;
+  public static final int RETURN = 0xb1;
+  public static final int GETSTATIC = 0xb2;
+  public static final int GETFIELD = 0xb4;
+  public static final int INVOKEVIRTUAL = 0xb6;
+  public static final int INVOKESPECIAL = 0xb7;
+  public static final int INVOKESTATIC = 0xb8;
+  public static final int INVOKEINTERFACE = 0xb9;
+  public static final int NEW = 0xbb;
+  public static final int CHECKCAST = 0xc0;
+
+  private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream pool = new DataOutputStream(this.poolBytes);
+  /** the index of each constant, so that equal constants share an entry */
+  private final Map<String, Integer> constants = new HashMap<String, Integer>();
+  private int constantCount = 1;
+
+  private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+  private final DataOutputStream methods = new DataOutputStream(this.methodBytes);
+  private int methodCount = 0;
+
+  private final int thisClass;
+  private final int superClass;
+  private final int codeName;
+
+  /**
+   * @param className the internal name of the class to write
+   * @param superClassName the internal name of its superclass
+   */
+  public ClassFileWriter(String className, String superClassName) {
+    this.thisClass = classRef(className);
+    this.superClass = classRef(superClassName);
+    this.codeName = utf8("Code");
+  }
+
+  public int utf8(String s) {
+    Integer index = this.constants.get("U" + s);
+    if (index != null) {
+      return index.intValue();
+    }
+    try {
+      this.pool.writeByte(CONSTANT_Utf8);
+      this.pool.writeUTF(s);
+    } catch (IOException e) {
+      throw new InternalGemFireError(e);
+    }
+    return add("U" + s, 1);
+  }
+
+  public int classRef(String internalName) {
+    Integer index = this.constants.get("C" + internalName);
+    if (index != null) {
+      return index.intValue();
+    }
+    int name = utf8(internalName);
+    write(CONSTANT_Class, name);
+    return add("C" + internalName, 1);
+  }
+
+  public int fieldRef(String owner, String name, String descriptor) {
+    return memberRef(CONSTANT_Fieldref, owner, name, descriptor);
+  }
+
+  public int methodRef(String owner, String name, String descriptor) {
+    return memberRef(CONSTANT_Methodref, owner, name, descriptor);
+  }
+
+  public int interfaceMethodRef(String owner, String name, String descriptor) {
+    return memberRef(CONSTANT_InterfaceMethodref, owner, name, descriptor);
+  }
+
+  /** Returns the index of a long constant, for {@link #LDC2_W} */
+  public int longConstant(long value) {
+    String key = "J" + value;
+    Integer index = this.constants.get(key);
+    if (index != null) {
+      return index.intValue();
+    }
+    try {
+      this.pool.writeByte(CONSTANT_Long);
+      this.pool.writeLong(value);
+    } catch (IOException e) {
+      throw new InternalGemFireError(e);
+    }
+    // a long constant takes two entries
+    return add(key, 2);
+  }
+
+  private int memberRef(byte tag, String owner, String name, String descriptor) {
+    String key = "M" + tag + owner + "." + name + descriptor;
+    Integer index = this.constants.get(key);
+    if (index != null) {
+      return index.intValue();
+    }
+    int ownerIndex = classRef(owner);
+    int nameAndType = nameAndType(name, descriptor);
+    write(tag, ownerIndex, nameAndType);
+    return add(key, 1);
+  }
+
+  private int nameAndType(String name, String descriptor) {
+    String key = "N" + name + descriptor;
+    Integer index = this.constants.get(key);
+    if (index != null) {
+      return index.intValue();
+    }
+    int nameIndex = utf8(name);
+    int descriptorIndex = utf8(descriptor);
+    write(CONSTANT_NameAndType, nameIndex, descriptorIndex);
+    return add(key, 1);
+  }
+
+  private void write(byte tag, int... indexes) {
+    try {
+      this.pool.writeByte(tag);
+      for (int i = 0; i < indexes.length; i++) {
+        this.pool.writeShort(indexes[i]);
+      }
+    } catch (IOException e) {
+      throw new InternalGemFireError(e);
+    }
+  }
+
+  private int add(String key, int size) {
+    int index = this.constantCount;
+    this.constantCount += size;
+    this.constants.put(key, Integer.valueOf(index));
+    return index;
+  }
+
+  /**
+   * Adds a public method.
+   * @param maxStack the most stack slots the code uses; a long or a double
+   *          takes two
+   * @param maxLocals the number of local slots, including <code>this</code>
+   *          and the arguments
+   */
+  public void addMethod(String name, String descriptor, int maxStack,
+      int maxLocals, Code code) {
+    byte[] bytes = code.bytes.toByteArray();
+    try {
+      this.methods.writeShort(ACC_PUBLIC);
+      this.methods.writeShort(utf8(name));
+      this.methods.writeShort(utf8(descriptor));
+      this.methods.writeShort(1); // attributes
+      this.methods.writeShort(this.codeName);
+      this.methods.writeInt(12 + bytes.length);
+      this.methods.writeShort(maxStack);
+      this.methods.writeShort(maxLocals);
+      this.methods.writeInt(bytes.length);
+      this.methods.write(bytes);
+      this.methods.writeShort(0); // exception table
+      this.methods.writeShort(0); // code attributes
+    } catch (IOException e) {
+      throw new InternalGemFireError(e);
+    }
+    this.methodCount++;
+  }
+
+  /**
+   * Adds a public constructor without arguments that calls the one of the
+   * superclass.
+   */
+  public void addDefaultConstructor(String superClassName) {
+    Code code = new Code();
+    code.op(ALOAD_0);
+    code.op(INVOKESPECIAL, methodRef(superClassName, "<init>", "()V"));
+    code.op(RETURN);
+    addMethod("<init>", "()V", 1, 1, code);
+  }
+
+  public byte[] toByteArray() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(CLASS_VERSION);
+      out.writeShort(this.constantCount);
+      this.pool.flush();
+      this.poolBytes.writeTo(out);
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      out.writeShort(this.thisClass);
+      out.writeShort(this.superClass);
+      out.writeShort(0); // interfaces
+      out.writeShort(0); // fields
+      out.writeShort(this.methodCount);
+      this.methods.flush();
+      this.methodBytes.writeTo(out);
+      out.writeShort(0); // class attributes
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new InternalGemFireError(e);
+    }
+  }
+
+  /**
+   * The instructions of a method.
+   */
+  public static final class Code {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    /** Adds an instruction without operands */
+    public Code op(int opcode) {
+      this.bytes.write(opcode);
+      return this;
+    }
+
+    /** Adds an instruction with a constant pool index */
+    public Code op(int opcode, int index) {
+      this.bytes.write(opcode);
+      this.bytes.write(index >> 8);
+      this.bytes.write(index);
+      return this;
+    }
+
+    /**
+     * Adds an invokeinterface, which is followed by the number of argument
+     * slots, including the receiver, and a zero byte.
+     */
+    public Code invokeInterface(int index, int argumentSlots) {
+      op(INVOKEINTERFACE, index);
+      this.bytes.write(argumentSlots);
+      this.bytes.write(0);
+      return this;
+    }
+  }
+
+  public static String internalName(Class c) {
+    return c.getName().replace('.', '/');
+  }
+
+  public static String descriptor(Class c) {
+    if (c.isPrimitive()) {
+      if (c == int.class) {
+        return "I";
+      } else if (c == long.class) {
+        return "J";
+      } else if (c == double.class) {
+        return "D";
+      } else if (c == float.class) {
+        return "F";
+      } else if (c == boolean.class) {
+        return "Z";
+      } else if (c == char.class) {
+        return "C";
+      } else if (c == short.class) {
+        return "S";
+      } else if (c == byte.class) {
+        return "B";
+      } else if (c == void.class) {
+        return "V";
+      }
+      throw new IllegalArgumentException(c.getName());
+    }
+    if (c.isArray()) {
+      // array class names are already descriptors
+      return internalName(c);
+    }
+    return "L" + internalName(c) + ";";
+  }
+
+  /**
+   * Defines a generated class in a new loader. The loader delegates to
+   * <code>parent</code>, normally the loader of the classes the generated
+   * code uses, and, for the classes it cannot find, such as GemFire classes
+   * when the application classes are in a separate loader, to the loader of
+   * <code>fallback</code>.
+   */
+  public static Class defineClass(String className, byte[] bytes,
+      ClassLoader parent, Class fallback) {
+    return new GeneratedClassLoader(parent, fallback.getClassLoader()).define(
+        className.replace('/', '.'), bytes);
+  }
+
+  private static final class GeneratedClassLoader extends ClassLoader {
+    private final ClassLoader fallback;
+
+    GeneratedClassLoader(ClassLoader parent, ClassLoader fallback) {
+      super(parent);
+      this.fallback = fallback;
+    }
+
+    Class define(String name, byte[] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      return this.fallback.loadClass(name);
+    }
+  }
+}
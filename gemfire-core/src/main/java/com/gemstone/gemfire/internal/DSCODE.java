@@ -400,8 +400,24 @@ public interface DSCODE {
    * @since 8.0 
    */
   public static final byte WILDCARD = 102;
+
+  /**
+   * A header byte meaning that the next element in the stream is a
+   * LinkedHashMap. Only written by the 9.0 serialization format.
+   * @since 9.0
+   */
+  public static final byte LINKED_HASH_MAP = 103;
+
+  /**
+   * A header byte meaning that the next element in the stream is a
+   * DataSerializable whose class is given by the id of its name in the pdx
+   * registry instead of by the name. Only written by the 9.0 serialization
+   * format.
+   * @since 9.0
+   */
+  public static final byte DATA_SERIALIZABLE_CLASS_ID = 104;
   
-  // 103..127 unused
+  // 105..127 unused
 
   // DO NOT USE CODES > 127. They are not "byte".
 }
@@ -39,6 +39,7 @@ import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -144,11 +145,14 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
   private static enum SERIALIZATION_VERSION {
     vINVALID,
     v660, // includes 6.6.0.x and 6.6.1.x. Note that no serialization changes were made in 6.6 until 6.6.2
-    v662 // 6.6.2.x or later
+    v662, // 6.6.2.x or later
+    v90 // 9.0 or later; must be requested since earlier releases can not read it
     // NOTE if you add a new constant make sure and update "latestVersion".
   }
   /**
    * Change this constant to be the last one in SERIALIZATION_VERSION
+   * that members of earlier releases can read. Later formats are only
+   * used if gemfire.serializationVersion asks for them.
    */
   private static final SERIALIZATION_VERSION latestVersion = SERIALIZATION_VERSION.v662;
   
@@ -159,6 +163,8 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       return SERIALIZATION_VERSION.v660;
     } else if (serializationVersionTxt.startsWith("6.6.2")) {
       return SERIALIZATION_VERSION.v662;
+    } else if (serializationVersionTxt.startsWith("9.0")) {
+      return SERIALIZATION_VERSION.v90;
     } else {
       return SERIALIZATION_VERSION.vINVALID;
     }
@@ -168,10 +174,22 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
   public static boolean is662SerializationEnabled() {
     return serializationVersion.ordinal() >= SERIALIZATION_VERSION.v662.ordinal();
   }
+
+  /**
+   * The 9.0 format sends the classes of DataSerializables and enums as ids
+   * defined in the pdx registry, and has codes for more collections. All the
+   * members and clients of the system, and of the systems it sends events
+   * to, must read it. Like pdx, it needs the pdx metadata to be persistent
+   * in members with persistent data.
+   * @since 9.0
+   */
+  public static boolean is90SerializationEnabled() {
+    return serializationVersion.ordinal() >= SERIALIZATION_VERSION.v90.ordinal();
+  }
   
   public static void checkSerializationVersion() {
     if (serializationVersion == SERIALIZATION_VERSION.vINVALID) {
-      throw new IllegalArgumentException("The system property \"gemfire.serializationVersion\" was set to \"" + serializationVersionTxt + "\" which is not a valid serialization version. Valid versions must start with \"6.6.0\", \"6.6.1\", or \"6.6.2\"");
+      throw new IllegalArgumentException("The system property \"gemfire.serializationVersion\" was set to \"" + serializationVersionTxt + "\" which is not a valid serialization version. Valid versions must start with \"6.6.0\", \"6.6.1\", \"6.6.2\", or \"9.0\"");
     }
   }
 
@@ -528,6 +546,27 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
                                  writeHashtable((Hashtable) o, out);
                                  return true;
                                }});
+    if (is90SerializationEnabled()) {
+      // members of releases before 6.6 can not read CONCURRENT_HASH_MAP
+      classesToSerializers.put("java.util.concurrent.ConcurrentHashMap",
+          new WellKnownDS() {
+        @Override
+        public final boolean toData(Object o, DataOutput out)
+        throws IOException {
+          out.writeByte(CONCURRENT_HASH_MAP);
+          writeConcurrentHashMap((ConcurrentHashMap<?, ?>) o, out);
+          return true;
+        }});
+      classesToSerializers.put("java.util.LinkedHashMap",
+          new WellKnownDS() {
+        @Override
+        public final boolean toData(Object o, DataOutput out)
+        throws IOException {
+          out.writeByte(LINKED_HASH_MAP);
+          writeHashMap((LinkedHashMap<?, ?>) o, out);
+          return true;
+        }});
+    }
     // We can't add this here because it would cause writeObject to not be compatible with previous releases
 //    classesToSerializers.put("java.util.concurrent.ConcurrentHashMap",
 //                             new WellKnownDS() {
@@ -1563,7 +1602,7 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       writeObjectArray(array, out, ensurePdxCompatibility);
       return true;
     } else if (is662SerializationEnabled() && o.getClass().isEnum()) {
-      if (isPdxSerializationInProgress()) {
+      if (isPdxSerializationInProgress() || getClassIdRegistry(o) != null) {
         writePdxEnum((Enum<?>)o, out);
       } else {
         // TODO once .NET is enhanced to support inline enums then it should be compatible.
@@ -2078,6 +2117,31 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
     return result;
   }
 
+  /**
+   * Reads a map written as {@link DSCODE#LINKED_HASH_MAP}, whose format is the
+   * one of {@link DataSerializer#writeHashMap}. The map keeps the order its
+   * entries were written in; a map ordered by access is read as one ordered
+   * by insertion.
+   * @since 9.0
+   */
+  private static <K, V> LinkedHashMap<K, V> readLinkedHashMap(DataInput in)
+      throws IOException, ClassNotFoundException {
+    int size = readArrayLength(in);
+    if (size == -1) {
+      return null;
+    }
+    LinkedHashMap<K, V> map = new LinkedHashMap<K, V>(size);
+    for (int i = 0; i < size; i++) {
+      K key = DataSerializer.<K>readObject(in);
+      V value = DataSerializer.<V>readObject(in);
+      map.put(key, value);
+    }
+    if (logger.isTraceEnabled(LogMarker.SERIALIZER)) {
+      logger.trace(LogMarker.SERIALIZER, "Read LinkedHashMap with {} elements: {}", size, map);
+    }
+    return map;
+  }
+
   public static void writeUUID(java.util.UUID o, DataOutput out) throws IOException {
     InternalDataSerializer.checkOut(out);
 
@@ -2251,8 +2315,12 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       Class c = o.getClass();
       // Is "c" a user class registered with an Instantiator?
       int classId = InternalInstantiator.getClassId(c);
+      TypeRegistry tr;
       if (classId != 0) {
         writeUserDataSerializableHeader(classId, out);
+      } else if ((tr = getClassIdRegistry(o)) != null) {
+        out.writeByte(DATA_SERIALIZABLE_CLASS_ID);
+        writeRegisteredClassId(tr.getClassId(c), out);
       } else {
         out.writeByte(DATA_SERIALIZABLE);
 //         if (DEBUG_DSFID) {
@@ -2328,6 +2396,41 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
     writeArrayLength(eId & 0xFFFFFF, out);
   }
 
+  /**
+   * Returns the registry of the ids that the class of <code>o</code> can be
+   * written as, or null if it must be written by name. Only application
+   * classes are written as ids, and only when there is a cache whose
+   * registry the reader also has.
+   * @since 9.0
+   */
+  private static TypeRegistry getClassIdRegistry(Object o) {
+    if (!is90SerializationEnabled() || isGemfireObject(o)) {
+      return null;
+    }
+    GemFireCacheImpl gfc = GemFireCacheImpl.getInstance();
+    if (gfc == null || gfc.isClosed()) {
+      return null;
+    }
+    return gfc.getPdxRegistry();
+  }
+
+  private static void writeRegisteredClassId(int classId, DataOutput out) throws IOException {
+    // the same encoding as pdx enum ids: the distributed system id, then the rest
+    out.writeByte(classId >> 24);
+    writeArrayLength(classId & 0xFFFFFF, out);
+  }
+
+  private static Class<?> readRegisteredClass(DataInput in) throws IOException, ClassNotFoundException {
+    int dsId = in.readByte();
+    int tmp = readArrayLength(in);
+    int classId = (dsId << 24) | (tmp & 0xFFFFFF);
+    if (logger.isTraceEnabled(LogMarker.SERIALIZER)) {
+      logger.trace(LogMarker.SERIALIZER, "read class id={}", classId);
+    }
+    TypeRegistry tr = GemFireCacheImpl.getForPdx("PDX registry is unavailable because the Cache has been closed.").getPdxRegistry();
+    return getCachedClass(tr.getClassNameById(classId));
+  }
+
   /**
    * @throws IOException
    * since 6.6.2
@@ -2593,7 +2696,12 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
   private static final Object readDataSerializable(final DataInput in)
     throws IOException, ClassNotFoundException
   {
-    Class c = readClass(in);
+    return readDataSerializable(readClass(in), in);
+  }
+
+  private static final Object readDataSerializable(final Class c, final DataInput in)
+    throws IOException, ClassNotFoundException
+  {
     try {
       Constructor init = c.getConstructor(new Class[0]);
       init.setAccessible(true);
@@ -2965,6 +3073,8 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
       return readHashtable(in);
     case CONCURRENT_HASH_MAP:
       return readConcurrentHashMap(in);
+    case LINKED_HASH_MAP:
+      return readLinkedHashMap(in);
     case PROPERTIES:
       return readProperties(in);
     case TIME_UNIT:
@@ -3011,6 +3121,8 @@ public abstract class InternalDataSerializer extends DataSerializer implements D
 
     case DATA_SERIALIZABLE:
       return readDataSerializable(in);
+    case DATA_SERIALIZABLE_CLASS_ID:
+      return readDataSerializable(readRegisteredClass(in), in);
 
     case SERIALIZABLE: {
       final boolean isDebugEnabled_SERIALIZER = logger.isTraceEnabled(LogMarker.SERIALIZER);
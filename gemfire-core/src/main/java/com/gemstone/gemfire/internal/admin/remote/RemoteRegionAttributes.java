@@ -99,6 +99,7 @@ public class RemoteRegionAttributes implements RegionAttributes,
   private boolean isGatewaySenderEnabled = false;
   private String[] asyncEventQueueDescs;
   private String compressorDesc;
+  private boolean offHeap;
 
   /**
    * constructs a new default RemoteRegionAttributes.
@@ -149,6 +150,7 @@ public class RemoteRegionAttributes implements RegionAttributes,
     this.gatewaySendersDescs = getDescs(attr.getGatewaySenderIds().toArray());
     this.asyncEventQueueDescs = getDescs(attr.getAsyncEventQueueIds().toArray());
     this.compressorDesc = getDesc(attr.getCompressor());
+    this.offHeap = attr.getOffHeap();
   }
 
   /**
@@ -354,6 +356,10 @@ public class RemoteRegionAttributes implements RegionAttributes,
     return compressorDesc.equals("") ? null : new RemoteCompressor(
         compressorDesc);
   }
+
+  public boolean getOffHeap() {
+    return this.offHeap;
+  }
   
   public void toDataPre_GFE_8_0_0_0(DataOutput out) throws IOException {
     DataSerializer.writeString(this.cacheLoaderDesc, out);
@@ -450,6 +456,7 @@ public class RemoteRegionAttributes implements RegionAttributes,
     out.writeBoolean(this.concurrencyChecksEnabled);
   
     DataSerializer.writeString(this.compressorDesc, out);
+    out.writeBoolean(this.offHeap);
   }
 
   public void fromDataPre_GFE_8_0_0_0(DataInput in) throws IOException, ClassNotFoundException {
@@ -549,6 +556,7 @@ public class RemoteRegionAttributes implements RegionAttributes,
     this.concurrencyChecksEnabled = in.readBoolean();
   
     this.compressorDesc = DataSerializer.readString(in);
+    this.offHeap = in.readBoolean();
   }
 
   private String[] getDescs(Object[] l) {
@@ -28,6 +28,7 @@ import com.gemstone.gemfire.internal.cache.lru.LRUStatistics;
 import com.gemstone.gemfire.internal.cache.lru.MemLRUCapacityController;
 import com.gemstone.gemfire.internal.cache.lru.NewLIFOClockHand;
 import com.gemstone.gemfire.internal.cache.lru.NewLRUClockHand;
+import com.gemstone.gemfire.internal.cache.lru.ShardedLRUClockHand;
 import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
 import com.gemstone.gemfire.internal.cache.versions.VersionSource;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -93,7 +94,12 @@ public abstract class AbstractLRURegionMap extends AbstractRegionMap {
       _setLruList(new NewLIFOClockHand(owner, _getCCHelper(), internalRegionArgs));
     }
     else {
-      _setLruList(new NewLRUClockHand(owner, _getCCHelper(), internalRegionArgs));
+      int shards = ShardedLRUClockHand.getConfiguredShardCount();
+      if (shards > 1) {
+        _setLruList(new ShardedLRUClockHand(owner, _getCCHelper(), internalRegionArgs, shards));
+      } else {
+        _setLruList(new NewLRUClockHand(owner, _getCCHelper(), internalRegionArgs));
+      }
     }
   }
 
@@ -245,6 +245,12 @@ public abstract class AbstractRegion implements Region, RegionAttributes,
   
   protected Compressor compressor;
   
+  /**
+   * True if this region stores its entry values off-heap.
+   * @since 9.0
+   */
+  protected final boolean offHeap;
+  
   /**
    * @see #getExtensionPoint()
    * @since 8.1
@@ -261,6 +267,7 @@ public abstract class AbstractRegion implements Region, RegionAttributes,
     this.isPdxTypesRegion = PeerTypeRegistration.REGION_NAME.equals(regionName);
     this.lastAccessedTime = new AtomicLong(cacheTimeMillis());
     this.lastModifiedTime = new AtomicLong(lastAccessedTime.get());
+    this.offHeap = attrs.getOffHeap();
     setAttributes(attrs, regionName, internalRegionArgs);
   }
 
@@ -279,6 +286,7 @@ public abstract class AbstractRegion implements Region, RegionAttributes,
     this.isPdxTypesRegion = isPdxTypeRegion;
     this.lastAccessedTime = new AtomicLong(lastAccessedTime);
     this.lastModifiedTime = new AtomicLong(lastModifiedTime);
+    this.offHeap = false;
   }
   
   /** ******************** No-Brainer methods ******************************** */
@@ -1986,6 +1994,13 @@ public abstract class AbstractRegion implements Region, RegionAttributes,
     return this.compressor;
   }
   
+  /**
+   * @since 9.0
+   */
+  public boolean getOffHeap() {
+    return this.offHeap;
+  }
+  
   /**
    * @since 8.1
    */
@@ -10,6 +10,7 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -60,6 +61,7 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntry;
 import com.gemstone.gemfire.internal.sequencelog.EntryLogger;
 import com.gemstone.gemfire.internal.util.concurrent.CustomEntryConcurrentHashMap;
 import com.gemstone.gemfire.pdx.PdxInstance;
@@ -122,11 +124,13 @@ abstract class AbstractRegionMap implements RegionMap {
     final GemFireCacheImpl cache;
     boolean isDisk;
     boolean withVersioning = false;
+    boolean isOffHeap = false;
     if (owner instanceof LocalRegion) {
       LocalRegion region = (LocalRegion)owner;
       isDisk = region.getDiskRegion() != null;
       cache = region.getGemFireCache();
       withVersioning = region.getConcurrencyChecksEnabled();
+      isOffHeap = region.getOffHeap();
     }
     else if (owner instanceof PlaceHolderDiskRegion) {
       isDisk = true;
@@ -168,21 +172,29 @@ abstract class AbstractRegionMap implements RegionMap {
         if (isLRU) {
           if (isDisk) {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedStatsDiskLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedStatsDiskLRURegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMStatsDiskLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMStatsDiskLRURegionEntryHeap.getEntryFactory();
               }
             }
           } else {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedStatsLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedStatsLRURegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMStatsLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMStatsLRURegionEntryHeap.getEntryFactory();
               }
             }
@@ -190,21 +202,29 @@ abstract class AbstractRegionMap implements RegionMap {
         } else { // !isLRU
           if (isDisk) {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedStatsDiskRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedStatsDiskRegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMStatsDiskRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMStatsDiskRegionEntryHeap.getEntryFactory();
               }
             }
           } else {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedStatsRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedStatsRegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMStatsRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMStatsRegionEntryHeap.getEntryFactory();
               }
             }
@@ -215,22 +235,30 @@ abstract class AbstractRegionMap implements RegionMap {
         if (isLRU) {
           if (isDisk) {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedThinDiskLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedThinDiskLRURegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMThinDiskLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMThinDiskLRURegionEntryHeap.getEntryFactory();
               }
             }
           }
           else {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedThinLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedThinLRURegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMThinLRURegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMThinLRURegionEntryHeap.getEntryFactory();
               }
             }
@@ -239,22 +267,30 @@ abstract class AbstractRegionMap implements RegionMap {
         else { // !isLRU
           if (isDisk) {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedThinDiskRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedThinDiskRegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMThinDiskRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMThinDiskRegionEntryHeap.getEntryFactory();
               }
             }
           }
           else {
             if (withVersioning) {
-              {
+              if (isOffHeap) {
+                factory = VersionedThinRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VersionedThinRegionEntryHeap.getEntryFactory();
               }
             } else {
-              {
+              if (isOffHeap) {
+                factory = VMThinRegionEntryOffHeap.getEntryFactory();
+              } else {
                 factory = VMThinRegionEntryHeap.getEntryFactory();
               }
             }
@@ -436,6 +472,16 @@ abstract class AbstractRegionMap implements RegionMap {
   }
 
   private void _mapClear() {
+    if (getEntryFactory() != null
+        && OffHeapRegionEntry.class.isAssignableFrom(getEntryFactory().getEntryClass())) {
+      // the map no longer references these entries so they need to free their values
+      List<RegionEntry> entries = new ArrayList<RegionEntry>(regionEntries());
+      _getMap().clear();
+      for (RegionEntry re : entries) {
+        ((OffHeapRegionEntry)re).release();
+      }
+      return;
+    }
     _getMap().clear();
   }
   
@@ -2683,6 +2729,9 @@ RETRY_LOOP:
     retVal = getEntryFactory().createEntry((RegionEntryContext) ownerRegion, key, value);
     RegionEntry oldRe = putEntryIfAbsent(key, retVal);
     if (oldRe != null) {
+      if (retVal instanceof OffHeapRegionEntry) {
+        ((OffHeapRegionEntry)retVal).release();
+      }
       return oldRe;
     }
     return retVal;
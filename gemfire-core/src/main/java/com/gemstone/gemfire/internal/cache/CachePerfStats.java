@@ -68,6 +68,8 @@ public class CachePerfStats {
   protected final static int queryResultsHashCollisionsId;
   protected final static int queryResultsHashCollisionProbeTimeId;
   protected final static int partitionedRegionQueryRetriesId;
+  protected final static int queryResultCacheHitsId;
+  protected final static int queryResultCacheMissesId;
 
   protected static final int txSuccessLifeTimeId;
   protected static final int txFailedLifeTimeId;
@@ -146,6 +148,12 @@ public class CachePerfStats {
   protected static final int compressionDecompressionsId;
   protected static final int compressionPreCompressedBytesId;
   protected static final int compressionPostCompressedBytesId;
+
+  protected static final int offHeapMaxMemoryId;
+  protected static final int offHeapUsedMemoryId;
+  protected static final int offHeapObjectsId;
+  protected static final int offHeapAllocationsId;
+  protected static final int offHeapFreesId;
   
   /** The Statistics object that we delegate most behavior to */
   protected final Statistics stats;
@@ -200,6 +208,8 @@ public class CachePerfStats {
     final String queryResultsHashCollisionsDesc= "Total number of times an hash code collision occurred when inserting an object into an OQL result set or rehashing it";
     final String queryResultsHashCollisionProbeTimeDesc= "Total time spent probing the hashtable in an OQL result set due to hash code collisions, includes reads, writes, and rehashes";
     final String partitionedRegionOQLQueryRetriesDesc = "Total number of times an OQL Query on a Partitioned Region had to be retried";
+    final String queryResultCacheHitsDesc = "Total number of times the results of a query were found in the query result cache";
+    final String queryResultCacheMissesDesc = "Total number of times a query that could be answered from the query result cache had to be executed";
     final String txSuccessLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before a successful commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txFailedLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before a failed commit. The time measured starts at transaction begin and ends when commit is called.";
     final String txRollbackLifeTimeDesc = "The total amount of time, in nanoseconds, spent in a transaction before an explicit rollback. The time measured starts at transaction begin and ends when rollback is called.";
@@ -249,6 +259,11 @@ public class CachePerfStats {
     final String compressionDecompressionsDesc = "The total number of decompression operations.";
     final String compressionPreCompresssedBytesDesc = "The total number of bytes before compressing.";
     final String compressionPostCompressedBytesDesc = "The total number of bytes after compressing.";
+    final String offHeapMaxMemoryDesc = "The number of bytes of off-heap memory reserved for region values.";
+    final String offHeapUsedMemoryDesc = "The number of bytes of off-heap memory currently used by region values.";
+    final String offHeapObjectsDesc = "The number of region values currently stored off-heap.";
+    final String offHeapAllocationsDesc = "The total number of off-heap memory allocations.";
+    final String offHeapFreesDesc = "The total number of times off-heap memory was freed.";
     
     
     type = f.createType(
@@ -307,6 +322,8 @@ public class CachePerfStats {
         f.createIntCounter("queryResultsHashCollisions", queryResultsHashCollisionsDesc, "operations"),
         f.createLongCounter("queryResultsHashCollisionProbeTime", queryResultsHashCollisionProbeTimeDesc, "nanoseconds"),
         f.createLongCounter("partitionedRegionQueryRetries", partitionedRegionOQLQueryRetriesDesc, "retries"),
+        f.createIntCounter("queryResultCacheHits", queryResultCacheHitsDesc, "operations"),
+        f.createIntCounter("queryResultCacheMisses", queryResultCacheMissesDesc, "operations"),
 
         f.createIntCounter("txCommits", txCommitsDesc, "commits"), 
         f.createIntCounter("txCommitChanges", txCommitChangesDesc, "changes"), 
@@ -370,7 +387,13 @@ public class CachePerfStats {
         f.createLongCounter("compressions", compressionCompressionsDesc, "operations"),
         f.createLongCounter("decompressions", compressionDecompressionsDesc, "operations"),
         f.createLongCounter("preCompressedBytes", compressionPreCompresssedBytesDesc, "bytes"),
-        f.createLongCounter("postCompressedBytes", compressionPostCompressedBytesDesc, "bytes")
+        f.createLongCounter("postCompressedBytes", compressionPostCompressedBytesDesc, "bytes"),
+
+        f.createLongGauge("offHeapMaxMemory", offHeapMaxMemoryDesc, "bytes"),
+        f.createLongGauge("offHeapUsedMemory", offHeapUsedMemoryDesc, "bytes"),
+        f.createLongGauge("offHeapObjects", offHeapObjectsDesc, "objects"),
+        f.createLongCounter("offHeapAllocations", offHeapAllocationsDesc, "operations"),
+        f.createLongCounter("offHeapFrees", offHeapFreesDesc, "operations")
       }
     );
 
@@ -426,6 +449,8 @@ public class CachePerfStats {
     queryResultsHashCollisionsId = type.nameToId("queryResultsHashCollisions");
     queryResultsHashCollisionProbeTimeId = type.nameToId("queryResultsHashCollisionProbeTime");
     partitionedRegionQueryRetriesId = type.nameToId("partitionedRegionQueryRetries");
+    queryResultCacheHitsId = type.nameToId("queryResultCacheHits");
+    queryResultCacheMissesId = type.nameToId("queryResultCacheMisses");
 
     txSuccessLifeTimeId = type.nameToId("txSuccessLifeTime");
     txFailedLifeTimeId = type.nameToId("txFailedLifeTime");
@@ -495,6 +520,12 @@ public class CachePerfStats {
     compressionDecompressionsId = type.nameToId("decompressions");
     compressionPreCompressedBytesId = type.nameToId("preCompressedBytes");
     compressionPostCompressedBytesId = type.nameToId("postCompressedBytes");
+
+    offHeapMaxMemoryId = type.nameToId("offHeapMaxMemory");
+    offHeapUsedMemoryId = type.nameToId("offHeapUsedMemory");
+    offHeapObjectsId = type.nameToId("offHeapObjects");
+    offHeapAllocationsId = type.nameToId("offHeapAllocations");
+    offHeapFreesId = type.nameToId("offHeapFrees");
   }
   
   ////////////////////////  Constructors  ////////////////////////
@@ -722,6 +753,26 @@ public class CachePerfStats {
    public long getTotalPostCompressedBytes() {
      return stats.getLong(compressionPostCompressedBytesId);                    
    }
+
+   public long getOffHeapMaxMemory() {
+     return stats.getLong(offHeapMaxMemoryId);
+   }
+
+   public long getOffHeapUsedMemory() {
+     return stats.getLong(offHeapUsedMemoryId);
+   }
+
+   public long getOffHeapObjects() {
+     return stats.getLong(offHeapObjectsId);
+   }
+
+   public long getOffHeapAllocations() {
+     return stats.getLong(offHeapAllocationsId);
+   }
+
+   public long getOffHeapFrees() {
+     return stats.getLong(offHeapFreesId);
+   }
    
   //////////////////////  Updating Stats  //////////////////////
   
@@ -748,6 +799,28 @@ public class CachePerfStats {
        stats.incLong(compressionDecompressTimeId, getStatTime() - startTime);
      }
    }
+
+   public void setOffHeapMaxMemory(long bytes) {
+     stats.setLong(offHeapMaxMemoryId, bytes);
+   }
+
+   /**
+    * @param chunkSize the number of bytes of off-heap memory allocated
+    */
+   public void incOffHeapAllocation(long chunkSize) {
+     stats.incLong(offHeapAllocationsId, 1);
+     stats.incLong(offHeapObjectsId, 1);
+     stats.incLong(offHeapUsedMemoryId, chunkSize);
+   }
+
+   /**
+    * @param chunkSize the number of bytes of off-heap memory freed
+    */
+   public void incOffHeapFree(long chunkSize) {
+     stats.incLong(offHeapFreesId, 1);
+     stats.incLong(offHeapObjectsId, -1);
+     stats.incLong(offHeapUsedMemoryId, -chunkSize);
+   }
    
    /**
    * @return the timestamp that marks the start of the operation
@@ -988,6 +1061,22 @@ public class CachePerfStats {
   public void incQueryResultsHashCollisions() {
     stats.incInt(queryResultsHashCollisionsId, 1);
   }
+
+  public void incQueryResultCacheHits() {
+    stats.incInt(queryResultCacheHitsId, 1);
+  }
+
+  public int getQueryResultCacheHits() {
+    return stats.getInt(queryResultCacheHitsId);
+  }
+
+  public void incQueryResultCacheMisses() {
+    stats.incInt(queryResultCacheMissesId, 1);
+  }
+
+  public int getQueryResultCacheMisses() {
+    return stats.getInt(queryResultCacheMissesId);
+  }
   
    public int getTxCommits() {
      return stats.getInt(txCommitsId);
@@ -25,4 +25,10 @@ public interface CompactableOplog {
   public BytesAndBits getBytesAndBits(DiskRegionView dr, DiskId id,
       boolean faultIn, boolean bitOnly);
   public BytesAndBits getNoBuffer(DiskRegion dr, DiskId id);
+  /**
+   * Returns the location of the value of <code>id</code> in this oplog if it
+   * can be sent straight from the file, or null if it must be read.
+   * @since 9.0
+   */
+  public DiskValueTransfer getValueTransfer(DiskRegionView dr, DiskId id);
 }
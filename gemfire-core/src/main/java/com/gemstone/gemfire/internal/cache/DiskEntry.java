@@ -162,6 +162,38 @@ public interface DiskEntry extends RegionEntry {
       }
     }
 
+
+    /**
+     * Get the location of a value that is only on disk so that it can be
+     * sent straight from the oplog without faulting it in. Values that are
+     * in memory, waiting for an async write, or shorter than
+     * <code>minLength</code> are not transferred.
+     * @param entry the entry used to identify the value to fetch
+     * @param dr the persistent storage from which to fetch the value
+     * @param minLength the smallest value worth transferring
+     * @return null if the value must be obtained the usual way
+     * @since 9.0
+     */
+    public static DiskValueTransfer getValueTransferOnDisk(
+        DiskEntry entry, DiskRegion dr, int minLength) {
+      DiskId did = entry.getDiskId();
+      if (did == null) {
+        return null;
+      }
+      dr.acquireReadLock();
+      try {
+        synchronized (did) {
+          if ((dr.isBackup() && did.getKeyId() == DiskRegion.INVALID_ID)
+              || !entry.isValueNull() || did.isPendingAsync()
+              || did.getValueLength() < minLength) {
+            return null;
+          }
+          return dr.getValueTransfer(did);
+        }
+      } finally {
+        dr.releaseReadLock();
+      }
+    }
     
     /**
      * Get the value of an entry that is on disk without
@@ -466,6 +466,15 @@ public class DiskRegion extends AbstractDiskRegion {
     return getDiskStore().getSerializedData(this, id);
   }
 
+  /**
+   * Returns the location of the value of <code>id</code> on disk if it can
+   * be sent straight from the file, or null if it must be read.
+   * @since 9.0
+   */
+  final DiskValueTransfer getValueTransfer(DiskId id) {
+    return getDiskStore().getValueTransfer(this, id);
+  }
+
   /**
    * @since prPersistSprint1
    */
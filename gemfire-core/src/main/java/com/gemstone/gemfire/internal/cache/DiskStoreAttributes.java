@@ -35,6 +35,7 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
 
   public long maxOplogSizeInBytes;
   public long timeInterval;
+  public long groupCommitMaxDelay;
 
   public int[] diskDirSizes;
 
@@ -58,6 +59,7 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     this.diskDirSizes = DiskStoreFactory.DEFAULT_DISK_DIR_SIZES;
     this.diskUsageWarningPct = DiskStoreFactory.DEFAULT_DISK_USAGE_WARNING_PERCENTAGE;
     this.diskUsageCriticalPct = DiskStoreFactory.DEFAULT_DISK_USAGE_CRITICAL_PERCENTAGE;
+    this.groupCommitMaxDelay = DiskStoreFactory.DEFAULT_GROUP_COMMIT_MAX_DELAY;
   }
 
   public UUID getDiskStoreUUID() {
@@ -146,6 +148,13 @@ public class DiskStoreAttributes implements Serializable, DiskStore {
     return this.writeBufferSize;
   }
 
+  /* (non-Javadoc)
+   * @see com.gemstone.gemfire.cache.DiskStore#getGroupCommitMaxDelay()
+   */
+  public long getGroupCommitMaxDelay() {
+    return this.groupCommitMaxDelay;
+  }
+
   public void flush() {
     // nothing needed
   }
@@ -53,6 +53,7 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory
     setDiskDirsAndSizes(cloneArray(attrs.getDiskDirs()), cloneArray(attrs.getDiskDirSizes()));
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
     setDiskUsageCriticalPercentage(attrs.getDiskUsageCriticalPercentage());
+    setGroupCommitMaxDelay(attrs.getGroupCommitMaxDelay());
     this.cache = cache;
   }
 
@@ -101,6 +102,14 @@ public class DiskStoreFactoryImpl implements DiskStoreFactory
     return this;
   }
 
+  public DiskStoreFactory setGroupCommitMaxDelay(long milliseconds) {
+    if (milliseconds < 0) {
+      throw new IllegalArgumentException("Group commit max delay has to be a non-negative number and the value given " + milliseconds + " is not acceptable");
+    }
+    this.attrs.groupCommitMaxDelay = milliseconds;
+    return this;
+  }
+
   DiskStoreImpl createOwnedByRegion(String name, boolean isOwnedByPR,
       InternalRegionArguments internalRegionArgs) {
     this.attrs.name = name;
@@ -416,6 +416,7 @@ public class DiskStoreImpl implements DiskStore {
     this.diskDirSizes = props.getDiskDirSizes();
     this.warningPercent = props.getDiskUsageWarningPercentage();
     this.criticalPercent = props.getDiskUsageCriticalPercentage();
+    this.groupCommitMaxDelay = props.getGroupCommitMaxDelay();
     
     this.cache = (GemFireCacheImpl) cache;
     StatisticsFactory factory = cache.getDistributedSystem();
@@ -542,6 +543,11 @@ public class DiskStoreImpl implements DiskStore {
     if (getWriteBufferSize() != props.getWriteBufferSize()) {
       logger.debug("WriteBufferSize {} != {}", getWriteBufferSize(), props.getWriteBufferSize());
     }
+    if (getGroupCommitMaxDelay() != props.getGroupCommitMaxDelay()) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("GroupCommitMaxDelay {} != {}", getGroupCommitMaxDelay(), props.getGroupCommitMaxDelay());
+      }
+    }
     if (!Arrays.equals(getDiskDirs(), props.getDiskDirs())) {
       if (logger.isDebugEnabled()) {
         logger.debug("DiskDirs {} != {}", Arrays.toString(getDiskDirs()), Arrays.toString(props.getDiskDirs()));
@@ -561,6 +567,7 @@ public class DiskStoreImpl implements DiskStore {
         && getQueueSize() == props.getQueueSize()
         && getTimeInterval() == props.getTimeInterval()
         && getWriteBufferSize() == props.getWriteBufferSize()
+        && getGroupCommitMaxDelay() == props.getGroupCommitMaxDelay()
         && Arrays.equals(getDiskDirs(), props.getDiskDirs())
         && Arrays.equals(getDiskDirSizes(), props.getDiskDirSizes());
   }
@@ -752,6 +759,9 @@ public class DiskStoreImpl implements DiskStore {
           releaseReadLock(dr);
         }
       }
+      if (!async) {
+        Oplog.waitForPendingGroupCommit();
+      }
     } finally {
       if (async) {
         this.stats.endFlush(start);
@@ -793,6 +803,9 @@ public class DiskStoreImpl implements DiskStore {
         releaseReadLock(dr);
       }
     }
+    if (!async) {
+      Oplog.waitForPendingGroupCommit();
+    }
   }
 
   /**
@@ -1109,6 +1122,9 @@ public class DiskStoreImpl implements DiskStore {
         releaseReadLock(dr);
       }
     }
+    if (!async) {
+      Oplog.waitForPendingGroupCommit();
+    }
   }
 
   private FlushPauser fp = null;
@@ -1251,6 +1267,29 @@ public class DiskStoreImpl implements DiskStore {
     return convertBytesAndBitsToSerializedForm(getBytesAndBits(dr, id, true));
   }
 
+  /**
+   * Returns the location of the value of <code>id</code> in its oplog if it
+   * can be sent straight from the file.
+   * 
+   * @return null if the value must be read instead
+   * @since 9.0
+   */
+  final DiskValueTransfer getValueTransfer(DiskRegion dr, DiskId id) {
+    acquireReadLock(dr);
+    try {
+      if (dr.isRegionClosed() || dr.didClearCountChange()) {
+        return null;
+      }
+      CompactableOplog oplog = getOplogSet(dr).getChild(id.getOplogId());
+      if (oplog == null) {
+        return null;
+      }
+      return oplog.getValueTransfer(dr, id);
+    } finally {
+      releaseReadLock(dr);
+    }
+  }
+
   private void checkForFlusherThreadTermination() {
     if (this.flusherThreadTerminated) {
       String message = "Could not schedule asynchronous write because the flusher thread had been terminated.";
@@ -3502,6 +3541,7 @@ public class DiskStoreImpl implements DiskStore {
   private final long timeInterval;
   private final int queueSize;
   private final int writeBufferSize;
+  private final long groupCommitMaxDelay;
   private final File[] diskDirs;
   private final int[] diskDirSizes;
   private volatile float warningPercent;
@@ -3540,6 +3580,20 @@ public class DiskStoreImpl implements DiskStore {
     return this.writeBufferSize;
   }
 
+  public long getGroupCommitMaxDelay() {
+    return this.groupCommitMaxDelay;
+  }
+
+  /**
+   * Returns true if synchronous writes to this disk store are written and
+   * synced to disk in batches.
+   * 
+   * @since 9.0
+   */
+  boolean isGroupCommitEnabled() {
+    return this.groupCommitMaxDelay > 0;
+  }
+
   public File[] getDiskDirs() {
     return this.diskDirs;
   }
@@ -72,6 +72,37 @@ public class DiskStoreStats {
   private static final int backupsInProgress;
   private static final int backupsCompleted;
 
+  private static final int recoveryPrefetchesId;
+  private static final int recoveryPrefetchTimeId;
+  private static final int recoveryPrefetchedBytesId;
+  private static final int recoveryThroughputId;
+
+  private static final int groupCommitsId;
+  private static final int groupCommitRecordsId;
+  private static final int groupCommitTimeId;
+  private static final int groupCommitsInProgressId;
+  /** Counts of group commits by the number of records in the batch */
+  private static final int[] groupCommitBatchSizeIds;
+  /** Counts of group commits by how long the write and sync took */
+  private static final int[] groupCommitSyncTimeIds;
+
+  /**
+   * The upper bounds, inclusive, of the group commit batch size buckets.
+   * Larger batches are counted in the last bucket.
+   */
+  private static final int[] GROUP_COMMIT_BATCH_SIZE_BOUNDS = {1, 4, 16, 64};
+  private static final String[] GROUP_COMMIT_BATCH_SIZE_NAMES = {
+    "groupCommitBatchesOf1", "groupCommitBatchesOf2To4", "groupCommitBatchesOf5To16",
+    "groupCommitBatchesOf17To64", "groupCommitBatchesOver64"};
+  /**
+   * The upper bounds, exclusive and in nanoseconds, of the group commit sync
+   * time buckets. Slower syncs are counted in the last bucket.
+   */
+  private static final long[] GROUP_COMMIT_SYNC_TIME_BOUNDS = {100000L, 1000000L, 10000000L};
+  private static final String[] GROUP_COMMIT_SYNC_TIME_NAMES = {
+    "groupCommitSyncsUnder100us", "groupCommitSyncsUnder1ms", "groupCommitSyncsUnder10ms",
+    "groupCommitSyncsOver10ms"};
+
   static {
     String statName = "DiskStoreStatistics";
     String statDescription =
@@ -116,6 +147,13 @@ public class DiskStoreStats {
     final String backupsCompletedDesc =
       "The number of backups of this disk store that have been taking while this VM was alive";
 
+    final String groupCommitsDesc =
+      "The total number of group commits done by this disk store. Each group commit writes, and syncs if gemfire.syncWrites is set, the records of one or more synchronous operations.";
+    final String groupCommitRecordsDesc =
+      "The total number of synchronous operation records written to disk by group commits";
+    final String groupCommitTimeDesc =
+      "The total amount of time spent by group commit leaders writing and syncing batches";
+
     StatisticsTypeFactory f = StatisticsTypeFactoryImpl.singleton();
 
     type = f.createType(statName, statDescription,
@@ -164,6 +202,23 @@ public class DiskStoreStats {
          f.createIntGauge("uncreatedRecoveredRegions", "The current number of regions that have been recovered but have not yet been created.", "regions"),
          f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
          f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+         f.createLongCounter("recoveryPrefetches", "The total number of oplog files read into memory ahead of recovery", "files"),
+         f.createLongCounter("recoveryPrefetchTime", "The total amount of time spent by recovery prefetch threads reading oplog files", "nanoseconds"),
+         f.createLongCounter("recoveryPrefetchedBytes", "The total number of bytes read into memory ahead of recovery", "bytes"),
+         f.createLongGauge("recoveryThroughput", "The rate at which the most recent recovery of this disk store read its oplogs", "bytes/second"),
+         f.createLongCounter("groupCommits", groupCommitsDesc, "commits"),
+         f.createLongCounter("groupCommitRecords", groupCommitRecordsDesc, "records"),
+         f.createLongCounter("groupCommitTime", groupCommitTimeDesc, "nanoseconds"),
+         f.createIntGauge("groupCommitsInProgress", "current number of group commits that are in progress", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_SIZE_NAMES[0], "The number of group commits that wrote a single record", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_SIZE_NAMES[1], "The number of group commits that wrote 2 to 4 records", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_SIZE_NAMES[2], "The number of group commits that wrote 5 to 16 records", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_SIZE_NAMES[3], "The number of group commits that wrote 17 to 64 records", "commits"),
+         f.createLongCounter(GROUP_COMMIT_BATCH_SIZE_NAMES[4], "The number of group commits that wrote more than 64 records", "commits"),
+         f.createLongCounter(GROUP_COMMIT_SYNC_TIME_NAMES[0], "The number of group commits whose write and sync took less than 100 microseconds", "commits"),
+         f.createLongCounter(GROUP_COMMIT_SYNC_TIME_NAMES[1], "The number of group commits whose write and sync took from 100 microseconds to 1 millisecond", "commits"),
+         f.createLongCounter(GROUP_COMMIT_SYNC_TIME_NAMES[2], "The number of group commits whose write and sync took from 1 to 10 milliseconds", "commits"),
+         f.createLongCounter(GROUP_COMMIT_SYNC_TIME_NAMES[3], "The number of group commits whose write and sync took 10 milliseconds or more", "commits"),
        });
 
     // Initialize id fields
@@ -212,6 +267,24 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted= type.nameToId("backupsCompleted");
+
+    recoveryPrefetchesId = type.nameToId("recoveryPrefetches");
+    recoveryPrefetchTimeId = type.nameToId("recoveryPrefetchTime");
+    recoveryPrefetchedBytesId = type.nameToId("recoveryPrefetchedBytes");
+    recoveryThroughputId = type.nameToId("recoveryThroughput");
+
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitRecordsId = type.nameToId("groupCommitRecords");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    groupCommitsInProgressId = type.nameToId("groupCommitsInProgress");
+    groupCommitBatchSizeIds = new int[GROUP_COMMIT_BATCH_SIZE_NAMES.length];
+    for (int i = 0; i < GROUP_COMMIT_BATCH_SIZE_NAMES.length; i++) {
+      groupCommitBatchSizeIds[i] = type.nameToId(GROUP_COMMIT_BATCH_SIZE_NAMES[i]);
+    }
+    groupCommitSyncTimeIds = new int[GROUP_COMMIT_SYNC_TIME_NAMES.length];
+    for (int i = 0; i < GROUP_COMMIT_SYNC_TIME_NAMES.length; i++) {
+      groupCommitSyncTimeIds[i] = type.nameToId(GROUP_COMMIT_SYNC_TIME_NAMES[i]);
+    }
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -419,6 +492,29 @@ public class DiskStoreStats {
     this.stats.incLong(recoveredBytesId, bytesRead);
   }
 
+  public long startRecoveryPrefetch() {
+    return DistributionStats.getStatTime();
+  }
+
+  public void endRecoveryPrefetch(long start, long bytesRead) {
+    long end = DistributionStats.getStatTime();
+    this.stats.incLong(recoveryPrefetchesId, 1);
+    this.stats.incLong(recoveryPrefetchTimeId, end - start);
+    this.stats.incLong(recoveryPrefetchedBytesId, bytesRead);
+  }
+
+  /**
+   * Records the rate, in bytes per second, at which the most recent recovery
+   * read its oplogs.
+   */
+  public void setRecoveryThroughput(long bytesPerSecond) {
+    this.stats.setLong(recoveryThroughputId, bytesPerSecond);
+  }
+
+  public long getRecoveryPrefetchedBytes() {
+    return this.stats.getLong(recoveryPrefetchedBytesId);
+  }
+
   public void endCompaction(long start) {
     this.stats.incInt(compactsInProgressId, -1);
     long end = DistributionStats.getStatTime();
@@ -512,6 +608,59 @@ public class DiskStoreStats {
     this.stats.incInt(backupsInProgress, -1);
     this.stats.incInt(backupsCompleted, 1);
   }
+
+  /**
+   * Invoked by a group commit leader before it writes a batch.
+   *
+   * @return The timestamp that marks the start of the group commit. Unlike
+   *         most other start methods this is always a real timestamp since it
+   *         is used to pick the sync time bucket.
+   */
+  public long startGroupCommit() {
+    this.stats.incInt(groupCommitsInProgressId, 1);
+    return System.nanoTime();
+  }
+
+  /**
+   * Invoked by a group commit leader once its batch is on disk.
+   *
+   * @param start
+   *        The time returned by {@link #startGroupCommit}
+   * @param records
+   *        The number of synchronous operation records in the batch
+   */
+  public void endGroupCommit(long start, long records) {
+    long elapsed = System.nanoTime() - start;
+    this.stats.incInt(groupCommitsInProgressId, -1);
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitRecordsId, records);
+    this.stats.incLong(groupCommitTimeId, elapsed);
+    int i = 0;
+    while (i < GROUP_COMMIT_BATCH_SIZE_BOUNDS.length && records > GROUP_COMMIT_BATCH_SIZE_BOUNDS[i]) {
+      i++;
+    }
+    this.stats.incLong(groupCommitBatchSizeIds[i], 1);
+    i = 0;
+    while (i < GROUP_COMMIT_SYNC_TIME_BOUNDS.length && elapsed >= GROUP_COMMIT_SYNC_TIME_BOUNDS[i]) {
+      i++;
+    }
+    this.stats.incLong(groupCommitSyncTimeIds[i], 1);
+  }
+
+  /**
+   * Invoked by a group commit leader whose write failed.
+   */
+  public void endGroupCommitFailed() {
+    this.stats.incInt(groupCommitsInProgressId, -1);
+  }
+
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+
+  public long getGroupCommitRecords() {
+    return this.stats.getLong(groupCommitRecordsId);
+  }
   
   public Statistics getStats(){
     return stats;
@@ -0,0 +1,186 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The location of a value in an oplog that can be sent as is, without first
+ * reading it into the heap. The bytes are the same ones that
+ * {@link DiskEntry.Helper} would have read for the value so they are either
+ * the serialized form of the value or the contents of a byte array, as told
+ * by {@link #isSerialized()}.
+ * <p>
+ * A transfer keeps the oplog file open until it is {@link #release()
+ * released}, even if the oplog is closed or deleted in the meantime, so the
+ * owner must always release it.
+ *
+ * @since 9.0
+ */
+public final class DiskValueTransfer {
+
+  private final SharedChannel channel;
+  private final long offset;
+  private final int length;
+  private final boolean serialized;
+  private boolean released;
+
+  private DiskValueTransfer(SharedChannel channel, long offset, int length, boolean serialized) {
+    this.channel = channel;
+    this.offset = offset;
+    this.length = length;
+    this.serialized = serialized;
+  }
+
+  /**
+   * Returns the number of bytes in the value.
+   */
+  public int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Returns true if the bytes are a serialized object and false if they are
+   * the contents of a byte array.
+   */
+  public boolean isSerialized() {
+    return this.serialized;
+  }
+
+  /**
+   * Writes all the bytes of the value to <code>target</code>. When the target
+   * is a socket the operating system copies the bytes from the file cache
+   * straight to the socket.
+   */
+  public void transferTo(WritableByteChannel target) throws IOException {
+    final FileChannel fc = this.channel.channel;
+    long pos = this.offset;
+    long remaining = this.length;
+    while (remaining > 0) {
+      long n = fc.transferTo(pos, remaining, target);
+      if (n <= 0) {
+        if (pos >= fc.size()) {
+          throw new EOFException("Value at " + this.offset + " of length " + this.length + " is beyond the end of "
+              + this.channel.file);
+        }
+        // a non blocking target is full so let it drain
+        Thread.yield();
+        continue;
+      }
+      pos += n;
+      remaining -= n;
+    }
+  }
+
+  /**
+   * Copies all the bytes of the value into <code>dst</code>, which must have
+   * room for them.
+   */
+  public void readInto(ByteBuffer dst) throws IOException {
+    final FileChannel fc = this.channel.channel;
+    final int end = dst.position() + this.length;
+    final int oldLimit = dst.limit();
+    dst.limit(end);
+    try {
+      long pos = this.offset;
+      while (dst.hasRemaining()) {
+        int n = fc.read(dst, pos);
+        if (n < 0) {
+          throw new EOFException("Value at " + this.offset + " of length " + this.length + " is beyond the end of "
+              + this.channel.file);
+        }
+        pos += n;
+      }
+    } finally {
+      dst.limit(oldLimit);
+    }
+  }
+
+  /**
+   * Lets the oplog file be closed once no other transfers use it. Calling
+   * this more than once has no effect.
+   */
+  public void release() {
+    if (!this.released) {
+      this.released = true;
+      this.channel.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "DiskValueTransfer[" + this.channel.file + " offset=" + this.offset + " length=" + this.length
+        + " serialized=" + this.serialized + "]";
+  }
+
+  /**
+   * A read only channel of an oplog file shared by all the transfers from
+   * that file. It is closed once its oplog has closed it and all the
+   * transfers are released.
+   */
+  static final class SharedChannel {
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    /**
+     * The number of transfers plus one until closed. Once this reaches zero
+     * the file is closed.
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private SharedChannel(File file, RandomAccessFile raf) {
+      this.file = file;
+      this.raf = raf;
+      this.channel = raf.getChannel();
+    }
+
+    static SharedChannel open(File f) throws IOException {
+      return new SharedChannel(f, new RandomAccessFile(f, "r"));
+    }
+
+    /**
+     * Returns a transfer of the given bytes of this file, or null if this
+     * channel has been closed.
+     */
+    DiskValueTransfer createTransfer(long offset, int length, boolean serialized) {
+      while (true) {
+        int rc = this.refCount.get();
+        if (rc <= 0) {
+          return null;
+        }
+        if (this.refCount.compareAndSet(rc, rc + 1)) {
+          return new DiskValueTransfer(this, offset, length, serialized);
+        }
+      }
+    }
+
+    void release() {
+      if (this.refCount.decrementAndGet() == 0) {
+        try {
+          this.raf.close();
+        } catch (IOException ignore) {
+        }
+      }
+    }
+
+    /**
+     * Stops new transfers from using this channel and closes it once the
+     * current transfers are released.
+     */
+    void close() {
+      release();
+    }
+  }
+}
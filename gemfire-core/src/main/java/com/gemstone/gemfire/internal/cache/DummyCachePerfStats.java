@@ -336,6 +336,24 @@ public class DummyCachePerfStats extends CachePerfStats {
   public void endQueryExecution(long executionTime) {
   }
 
+  @Override
+  public void incQueryResultCacheHits() {
+  }
+
+  @Override
+  public int getQueryResultCacheHits() {
+    return 0;
+  }
+
+  @Override
+  public void incQueryResultCacheMisses() {
+  }
+
+  @Override
+  public int getQueryResultCacheMisses() {
+    return 0;
+  }
+
   @Override
   public int getTxCommits() {
     return 0;
@@ -457,6 +475,18 @@ public class DummyCachePerfStats extends CachePerfStats {
   public void incRetries() {
   }
 
+  @Override
+  public void setOffHeapMaxMemory(long bytes) {
+  }
+
+  @Override
+  public void incOffHeapAllocation(long chunkSize) {
+  }
+
+  @Override
+  public void incOffHeapFree(long chunkSize) {
+  }
+
   @Override
   public Statistics getStats() {
     return null;
@@ -62,7 +62,9 @@ import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
 import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
 import com.gemstone.gemfire.pdx.internal.PeerTypeRegistration;
+import com.gemstone.gemfire.pdx.internal.WritablePdxInstanceImpl;
 
 /**
  * Implementation of an entry event
@@ -1036,7 +1038,9 @@ public class EntryEventImpl
                             || obj == Token.NOT_AVAILABLE
                             || Token.isInvalidOrRemoved(obj)
                             // don't serialize delta object already serialized
-                            || obj instanceof com.gemstone.gemfire.Delta
+                            || (obj instanceof com.gemstone.gemfire.Delta
+                                // pdx instances are still stored serialized
+                                && !(obj instanceof PdxInstanceImpl))
                             || obj instanceof Delta) { // internal delta
       return obj;
     }
@@ -1212,7 +1216,8 @@ public class EntryEventImpl
     //This is a horrible hack, but we need to get the size of the object
     //When we store an entry. This code is only used when we do a put
     //in the primary.
-    if(v instanceof com.gemstone.gemfire.Delta && region.isUsedForPartitionedRegionBucket()) {
+    if(v instanceof com.gemstone.gemfire.Delta && !(v instanceof PdxInstanceImpl)
+        && region.isUsedForPartitionedRegionBucket()) {
       int vSize;
       Object ov = basicGetOldValue();
       if(ov instanceof CachedDeserializable && !GemFireCacheImpl.DELTAS_RECALCULATE_SIZE) {
@@ -1322,6 +1327,11 @@ public class EntryEventImpl
           || (fp != null && fp.getCqCount() > 0));
       Object value = oldValueInVM;
       boolean wasCD = false;
+      if (value instanceof CachedDeserializable || value instanceof PdxInstanceImpl) {
+        if (processPdxDeltaBytes(oldValueInVM)) {
+          return;
+        }
+      }
       if (value instanceof CachedDeserializable) {
         wasCD = true;
         if (copy) {
@@ -1337,6 +1347,11 @@ public class EntryEventImpl
       }
       boolean deltaBytesApplied = false;
       try {
+        if (!(value instanceof com.gemstone.gemfire.Delta)) {
+          // for example a pdx delta for an old value of another pdx type
+          throw new InvalidDeltaException("Delta can not be applied to "
+              + value.getClass().getName() + " for key " + this.keyInfo.getKey());
+        }
         long start = CachePerfStats.getStatTime();
         ((com.gemstone.gemfire.Delta)value).fromDelta(new DataInputStream(
             new ByteArrayInputStream(getDeltaBytes())));
@@ -1384,6 +1399,56 @@ public class EntryEventImpl
     }
   }
 
+  /**
+   * Applies the delta bytes written by a {@link WritablePdxInstanceImpl} to
+   * the serialized form of a pdx old value, without deserializing it or
+   * changing it.
+   * @return false if the delta bytes are not a pdx delta of the old value's
+   *         type, for example when the old value is an application
+   *         {@link com.gemstone.gemfire.Delta} serialized with pdx
+   * @throws InvalidDeltaException if the delta was computed from other field
+   *           values than the old value has, so that the full value is sent
+   * @since 9.0
+   */
+  private boolean processPdxDeltaBytes(Object oldValueInVM) {
+    byte[] oldBytes;
+    if (oldValueInVM instanceof CachedDeserializable) {
+      oldBytes = ((CachedDeserializable)oldValueInVM).getSerializedValue();
+    } else {
+      oldBytes = ((PdxInstanceImpl)oldValueInVM).toBytes();
+    }
+    byte[] newBytes = null;
+    boolean isPdxDelta = true;
+    boolean deltaBytesApplied = false;
+    try {
+      long start = CachePerfStats.getStatTime();
+      newBytes = WritablePdxInstanceImpl.applyDelta(oldBytes, getDeltaBytes());
+      if (newBytes == null) {
+        isPdxDelta = false;
+        return false;
+      }
+      this.region.getCachePerfStats().endDeltaUpdate(start);
+      deltaBytesApplied = true;
+    } catch (IOException e) {
+      throw new DeltaSerializationException(
+          "Exception while deserializing delta bytes.", e);
+    } finally {
+      if (isPdxDelta && !deltaBytesApplied) {
+        this.region.getCachePerfStats().incDeltaFailedUpdates();
+      }
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Pdx delta has been applied for key {}", getKey());
+    }
+    Object value = CachedDeserializableFactory.create(newBytes);
+    setNewValue(value);
+    if (this.causedByMessage != null
+        && this.causedByMessage instanceof PutMessage) {
+      ((PutMessage)this.causedByMessage).setDeltaValObj(value);
+    }
+    return true;
+  }
+
   void setTXEntryOldValue(Object oldVal, boolean mustBeAvailable)
   {
     if (Token.isInvalidOrRemoved(oldVal) || oldVal == null) {
@@ -179,7 +179,8 @@ public class EntryExpiryTask extends ExpiryTask {
       return;
     }
     if (getExpirationTime() > 0) {
-      addExpiryTask();
+      // schedule this task again rather than allocating a new one
+      getLocalRegion().rescheduleExpiryTask(this, getCheckedRegionEntry());
     }
   }
 
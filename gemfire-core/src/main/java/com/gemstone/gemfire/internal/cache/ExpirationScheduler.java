@@ -7,7 +7,10 @@
  */
 package com.gemstone.gemfire.internal.cache;
 
-import java.util.Date;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Logger;
@@ -17,12 +20,15 @@ import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.internal.SystemTimer;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
+import com.gemstone.gemfire.internal.tcp.ConnectionTable;
 
 /**
- * ExpirationScheduler uses a single instance of java.util.Timer (and
- * therefore a single thread) per VM to schedule and execute region and 
- * entry expiration tasks.
+ * ExpirationScheduler uses a single {@link ExpiryTimingWheel} per VM to
+ * schedule region and entry expiration tasks, which are then executed by a
+ * single expiration thread, or by a pool of gemfire.EXPIRY_THREADS threads.
+ * Other timer tasks are scheduled on a {@link SystemTimer}.
  */
 
 public class ExpirationScheduler
@@ -33,10 +39,53 @@ public class ExpirationScheduler
   private final AtomicInteger pendingCancels = new AtomicInteger();
   private static final int MAX_PENDING_CANCELS = Integer.getInteger("gemfire.MAX_PENDING_CANCELS", 10000).intValue();
 
+  /** The resolution, in milliseconds, of expiration */
+  private static final long TICK_MILLIS = Long.getLong("gemfire.expiry.tickMillis", 10).longValue();
+
+  /**
+   * The number of threads that run expiration tasks. Defaults to inline
+   * expiry to fix bug 37115: with 0 the tasks run one at a time on a single
+   * expiration thread, in the order they fire, as they did on the timer
+   * thread.
+   */
+  private static final int EXPIRY_THREADS = Integer.getInteger("gemfire.EXPIRY_THREADS", 0).intValue();
+
+  private final ThreadPoolExecutor executor;
+  private final ExpiryTimingWheel wheel;
+
   public ExpirationScheduler(InternalDistributedSystem ds) {
     this.timer = new SystemTimer(ds, true);
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("Expiration threads", logger);
+    ThreadFactory tf = new ThreadFactory() {
+      private final AtomicInteger nextId = new AtomicInteger();
+
+      public Thread newThread(final Runnable command) {
+        final Runnable r = new Runnable() {
+          public void run() {
+            ConnectionTable.threadWantsSharedResources();
+            try {
+              command.run();
+            } finally {
+              ConnectionTable.releaseThreadsSockets();
+            }
+          }
+        };
+        Thread thread = new Thread(group, r, "Expiry " + nextId.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+    int nThreads = Math.max(1, EXPIRY_THREADS);
+    this.executor = new ThreadPoolExecutor(nThreads, nThreads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), tf);
+    this.executor.allowCoreThreadTimeOut(true);
+    this.wheel = new ExpiryTimingWheel(TICK_MILLIS, this.executor, group, "Expiration Timing Wheel");
   }
   
+  /**
+   * Purges cancelled tasks from the timer used by {@link #schedule}.
+   * Expiration tasks are removed as soon as they are cancelled.
+   */
   public void forcePurge() {
     pendingCancels.getAndSet(0);
     this.timer.timerPurge();
@@ -71,20 +120,16 @@ public class ExpirationScheduler
       if(logger.isTraceEnabled()) {
         logger.trace(LocalizedMessage.create(LocalizedStrings.ExpirationScheduler_SCHEDULING__0__TO_FIRE_IN__1__MS, new Object[] {task, Long.valueOf(task.getExpiryMillis())}));
       }
-      // By using getExpirationTime and passing a Date to schedule
-      // we get rid of two calls of System.currentTimeMillis().
-      // The Date object creation is very simple and has a very short life.
-      timer.schedule(task, new Date(task.getExpirationTime()));
+      if (!this.wheel.schedule(task, task.getExpirationTime())) {
+        // task must have been cancelled by another thread so don't schedule it
+        return null;
+      }
     }
     catch (EntryNotFoundException e) {
       // ignore - there are unsynchronized paths that allow an entry to
       // be destroyed out from under us.
       return null;
     }
-    catch (IllegalStateException e) {
-      // task must have been cancelled by another thread so don't schedule it
-      return null;
-    }
     return task;
   }
 
@@ -94,20 +139,16 @@ public class ExpirationScheduler
       if(logger.isTraceEnabled()) {
         logger.trace(LocalizedMessage.create(LocalizedStrings.ExpirationScheduler_SCHEDULING__0__TO_FIRE_IN__1__MS, new Object[] {task, Long.valueOf(task.getExpiryMillis())}));
       }
-      // By using getExpirationTime and passing a Date to schedule
-      // we get rid of two calls of System.currentTimeMillis().
-      // The Date object creation is very simple and has a very short life.
-      timer.schedule(task, new Date(task.getExpirationTime()));
+      if (!this.wheel.schedule(task, task.getExpirationTime())) {
+        // task must have been cancelled by another thread so don't schedule it
+        return false;
+      }
     }
     catch (EntryNotFoundException e) {
       // ignore - there are unsynchronized paths that allow an entry to
       // be destroyed out from under us.
       return false;
     }
-    catch (IllegalStateException e) {
-      // task must have been cancelled by another thread so don't schedule it
-      return false;
-    }
     return true;
   }
 
@@ -116,8 +157,10 @@ public class ExpirationScheduler
     timer.schedule(task, when);
   }
 
-  /** @see java.util.Timer#cancel() */
+  /** Stops expiration and cancels the timer */
   public void cancel() {
+    this.wheel.stop();
+    this.executor.shutdownNow();
     timer.cancel();
   }
 }
@@ -12,10 +12,6 @@ package com.gemstone.gemfire.internal.cache;
  * ExpiryTask represents a timeout event for expiration
  */
 
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.logging.log4j.Logger;
 
@@ -29,13 +25,10 @@ import com.gemstone.gemfire.cache.ExpirationAction;
 import com.gemstone.gemfire.cache.ExpirationAttributes;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.util.BridgeWriterException;
-import com.gemstone.gemfire.distributed.internal.PooledExecutorWithDMStats;
 import com.gemstone.gemfire.internal.SystemTimer;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
-import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
-import com.gemstone.gemfire.internal.tcp.ConnectionTable;
 
 public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
   
@@ -43,41 +36,15 @@ public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
   
   private LocalRegion region; // no longer final so cancel can null it out see bug 37574
   
-  private static final ThreadPoolExecutor executor;
-
-  static {
-    // default to inline expiry to fix bug 37115
-    int nThreads = Integer.getInteger("gemfire.EXPIRY_THREADS", 0).intValue();
-    if (nThreads > 0) {
-      ThreadFactory tf = new ThreadFactory() {
-          private int nextId = 0;
-
-          public Thread newThread(final Runnable command) {
-            String name = "Expiration threads";
-            final ThreadGroup group =
-              LoggingThreadGroup.createThreadGroup(name);
-            final Runnable r = new Runnable() {
-                public void run() {
-                  ConnectionTable.threadWantsSharedResources();
-                  try {
-                    command.run();
-                  } finally {
-                    ConnectionTable.releaseThreadsSockets();
-                  }
-                }
-              };
-            Thread thread = new Thread(group, r, "Expiry " + nextId++);
-            thread.setDaemon(true);
-            return thread;
-          }
-        };
-      //LinkedBlockingQueue q = new LinkedBlockingQueue();
-      SynchronousQueue q = new SynchronousQueue();
-      executor = new PooledExecutorWithDMStats(q, nThreads, tf);
-    } else {
-      executor = null;
-    }
-  }
+  // The following fields are used by the ExpiryTimingWheel that schedules
+  // this task. The links and slot are guarded by the wheel.
+  ExpiryTask wheelNext;
+  ExpiryTask wheelPrev;
+  long wheelTick;
+  int wheelLevel;
+  int wheelSlot;
+  volatile int wheelState;
+  volatile ExpiryTimingWheel wheel;
 
   protected ExpiryTask(LocalRegion region) {
     this.region = region;
@@ -271,7 +238,7 @@ public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
    */
   @Override
   public boolean cancel() {
-    boolean superCancel = super.cancel();
+    boolean superCancel = ExpiryTimingWheel.cancel(this);
     LocalRegion lr = getLocalRegion();
     if (lr != null) {
       if (superCancel) {
@@ -284,44 +251,12 @@ public abstract class ExpiryTask extends SystemTimer.SystemTimerTask {
   /** 
    * An ExpiryTask is sent run() to perform its task.  Note that
    * this run() method should never throw an exception - otherwise,
-   * it takes out the java.util.Timer thread, causing an exception
-   * whenever we try to schedule more expiration tasks.
+   * it takes out the expiration thread that runs it.
    */
   @Override
   public final void run2() {
     try {
-      if (executor != null) {
-        executor.execute(new Runnable() {
-            public void run() {
-              runInThreadPool();
-            }
-          });
-      } else {
-        // inline
-        runInThreadPool();
-      }
-    } catch (RejectedExecutionException ex) {
-      try {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Rejected execution in expiration task", ex);
-        }
-      } 
-      catch (VirtualMachineError err) {
-        SystemFailure.initiateFailure(err);
-        // If this ever returns, rethrow the error.  We're poisoned
-        // now, so don't let this thread continue.
-        throw err;
-      }
-      catch (Throwable t) {
-        // Whenever you catch Error or Throwable, you must also
-        // catch VirtualMachineError (see above).  However, there is
-        // _still_ a possibility that you are dealing with a cascading
-        // error condition, so you also need to check to see if the JVM
-        // is still usable:
-        SystemFailure.checkFailure();
-        // for surviving and debugging exceptions getting the logger
-        t.printStackTrace();
-      }
+      runInThreadPool();
     }
     catch (CancelException e) {
       return; // just bail
@@ -0,0 +1,389 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.SystemFailure;
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * A hashed hierarchical timing wheel that fires {@link ExpiryTask}s.
+ * <p>
+ * Time is divided into ticks of {@link #getTickMillis()} milliseconds. The
+ * wheel has {@link #LEVELS} levels of {@link #SLOTS} slots. A slot of the
+ * first level holds the tasks that expire in one tick, a slot of the second
+ * level holds the tasks that expire in a run of {@link #SLOTS} ticks, and so
+ * on. Each time the first level wraps around the next slot of the second
+ * level is cascaded down into the first level, and likewise for the higher
+ * levels. Scheduling and cancelling a task are therefore constant time list
+ * operations and the tasks themselves are the list nodes, so no other object
+ * is allocated per task.
+ * <p>
+ * A task never fires before its expiration time but may fire up to one tick
+ * after it. Fired tasks are run by the executor given to the wheel so that a
+ * slow task does not hold up the others.
+ *
+ * @since 9.0
+ */
+public class ExpiryTimingWheel implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The number of bits of a tick used to pick a slot of a level */
+  static final int SLOT_BITS = 8;
+  /** The number of slots in each level */
+  static final int SLOTS = 1 << SLOT_BITS;
+  private static final int SLOT_MASK = SLOTS - 1;
+  /** The number of levels */
+  static final int LEVELS = 4;
+  /**
+   * The most ticks ahead that a task can be placed. Tasks that expire later
+   * are placed at this distance and moved again when they cascade.
+   */
+  private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+  // task states
+  static final int VIRGIN = 0;
+  static final int SCHEDULED = 1;
+  static final int PENDING = 2;
+  static final int RUNNING = 3;
+  static final int EXECUTED = 4;
+  static final int CANCELLED = 5;
+
+  private static final AtomicIntegerFieldUpdater<ExpiryTask> stateUpdater = AtomicIntegerFieldUpdater
+      .newUpdater(ExpiryTask.class, "wheelState");
+
+  private final long tickMillis;
+  private final long startTime;
+  private final Executor executor;
+  /** The first task of each slot of each level. Guarded by this wheel. */
+  private final ExpiryTask[][] slots = new ExpiryTask[LEVELS][SLOTS];
+  /** The last tick that has been processed. Guarded by this wheel. */
+  private long currentTick;
+  /** The number of tasks in the slots. Guarded by this wheel. */
+  private int size;
+  private volatile boolean stopped;
+
+  /**
+   * Creates a wheel and starts the thread that turns it.
+   *
+   * @param tickMillis
+   *          the resolution of the wheel
+   * @param executor
+   *          runs the tasks that fire
+   * @param group
+   *          the thread group of the thread that turns the wheel
+   * @param threadName
+   *          the name of the thread that turns the wheel
+   */
+  public ExpiryTimingWheel(long tickMillis, Executor executor, ThreadGroup group, String threadName) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+    }
+    this.tickMillis = tickMillis;
+    this.executor = executor;
+    this.startTime = System.currentTimeMillis();
+    Thread ticker = new Thread(group, this, threadName);
+    ticker.setDaemon(true);
+    ticker.start();
+  }
+
+  public long getTickMillis() {
+    return this.tickMillis;
+  }
+
+  /**
+   * Returns the number of tasks waiting to fire.
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  /**
+   * Schedules <code>task</code> to fire at <code>time</code>, which is in
+   * milliseconds since the epoch. A task that has fired may schedule itself
+   * again while it runs.
+   *
+   * @return false if the task has been cancelled or is already scheduled
+   */
+  public boolean schedule(ExpiryTask task, long time) {
+    if (this.stopped) {
+      return false;
+    }
+    boolean fireNow = false;
+    synchronized (this) {
+      int s = task.wheelState;
+      if (s != VIRGIN && s != RUNNING && s != EXECUTED) {
+        return false;
+      }
+      task.wheel = this;
+      if (!stateUpdater.compareAndSet(task, s, SCHEDULED)) {
+        return false;
+      }
+      long ticks = time - this.startTime;
+      // round up so that the task never fires early
+      ticks = ticks <= 0 ? 0 : (ticks + this.tickMillis - 1) / this.tickMillis;
+      task.wheelTick = ticks;
+      if (this.size == 0) {
+        // the ticker skips ahead when the wheel is empty so catch up here
+        long now = (System.currentTimeMillis() - this.startTime) / this.tickMillis;
+        if (now > this.currentTick) {
+          this.currentTick = now;
+        }
+      }
+      if (ticks <= this.currentTick) {
+        task.wheelState = PENDING;
+        fireNow = true;
+      } else {
+        insert(task);
+        if (this.size++ == 0) {
+          notifyAll();
+        }
+      }
+    }
+    if (fireNow) {
+      dispatch(task);
+    }
+    return true;
+  }
+
+  /**
+   * Cancels <code>task</code> if it is waiting to fire.
+   *
+   * @return true if the task will not run because of this call
+   */
+  static boolean cancel(ExpiryTask task) {
+    for (;;) {
+      int s = task.wheelState;
+      switch (s) {
+      case VIRGIN:
+        if (stateUpdater.compareAndSet(task, VIRGIN, CANCELLED)) {
+          return false;
+        }
+        break;
+      case SCHEDULED:
+        ExpiryTimingWheel w = task.wheel;
+        synchronized (w) {
+          if (task.wheelState == SCHEDULED) {
+            w.unlink(task);
+            w.size--;
+            task.wheelState = CANCELLED;
+            return true;
+          }
+        }
+        break;
+      case PENDING:
+        if (stateUpdater.compareAndSet(task, PENDING, CANCELLED)) {
+          return true;
+        }
+        break;
+      default:
+        // running, executed or cancelled
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Stops the wheel. Tasks that have not fired are dropped.
+   */
+  public void stop() {
+    this.stopped = true;
+    synchronized (this) {
+      for (int level = 0; level < LEVELS; level++) {
+        for (int slot = 0; slot < SLOTS; slot++) {
+          ExpiryTask t = this.slots[level][slot];
+          this.slots[level][slot] = null;
+          while (t != null) {
+            ExpiryTask next = t.wheelNext;
+            t.wheelNext = null;
+            t.wheelPrev = null;
+            t.wheelState = CANCELLED;
+            t = next;
+          }
+        }
+      }
+      this.size = 0;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Adds a scheduled task to the slot for its tick. Called with this wheel
+   * locked.
+   */
+  private void insert(ExpiryTask task) {
+    long tick = task.wheelTick;
+    long delta = tick - this.currentTick;
+    if (delta > MAX_DELTA) {
+      tick = this.currentTick + MAX_DELTA;
+      delta = MAX_DELTA;
+    }
+    int level = 0;
+    while (level < LEVELS - 1 && (delta >>> (SLOT_BITS * (level + 1))) != 0) {
+      level++;
+    }
+    int slot = (int)(tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+    ExpiryTask head = this.slots[level][slot];
+    task.wheelLevel = level;
+    task.wheelSlot = slot;
+    task.wheelPrev = null;
+    task.wheelNext = head;
+    if (head != null) {
+      head.wheelPrev = task;
+    }
+    this.slots[level][slot] = task;
+  }
+
+  /**
+   * Removes a scheduled task from its slot. Called with this wheel locked.
+   */
+  private void unlink(ExpiryTask task) {
+    ExpiryTask prev = task.wheelPrev;
+    ExpiryTask next = task.wheelNext;
+    if (prev == null) {
+      this.slots[task.wheelLevel][task.wheelSlot] = next;
+    } else {
+      prev.wheelNext = next;
+    }
+    if (next != null) {
+      next.wheelPrev = prev;
+    }
+    task.wheelPrev = null;
+    task.wheelNext = null;
+  }
+
+  /**
+   * Removes all the tasks of a slot and returns the first one. Called with
+   * this wheel locked.
+   */
+  private ExpiryTask takeSlot(int level, int slot) {
+    ExpiryTask head = this.slots[level][slot];
+    this.slots[level][slot] = null;
+    return head;
+  }
+
+  /**
+   * Processes the next tick, cascading the higher levels when the lower ones
+   * wrap around, and adds the tasks that fire to <code>fired</code>. Called
+   * with this wheel locked.
+   */
+  private void advance(List<ExpiryTask> fired) {
+    final long tick = ++this.currentTick;
+    for (int level = 1; level < LEVELS; level++) {
+      if (((tick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+        break;
+      }
+      ExpiryTask t = takeSlot(level, (int)(tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+      while (t != null) {
+        ExpiryTask next = t.wheelNext;
+        t.wheelNext = null;
+        t.wheelPrev = null;
+        if (t.wheelTick <= tick) {
+          fire(t, fired);
+        } else {
+          insert(t);
+        }
+        t = next;
+      }
+    }
+    ExpiryTask t = takeSlot(0, (int)tick & SLOT_MASK);
+    while (t != null) {
+      ExpiryTask next = t.wheelNext;
+      t.wheelNext = null;
+      t.wheelPrev = null;
+      fire(t, fired);
+      t = next;
+    }
+  }
+
+  private void fire(ExpiryTask task, List<ExpiryTask> fired) {
+    this.size--;
+    task.wheelState = PENDING;
+    fired.add(task);
+  }
+
+  private void dispatch(final ExpiryTask task) {
+    try {
+      this.executor.execute(new Runnable() {
+        public void run() {
+          runTask(task);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      if (!this.stopped) {
+        logger.debug("Rejected execution of expiration task {}", task, ex);
+      }
+    }
+  }
+
+  private static void runTask(ExpiryTask task) {
+    if (!stateUpdater.compareAndSet(task, PENDING, RUNNING)) {
+      // cancelled after it fired
+      return;
+    }
+    try {
+      task.run();
+    } finally {
+      // the task may have scheduled itself again
+      stateUpdater.compareAndSet(task, RUNNING, EXECUTED);
+    }
+  }
+
+  /**
+   * Turns the wheel once every tick while it has tasks.
+   */
+  public void run() {
+    final List<ExpiryTask> fired = new ArrayList<ExpiryTask>();
+    while (!this.stopped) {
+      try {
+        synchronized (this) {
+          long target = (System.currentTimeMillis() - this.startTime) / this.tickMillis;
+          if (this.size == 0) {
+            // nothing to fire so skip straight to the current tick
+            if (target > this.currentTick) {
+              this.currentTick = target;
+            }
+            wait();
+            continue;
+          }
+          while (this.currentTick < target) {
+            advance(fired);
+          }
+        }
+        for (int i = 0; i < fired.size(); i++) {
+          dispatch(fired.get(i));
+        }
+        fired.clear();
+        synchronized (this) {
+          long sleep = this.startTime + (this.currentTick + 1) * this.tickMillis - System.currentTimeMillis();
+          if (sleep > 0 && !this.stopped) {
+            wait(sleep);
+          }
+        }
+      } catch (InterruptedException ex) {
+        if (this.stopped) {
+          break;
+        }
+      } catch (VirtualMachineError err) {
+        SystemFailure.initiateFailure(err);
+        throw err;
+      } catch (Throwable t) {
+        SystemFailure.checkFailure();
+        logger.warn("Unexpected exception in the expiration timing wheel", t);
+        fired.clear();
+      }
+    }
+  }
+}
@@ -118,6 +118,7 @@ import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.cache.query.internal.DefaultQueryService;
 import com.gemstone.gemfire.cache.query.internal.QueryMonitor;
+import com.gemstone.gemfire.cache.query.internal.QueryResultCache;
 import com.gemstone.gemfire.cache.query.internal.cq.CqService;
 import com.gemstone.gemfire.cache.query.internal.cq.CqServiceProvider;
 import com.gemstone.gemfire.cache.server.CacheServer;
@@ -190,6 +191,7 @@ import com.gemstone.gemfire.internal.logging.InternalLogWriter;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
+import com.gemstone.gemfire.internal.offheap.OffHeapMemoryAllocator;
 import com.gemstone.gemfire.internal.process.ClusterConfigurationNotAvailableException;
 import com.gemstone.gemfire.internal.sequencelog.SequenceLoggerImpl;
 import com.gemstone.gemfire.internal.tcp.ConnectionTable;
@@ -331,6 +333,18 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
 
   private final CachePerfStats cachePerfStats;
 
+  /**
+   * The results of queries kept for the regions that enable it, or null if
+   * the gemfire.Query.RESULT_CACHE_SIZE system property is not set.
+   */
+  private final QueryResultCache queryResultCache;
+
+  /**
+   * The off-heap memory used by regions with the off-heap attribute or null
+   * if the off-heap-memory-size gemfire property is not set.
+   */
+  private final OffHeapMemoryAllocator offHeapStore;
+
   /** Date on which this instances was created */
   private final Date creationDate;
 
@@ -715,6 +729,19 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
       // Create the CacheStatistics
       this.cachePerfStats = new CachePerfStats(system);
       CachePerfStats.enableClockStats = this.system.getConfig().getEnableTimeStatistics();
+      if (QueryResultCache.MAX_SIZE > 0) {
+        this.queryResultCache = new QueryResultCache(QueryResultCache.MAX_SIZE, this.cachePerfStats);
+      } else {
+        this.queryResultCache = null;
+      }
+
+      long offHeapMemorySize = OffHeapMemoryAllocator.parseOffHeapMemorySize(
+          this.system.getConfig().getOffHeapMemorySize());
+      if (offHeapMemorySize > 0) {
+        this.offHeapStore = OffHeapMemoryAllocator.create(offHeapMemorySize, this.cachePerfStats);
+      } else {
+        this.offHeapStore = null;
+      }
 
       this.txMgr = new TXManagerImpl(this.cachePerfStats, this);
       dm.addMembershipListener(this.txMgr);
@@ -2079,6 +2106,9 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
           logger.info(LocalizedMessage.create(LocalizedStrings.GemFireCache_FAILED_TO_GET_THE_CQSERVICE_TO_CLOSE_DURING_CACHE_CLOSE_2));
         }
 
+        if (this.offHeapStore != null) {
+          this.offHeapStore.setStats(null);
+        }
         this.cachePerfStats.close();
         TXLockService.destroyServices();
 
@@ -2611,6 +2641,16 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
     return this.cachePerfStats;
   }
 
+  /**
+   * Returns the off-heap memory of this cache or null if the
+   * off-heap-memory-size gemfire property is not set.
+   * 
+   * @since 9.0
+   */
+  public OffHeapMemoryAllocator getOffHeapStore() {
+    return this.offHeapStore;
+  }
+
   public String getName() {
     return this.system.getName();
   }
@@ -4233,6 +4273,14 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
     return this.queryMonitor;
   }
 
+  /**
+   * Returns the cache of query results, or null if it is not enabled.
+   * @since 9.0
+   */
+  public QueryResultCache getQueryResultCache() {
+    return this.queryResultCache;
+  }
+
   /**
    * Simple class to allow waiters for register interest. Has at most one thread that ever calls wait.
    *
@@ -36,6 +36,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -121,6 +122,7 @@ import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.cache.query.internal.DefaultQueryService;
 import com.gemstone.gemfire.cache.query.internal.ExecutionContext;
 import com.gemstone.gemfire.cache.query.internal.IndexUpdater;
+import com.gemstone.gemfire.cache.query.internal.QueryResultCache;
 import com.gemstone.gemfire.cache.query.internal.cq.CqService;
 import com.gemstone.gemfire.cache.query.internal.index.IndexCreationData;
 import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
@@ -186,6 +188,7 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
 import com.gemstone.gemfire.internal.logging.log4j.LocalizedMessage;
 import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
+import com.gemstone.gemfire.internal.offheap.OffHeapRegionEntry;
 import com.gemstone.gemfire.internal.sequencelog.EntryLogger;
 import com.gemstone.gemfire.internal.util.concurrent.FutureResult;
 import com.gemstone.gemfire.internal.util.concurrent.StoppableCountDownLatch;
@@ -574,11 +577,20 @@ public class LocalRegion extends AbstractRegion
     this.regionName = regionName;
     this.parentRegion = parentRegion;
     this.fullPath = calcFullPath(regionName, parentRegion);
+    this.queryResultCacheEnabled = QueryResultCache.isEnabledByDefault(this.fullPath);
 
     String myName = getFullPath();
     if (internalRegionArgs.getPartitionedRegion() != null) {
       myName = internalRegionArgs.getPartitionedRegion().getFullPath();
     }
+
+    // an accessor never stores values so it does not need off-heap memory
+    if (attrs.getOffHeap() && cache.getOffHeapStore() == null
+        && (attrs.getPartitionAttributes() == null
+            || attrs.getPartitionAttributes().getLocalMaxMemory() != 0)) {
+      throw new IllegalStateException("The region " + myName
+          + " was configured to use off-heap memory but the off-heap-memory-size gemfire property was not set.");
+    }
     
     this.initializationLatchBeforeGetInitialImage = new StoppableCountDownLatch(this.stopper, 1);
     this.initializationLatchAfterGetInitialImage = new StoppableCountDownLatch(this.stopper, 1);
@@ -1359,6 +1371,58 @@ public class LocalRegion extends AbstractRegion
     }
   }
 
+  /**
+   * Returns the location of the value of <code>key</code> on disk so that a
+   * cache server can send it to a client without reading it into the heap.
+   * Only values that are not in memory, that are at least
+   * <code>minLength</code> bytes, and that are stored uncompressed qualify.
+   * The value is not faulted in. The statistics are updated as they are for a
+   * get that hits.
+   * 
+   * @param clientEvent receives the version tag of the entry, if any
+   * @return null if the value must be obtained with a get
+   * @since 9.0
+   */
+  public DiskValueTransfer getValueTransferOnDisk(Object key, int minLength, EntryEventImpl clientEvent) {
+    if (this.diskRegion == null || getCompressor() != null || isTX()) {
+      return null;
+    }
+    validateKey(key);
+    checkReadiness();
+    checkForNoAccess();
+    CachePerfStats stats = getCachePerfStats();
+    long start = stats.startGet();
+    RegionEntry re;
+    DiskValueTransfer result;
+    this.diskRegion.setClearCountReference();
+    try {
+      re = this.entries.getEntry(key);
+      if (!(re instanceof DiskEntry)) {
+        return null;
+      }
+      if (clientEvent != null && re.getVersionStamp() != null) {
+        synchronized (re) { // value & version must be obtained atomically
+          result = DiskEntry.Helper.getValueTransferOnDisk((DiskEntry)re, this.diskRegion, minLength);
+          if (result != null) {
+            clientEvent.setVersionTag(re.getVersionStamp().asVersionTag());
+          }
+        }
+      } else {
+        result = DiskEntry.Helper.getValueTransferOnDisk((DiskEntry)re, this.diskRegion, minLength);
+      }
+    } catch (DiskAccessException dae) {
+      this.handleDiskAccessException(dae);
+      throw dae;
+    } finally {
+      this.diskRegion.removeClearCountReference();
+    }
+    if (result != null) {
+      updateStatsForGet(re, true);
+      stats.endGet(start, false);
+    }
+    return result;
+  }
+
   /**
    * Update region and potentially entry stats for the miss case 
    * @param re optional region entry, fetched if null
@@ -3159,6 +3223,20 @@ public class LocalRegion extends AbstractRegion
   /** a boolean for issuing a client/server configuration mismatch message */
   private boolean concurrencyMessageIssued;
 
+  /**
+   * true if the results of queries on this region may be kept in the
+   * {@link QueryResultCache}
+   * @since 9.0
+   */
+  private volatile boolean queryResultCacheEnabled;
+
+  /**
+   * the number of changes to the entries of this region while
+   * {@link #queryResultCacheEnabled} is set
+   * @since 9.0
+   */
+  private final AtomicLong queryResultCacheVersion = new AtomicLong();
+
   /**
    * Starting in 3.5, we don't check to see if the value is
    * <code>Serializable</code>. We instead rely on the actual serialization
@@ -6695,6 +6773,25 @@ public class LocalRegion extends AbstractRegion
         // ignore: cache close will remove the membership listener
       }
     }
+    releaseOffHeapEntries();
+  }
+
+  /**
+   * Frees the off-heap memory held by the entries of this region once it has
+   * been destroyed or closed.
+   * 
+   * @since 9.0
+   */
+  private void releaseOffHeapEntries() {
+    if (!getOffHeap() || this.entries == null) {
+      return;
+    }
+    for (Iterator itr = this.entries.regionEntries().iterator(); itr.hasNext();) {
+      Object re = itr.next();
+      if (re instanceof OffHeapRegionEntry) {
+        ((OffHeapRegionEntry)re).release();
+      }
+    }
   }
 
   /**
@@ -8153,6 +8250,30 @@ public class LocalRegion extends AbstractRegion
   {
     addExpiryTask(re, false);
   }
+
+  /**
+   * Schedules <code>task</code>, which has just fired for <code>re</code>
+   * without expiring it, to fire again. The task is reused when it is a plain
+   * {@link EntryExpiryTask} and no other task has been added for the entry
+   * since it fired. Otherwise a new task is added as by
+   * {@link #addExpiryTask(RegionEntry)}.
+   */
+  void rescheduleExpiryTask(EntryExpiryTask task, RegionEntry re)
+  {
+    if (task.getClass() != EntryExpiryTask.class
+        || this.customEntryIdleTimeout != null || this.customEntryTimeToLive != null
+        || isProxy() || !isInitialized() || !isEntryExpiryPossible() || re.isDestroyedOrRemoved()) {
+      addExpiryTask(re);
+      return;
+    }
+    if (this.entryExpiryTasks.putIfAbsent(re, task) != null) {
+      // another thread has already added a task for this entry
+      return;
+    }
+    if (!this.cache.getExpirationScheduler().addEntryExpiryTask(task)) {
+      this.entryExpiryTasks.remove(re, task);
+    }
+  }
   
   /**
    * Used to create a cheap Region.Entry that can be passed to the CustomExpiry callback
@@ -8421,13 +8542,10 @@ public class LocalRegion extends AbstractRegion
         }
       }
       oldTask = this.entryExpiryTasks.put(re, newTask);
-      ExpirationScheduler es = this.cache.getExpirationScheduler();
       if (oldTask != null) {
-        if (oldTask.cancel()) {
-          es.incCancels();
-        }
+        oldTask.cancel();
       }
-      if (!es.addEntryExpiryTask(newTask)) {
+      if (!this.cache.getExpirationScheduler().addEntryExpiryTask(newTask)) {
         this.entryExpiryTasks.remove(re);
       }
       // @todo darrel: merge question: should we catch EntryNotFoundException
@@ -8450,9 +8568,7 @@ public class LocalRegion extends AbstractRegion
   {
     EntryExpiryTask oldTask = this.entryExpiryTasks.remove(re);
     if (oldTask != null) {
-      if (oldTask.cancel()) {
-        this.cache.getExpirationScheduler().incCancels();
-      }
+      oldTask.cancel();
     }
   }
 
@@ -8462,16 +8578,12 @@ public class LocalRegion extends AbstractRegion
     // in which case the final entryExpiryTasks field can still be null
     if (this.entryExpiryTasks == null) return;
     if (this.entryExpiryTasks.isEmpty()) return;
-    boolean doPurge = false;
     Iterator<EntryExpiryTask> tasksIter = this.entryExpiryTasks.values().iterator();
     while (tasksIter.hasNext()) {
       EntryExpiryTask task = tasksIter.next();
-      task.cancel(); // no need to call incCancels since we will call forcePurge
-      doPurge = true;
-    }
-    if (doPurge) {
-      // do a force to not leave any refs to this region
-      this.cache.getExpirationScheduler().forcePurge();
+      // cancelling unlinks the task from the expiration wheel so no
+      // references to this region are left behind
+      task.cancel();
     }
   }
 
@@ -10979,7 +11091,8 @@ public class LocalRegion extends AbstractRegion
     }
   }
   void updateSizeOnClearRegion(int sizeBeforeClear) {
-    // Only needed by BucketRegion
+    // BucketRegion keeps the size; cached query results are out of date
+    contentChanged();
   }
 
   /**
@@ -10995,15 +11108,62 @@ public class LocalRegion extends AbstractRegion
     return 0;
   }
   void updateSizeOnPut(Object key, int oldSize, int newSize) {
-    // Only needed by BucketRegion
+    // BucketRegion keeps the size; cached query results are out of date
+    contentChanged();
   }
 
   void updateSizeOnCreate(Object key, int newSize) {
-    // Only needed by BucketRegion
+    // BucketRegion keeps the size; cached query results are out of date
+    contentChanged();
   }
 
   void updateSizeOnRemove(Object key, int oldSize) {
-    // Only needed by BucketRegion
+    // BucketRegion keeps the size; cached query results are out of date
+    contentChanged();
+  }
+
+  /**
+   * Advances the version checked by the {@link QueryResultCache} if the
+   * results of queries on this region may be cached. Called by the region
+   * map after every create, update, invalidate and destroy of an entry and
+   * after a clear.
+   * @since 9.0
+   */
+  private void contentChanged() {
+    if (this.queryResultCacheEnabled) {
+      this.queryResultCacheVersion.incrementAndGet();
+    }
+  }
+
+  /**
+   * Sets whether the results of queries on this region may be kept in the
+   * {@link QueryResultCache}.
+   * @since 9.0
+   */
+  public void setQueryResultCacheEnabled(boolean enabled) {
+    if (!enabled) {
+      // results cached before are out of date if caching is enabled again
+      this.queryResultCacheVersion.incrementAndGet();
+    }
+    this.queryResultCacheEnabled = enabled;
+  }
+
+  /**
+   * Returns true if the results of queries on this region may be kept in
+   * the {@link QueryResultCache}.
+   * @since 9.0
+   */
+  public boolean isQueryResultCacheEnabled() {
+    return this.queryResultCacheEnabled;
+  }
+
+  /**
+   * Returns a version that changes whenever an entry of this region changes
+   * while {@link #isQueryResultCacheEnabled()} is true.
+   * @since 9.0
+   */
+  public long getQueryResultCacheVersion() {
+    return this.queryResultCacheVersion.get();
   }
 
   int updateSizeOnEvict(Object key, int oldSize) {
@@ -25,10 +25,15 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
 import java.io.SyncFailedException;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -178,6 +183,15 @@ public final class Oplog implements CompactableOplog {
    */
   private static final boolean SYNC_WRITES = Boolean.getBoolean("gemfire.syncWrites");
 
+  /**
+   * This system property causes values to be faulted in from crf files that
+   * are no longer being appended to by reading a memory mapping of the file
+   * instead of seeking and reading the file.
+   * 
+   * @since 9.0
+   */
+  static final boolean MMAP_CRF_READS = Boolean.getBoolean("gemfire.mmapCrfReads");
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -552,6 +566,70 @@ public final class Oplog implements CompactableOplog {
    */
   private boolean doneAppending = false;
 
+  /**
+   * The read only mapping of the crf. Only created when
+   * {@link #MMAP_CRF_READS} is set and this oplog is done appending.
+   */
+  private volatile MappedCrf mappedCrf;
+
+  /**
+   * Set to true if the crf could not be mapped so that we stop trying.
+   */
+  private boolean mappingFailed;
+
+  /**
+   * The channel that values are sent from by {@link #getValueTransfer}.
+   * Opened on first use. Guarded by {@link #lock}.
+   */
+  private DiskValueTransfer.SharedChannel transferChannel;
+
+  /**
+   * Set to true if the crf could not be opened for transfers so that we stop
+   * trying. Guarded by {@link #lock}.
+   */
+  private boolean transferChannelFailed;
+
+  /**
+   * The sequence number of the last synchronous record appended to this
+   * oplog whose flush was left to a group commit. Guarded by {@link #lock}.
+   */
+  private long groupCommitAppendedSeq;
+
+  /**
+   * Guards {@link #groupCommitCommittedSeq}, {@link #groupCommitLeaderActive}
+   * and {@link #groupCommitWaiters}. Threads waiting for a group commit wait
+   * on it.
+   */
+  private final Object groupCommitLock = new Object();
+
+  /**
+   * All group commit records with a sequence number up to and including this
+   * one have been written, and synced if {@link #SYNC_WRITES}, to disk.
+   */
+  private long groupCommitCommittedSeq;
+
+  /**
+   * True while a thread is writing a batch of group commit records.
+   */
+  private boolean groupCommitLeaderActive;
+
+  /**
+   * The number of threads waiting for another thread to write their record.
+   */
+  private int groupCommitWaiters;
+
+  /**
+   * The number of records in the last batch. Used by the leader to decide if
+   * it is worth waiting for more records.
+   */
+  private long lastGroupCommitSize;
+
+  /**
+   * The group commit record that the current thread appended and has not
+   * yet waited for.
+   */
+  private static final ThreadLocal<GroupCommitTicket> pendingGroupCommit = new ThreadLocal<GroupCommitTicket>();
+
   /**
    * Extra bytes to be skipped before reading value bytes. Value is currently 6
    * : 1 byte for opcode, 1 byte for userbits and 4 bytes for value length.
@@ -1361,6 +1439,74 @@ public final class Oplog implements CompactableOplog {
     }
   }
 
+  /**
+   * Returns the location of the value of <code>id</code> in the crf so that
+   * it can be sent without reading it into the heap. Only values that have
+   * been flushed and that are in the current serialization format qualify.
+   * 
+   * @return null if the value must be read with {@link #getBytesAndBits}
+   * @since 9.0
+   */
+  public DiskValueTransfer getValueTransfer(DiskRegionView dr, DiskId id) {
+    Oplog retryOplog = null;
+    long offset = 0;
+    int valueLength = 0;
+    byte userBits = 0;
+    synchronized (id) {
+      long opId = id.getOplogId();
+      if (opId != getOplogId()) {
+        retryOplog = getOplogSet().getChild(opId);
+      } else {
+        // fetch these while synced so they will be consistent with oplogId
+        offset = id.getOffsetInOplog();
+        valueLength = id.getValueLength();
+        userBits = id.getUserBits();
+      }
+    }
+    if (retryOplog != null) {
+      return retryOplog.getValueTransfer(dr, id);
+    }
+    if (offset < 0 || valueLength <= 0 || EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)
+        || getProductVersionIfOld() != null) {
+      return null;
+    }
+    DiskValueTransfer result = null;
+    synchronized (this.lock/* crf */) {
+      if (this.closed || this.deleted.get() || this.crf.f == null || offset + valueLength > this.crf.bytesFlushed) {
+        return null;
+      }
+      if (this.transferChannel == null && !this.transferChannelFailed) {
+        try {
+          this.transferChannel = DiskValueTransfer.SharedChannel.open(this.crf.f);
+        } catch (IOException ex) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Could not open {} so values will be read instead of transferred", this.crf.f, ex);
+          }
+          this.transferChannelFailed = true;
+        }
+      }
+      if (this.transferChannel != null) {
+        result = this.transferChannel.createTransfer(offset, valueLength, EntryBits.isSerialized(userBits));
+      }
+    }
+    if (result != null) {
+      this.stats.incOplogReads();
+    }
+    return result;
+  }
+
+  /**
+   * Closes the transfer channel once the transfers in progress are released.
+   * Called with the lock held.
+   */
+  private void closeTransferChannel() {
+    DiskValueTransfer.SharedChannel c = this.transferChannel;
+    if (c != null) {
+      this.transferChannel = null;
+      c.close();
+    }
+  }
+
   void close(DiskRegion dr) {
     // while a krf is being created can not close a region
     lockCompactor();
@@ -1534,9 +1680,9 @@ public final class Oplog implements CompactableOplog {
       try {
         int recordCount = 0;
         boolean foundDiskStoreRecord = false;
-        FileInputStream fis = null;
+        InputStream fis = null;
         try {
-          fis = new FileInputStream(drfFile);
+          fis = getOplogSet().openForRecovery(drfFile);
           dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfFile.length());
           boolean endOfLog = false;
           while (!endOfLog) {
@@ -1704,9 +1850,9 @@ public final class Oplog implements CompactableOplog {
       return false;
     }
 
-    FileInputStream fis;
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
+      fis = getOplogSet().openForRecovery(f);
     } catch (FileNotFoundException ex) {
       return false;
     }
@@ -3313,6 +3459,8 @@ public final class Oplog implements CompactableOplog {
   private void basicClose(boolean forceDelete) {
     flushAll();
     synchronized (this.lock/* crf */) {
+      closeMappedCrf();
+      closeTransferChannel();
       unpreblow(this.crf, getMaxCrfSize());
       if (!this.crf.RAFClosed) {
         try {
@@ -3683,7 +3831,7 @@ public final class Oplog implements CompactableOplog {
         id.setOplogId(getOplogId());
         // do the io while holding lock so that switch can set doneAppending
         // Write the data to the opLog for the synch mode
-        startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+        startPosForSynchOp = writeOpLogBytes(this.crf, async, true, true);
         // if (this.crf.currSize != startPosForSynchOp) {
         // assert false;
         // }
@@ -4269,6 +4417,29 @@ public final class Oplog implements CompactableOplog {
     return new File(this.diskFile.getPath() + KRF_FILE_EXT);
   }
 
+  /**
+   * Adds the files that {@link #recoverDrf} and {@link #recoverCrf} will read
+   * to <code>drfs</code> and <code>krfs</code> so that they can be read ahead
+   * of recovery.
+   * 
+   * @since 9.0
+   */
+  void addRecoveryFiles(List<File> drfs, List<File> krfs) {
+    if (this.drf.f == null) {
+      return;
+    }
+    if (!this.haveRecoveredDrf || getHasDeletes()) {
+      drfs.add(this.drf.f);
+    }
+    if (this.crf.f != null) {
+      File krfFile = new File(this.drf.f.getParentFile(), oplogSet.getPrefix() + getParent().getName() + "_" + this.oplogId
+          + KRF_FILE_EXT);
+      if (krfFile.exists()) {
+        krfs.add(krfFile);
+      }
+    }
+  }
+
   public List<KRFEntry> getSortedLiveEntries(Collection<DiskRegionInfo> targetRegions) {
     int tlc = (int) this.totalLiveCount.get();
     if (tlc <= 0) {
@@ -4424,6 +4595,7 @@ public final class Oplog implements CompactableOplog {
           entry.getDiskId().setPendingAsync(false);
           try {
             getOplogSet().getChild().basicRemove(dr, entry, false, false);
+            waitForPendingGroupCommit();
           } catch (IOException ex) {
             getParent().getCancelCriterion().checkCancelInProgress(ex);
             throw new DiskAccessException(
@@ -4536,6 +4708,7 @@ public final class Oplog implements CompactableOplog {
       }
       int valueLen = value != null ? value.length : 0;
       basicModify(drv, entry, value, valueLen, userBits, false, false);
+      waitForPendingGroupCommit();
     } catch (IOException ex) {
       throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex, drv.getName());
     } catch (InterruptedException ie) {
@@ -4661,7 +4834,7 @@ public final class Oplog implements CompactableOplog {
           long oldOplogId;
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.crf, async, true, true);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4778,7 +4951,7 @@ public final class Oplog implements CompactableOplog {
             throw cce;
           }
           this.firstRecord = false;
-          writeOpLogBytes(this.crf, async, true);
+          writeOpLogBytes(this.crf, async, true, true);
           this.crf.currSize = temp;
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.trace(LogMarker.PERSIST_WRITES, "basicSaveConflictVersionTag: drId={} versionStamp={} oplog#", dr.getId(), tag,
@@ -5108,7 +5281,7 @@ public final class Oplog implements CompactableOplog {
           // before we flush the crf.
           // However we can't have removes by async if we are doing a sync write
           // because we might be killed right after we do this write.
-          startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+          startPosForSynchOp = writeOpLogBytes(this.drf, async, true, true);
           setHasDeletes(true);
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()), entry.getKey(), dr.getId(),
@@ -5259,6 +5432,18 @@ public final class Oplog implements CompactableOplog {
    *         written to
    */
   private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync) throws IOException {
+    return writeOpLogBytes(olf, async, doFlushIfSync, false);
+  }
+
+  /**
+   * @param groupCommit
+   *          true if, when group commit is enabled on the disk store, the
+   *          flush of a synchronous write can be left to a group commit. The
+   *          caller must then call {@link #waitForPendingGroupCommit} once it
+   *          no longer holds any disk store locks.
+   */
+  private long writeOpLogBytes(OplogFile olf, boolean async, boolean doFlushIfSync, boolean groupCommit)
+      throws IOException {
     long startPos = -1L;
     synchronized (this.lock/* olf */) {
       Assert.assertTrue(!this.doneAppending);
@@ -5280,7 +5465,11 @@ public final class Oplog implements CompactableOplog {
       // " was not > lastWritePos=" + lastWritePos);
       long bytesWritten = this.opState.write(olf);
       if (!async && doFlushIfSync) {
-        flushAndSync(olf);
+        if (groupCommit && getParent().isGroupCommitEnabled()) {
+          pendingGroupCommit.set(new GroupCommitTicket(this, ++this.groupCommitAppendedSeq));
+        } else {
+          flushAndSync(olf);
+        }
       }
       getStats().incWrittenBytes(bytesWritten, async);
 
@@ -5292,6 +5481,120 @@ public final class Oplog implements CompactableOplog {
     return startPos;
   }
 
+  /**
+   * Waits until the record that the current thread left to a group commit, if
+   * any, is on disk. If no other thread is writing a batch the current thread
+   * becomes the leader and writes the records of all threads that appended
+   * since the last batch.
+   * 
+   * @since 9.0
+   */
+  static void waitForPendingGroupCommit() {
+    GroupCommitTicket ticket = pendingGroupCommit.get();
+    if (ticket != null) {
+      pendingGroupCommit.remove();
+      ticket.oplog.waitForGroupCommit(ticket.seq);
+    }
+  }
+
+  private void waitForGroupCommit(long seq) {
+    boolean interrupted = false;
+    try {
+      synchronized (this.groupCommitLock) {
+        while (this.groupCommitLeaderActive && this.groupCommitCommittedSeq < seq) {
+          this.groupCommitWaiters++;
+          try {
+            this.groupCommitLock.wait();
+          } catch (InterruptedException ie) {
+            interrupted = true;
+            getParent().getCancelCriterion().checkCancelInProgress(ie);
+          } finally {
+            this.groupCommitWaiters--;
+          }
+        }
+        if (this.groupCommitCommittedSeq >= seq) {
+          return;
+        }
+        this.groupCommitLeaderActive = true;
+      }
+      interrupted |= leadGroupCommit();
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Writes and syncs every record appended for group commit so far.
+   * 
+   * @return true if the current thread was interrupted while waiting for
+   *         more records
+   */
+  private boolean leadGroupCommit() {
+    boolean interrupted = false;
+    boolean committed = false;
+    long target = 0;
+    long records = 0;
+    final DiskStoreStats stats = getStats();
+    boolean started = false;
+    long start = 0;
+    try {
+      long prevCommitted;
+      boolean delay;
+      synchronized (this.groupCommitLock) {
+        prevCommitted = this.groupCommitCommittedSeq;
+        // only wait for more records if other writers are active
+        delay = this.groupCommitWaiters > 0 || this.lastGroupCommitSize > 1;
+      }
+      if (delay) {
+        try {
+          Thread.sleep(getParent().getGroupCommitMaxDelay());
+        } catch (InterruptedException ie) {
+          interrupted = true;
+          getParent().getCancelCriterion().checkCancelInProgress(ie);
+        }
+      }
+      start = stats.startGroupCommit();
+      started = true;
+      synchronized (this.lock) {
+        target = this.groupCommitAppendedSeq;
+      }
+      flushAll(false);
+      records = target - prevCommitted;
+      committed = true;
+    } finally {
+      if (committed) {
+        stats.endGroupCommit(start, records);
+      } else if (started) {
+        stats.endGroupCommitFailed();
+      }
+      synchronized (this.groupCommitLock) {
+        if (committed && target > this.groupCommitCommittedSeq) {
+          this.groupCommitCommittedSeq = target;
+          this.lastGroupCommitSize = records;
+        }
+        this.groupCommitLeaderActive = false;
+        this.groupCommitLock.notifyAll();
+      }
+    }
+    return interrupted;
+  }
+
+  /**
+   * A record appended by a thread that has not yet waited for its group
+   * commit.
+   */
+  private static final class GroupCommitTicket {
+    final Oplog oplog;
+    final long seq;
+
+    GroupCommitTicket(Oplog oplog, long seq) {
+      this.oplog = oplog;
+      this.seq = seq;
+    }
+  }
+
   boolean isRAFOpen() {
     return !this.crf.RAFClosed; // volatile read
   }
@@ -5313,6 +5616,7 @@ public final class Oplog implements CompactableOplog {
           this.crf.raf.close();
         } catch (IOException ignore) {
         }
+        closeTransferChannel();
         this.crf.RAFClosed = true;
         this.okToReopen = true;
         this.stats.decOpenOplogs();
@@ -5343,8 +5647,93 @@ public final class Oplog implements CompactableOplog {
     }
   }
 
+  /**
+   * Returns the mapping of the crf, creating it if this oplog is done
+   * appending, or null if the crf can not be read through a mapping.
+   */
+  private MappedCrf getMappedCrf() {
+    MappedCrf result = this.mappedCrf;
+    if (result == null) {
+      synchronized (this.lock/* crf */) {
+        result = this.mappedCrf;
+        if (result == null && this.doneAppending && !this.mappingFailed && !this.closed && !this.deleted.get()
+            && this.crf.f != null) {
+          try {
+            result = MappedCrf.map(this.crf.f, this.crf.bytesFlushed);
+          } catch (IOException ex) {
+            if (logger.isDebugEnabled()) {
+              logger.debug("Could not map {} so values will be read from the file instead", this.crf.f, ex);
+            }
+          }
+          if (result == null) {
+            this.mappingFailed = true;
+          }
+          this.mappedCrf = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Used by tests to confirm that values are read from a mapping of the crf
+   */
+  boolean testIsCrfMapped() {
+    return this.mappedCrf != null;
+  }
+
+  /**
+   * Unmaps the crf once the reads in progress finish. Called with the lock
+   * held when the crf is closed or deleted.
+   */
+  private void closeMappedCrf() {
+    MappedCrf m = this.mappedCrf;
+    if (m != null) {
+      this.mappedCrf = null;
+      m.close();
+    }
+    this.mappingFailed = true;
+  }
+
+  /**
+   * Reads a value from the mapping of the crf without any file system calls.
+   * 
+   * @return null if the value could not be read from a mapping and must be
+   *         read from the file
+   */
+  private BytesAndBits attemptMappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    MappedCrf m = getMappedCrf();
+    if (m == null || !m.retain()) {
+      return null;
+    }
+    try {
+      if (offsetInOplog < 0 || (offsetInOplog + valueLength) > m.getSize()) {
+        // let the file read report the problem
+        return null;
+      }
+      byte[] valueBytes = new byte[valueLength];
+      m.read(offsetInOplog, valueBytes);
+      this.stats.incOplogReads();
+      BytesAndBits bb = new BytesAndBits(valueBytes, userBits);
+      // also set the product version for an older product
+      final Version version = getProductVersionIfOld();
+      if (version != null) {
+        bb.setVersion(version);
+      }
+      return bb;
+    } finally {
+      m.release();
+    }
+  }
+
   private BytesAndBits attemptGet(DiskRegionView dr, long offsetInOplog, boolean bitOnly, int valueLength, byte userBits)
       throws IOException {
+    if (MMAP_CRF_READS) {
+      BytesAndBits bb = attemptMappedGet(offsetInOplog, valueLength, userBits);
+      if (bb != null) {
+        return bb;
+      }
+    }
     boolean didReopen = false;
     boolean accessedInactive = false;
     try {
@@ -5725,6 +6114,10 @@ public final class Oplog implements CompactableOplog {
 
   private void deleteFile(final OplogFile olf) {
     synchronized (this.lock) {
+      if (olf == this.crf) {
+        closeMappedCrf();
+        closeTransferChannel();
+      }
       if (olf.currSize != 0) {
         this.dirHolder.decrementTotalOplogSize(olf.currSize);
         olf.currSize = 0;
@@ -6371,6 +6764,104 @@ public final class Oplog implements CompactableOplog {
     public boolean unpreblown;
   }
 
+  /**
+   * A read only mapping of a crf that is no longer being appended to. Readers
+   * must {@link #retain} the mapping before reading from it and
+   * {@link #release} it afterwards so that it is only unmapped once no one is
+   * reading from it.
+   * 
+   * @since 9.0
+   */
+  static final class MappedCrf {
+    private final MappedByteBuffer buffer;
+    private final int size;
+    /**
+     * The number of readers plus one until closed. Once this reaches zero the
+     * mapping is released.
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    private MappedCrf(MappedByteBuffer buffer, int size) {
+      this.buffer = buffer;
+      this.size = size;
+    }
+
+    /**
+     * Maps the first <code>size</code> bytes of <code>f</code>.
+     * 
+     * @return null if the file is too large to be mapped by a single buffer
+     */
+    static MappedCrf map(File f, long size) throws IOException {
+      if (size <= 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      RandomAccessFile raf = new RandomAccessFile(f, "r");
+      try {
+        // the mapping stays valid after the channel is closed
+        return new MappedCrf(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size), (int)size);
+      } finally {
+        raf.close();
+      }
+    }
+
+    int getSize() {
+      return this.size;
+    }
+
+    boolean retain() {
+      while (true) {
+        int rc = this.refCount.get();
+        if (rc <= 0) {
+          return false;
+        }
+        if (this.refCount.compareAndSet(rc, rc + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void release() {
+      if (this.refCount.decrementAndGet() == 0) {
+        unmap(this.buffer);
+      }
+    }
+
+    /**
+     * Stops new readers from using this mapping and unmaps it once the
+     * current readers are done.
+     */
+    void close() {
+      release();
+    }
+
+    /**
+     * Copies <code>dst.length</code> bytes starting at <code>offset</code>
+     * into <code>dst</code>. The caller must have retained this mapping.
+     */
+    void read(long offset, byte[] dst) {
+      ByteBuffer bb = this.buffer.duplicate();
+      bb.position((int)offset);
+      bb.get(dst);
+    }
+
+    /**
+     * Releases the mapping now instead of waiting for the buffer to be
+     * garbage collected so that deleted crfs do not hold on to disk space.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+      try {
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }
+      } catch (Exception ignore) {
+        // the mapping will be released when the buffer is garbage collected
+      }
+    }
+  }
+
   private static class KRFile {
     public File f;
     FileOutputStream fos;
@@ -0,0 +1,186 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads the files that oplog recovery is about to parse into memory on a
+ * small pool of threads.
+ * <p>
+ * Recovery has to apply the oplogs of a disk store one at a time, newest
+ * first, so that the newest record of each entry wins. With hundreds of
+ * oplogs most of that time is spent waiting on the disk. The prefetcher is
+ * given the files in the order recovery will open them and keeps reading
+ * ahead of it, bounded by {@link #MAX_PREFETCH_BYTES}, so that when recovery
+ * opens a file its contents are usually already in memory.
+ *
+ * @since 9.0
+ */
+final class OplogRecoveryPrefetcher {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of threads used to read oplog files during recovery. Zero
+   * disables prefetching. Not final so that tests can change it.
+   */
+  static int RECOVERY_THREADS = Integer.getInteger("gemfire.disk.recoveryThreads",
+      Math.min(4, Runtime.getRuntime().availableProcessors())).intValue();
+
+  /**
+   * The maximum number of bytes that may have been read ahead of recovery.
+   * Files larger than this are never prefetched. Not final so that tests can
+   * change it.
+   */
+  static long MAX_PREFETCH_BYTES = Long.getLong("gemfire.disk.recoveryPrefetchBytes", 64 * 1024 * 1024).longValue();
+
+  private final DiskStoreStats stats;
+  private final ExecutorService pool;
+  /** The files to prefetch in the order that recovery will open them */
+  private final List<File> files;
+  /** The index in {@link #files} of the next file to submit */
+  private int nextFile;
+  /** Submitted reads that recovery has not yet opened */
+  private final Map<File, Prefetch> pending = new HashMap<File, Prefetch>();
+  private long pendingBytes;
+
+  private OplogRecoveryPrefetcher(DiskStoreImpl parent, List<File> files, int threads) {
+    this.stats = parent.getStats();
+    this.files = files;
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("Oplog Recovery Thread Group", logger);
+    this.pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        GemfireCacheHelper.CreateThreadFactory(group, "Oplog Recovery Prefetch " + parent.getName()));
+    submitMore();
+  }
+
+  /**
+   * Starts prefetching <code>files</code>.
+   *
+   * @return null if prefetching is disabled or there is nothing to prefetch
+   */
+  static OplogRecoveryPrefetcher start(DiskStoreImpl parent, List<File> files) {
+    if (RECOVERY_THREADS <= 0 || files.size() < 2) {
+      return null;
+    }
+    return new OplogRecoveryPrefetcher(parent, files, Math.min(RECOVERY_THREADS, files.size()));
+  }
+
+  /**
+   * Returns a stream of the contents of <code>f</code>, from memory if it has
+   * been prefetched. Files that recovery has passed over are dropped.
+   */
+  synchronized InputStream open(File f) throws FileNotFoundException {
+    Prefetch p = this.pending.remove(f);
+    if (p != null) {
+      this.pendingBytes -= p.size;
+      // recovery reads the files in order so anything submitted before this
+      // one was skipped
+      int idx = this.files.indexOf(f);
+      for (int i = 0; i < idx; i++) {
+        Prefetch skipped = this.pending.remove(this.files.get(i));
+        if (skipped != null) {
+          skipped.future.cancel(true);
+          this.pendingBytes -= skipped.size;
+        }
+      }
+    }
+    submitMore();
+    if (p != null) {
+      try {
+        byte[] bytes = p.future.get();
+        if (bytes != null) {
+          return new ByteArrayInputStream(bytes);
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException ignore) {
+        // read it directly below so that the caller sees the failure
+      }
+    }
+    return new FileInputStream(f);
+  }
+
+  private void submitMore() {
+    while (this.nextFile < this.files.size()) {
+      final File f = this.files.get(this.nextFile);
+      final long size = f.length();
+      if (size > MAX_PREFETCH_BYTES) {
+        this.nextFile++;
+        continue;
+      }
+      if (!this.pending.isEmpty() && this.pendingBytes + size > MAX_PREFETCH_BYTES) {
+        break;
+      }
+      this.nextFile++;
+      Future<byte[]> future = this.pool.submit(new Callable<byte[]>() {
+        public byte[] call() throws IOException {
+          return read(f);
+        }
+      });
+      this.pending.put(f, new Prefetch(future, size));
+      this.pendingBytes += size;
+    }
+  }
+
+  private byte[] read(File f) throws IOException {
+    long start = this.stats.startRecoveryPrefetch();
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try {
+      long length = raf.length();
+      if (length > MAX_PREFETCH_BYTES) {
+        return null;
+      }
+      byte[] bytes = new byte[(int)length];
+      raf.readFully(bytes);
+      this.stats.endRecoveryPrefetch(start, bytes.length);
+      return bytes;
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * Stops all outstanding reads and releases the threads.
+   */
+  synchronized void close() {
+    this.pool.shutdownNow();
+    this.pending.clear();
+    this.pendingBytes = 0;
+  }
+
+  private static final class Prefetch {
+    final Future<byte[]> future;
+    final long size;
+
+    Prefetch(Future<byte[]> future, long size) {
+      this.future = future;
+      this.size = size;
+    }
+  }
+}
@@ -89,6 +89,18 @@ class OverflowOplog implements CompactableOplog {
    */
   private boolean doneAppending = false;
 
+  /**
+   * The channel that values are sent from by {@link #getValueTransfer}.
+   * Opened on first use. Guarded by {@link #crf}.
+   */
+  private DiskValueTransfer.SharedChannel transferChannel;
+
+  /**
+   * Set to true if the crf could not be opened for transfers so that we stop
+   * trying. Guarded by {@link #crf}.
+   */
+  private boolean transferChannelFailed;
+
   private final OplogDiskEntry liveEntries = new OplogDiskEntry();
 
   private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
@@ -409,6 +421,73 @@ class OverflowOplog implements CompactableOplog {
     }
   }
 
+  /**
+   * Returns the location of the value of <code>id</code> in the crf so that
+   * it can be sent without reading it into the heap. Only values that have
+   * been flushed qualify.
+   * 
+   * @return null if the value must be read with {@link #getBytesAndBits}
+   * @since 9.0
+   */
+  public DiskValueTransfer getValueTransfer(DiskRegionView dr, DiskId id) {
+    OverflowOplog retryOplog = null;
+    long offset = 0;
+    int valueLength = 0;
+    byte userBits = 0;
+    synchronized (id) {
+      int opId = (int)id.getOplogId();
+      if (opId != getOplogId()) {
+        retryOplog = this.getOplogSet().getChild(opId);
+      } else {
+        // fetch these while synced so they will be consistent with oplogId
+        offset = id.getOffsetInOplog();
+        valueLength = id.getValueLength();
+        userBits = id.getUserBits();
+      }
+    }
+    if (retryOplog != null) {
+      return retryOplog.getValueTransfer(dr, id);
+    }
+    if (offset < 0 || valueLength <= 0 || EntryBits.isAnyInvalid(userBits) || EntryBits.isTombstone(userBits)) {
+      return null;
+    }
+    DiskValueTransfer result = null;
+    synchronized (this.crf) {
+      if (this.closed || this.deleted.get() || this.crf.f == null || offset + valueLength > this.crf.bytesFlushed) {
+        return null;
+      }
+      if (this.transferChannel == null && !this.transferChannelFailed) {
+        try {
+          this.transferChannel = DiskValueTransfer.SharedChannel.open(this.crf.f);
+        } catch (IOException ex) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Could not open {} so values will be read instead of transferred", this.crf.f, ex);
+          }
+          this.transferChannelFailed = true;
+        }
+      }
+      if (this.transferChannel != null) {
+        result = this.transferChannel.createTransfer(offset, valueLength, EntryBits.isSerialized(userBits));
+      }
+    }
+    if (result != null) {
+      this.stats.incOplogReads();
+    }
+    return result;
+  }
+
+  /**
+   * Closes the transfer channel once the transfers in progress are released.
+   * Called with the crf locked.
+   */
+  private void closeTransferChannel() {
+    DiskValueTransfer.SharedChannel c = this.transferChannel;
+    if (c != null) {
+      this.transferChannel = null;
+      c.close();
+    }
+  }
+
   void freeEntry(DiskEntry de) {
     rmLive(de);
   }
@@ -447,6 +526,7 @@ class OverflowOplog implements CompactableOplog {
   private void basicClose() {
     flushAll();
     synchronized (this.crf) {
+      closeTransferChannel();
       if (!this.crf.RAFClosed) {
         try {
           this.crf.channel.close();
@@ -1007,6 +1087,9 @@ class OverflowOplog implements CompactableOplog {
 
   private void deleteFile() {
     final OplogFile olf = getOLF();
+    synchronized (this.crf) {
+      closeTransferChannel();
+    }
     if (this.maxOplogSize != 0) {
       this.dirHolder.decrementTotalOplogSize(this.maxOplogSize);
       this.maxOplogSize = 0;
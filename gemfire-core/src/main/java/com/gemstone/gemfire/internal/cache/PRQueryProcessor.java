@@ -14,52 +14,47 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.Logger;
 
-import com.gemstone.gemfire.InternalGemFireException;
-import com.gemstone.gemfire.cache.CacheRuntimeException;
+import com.gemstone.gemfire.SystemFailure;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.query.QueryException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.internal.CompiledSelect;
 import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.cache.query.internal.ExecutionContext;
-import com.gemstone.gemfire.cache.query.internal.IndexTrackingQueryObserver;
 import com.gemstone.gemfire.cache.query.internal.QueryExecutionContext;
 import com.gemstone.gemfire.cache.query.internal.QueryMonitor;
-import com.gemstone.gemfire.cache.query.internal.QueryObserver;
-import com.gemstone.gemfire.cache.query.internal.QueryObserverHolder;
 import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.DataSerializableFixedID;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.PartitionedRegionQueryEvaluator.PRQueryResultCollector;
 import com.gemstone.gemfire.internal.cache.execute.BucketMovedException;
-import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.internal.logging.LogService;
 
 
 /**
  * This class takes the responsibility of executing the query on a data store
- * for the buckets specified in bucketList. It contains a
- * <code>PRQueryExecutor</code> thread-pool executor that takes a
- * <code>Callable</code> task identified by <code>PartitionedRegion</code>,
- * queryString and bucketId.
+ * for the buckets specified in bucketList. When more than one thread may be
+ * used the buckets are scanned in parallel by <code>BucketScanner</code>
+ * tasks of the work stealing <code>PRQueryExecutor</code> pool, which is
+ * shared by all queries. Each query uses at most
+ * {@link #MAX_PARALLELISM_PER_QUERY} threads, one of which is the thread
+ * that executes the query, and the scanners of a query claim its buckets one
+ * at a time so that they finish together even when buckets differ in size.
  * 
- * The QueryTasks add results directly to a results queue.
- * The BucketQueryResult is used not only to indicate completion, and holds an exception if there one occurred while
- * processing a query.
+ * The results of each bucket are added to the result collector as soon as
+ * the bucket has been scanned.
  *
  * @author rreja
  * @author Eric Zoerner
@@ -68,9 +63,21 @@ public class PRQueryProcessor
 {
   private static final Logger logger = LogService.getLogger();
   
-  final static int BUCKET_QUERY_TIMEOUT = 60;
-  
-  public final static int NUM_THREADS  = Integer.getInteger("gemfire.PRQueryProcessor.numThreads", 1).intValue();
+  /**
+   * The number of threads in the pool that scans buckets for all the queries
+   * of this member. Defaults to the number of processors.
+   */
+  public final static int NUM_THREADS  = Integer.getInteger("gemfire.PRQueryProcessor.numThreads",
+      Runtime.getRuntime().availableProcessors()).intValue();
+
+  /**
+   * The most threads that scan buckets for one query, counting the thread
+   * that executes the query, so that one query does not take the whole pool.
+   * Defaults to {@link #NUM_THREADS}.
+   * @since 9.0
+   */
+  public final static int MAX_PARALLELISM_PER_QUERY = Integer.getInteger(
+      "gemfire.PRQueryProcessor.maxParallelismPerQuery", NUM_THREADS).intValue();
 
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
@@ -82,13 +89,14 @@ public class PRQueryProcessor
   private final List _bucketsToQuery;
   private volatile int numBucketsProcessed = 0;
  
-  private boolean isIndexUsedForLocalQuery = false;
+  private volatile boolean isIndexUsedForLocalQuery = false;
 //  private List _failedBuckets;
 
   public PRQueryProcessor(PartitionedRegionDataStore prDS,
       DefaultQuery query, Object[] parameters, List buckets) {
     Assert.assertTrue(!buckets.isEmpty(), "bucket list can not be empty. ");
     this._prds = prDS;
+    this.pr = prDS.getPartitionedRegion();
     this._bucketsToQuery = buckets;
     ((GemFireCacheImpl)prDS.partitionedRegion.getCache()).getLocalQueryService();
     this.query = query;
@@ -128,79 +136,65 @@ public class PRQueryProcessor
       //((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     //}
     
-    if (NUM_THREADS > 1 || this.TEST_NUM_THREADS > 1) {  
-      executeWithThreadPool(resultCollector);
+    int parallelism = getParallelism();
+    // a traced query stays on this thread so that the index tracking
+    // observer, which is per thread, sees every bucket
+    if (parallelism > 1 && this._bucketsToQuery.size() > 1 && !this.query.isTraced()) {
+      executeInParallel(resultCollector, parallelism);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
     }    
   }
-  
-  private void executeWithThreadPool(Collection<Collection> resultCollector)
+
+  /**
+   * Returns the number of threads that may scan buckets for one query.
+   */
+  private static int getParallelism() {
+    // tests set this to 1 to scan the buckets sequentially
+    if (TEST_NUM_THREADS > 0) {
+      return TEST_NUM_THREADS;
+    }
+    return Math.min(NUM_THREADS, MAX_PARALLELISM_PER_QUERY);
+  }
+
+  /**
+   * Scans the buckets with this thread and up to <code>parallelism - 1</code>
+   * threads of the pool. The query is monitored as a whole on this thread and
+   * the pool threads share its query execution status, so canceling the
+   * query stops all of them.
+   */
+  private void executeInParallel(Collection<Collection> resultCollector, int parallelism)
     throws QueryException, InterruptedException, ForceReattemptException {
     if (Thread.interrupted()) throw new InterruptedException();
-      
-    java.util.List callableTasks = buildCallableTaskList(resultCollector);
-    ExecutorService execService = PRQueryExecutor.getExecutorService();
 
-    boolean reattemptNeeded = false;
-    ForceReattemptException fre = null;
-    
-    if (callableTasks != null && !callableTasks.isEmpty()) {
-      List futures = null;
-      try {
-        futures = execService.invokeAll(callableTasks, 300, TimeUnit.SECONDS);
+    QueryMonitor queryMonitor = getQueryMonitor();
+    try {
+      if (queryMonitor != null) {
+        // Add current thread to be monitored by QueryMonitor.
+        queryMonitor.monitorQueryThread(Thread.currentThread(), query);
       }
-      catch (RejectedExecutionException rejectedExecutionEx) {
-        //this._prds.partitionedRegion.checkReadiness();
-        throw rejectedExecutionEx;
+      BucketScan scan = new BucketScan(resultCollector);
+      int numHelpers = Math.min(parallelism, this._bucketsToQuery.size()) - 1;
+      ForkJoinPool pool = PRQueryExecutor.getExecutorService();
+      BucketScanner[] helpers = new BucketScanner[numHelpers];
+      for (int i = 0; i < numHelpers; i++) {
+        helpers[i] = new BucketScanner(scan);
+        pool.execute(helpers[i]);
       }
-      
-      if (futures != null) {
-        Iterator itr = futures.iterator();
-        while (itr.hasNext() && !execService.isShutdown() && !execService.isTerminated()) {
-          //this._prds.partitionedRegion.checkReadiness();
-          Future fut = (Future)itr.next();
-          QueryTask.BucketQueryResult bqr = null;
-          
-          try {
-            bqr = (QueryTask.BucketQueryResult)fut.get(BUCKET_QUERY_TIMEOUT, TimeUnit.SECONDS);
-            //if (retry.booleanValue()) {
-            //  reattemptNeeded = true;
-              //fre = (ForceReattemptException)bqr.getException();
-            //} else {
-              bqr.handleAndThrowException(); // handles an exception if there was one,
-              //  otherwise, the results have already been added to the resultQueue
-            //}
-            if (bqr.retry) {
-              reattemptNeeded = true;
-            }
-            
-          } catch (TimeoutException e) {
-            throw new InternalGemFireException(LocalizedStrings.PRQueryProcessor_TIMED_OUT_WHILE_EXECUTING_QUERY_TIME_EXCEEDED_0.toLocalizedString(
-                Integer.valueOf(BUCKET_QUERY_TIMEOUT)), e);
-          } catch (ExecutionException ee) {
-            Throwable cause = ee.getCause();
-            if (cause instanceof QueryException) {
-              throw (QueryException)cause;
-            }
-            else {
-              throw new InternalGemFireException(LocalizedStrings.PRQueryProcessor_GOT_UNEXPECTED_EXCEPTION_WHILE_EXECUTING_QUERY_ON_PARTITIONED_REGION_BUCKET.toLocalizedString(), 
-              cause);
-            }
-          }
+      scan.scan();
+      for (int i = 0; i < numHelpers; i++) {
+        // a helper that has not started by now has nothing left to scan
+        if (!helpers[i].claim()) {
+          helpers[i].join();
         }
       }
+      scan.throwFailure();
+      QueryMonitor.isQueryExecutionCanceled();
+    } finally {
+      if (queryMonitor != null) {
+        queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), query);
+      }
     }
-    
-    if (execService == null || execService.isShutdown()
-        || execService.isTerminated()) {
-      this._prds.partitionedRegion.checkReadiness();
-    }
-    
-    if (reattemptNeeded) {
-      throw fre;
-    }
-    
   }
 
   /**
@@ -317,33 +311,54 @@ public class PRQueryProcessor
       doBucketQuery(bId, this._prds, this.query, this.parameters, resultCollector);
     }*/
     
-    ExecutionContext context = new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
-    context.setBucketList(buckets);
-    context.setCqQueryContext(query.isCqQuery());
-    
     // Check if QueryMonitor is enabled, if so add query to be monitored.
-    QueryMonitor queryMonitor = null;
-    if (GemFireCacheImpl.getInstance() != null)
-    {
-      queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
-    }
+    QueryMonitor queryMonitor = getQueryMonitor();
     
     try {
       if (queryMonitor != null) {
         // Add current thread to be monitored by QueryMonitor.
         queryMonitor.monitorQueryThread(Thread.currentThread(), query);
       }
-      
+      executeOnBuckets(resultCollector, buckets);
+    } finally {
+      if (queryMonitor != null) {
+        queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), query);
+      }
+    }
+  }
+
+  private static QueryMonitor getQueryMonitor() {
+    GemFireCacheImpl cache = GemFireCacheImpl.getInstance();
+    return cache == null ? null : cache.getQueryMonitor();
+  }
+
+  /**
+   * Executes the query on the given buckets with the current thread and adds
+   * the results to <code>resultCollector</code>.
+   * @return the number of results added
+   */
+  private int executeOnBuckets(Collection<Collection> resultCollector, List buckets)
+    throws QueryException, InterruptedException, ForceReattemptException {
+    ExecutionContext context = new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
+    context.setBucketList(buckets);
+    context.setCqQueryContext(query.isCqQuery());
+    
+    try {
       Object results = query.executeUsingContext(context);
+      int size;
       synchronized (resultCollector) {
         if (results == QueryService.UNDEFINED) {
           resultCollector.add(Collections.singleton(results));
+          size = 1;
         } else {
           resultCollector.add((SelectResults) results);
+          size = ((SelectResults) results).size();
         }
       }
-      isIndexUsedForLocalQuery =((QueryExecutionContext)context).isIndexUsed();
-      
+      if (((QueryExecutionContext)context).isIndexUsed()) {
+        isIndexUsedForLocalQuery = true;
+      }
+      return size;
     } catch (BucketMovedException bme) {
       if (logger.isDebugEnabled()) {
         logger.debug("Query targeted local bucket not found. {}", bme.getMessage(), bme);
@@ -358,22 +373,8 @@ public class PRQueryProcessor
         throw new ForceReattemptException("Local Partition Region or the targeted bucket has been moved");
       } 
       throw qe;
-    } finally {
-      if (queryMonitor != null) {
-        queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), query);
-      }
     }
   }
-
-  private List buildCallableTaskList(Collection<Collection> resultsColl)
-  {
-    List callableTasks = new ArrayList();
-    for (Iterator itr = _bucketsToQuery.iterator(); itr.hasNext();) {
-      Integer bId = (Integer)itr.next();
-      callableTasks.add(new QueryTask(this.query, this.parameters, _prds, bId, resultsColl));
-    }
-    return callableTasks;
-  }
   
   public boolean isIndexUsed() {
     return isIndexUsedForLocalQuery;
@@ -390,15 +391,15 @@ public class PRQueryProcessor
   }
 
   /**
-   * A ThreadPool ( Fixed Size ) with an executor service to execute the query
-   * execution spread over buckets.
+   * A work stealing pool, shared by all queries, that scans buckets in
+   * parallel.
    * 
    * @author rreja
    * 
    */
   static class PRQueryExecutor {
 
-    private static ExecutorService execService = null;
+    private static ForkJoinPool execService = null;
 
     /**
      * Closes the executor service. This is called from
@@ -415,7 +416,7 @@ public class PRQueryProcessor
         execService.shutdownNow();
     }
 
-    static synchronized ExecutorService getExecutorService() {
+    static synchronized ForkJoinPool getExecutorService() {
       if (execService == null) {
         initializeExecutorService();
       }
@@ -430,7 +431,13 @@ public class PRQueryProcessor
       if (execService == null || execService.isShutdown()
           || execService.isTerminated()) {
         int numThreads = (TEST_NUM_THREADS > 1 ? TEST_NUM_THREADS : NUM_THREADS);
-        execService = Executors.newFixedThreadPool(numThreads);
+        execService = new ForkJoinPool(Math.max(numThreads, 1), new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+          public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PRQueryProcessor " + thread.getPoolIndex());
+            return thread;
+          }
+        }, null, false);
       }
     }
   }
@@ -481,111 +488,131 @@ public class PRQueryProcessor
   }
   
   /**
-   * Implementation of call-able task to execute query on a bucket region. This
-   * task will be generated by the PRQueryProcessor.
-   * 
-   * @author rreja
+   * The buckets of one query that remain to be scanned, shared by the
+   * threads that scan them.
    */
-  @SuppressWarnings("synthetic-access")
-  private final class QueryTask implements Callable {
-    private final DefaultQuery query;
-    private final Object[] parameters;
-    private final PartitionedRegionDataStore _prDs;
-    private final Integer _bucketId;
-    private final Collection<Collection> resultColl;
-    
-    public QueryTask(DefaultQuery query, Object[] parameters, PartitionedRegionDataStore prDS, 
-        Integer bucketId, final Collection<Collection> rColl) {
-      this.query = query;
-      this._prDs = prDS;
-      this._bucketId = bucketId;
-      this.resultColl = rColl;
-      this.parameters = parameters;
+  private final class BucketScan {
+    private final Collection<Collection> resultCollector;
+    private final AtomicInteger nextBucket = new AtomicInteger();
+    private final AtomicInteger numResults = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    /** The query execution status of the thread executing the query */
+    private final AtomicBoolean executionStatus = QueryMonitor.getQueryExecutionStatus();
+    private final boolean pdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+    /**
+     * The number of results after which no more buckets need to be scanned,
+     * or -1 if all of them must be.
+     */
+    private final int limit;
+    private volatile boolean done;
+
+    BucketScan(Collection<Collection> resultCollector) throws QueryException {
+      this.resultCollector = resultCollector;
+      CompiledSelect cs = query.getSimpleSelect();
+      // the results of different buckets can only be cut short when none of
+      // them is ordered, counted, grouped or made distinct
+      if (cs != null && cs.getOrderByAttrs() == null && !cs.isDistinct() && !cs.isCount() && !cs.isGroupBy()) {
+        this.limit = query.getLimit(parameters);
+      } else {
+        this.limit = -1;
+      }
     }
-    
-    public Object call() throws Exception {
-      BucketQueryResult bukResult = new BucketQueryResult(this._bucketId);
-      boolean retry = false;
-      try {
-        //Add indexInfo of this thread to result collector
-        QueryObserver observer = QueryObserverHolder.getInstance();
-        if (observer != null && observer instanceof IndexTrackingQueryObserver) {
-          //((IndexTrackingQueryObserver)observer).setIndexInfo(resultColl.getIndexInfoMap());
+
+    /**
+     * Scans buckets until none is left or the scan has failed.
+     */
+    void scan() {
+      while (!this.done) {
+        int i = this.nextBucket.getAndIncrement();
+        if (i >= _bucketsToQuery.size()) {
+          return;
+        }
+        List bucketList = new ArrayList(1);
+        bucketList.add(_bucketsToQuery.get(i));
+        try {
+          QueryMonitor.isQueryExecutionCanceled();
+          int n = executeOnBuckets(this.resultCollector, bucketList);
+          if (this.limit >= 0 && this.numResults.addAndGet(n) >= this.limit) {
+            this.done = true;
+          }
+        } catch (VirtualMachineError err) {
+          SystemFailure.initiateFailure(err);
+          // If this ever returns, rethrow the error.  We're poisoned
+          // now, so don't let this thread continue.
+          throw err;
+        } catch (Throwable t) {
+          // Whenever you catch Error or Throwable, you must also
+          // catch VirtualMachineError (see above).  However, there is
+          // _still_ a possibility that you are dealing with a cascading
+          // error condition, so you also need to check to see if the JVM
+          // is still usable:
+          SystemFailure.checkFailure();
+          this.failure.compareAndSet(null, t);
+          this.done = true;
         }
-        
-        final Integer bId = Integer.valueOf(this._bucketId);
-        ArrayList bucketList = new ArrayList();
-        bucketList.add(this._bucketId);
-        executeSequentially(this.resultColl, bucketList);
-        // success
-        //doBucketQuery(bId, this._prDs, this.query, this.parameters, this.resultColl);
-      } catch (ForceReattemptException fre) {
-        bukResult.setException(fre);
-      } catch (QueryException e) {
-        bukResult.setException(e);
-      } catch (CacheRuntimeException cre) {
-        bukResult.setException(cre);
       }
-      // Exception
-      return bukResult;
     }
-    
+
     /**
-      * Encapsulates the result for the query on the bucket.
-     * 
-     * @author rreja
+     * Throws the first failure of the threads that scanned the buckets.
      */
-    private final class BucketQueryResult {
-      
-      private int _buk;
-      private Exception _ex = null;
-      public boolean retry = false;
-      
-      /**
-        * Constructor
-       * 
-       * @param bukId
-       */
-      public BucketQueryResult(int bukId) {
-        this._buk = bukId;
-      }
-      
-      public Exception getException()
-      {
-        return _ex;
-      }
-      
-      public boolean exceptionOccured()
-      {
-        return _ex != null;
-      }
-      
-      public void setException(Exception e)
-      {
-        this._ex = e;
+    void throwFailure() throws QueryException, InterruptedException, ForceReattemptException {
+      Throwable t = this.failure.get();
+      if (t == null) {
+        return;
       }
-      
-      public Integer getBucketId()
-      {
-        return Integer.valueOf(this._buk);
+      if (t instanceof QueryException) {
+        throw (QueryException)t;
+      } else if (t instanceof ForceReattemptException) {
+        throw (ForceReattemptException)t;
+      } else if (t instanceof InterruptedException) {
+        throw (InterruptedException)t;
+      } else if (t instanceof RuntimeException) {
+        throw (RuntimeException)t;
+      } else if (t instanceof Error) {
+        throw (Error)t;
       }
-      
-      public boolean isReattemptNeeded() {
-        return this._ex instanceof ForceReattemptException;
+      throw new QueryException(t);
+    }
+  }
+
+  /**
+   * A task of the pool that helps the thread executing a query scan its
+   * buckets. It runs with the query execution status and PDX read serialized
+   * setting of that thread.
+   */
+  @SuppressWarnings("serial")
+  private static final class BucketScanner extends RecursiveAction {
+    private final BucketScan scan;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    BucketScanner(BucketScan scan) {
+      this.scan = scan;
+    }
+
+    /**
+     * Makes sure that this task does nothing if it has not started yet.
+     * @return true if this task had not started
+     */
+    boolean claim() {
+      return this.started.compareAndSet(false, true);
+    }
+
+    @Override
+    protected void compute() {
+      if (!claim()) {
+        return;
       }
-      
-      public void handleAndThrowException() throws QueryException
-      {
-        if (_ex != null) {
-          if (_ex instanceof QueryException) {
-            throw (QueryException)_ex;
-          }
-          else if (_ex instanceof CacheRuntimeException) {
-            throw (CacheRuntimeException)_ex;
-          }
-        }
+      AtomicBoolean oldStatus = QueryMonitor.getQueryExecutionStatus();
+      boolean oldPdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+      QueryMonitor.setQueryExecutionStatus(this.scan.executionStatus);
+      DefaultQuery.setPdxReadSerialized(this.scan.pdxReadSerialized);
+      try {
+        this.scan.scan();
+      } finally {
+        QueryMonitor.setQueryExecutionStatus(oldStatus);
+        DefaultQuery.setPdxReadSerialized(oldPdxReadSerialized);
       }
-    }  
+    }
   }
 }
-
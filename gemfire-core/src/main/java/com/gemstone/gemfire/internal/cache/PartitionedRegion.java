@@ -106,10 +106,12 @@ import com.gemstone.gemfire.cache.query.QueryException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.CompiledGroupBySelect;
 import com.gemstone.gemfire.cache.query.internal.CompiledSelect;
 import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.cache.query.internal.ExecutionContext;
 import com.gemstone.gemfire.cache.query.internal.QCompiler;
+import com.gemstone.gemfire.cache.query.internal.QueryExecutionContext;
 import com.gemstone.gemfire.cache.query.internal.QueryExecutor;
 import com.gemstone.gemfire.cache.query.internal.ResultsBag;
 import com.gemstone.gemfire.cache.query.internal.ResultsCollectionWrapper;
@@ -1898,6 +1900,12 @@ public class PartitionedRegion extends LocalRegion implements
       if (logger.isDebugEnabled()) {
         logger.debug("No bucket storage allocated. PR has no data yet.");
       }
+      CompiledSelect select = query.getSimpleSelect();
+      if (select != null && select.isGroupBy()) {
+        // aggregates without group by still return a row
+        return ((CompiledGroupBySelect)select).mergePartialResults(Collections.<Collection> emptyList(),
+            new QueryExecutionContext(parameters, getCache(), query));
+      }
       ResultsSet resSet = new ResultsSet();
       resSet.setElementType(new ObjectTypeImpl(
           this.getValueConstraint() == null ? Object.class : this
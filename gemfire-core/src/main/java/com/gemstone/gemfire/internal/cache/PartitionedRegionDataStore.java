@@ -770,6 +770,7 @@ public final class PartitionedRegionDataStore implements HasCachePerfStats
     }
     
     factory.setCompressor(this.partitionedRegion.getCompressor());
+    factory.setOffHeap(this.partitionedRegion.getOffHeap());
     
     factory.setBucketRegion(true); // prevent validation problems
     RegionAttributes attributes = factory.create();
@@ -36,6 +36,7 @@ import com.gemstone.gemfire.cache.query.QueryException;
 import com.gemstone.gemfire.cache.query.QueryExecutionLowMemoryException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
 import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.internal.CompiledGroupBySelect;
 import com.gemstone.gemfire.cache.query.internal.CompiledID;
 import com.gemstone.gemfire.cache.query.internal.CompiledIndexOperation;
 import com.gemstone.gemfire.cache.query.internal.CompiledIteratorDef;
@@ -54,6 +55,8 @@ import com.gemstone.gemfire.cache.query.internal.QueryExecutionContext;
 import com.gemstone.gemfire.cache.query.internal.QueryMonitor;
 import com.gemstone.gemfire.cache.query.internal.ResultsBag;
 import com.gemstone.gemfire.cache.query.internal.RuntimeIterator;
+import com.gemstone.gemfire.cache.query.internal.SortedResultSet;
+import com.gemstone.gemfire.cache.query.internal.SortedStructSet;
 import com.gemstone.gemfire.cache.query.internal.StructBag;
 import com.gemstone.gemfire.cache.query.internal.StructImpl;
 import com.gemstone.gemfire.cache.query.types.ObjectType;
@@ -622,6 +625,22 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
     return retryBuckets;
   }
 
+  /**
+   * Combines the partial groups computed by each member into the final rows
+   * of a grouped query.
+   */
+  private void addGroupedResults(CompiledGroupBySelect cs) throws QueryException {
+    List<Collection> partialResults = new ArrayList<Collection>();
+    for (Collection<Collection> memberResults : this.resultsPerMember.values()) {
+      checkLowMemory();
+      partialResults.addAll(memberResults);
+    }
+    ExecutionContext context = new QueryExecutionContext(this.parameters, this.pr.getCache(), this.query);
+    SelectResults results = cs.mergePartialResults(partialResults, context);
+    this.cumulativeResults.clear();
+    this.cumulativeResults.addAll(results);
+  }
+
   private void addResultsToResultSet() throws QueryException {
     int numElementsInResult = 0;
     boolean isStructBag = false;
@@ -651,6 +670,11 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
       isCount = (cs != null)? cs.isCount():false;
     }
     
+    if (cs != null && cs.isGroupBy()) {
+      addGroupedResults((CompiledGroupBySelect)cs);
+      return;
+    }
+
     if (isCount && !isDistinct) {
       addTotalCountForMemberToResults(limit);
       return;
@@ -1064,6 +1088,15 @@ public class PartitionedRegionQueryEvaluator extends StreamingPartitionOperation
             context = new QueryExecutionContext((new Object[] { res }), this.pr
                 .getCache(), this.cumulativeResults, q);
             q.executeUsingContext(context);
+            // only the first results in order are returned, so keep the
+            // sorted results of the members merged so far to the limit
+            if (limit >= 0) {
+              if (this.cumulativeResults instanceof SortedResultSet) {
+                ((SortedResultSet)this.cumulativeResults).applyLimit(limit);
+              } else if (this.cumulativeResults instanceof SortedStructSet) {
+                ((SortedStructSet)this.cumulativeResults).applyLimit(limit);
+              }
+            }
           }
         }
       }
@@ -10,7 +10,10 @@ package com.gemstone.gemfire.internal.cache;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FilenameFilter;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -74,6 +77,12 @@ public class PersistentOplogSet implements OplogSet {
 
   final AtomicBoolean alreadyRecoveredOnce = new AtomicBoolean(false);
 
+  /**
+   * Reads oplog files ahead of recovery. Only set while oplogs are being
+   * recovered.
+   */
+  private volatile OplogRecoveryPrefetcher recoveryPrefetcher;
+
   /**
    * The maximum oplog id we saw while recovering
    */
@@ -426,6 +435,43 @@ public class PersistentOplogSet implements OplogSet {
     }
   }
   
+  /**
+   * Starts reading the drfs and krfs of <code>oplogs</code> into memory in
+   * the order that {@link #recoverOplogs} will read them.
+   */
+  private void startRecoveryPrefetch(TreeSet<Oplog> oplogs) {
+    if (recoverValuesSync() || (parent.isOffline() && !parent.FORCE_KRF_RECOVERY)) {
+      // krfs will not be read
+      return;
+    }
+    List<File> drfs = new ArrayList<File>();
+    List<File> krfs = new ArrayList<File>();
+    for (Oplog oplog: oplogs) {
+      oplog.addRecoveryFiles(drfs, krfs);
+    }
+    drfs.addAll(krfs);
+    this.recoveryPrefetcher = OplogRecoveryPrefetcher.start(parent, drfs);
+  }
+
+  private void stopRecoveryPrefetch() {
+    if (this.recoveryPrefetcher != null) {
+      this.recoveryPrefetcher.close();
+      this.recoveryPrefetcher = null;
+    }
+  }
+
+  /**
+   * Returns a stream of the contents of <code>f</code>, an oplog file being
+   * recovered. The contents come from memory if they have been prefetched.
+   */
+  InputStream openForRecovery(File f) throws FileNotFoundException {
+    OplogRecoveryPrefetcher p = this.recoveryPrefetcher;
+    if (p != null) {
+      return p.open(f);
+    }
+    return new FileInputStream(f);
+  }
+
   private long recoverOplogs(long byteCount) {
     OplogEntryIdSet deletedIds = new OplogEntryIdSet();
 
@@ -441,44 +487,51 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
-      // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds,
-                                      this.alreadyRecoveredOnce.get(),
-                                      latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-      }
-      parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-                                          // @todo make recoverValues per region
-                                          recoverValues(),
-                                          recoverValuesSync(),
-                                          this.alreadyRecoveredOnce.get(),
-                                          oplogsNeedingValueRecovery, 
-                                          latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+      long startByteCount = byteCount;
+      startRecoveryPrefetch(oplogSet);
+      try {
+        // first figure out all entries that have been destroyed
+        boolean latestOplog = true;
+        for (Oplog oplog: oplogSet) {
+          byteCount += oplog.recoverDrf(deletedIds,
+                                        this.alreadyRecoveredOnce.get(),
+                                        latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
         }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+        parent.incDeadRecordCount(deletedIds.size());
+        // now figure out live entries
+        latestOplog = true;
+        for (Oplog oplog: oplogSet) {
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+                                            // @todo make recoverValues per region
+                                            recoverValues(),
+                                            recoverValuesSync(),
+                                            this.alreadyRecoveredOnce.get(),
+                                            oplogsNeedingValueRecovery, 
+                                            latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
         
-        //Callback to the disk regions to indicate the oplog is recovered
-        //Used for offline export
-        for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          //Callback to the disk regions to indicate the oplog is recovered
+          //Used for offline export
+          for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
         }
+      } finally {
+        stopRecoveryPrefetch();
       }
       long endOpLogRecovery = System.currentTimeMillis();
       long elapsed = endOpLogRecovery - startOpLogRecovery;
+      parent.getStats().setRecoveryThroughput((byteCount - startByteCount) * 1000 / Math.max(1, elapsed));
       logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_OPLOG_LOAD_TIME, elapsed));
     }
     if (!parent.isOfflineCompacting()) {
@@ -35,7 +35,8 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes
   private boolean hasDiskDirSizes = false;
   private boolean hasDiskUsageWarningPercentage = false;
   private boolean hasDiskUsageCriticalPercentage = false;
-  private static final int HAS_COUNT = 11;
+  private boolean hasGroupCommitMaxDelay = false;
+  private static final int HAS_COUNT = 12;
   
   public boolean hasAutoCompact() {
     return hasAutoCompact;
@@ -81,6 +82,10 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes
     return hasDiskUsageCriticalPercentage;
   }
 
+  public boolean hasGroupCommitMaxDelay() {
+    return hasGroupCommitMaxDelay;
+  }
+
   public void setHasAutoCompact(boolean hasAutoCompact) {
     this.hasAutoCompact = hasAutoCompact;
   }
@@ -125,6 +130,10 @@ public class UserSpecifiedDiskStoreAttributes extends DiskStoreAttributes
     this.hasDiskUsageCriticalPercentage = true;
   }
 
+  public void setHasGroupCommitMaxDelay(boolean hasGroupCommitMaxDelay) {
+    this.hasGroupCommitMaxDelay = hasGroupCommitMaxDelay;
+  }
+
   public void setAllHasFields(boolean b) {
     int hasCounter = 0;
     Field thisFields[] = UserSpecifiedDiskStoreAttributes.class.getDeclaredFields();
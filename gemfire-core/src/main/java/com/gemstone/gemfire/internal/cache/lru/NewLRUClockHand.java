@@ -142,7 +142,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
    *
    * @param  aNode  Description of the Parameter
    */  
-  public final void appendEntry( final LRUClockNode aNode ) {
+  public void appendEntry( final LRUClockNode aNode ) {
     synchronized (this.lock) {
       if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
         return;
@@ -163,7 +163,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
   /** return the head entry in the list preserving the cupipe requirement of at
    * least one entry left in the list 
    */
-  private LRUClockNode getHeadEntry() {
+  protected LRUClockNode getHeadEntry() {
     synchronized (lock) {
       LRUClockNode aNode = NewLRUClockHand.this.head.nextLRUNode();
       if(aNode == this.tail) {
@@ -314,6 +314,16 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
     }
     entry.setEvicted();
     stats().incDestroys();
+    return removeFromList(entry);
+  }
+
+  /**
+   * Removes <code>entry</code> from the list.
+   * 
+   * @return false if the entry was not in the list
+   * @since 9.0
+   */
+  protected boolean removeFromList(LRUClockNode entry) {
     synchronized(lock) {
       LRUClockNode next = entry.nextLRUNode();
       LRUClockNode prev = entry.prevLRUNode();
@@ -392,7 +402,7 @@ public NewLRUClockHand(Object region, EnableLRU ccHelper,
   /** Marker class name to identify the lock more easily in thread dumps */
   protected static class HeadLock extends Object  { }
   
-  private static final class GuardNode implements LRUClockNode {
+  static final class GuardNode implements LRUClockNode {
 
     private LRUClockNode next;
     LRUClockNode prev;
@@ -0,0 +1,216 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.cache.InternalRegionArguments;
+import com.gemstone.gemfire.internal.cache.versions.RegionVersionVector;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.log4j.LogMarker;
+
+/**
+ * An LRU clock that spreads its entries over several independent lists, each
+ * with its own lock, so that threads adding and removing different entries
+ * rarely contend. An entry always belongs to the list picked by its identity
+ * hash. Eviction takes the head of the lists in round robin order and applies
+ * the same recently used and transaction checks as {@link NewLRUClockHand}.
+ * <p>
+ * The eviction order is an approximation of the single list order since each
+ * list is only ordered with respect to itself.
+ *
+ * @since 9.0
+ */
+public class ShardedLRUClockHand extends NewLRUClockHand {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The system property that sets the number of lists used by the clock of
+   * each LRU region. Values greater than one are rounded up to a power of two
+   * and enable sharding.
+   */
+  public static final String SHARDS_PROPERTY = "gemfire.lru.clockShards";
+
+  private final Shard[] shards;
+  private final int shardMask;
+  private final AtomicInteger nextShard = new AtomicInteger();
+
+  public ShardedLRUClockHand(Object region, EnableLRU ccHelper, InternalRegionArguments internalRegionArgs,
+      int shardCount) {
+    super(region, ccHelper, internalRegionArgs);
+    int n = 1;
+    while (n < shardCount) {
+      n <<= 1;
+    }
+    this.shards = new Shard[n];
+    for (int i = 0; i < n; i++) {
+      this.shards[i] = new Shard();
+    }
+    this.shardMask = n - 1;
+  }
+
+  /**
+   * Returns the number of lists configured by {@link #SHARDS_PROPERTY}.
+   */
+  public static int getConfiguredShardCount() {
+    return Integer.getInteger(SHARDS_PROPERTY, 1).intValue();
+  }
+
+  private Shard getShard(LRUClockNode aNode) {
+    int h = System.identityHashCode(aNode);
+    h ^= (h >>> 16);
+    return this.shards[h & this.shardMask];
+  }
+
+  @Override
+  public void appendEntry(final LRUClockNode aNode) {
+    Shard shard = getShard(aNode);
+    synchronized (shard.lock) {
+      if (aNode.nextLRUNode() != null || aNode.prevLRUNode() != null) {
+        return;
+      }
+      if (logger.isTraceEnabled(LogMarker.LRU_CLOCK)) {
+        logger.trace(LogMarker.LRU_CLOCK, "adding {} to lru list", aNode);
+      }
+      aNode.setNextLRUNode(shard.tail);
+      shard.tail.prevLRUNode().setNextLRUNode(aNode);
+      aNode.setPrevLRUNode(shard.tail.prevLRUNode());
+      shard.tail.setPrevLRUNode(aNode);
+    }
+  }
+
+  @Override
+  protected LRUClockNode getHeadEntry() {
+    final int start = this.nextShard.getAndIncrement();
+    for (int i = 0; i < this.shards.length; i++) {
+      Shard shard = this.shards[(start + i) & this.shardMask];
+      synchronized (shard.lock) {
+        LRUClockNode aNode = shard.head.nextLRUNode();
+        if (aNode == shard.tail) {
+          continue;
+        }
+        LRUClockNode next = aNode.nextLRUNode();
+        shard.head.setNextLRUNode(next);
+        next.setPrevLRUNode(shard.head);
+        aNode.setNextLRUNode(null);
+        aNode.setPrevLRUNode(null);
+        return aNode;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  protected boolean removeFromList(LRUClockNode entry) {
+    Shard shard = getShard(entry);
+    synchronized (shard.lock) {
+      LRUClockNode next = entry.nextLRUNode();
+      LRUClockNode prev = entry.prevLRUNode();
+      if (next == null || prev == null) {
+        // not in the list anymore.
+        return false;
+      }
+      next.setPrevLRUNode(prev);
+      prev.setNextLRUNode(next);
+      entry.setNextLRUNode(null);
+      entry.setPrevLRUNode(null);
+    }
+    return true;
+  }
+
+  @Override
+  public void clear(RegionVersionVector rvv) {
+    super.clear(rvv);
+    if (rvv != null) {
+      return;
+    }
+    for (Shard shard : this.shards) {
+      synchronized (shard.lock) {
+        shard.initHeadAndTail();
+      }
+    }
+  }
+
+  @Override
+  public void dumpList() {
+    final boolean isDebugEnabled = logger.isTraceEnabled(LogMarker.LRU_CLOCK);
+    if (!isDebugEnabled) {
+      return;
+    }
+    for (int i = 0; i < this.shards.length; i++) {
+      Shard shard = this.shards[i];
+      synchronized (shard.lock) {
+        int idx = 1;
+        for (LRUClockNode aNode = shard.head; aNode != null; aNode = aNode.nextLRUNode()) {
+          logger.trace(LogMarker.LRU_CLOCK, "  [{}] ({}) {}", i, (idx++), aNode);
+        }
+      }
+    }
+  }
+
+  @Override
+  public long getExpensiveListCount() {
+    long count = 0;
+    for (Shard shard : this.shards) {
+      synchronized (shard.lock) {
+        for (LRUClockNode aNode = shard.head.nextLRUNode(); aNode != shard.tail; aNode = aNode.nextLRUNode()) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public String getAuditReport() {
+    int totalNodes = 0;
+    int evictedNodes = 0;
+    int usedNodes = 0;
+    for (Shard shard : this.shards) {
+      LRUClockNode h = shard.head;
+      while (h != null) {
+        totalNodes++;
+        if (h.testEvicted()) evictedNodes++;
+        if (h.testRecentlyUsed()) usedNodes++;
+        h = h.nextLRUNode();
+      }
+    }
+    StringBuffer result = new StringBuffer(128);
+    result.append("LRUList Audit: shards = ")
+      .append(this.shards.length)
+      .append(" listEntries = ")
+      .append(totalNodes)
+      .append(" evicted = ")
+      .append(evictedNodes)
+      .append(" used = ")
+      .append(usedNodes);
+    return result.toString();
+  }
+
+  /**
+   * One of the lists of a sharded clock.
+   */
+  private static final class Shard {
+    final HeadLock lock = new HeadLock();
+    LRUClockNode head;
+    LRUClockNode tail;
+
+    Shard() {
+      initHeadAndTail();
+    }
+
+    void initHeadAndTail() {
+      this.head = new GuardNode();
+      this.tail = new GuardNode();
+      this.head.setNextLRUNode(this.tail);
+      this.tail.setPrevLRUNode(this.head);
+    }
+  }
+}
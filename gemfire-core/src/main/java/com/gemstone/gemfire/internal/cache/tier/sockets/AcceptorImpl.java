@@ -134,9 +134,9 @@ public class AcceptorImpl extends Acceptor implements Runnable
   private final Selector selector;
   //private final Selector tmpSel;
   /**
-   * Used for managing direct byte buffer for client comms; null if no selector.
+   * Used for managing direct byte buffers for client comms.
    */
-  private final LinkedBlockingQueue commBufferQueue;
+  private final CommBufferPool commBufferPool;
   /**
    * Used to timeout accepted sockets that we are waiting for the handshake packet
    */
@@ -365,14 +365,12 @@ public class AcceptorImpl extends Acceptor implements Runnable
       Selector tmp_s = null;
       //Selector tmp2_s = null;
       LinkedBlockingQueue tmp_q = null;
-      LinkedBlockingQueue tmp_commQ = null;
       HashSet tmp_hs = null;
       SystemTimer tmp_timer = null;
       if (isSelector()) {
         tmp_s = Selector.open(); // no longer catch ex to fix bug 36907
         //tmp2_s = Selector.open(); // workaround for bug 39624
         tmp_q = new LinkedBlockingQueue();
-        tmp_commQ = new LinkedBlockingQueue();
         tmp_hs = new HashSet(512);
         tmp_timer = new SystemTimer(
             c.getDistributedSystem(), true);
@@ -380,7 +378,6 @@ public class AcceptorImpl extends Acceptor implements Runnable
       this.selector = tmp_s;
       //this.tmpSel = tmp2_s;
       this.selectorQueue = tmp_q;
-      this.commBufferQueue = tmp_commQ;
       this.selectorRegistrations = tmp_hs;
       this.hsTimer = tmp_timer;
       this.tcpNoDelay = tcpNoDelay;
@@ -541,6 +538,7 @@ public class AcceptorImpl extends Acceptor implements Runnable
       }
       
     }
+    this.commBufferPool = new CommBufferPool(this.stats);
 
     this.cache = c;
     this.crHelper = new CachedRegionHelper(this.cache);
@@ -1436,21 +1434,26 @@ public class AcceptorImpl extends Acceptor implements Runnable
   }
 
   public ByteBuffer takeCommBuffer() {
-    ByteBuffer result = (ByteBuffer)this.commBufferQueue.poll();
-    if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
-    }
-    return result;
+    return this.commBufferPool.acquire(this.socketBufferSize);
   }
   public void releaseCommBuffer(ByteBuffer bb) {
     if (bb == null) {  // fix for bug 37107
       return;
     }
     if (isRunning()) {
-      this.commBufferQueue.offer(bb);
+      this.commBufferPool.release(bb);
     }
   }
 
+  /**
+   * Returns the pool of direct buffers that the connections of this acceptor
+   * read messages into.
+   * @since 9.0
+   */
+  public CommBufferPool getCommBufferPool() {
+    return this.commBufferPool;
+  }
+
   public void incClientServerCnxCount() {
     this.clientServerCnxCount.incrementAndGet();
   }
@@ -1656,8 +1659,8 @@ public class AcceptorImpl extends Acceptor implements Runnable
           if (this.selectorThread != null) {
             this.selectorThread.interrupt();
           }
-          this.commBufferQueue.clear();
         }
+        this.commBufferPool.clear();
         ClientHealthMonitor.shutdownInstance();        
         shutdownSCs();
         this.clientNotifier.shutdown(this.acceptorId);
@@ -3,7 +3,6 @@ package com.gemstone.gemfire.internal.cache.tier.sockets;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Set;
 
 import com.gemstone.gemfire.cache.RegionDestroyedException;
@@ -217,7 +216,7 @@ public abstract class BaseCommandQuery extends BaseCommand {
           // send it as a part of ObjectPartList
           if (hasSerializedObjects) {
             sendResultsAsObjectPartList(numberOfChunks, servConn,
-                selectResults.asList(), isStructs, collectionType,
+                selectResults, isStructs, collectionType,
                 queryString, cqQuery, sendCqResultsWithKey, sendResults);
           } else {
             sendResultsAsObjectArray(selectResults, numberOfChunks, servConn,
@@ -354,32 +353,27 @@ public abstract class BaseCommandQuery extends BaseCommand {
       int numberOfChunks, ServerConnection servConn, 
       boolean isStructs, CollectionType collectionType, String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults)
       throws IOException {
+    // Each chunk is built from the results as it is sent, instead of copying
+    // all of the results first. The chunks are written synchronously so a
+    // slow client holds back the server rather than having chunks pile up.
+    Iterator resultIterator = selectResults.iterator();
     int resultIndex = 0;
-    // For CQ only as we dont want CQEntries which have null values.
-    int cqResultIndex = 0;
-    Object[] objs = selectResults.toArray();
     for (int j = 0; j < numberOfChunks; j++) {
-      boolean incompleteArray = false;
       if (logger.isTraceEnabled()) {
         logger.trace("{}: Creating chunk: {}", servConn.getName(), j);
       }
       Object[] results = new Object[maximumChunkSize];
-      for (int i = 0; i < maximumChunkSize; i++) {
-        if ((resultIndex) == selectResults.size()) {
-          incompleteArray = true;
-          break;
-        }
+      int chunkSize = 0;
+      while (chunkSize < maximumChunkSize && resultIterator.hasNext()) {
+        Object obj = resultIterator.next();
         if (logger.isTraceEnabled()) {
-            logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(), resultIndex, objs[resultIndex]);
+            logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName(), resultIndex, obj);
         }
+        resultIndex++;
         if (cqQuery != null){
-          CqEntry e = (CqEntry)objs[resultIndex];
+          CqEntry e = (CqEntry)obj;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
-            resultIndex++;
-            // i will get incremented anyway so we need to decrement it back so
-            // that results[i] is not null.
-            i--;
             continue;
           }    
           // Add the key into CQ results cache.
@@ -393,40 +387,31 @@ public abstract class BaseCommandQuery extends BaseCommand {
   
           // Add to the Results object array.
           if (sendCqResultsWithKey) {
-            results[i] = e.getKeyValuePair();
+            results[chunkSize++] = e.getKeyValuePair();
           } else {
-            results[i] = e.getValue();
+            results[chunkSize++] = e.getValue();
           }      
         } else {
           // instance check added to fix bug 40516.
-          if (isStructs && (objs[resultIndex] instanceof Struct)) {
-            results[i] = ((Struct) objs[resultIndex]).getFieldValues();
+          if (isStructs && (obj instanceof Struct)) {
+            results[chunkSize++] = ((Struct) obj).getFieldValues();
           } else {
-            results[i] = objs[resultIndex];
+            results[chunkSize++] = obj;
           }
         }
-        resultIndex++;
-        cqResultIndex++;
       }
       // Shrink array if necessary. This will occur if the number
       // of entries in the chunk does not divide evenly into the
       // number of entries in the result set.
-      if (incompleteArray) {
-        Object[] newResults;
-        if (cqQuery != null) {
-          newResults = new Object[cqResultIndex % maximumChunkSize];
-        } else {
-          newResults = new Object[resultIndex % maximumChunkSize];
-        }
-        for (int i = 0; i < newResults.length; i++) {
-          newResults[i] = results[i];
-        }
+      if (chunkSize < maximumChunkSize) {
+        Object[] newResults = new Object[chunkSize];
+        System.arraycopy(results, 0, newResults, 0, chunkSize);
         results = newResults;
       }
 
+      boolean lastChunk = !resultIterator.hasNext();
       if (sendResults) {
-        writeQueryResponseChunk(results, collectionType,
-            (resultIndex == selectResults.size()), servConn);
+        writeQueryResponseChunk(results, collectionType, lastChunk, servConn);
         
         if (logger.isDebugEnabled()) {
           logger.debug("{}: Sent chunk ({} of {}) of query response for query: {}",
@@ -435,16 +420,17 @@ public abstract class BaseCommandQuery extends BaseCommand {
       }
       // If we have reached the last element of SelectResults then we should
       // break out of loop here only.
-      if (resultIndex == selectResults.size()) {
+      if (lastChunk) {
         break;
       }
     }
   }
 
   private static void sendResultsAsObjectPartList(int numberOfChunks,
-      ServerConnection servConn, List objs, boolean isStructs,
+      ServerConnection servConn, SelectResults selectResults, boolean isStructs,
       CollectionType collectionType, String queryString, ServerCQ cqQuery, boolean sendCqResultsWithKey, boolean sendResults)
       throws IOException {
+    Iterator resultIterator = selectResults.iterator();
     int resultIndex = 0;
     Object result = null;
     for (int j = 0; j < numberOfChunks; j++) {
@@ -454,17 +440,18 @@ public abstract class BaseCommandQuery extends BaseCommand {
       ObjectPartList serializedObjs = new ObjectPartList(maximumChunkSize,
           false);
       for (int i = 0; i < maximumChunkSize; i++) {
-        if ((resultIndex) == objs.size()) {
+        if (!resultIterator.hasNext()) {
           break;
         }
+        Object obj = resultIterator.next();
         if (logger.isTraceEnabled()) {
-            logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName() , resultIndex, objs.get(resultIndex));
+            logger.trace("{}: Adding entry [{}] to query results: {}", servConn.getName() , resultIndex, obj);
         }
+        resultIndex++;
         if (cqQuery != null){
-          CqEntry e = (CqEntry)objs.get(resultIndex);
+          CqEntry e = (CqEntry)obj;
           // The value may have become null because of entry invalidation.
           if (e.getValue() == null) {
-            resultIndex++;
             continue;
           }    
           // Add the key into CQ results cache.
@@ -484,13 +471,12 @@ public abstract class BaseCommandQuery extends BaseCommand {
           }      
         }
         else {
-          result = objs.get(resultIndex);
+          result = obj;
         }
         if (sendResults) {
           addToObjectPartList(serializedObjs, result, collectionType, false,
               servConn, isStructs);
         }
-        resultIndex++;
       }
       
       if (sendResults) {
@@ -111,7 +111,15 @@ public class CacheServerHelper
    */
   public static String fromUTF(byte[] bytearr)
   {
-    int utflen = bytearr.length;
+    return fromUTF(bytearr, bytearr.length);
+  }
+
+  /**
+   * Decodes the first <code>utflen</code> bytes of <code>bytearr</code>.
+   * @since 9.0
+   */
+  public static String fromUTF(byte[] bytearr, int utflen)
+  {
     int c, char2, char3;
     int count = 0;
     int chararr_count=0;
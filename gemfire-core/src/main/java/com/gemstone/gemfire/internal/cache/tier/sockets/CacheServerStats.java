@@ -214,6 +214,9 @@ public class CacheServerStats implements MessageStats {
   int acceptThreadStartsId;
   int connectionThreadStartsId;
   int connectionThreadsId;
+
+  int commBufferPoolHitsId;
+  int commBufferPoolMissesId;
   
   //Load callback stats
   int connectionLoadId;
@@ -539,6 +542,12 @@ public class CacheServerStats implements MessageStats {
         f.createIntGauge("connectionThreads",
                          "Current number of threads dealing with a client connection.",
                          "threads"),
+        f.createLongCounter("commBufferPoolHits",
+                         "Total number of message buffers taken from the server's buffer pool.",
+                         "buffers"),
+        f.createLongCounter("commBufferPoolMisses",
+                         "Total number of message buffers that had to be allocated because the server's buffer pool had none of the needed size.",
+                         "buffers"),
         f.createDoubleGauge(
                          "connectionLoad",
                          "The load from client to server connections as reported by the load probe installed in this server",
@@ -700,6 +709,8 @@ public class CacheServerStats implements MessageStats {
     acceptThreadStartsId = this.stats.nameToId("acceptThreadStarts");
     connectionThreadStartsId = this.stats.nameToId("connectionThreadStarts");
     connectionThreadsId = this.stats.nameToId("connectionThreads");
+    commBufferPoolHitsId = this.stats.nameToId("commBufferPoolHits");
+    commBufferPoolMissesId = this.stats.nameToId("commBufferPoolMisses");
     
     connectionLoadId = this.stats.nameToId("connectionLoad");
     queueLoadId = this.stats.nameToId("queueLoad");
@@ -725,6 +736,18 @@ public class CacheServerStats implements MessageStats {
   public final void decConnectionThreads() {
     this.stats.incInt(connectionThreadsId, -1);
   }
+  public final void incCommBufferPoolHits() {
+    this.stats.incLong(commBufferPoolHitsId, 1);
+  }
+  public final void incCommBufferPoolMisses() {
+    this.stats.incLong(commBufferPoolMissesId, 1);
+  }
+  public final long getCommBufferPoolHits() {
+    return this.stats.getLong(commBufferPoolHitsId);
+  }
+  public final long getCommBufferPoolMisses() {
+    return this.stats.getLong(commBufferPoolMissesId);
+  }
 
   public final void incAbandonedWriteRequests() {
     this.stats.incInt(abandonedWriteRequestsId, 1);
@@ -0,0 +1,124 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers shared by all the connections of a cache
+ * server. The buffers come in power of two size classes from
+ * {@link #MIN_BUFFER_SIZE} to {@link #MAX_BUFFER_SIZE}. Requests for larger
+ * buffers are always allocated and are not kept when released.
+ * <p>
+ * The pool holds at most {@link #MAX_POOLED_BYTES} of idle buffers. Buffers
+ * released beyond that are dropped and left for the garbage collector.
+ *
+ * @since 9.0
+ */
+public class CommBufferPool {
+
+  /** The smallest size class */
+  static final int MIN_BUFFER_SIZE = 1024;
+
+  /** The largest size class */
+  static final int MAX_BUFFER_SIZE = Integer.getInteger("gemfire.CommBufferPool.maxBufferSize", 1024 * 1024).intValue();
+
+  /** The maximum number of bytes of idle buffers kept by each pool */
+  static final long MAX_POOLED_BYTES = Long.getLong("gemfire.CommBufferPool.maxPooledBytes", 64 * 1024 * 1024).longValue();
+
+  private final ConcurrentLinkedQueue<ByteBuffer>[] sizeClasses;
+  private final AtomicLong pooledBytes = new AtomicLong();
+  private final CacheServerStats stats;
+
+  @SuppressWarnings("unchecked")
+  public CommBufferPool(CacheServerStats stats) {
+    this.stats = stats;
+    int count = sizeClass(MAX_BUFFER_SIZE) + 1;
+    this.sizeClasses = new ConcurrentLinkedQueue[count];
+    for (int i = 0; i < count; i++) {
+      this.sizeClasses[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+    }
+  }
+
+  /**
+   * Returns the index of the smallest size class that holds
+   * <code>size</code> bytes.
+   */
+  static int sizeClass(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return 0;
+    }
+    return (32 - Integer.numberOfLeadingZeros(size - 1)) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  }
+
+  /**
+   * Returns true if buffers of <code>size</code> bytes are pooled.
+   */
+  public boolean isPooledSize(int size) {
+    return size <= MAX_BUFFER_SIZE;
+  }
+
+  /**
+   * Returns a direct buffer that can hold at least <code>size</code> bytes,
+   * with its position at zero and its limit at <code>size</code>.
+   */
+  public ByteBuffer acquire(int size) {
+    ByteBuffer result = null;
+    if (isPooledSize(size)) {
+      int idx = sizeClass(size);
+      result = this.sizeClasses[idx].poll();
+      if (result != null) {
+        this.pooledBytes.addAndGet(-result.capacity());
+        this.stats.incCommBufferPoolHits();
+      } else {
+        this.stats.incCommBufferPoolMisses();
+        result = ByteBuffer.allocateDirect(MIN_BUFFER_SIZE << idx);
+      }
+    } else {
+      this.stats.incCommBufferPoolMisses();
+      result = ByteBuffer.allocateDirect(size);
+    }
+    result.clear();
+    result.limit(size);
+    return result;
+  }
+
+  /**
+   * Gives a buffer obtained from {@link #acquire} back to the pool. The
+   * caller must not use it, or any slice of it, afterwards.
+   */
+  public void release(ByteBuffer bb) {
+    if (bb == null) {
+      return;
+    }
+    final int capacity = bb.capacity();
+    if (capacity < MIN_BUFFER_SIZE || Integer.bitCount(capacity) != 1
+        || sizeClass(capacity) >= this.sizeClasses.length) {
+      return;
+    }
+    if (this.pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+      this.pooledBytes.addAndGet(-capacity);
+      return;
+    }
+    this.sizeClasses[sizeClass(capacity)].offer(bb);
+  }
+
+  /**
+   * Drops all the idle buffers.
+   */
+  public void clear() {
+    for (ConcurrentLinkedQueue<ByteBuffer> q : this.sizeClasses) {
+      ByteBuffer bb;
+      while ((bb = q.poll()) != null) {
+        this.pooledBytes.addAndGet(-bb.capacity());
+      }
+    }
+  }
+}
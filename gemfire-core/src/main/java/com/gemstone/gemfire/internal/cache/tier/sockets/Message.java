@@ -25,6 +25,7 @@ import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.HeapDataOutputStream;
 import com.gemstone.gemfire.internal.SocketUtils;
 import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.DiskValueTransfer;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -117,6 +118,11 @@ public class Message  {
 //  private int MAX_MSGS = -1;
   private Semaphore msgLimiter = null;
   private boolean hdrRead = false;  
+  /** the number of header bytes already read by {@link #readHeaderIfAvailable} */
+  private int prefetchedHeaderBytes = 0;
+  /** the pooled buffer that the parts of the last message received refer to */
+  private ByteBuffer payloadBuffer = null;
+  private CommBufferPool payloadBufferPool = null;
   private int chunkSize = 1024;//Default Chunk Size.
 
   protected Part securePart = null;
@@ -356,6 +362,19 @@ public class Message  {
     this.currentPart++;
   }
 
+  /**
+   * Adds a new part to this message whose value is sent straight from
+   * disk. The caller must release <code>dvt</code> once the message has been
+   * sent.
+   * @since 9.0
+   */
+  public void addDiskValuePart(DiskValueTransfer dvt) {
+    this.messageModified = true;
+    Part part = partsList[this.currentPart];
+    part.setPartState(dvt);
+    this.currentPart++;
+  }
+
   public int getMessageType() {
     return this.msgType;
   }
@@ -423,6 +442,7 @@ public class Message  {
       getCommBuffer().clear();
     }
     flush();
+    releasePayloadBuffer();
     if (len != 0 && this.dataLimiter != null) {
       this.dataLimiter.release(len);
       this.dataLimiter = null;
@@ -594,12 +614,45 @@ public class Message  {
     readHeaderAndPayload();
   }
 
+  /**
+   * Starts reading the header of the next message if some of it has already
+   * arrived, without blocking. The channel must be in non-blocking mode. If
+   * this returns true the next {@link #recv} continues with the bytes read
+   * here instead of starting a new header.
+   *
+   * @return true if at least one byte of the next header was read
+   * @since 9.0
+   */
+  public boolean readHeaderIfAvailable() throws IOException {
+    if (this.sockCh == null) {
+      return false;
+    }
+    final ByteBuffer cb = getCommBuffer();
+    cb.clear();
+    cb.limit(getHeaderLength());
+    int bytesRead = this.sockCh.read(cb);
+    if (bytesRead <= 0) {
+      // a closed connection is noticed by the next blocking read
+      cb.clear();
+      return false;
+    }
+    if (this.msgStats != null) {
+      this.msgStats.incReceivedBytes(bytesRead);
+    }
+    this.prefetchedHeaderBytes = bytesRead;
+    return true;
+  }
+
   /**
    * Read the actual bytes of the header off the socket
    */
   protected final void fetchHeader() throws IOException {
     final ByteBuffer cb = getCommBuffer();
-    cb.clear();
+    final boolean prefetched = this.prefetchedHeaderBytes > 0;
+    this.prefetchedHeaderBytes = 0;
+    if (!prefetched) {
+      cb.clear();
+    }
     // msgType is invalidated here and can be used as an indicator
     // of problems reading the message
     this.msgType = MessageType.INVALID;
@@ -609,7 +662,7 @@ public class Message  {
     final int headerLength = getHeaderLength();
     if (this.sockCh != null) {
       cb.limit(headerLength);
-      do {
+      while (cb.remaining() > 0) {
         int bytesRead = this.sockCh.read(cb);
         //System.out.println("DEBUG: fetchHeader read " + bytesRead + " bytes commBuffer=" + cb);
         if (bytesRead == -1) {
@@ -618,7 +671,7 @@ public class Message  {
         if (this.msgStats != null) {
           this.msgStats.incReceivedBytes(bytesRead);
         }
-      } while (cb.remaining() > 0);
+      }
       cb.flip();
     } else {
       do {
@@ -828,6 +881,12 @@ public class Message  {
     //TODO:Hitesh look if securePart can be cached here
     //this.logger.fine("readPayloadFields() early ack = " + this.earlyAck);
     readSecurePart = checkAndSetSecurityPart();
+
+    final CommBufferPool pool = getCommBufferPool();
+    if (pool != null && pool.isPooledSize(len)) {
+      readPooledPayload(pool, numParts, len, readSecurePart);
+      return;
+    }
     
     int bytesRemaining = len;
     //this.logger.fine("readPayloadFields() : numParts=" + numParts + " len=" + len);
@@ -915,6 +974,100 @@ public class Message  {
     }
   }
 
+  /**
+   * Returns the pool to read payloads into, or null if the parts should be
+   * read into their own byte arrays. Only messages received by a cache server
+   * use the pool since the server clears them once the command completes.
+   */
+  private CommBufferPool getCommBufferPool() {
+    if (this.sc == null) {
+      return null;
+    }
+    return this.sc.getAcceptor().getCommBufferPool();
+  }
+
+  /**
+   * Reads the whole payload into a buffer from <code>pool</code> and
+   * initializes the parts with slices of it. The buffer goes back to the pool
+   * when this message is cleared.
+   */
+  private void readPooledPayload(CommBufferPool pool, final int numParts,
+      final int len, final int readSecurePart) throws IOException {
+    releasePayloadBuffer();
+    final ByteBuffer payload = pool.acquire(len);
+    this.payloadBuffer = payload;
+    this.payloadBufferPool = pool;
+    if (this.sockCh != null) {
+      while (payload.remaining() > 0) {
+        int res = this.sockCh.read(payload);
+        if (res == -1) {
+          throw new EOFException(LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_PAYLOAD.toLocalizedString());
+        }
+        if (this.msgStats != null) {
+          this.msgStats.incReceivedBytes(res);
+        }
+        this.sc.updateProcessingMessage();
+      }
+    } else {
+      final byte[] chunk = getCommBuffer().array();
+      while (payload.remaining() > 0) {
+        int res = this.is.read(chunk, 0, Math.min(chunk.length, payload.remaining()));
+        if (res == -1) {
+          throw new EOFException(LocalizedStrings.Message_THE_CONNECTION_HAS_BEEN_RESET_WHILE_READING_THE_PAYLOAD.toLocalizedString());
+        }
+        payload.put(chunk, 0, res);
+        if (this.msgStats != null) {
+          this.msgStats.incReceivedBytes(res);
+        }
+        this.sc.updateProcessingMessage();
+      }
+    }
+    payload.flip();
+
+    for (int i = 0; ((i < numParts + readSecurePart) || ((readSecurePart == 1) && (payload
+        .remaining() > 0))); i++) {
+      if (payload.remaining() < PART_HEADER_SIZE) {
+        throw new IOException(LocalizedStrings.Message_PART_LENGTH_0_AND_NUMBER_OF_PARTS_1_INCONSISTENT.toLocalizedString(
+            new Object[] {Integer.valueOf(len), Integer.valueOf(numParts)}));
+      }
+      Part part;
+      if (i < numParts) {
+        part = this.partsList[i];
+      }
+      else {
+        part = this.securePart;
+      }
+      int partLen = payload.getInt();
+      byte partType = payload.get();
+      if (partLen < 0 || partLen > payload.remaining()) {
+        throw new IOException(LocalizedStrings.Message_PART_LENGTH_0_AND_NUMBER_OF_PARTS_1_INCONSISTENT.toLocalizedString(
+            new Object[] {Integer.valueOf(partLen), Integer.valueOf(numParts)}));
+      }
+      if (partLen == 0) {
+        part.init((byte[])null, partType);
+        continue;
+      }
+      final int end = payload.position() + partLen;
+      final int limit = payload.limit();
+      payload.limit(end);
+      part.init(payload.slice(), partType);
+      payload.limit(limit);
+      payload.position(end);
+      if (part == this.securePart) {
+        // the secure part is looked at outside of the command so copy it now
+        part.getSerializedForm();
+      }
+    }
+  }
+
+  private void releasePayloadBuffer() {
+    if (this.payloadBuffer != null) {
+      this.payloadBufferPool.release(this.payloadBuffer);
+      this.payloadBuffer = null;
+      this.payloadBufferPool = null;
+    }
+  }
+
   protected int checkAndSetSecurityPart() {
     if ((this.earlyAck | MESSAGE_HAS_SECURE_PART) == this.earlyAck) {
       this.securePart = new Part();
@@ -8,6 +8,7 @@
 package com.gemstone.gemfire.internal.cache.tier.sockets;
 
 import com.gemstone.gemfire.internal.*;
+import com.gemstone.gemfire.internal.cache.DiskValueTransfer;
 
 import java.io.*;
 import java.nio.*;
@@ -36,8 +37,11 @@ public class Part {
   private static final byte EMPTY_BYTEARRAY_CODE = 2;
 
   /** The payload of this part.
-   * Could be null, a byte[] or a HeapDataOutputStream on the send side.
-   * Could be null, or a byte[] on the receiver side.
+   * Could be null, a byte[], a HeapDataOutputStream or a DiskValueTransfer
+   * on the send side.
+   * Could be null, a byte[] or a ByteBuffer on the receiver side. A
+   * ByteBuffer is a slice of a pooled receive buffer that is only valid
+   * until the message is cleared.
    */
   private Object part;
 
@@ -54,6 +58,16 @@ public class Part {
     this.typeCode = tc;
   }
 
+  /**
+   * Initializes this part with a slice of a pooled receive buffer. The
+   * accessors copy anything that may outlive the message.
+   * @since 9.0
+   */
+  void init(ByteBuffer v, byte tc) {
+    this.part = v;
+    this.typeCode = tc;
+  }
+
 //   public void init(HeapDataOutputStream os, byte typeCode) {
 //     this.part = os;
 //     this.typeCode = typeCode;
@@ -74,6 +88,12 @@ public class Part {
         return true;
       }
     }
+    if (isObject() && this.part instanceof ByteBuffer) {
+      ByteBuffer bb = (ByteBuffer)this.part;
+      if (bb.capacity() == 1 && bb.get(0) == DSCODE.NULL) {
+        return true;
+      }
+    }
     return false;
   }
   public boolean isObject() {
@@ -105,6 +125,22 @@ public class Part {
     }
     this.part = os;
   }
+  /**
+   * Sets this part to a value that will be sent straight from disk. The
+   * caller still owns the transfer and must release it after the message is
+   * sent.
+   * @since 9.0
+   */
+  public void setPartState(DiskValueTransfer dvt) {
+    if (dvt.isSerialized()) {
+      this.typeCode = OBJECT_CODE;
+    } else if (dvt.getLength() == 0) {
+      this.typeCode = EMPTY_BYTEARRAY_CODE;
+    } else {
+      this.typeCode = BYTE_CODE;
+    }
+    this.part = dvt;
+  }
   public byte getTypeCode() {
     return this.typeCode;
   }
@@ -117,6 +153,10 @@ public class Part {
       return 0;
     } else if (this.part instanceof byte[]) {
       return ((byte[])this.part).length;
+    } else if (this.part instanceof ByteBuffer) {
+      return ((ByteBuffer)this.part).capacity();
+    } else if (this.part instanceof DiskValueTransfer) {
+      return ((DiskValueTransfer)this.part).getLength();
     } else {
       return ((HeapDataOutputStream)this.part).size();
     }
@@ -129,8 +169,31 @@ public class Part {
       Assert.assertTrue(false, "expected String part to be of type BYTE, part ="
           + this.toString());
     }
+    if (this.part instanceof ByteBuffer) {
+      ByteBuffer bb = ((ByteBuffer)this.part).duplicate();
+      bb.clear();
+      int len = bb.remaining();
+      byte[] scratch = getScratch(len);
+      bb.get(scratch, 0, len);
+      return CacheServerHelper.fromUTF(scratch, len);
+    }
     return CacheServerHelper.fromUTF((byte[])this.part);
   }
+
+  private static final ThreadLocal<byte[]> scratchBytes = new ThreadLocal<byte[]>();
+
+  /**
+   * Returns a per thread array of at least <code>len</code> bytes used to
+   * decode strings out of direct buffers.
+   */
+  private static byte[] getScratch(int len) {
+    byte[] result = scratchBytes.get();
+    if (result == null || result.length < len) {
+      result = new byte[Math.max(len, 256)];
+      scratchBytes.set(result);
+    }
+    return result;
+  }
   
   public int getInt() {
     if (!isBytes()) {
@@ -142,6 +205,10 @@ public class Part {
           "expected int length to be 4 but it was " + getLength()
           + "; part = " + this.toString());
     }
+    if (this.part instanceof ByteBuffer) {
+      // ByteBuffers are big endian, the same as decodeInt
+      return ((ByteBuffer)this.part).getInt(0);
+    }
     byte[] bytes = getSerializedForm();
     return decodeInt(bytes, 0);
   }
@@ -199,6 +266,9 @@ public class Part {
           "expected long length to be 8 but it was " + getLength()
           + "; part = " + this.toString());
     }
+    if (this.part instanceof ByteBuffer) {
+      return ((ByteBuffer)this.part).getLong(0);
+    }
     byte[] bytes = getSerializedForm();
     return ((((long)bytes[0]) << 56) & 0xFF00000000000000l) |
            ((((long)bytes[1]) << 48) & 0x00FF000000000000l) |
@@ -216,21 +286,32 @@ public class Part {
       return null;
     } else if (this.part instanceof byte[]) {
       return (byte[])this.part;
+    } else if (this.part instanceof ByteBuffer) {
+      // copy it out of the pooled buffer since the caller may keep it
+      ByteBuffer bb = ((ByteBuffer)this.part).duplicate();
+      bb.clear();
+      byte[] bytes = new byte[bb.remaining()];
+      bb.get(bytes);
+      this.part = bytes;
+      return bytes;
     } else {
       return null; // should not be called on sender side?
     }
   }
   public Object getObject(boolean unzip) throws IOException, ClassNotFoundException {
     if (isBytes()) {
-      return this.part;
+      return getSerializedForm();
     }
     else {
+      // deserialized objects, pdx instances in particular, may keep
+      // references to the bytes so never deserialize from the pooled buffer
+      byte[] bytes = getSerializedForm();
       if (this.version != null) {
-        return CacheServerHelper.deserialize((byte[])this.part, this.version,
+        return CacheServerHelper.deserialize(bytes, this.version,
             unzip);
       }
       else {
-        return CacheServerHelper.deserialize((byte[])this.part, unzip);
+        return CacheServerHelper.deserialize(bytes, unzip);
       }
     }
   }
@@ -254,6 +335,11 @@ public class Part {
       if (this.part instanceof byte[]) {
         byte[] bytes = (byte[])this.part;
         out.write(bytes, 0, bytes.length);
+      } else if (this.part instanceof ByteBuffer) {
+        byte[] bytes = getSerializedForm();
+        out.write(bytes, 0, bytes.length);
+      } else if (this.part instanceof DiskValueTransfer) {
+        ((DiskValueTransfer)this.part).transferTo(Channels.newChannel(out));
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream)this.part;
         hdos.sendTo(out);
@@ -264,10 +350,16 @@ public class Part {
   /**
    * Write the contents of this part to the specified byte buffer.
    */
-  public final void sendTo(ByteBuffer buf) {
+  public final void sendTo(ByteBuffer buf) throws IOException {
     if (getLength() > 0) {
       if (this.part instanceof byte[]) {
         buf.put((byte[])this.part);
+      } else if (this.part instanceof ByteBuffer) {
+        ByteBuffer bb = ((ByteBuffer)this.part).duplicate();
+        bb.clear();
+        buf.put(bb);
+      } else if (this.part instanceof DiskValueTransfer) {
+        ((DiskValueTransfer)this.part).readInto(buf);
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream)this.part;
         hdos.sendTo(buf);
@@ -282,6 +374,9 @@ public class Part {
   public final void sendTo(SocketChannel sc, ByteBuffer buf) throws IOException {
     if (getLength() > 0) {
       final int BUF_MAX = buf.capacity();
+      if (this.part instanceof ByteBuffer) {
+        getSerializedForm();
+      }
       if (this.part instanceof byte[]) {
         final byte[] bytes = (byte[])this.part;
         int off = 0;
@@ -301,6 +396,10 @@ public class Part {
           }
           buf.clear();
         }
+      } else if (this.part instanceof DiskValueTransfer) {
+        // the caller has already flushed buf so the file bytes go straight
+        // to the socket
+        ((DiskValueTransfer)this.part).transferTo(sc);
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream)this.part;
         hdos.sendTo(sc, buf);
@@ -77,6 +77,16 @@ public class ServerConnection implements Runnable {
    * This buffer time helps prevent EOF in the client instead of SocketTimeout
    */
   private static final int TIMEOUT_BUFFER_FOR_CONNECTION_CLEANUP_MS = 5000;
+
+  /**
+   * In selector mode, the maximum number of requests that a thread handles
+   * back to back on one connection, when the client has already sent them,
+   * before giving the connection back to the selector. Defaults to 0, which
+   * turns this off: pool clients wait for each response before sending the
+   * next request, so looking for another one would only cost a read.
+   * @since 9.0
+   */
+  private static final int MAX_PIPELINED_REQUESTS = Integer.getInteger("gemfire.ServerConnection.maxPipelinedRequests", 0).intValue();
   
   //TODO:Asif: Do we need a  Concurrent Map as we know it will be only get operations?
  // private static final CM commands = CFactory.createCM();
@@ -1077,6 +1087,17 @@ public class ServerConnection implements Runnable {
         if (!isTerminated()) {
           Message.setTLCommBuffer(getAcceptor().takeCommBuffer());
           doOneMessage();
+          int pipelined = 0;
+          while (pipelined < MAX_PIPELINED_REQUESTS && this.processMessages
+              && !(this.crHelper.isShutdown()) && isRequestPending()) {
+            // the client has already sent another request so handle it
+            // on this thread instead of going back through the selector
+            pipelined++;
+            makeBlocking();
+            setNotProcessingMessage();
+            unsetRequestSpecificTimeout();
+            doOneMessage();
+          }
           if (this.processMessages && !(this.crHelper.isShutdown())) {
             registerWithSelector(); // finished msg so reregister
             finishedMsg = true;
@@ -1156,6 +1177,16 @@ public class ServerConnection implements Runnable {
   public void registerWithSelector2(Selector s) throws IOException {
     /*this.sKey = */getSelectableChannel().register(s, SelectionKey.OP_READ, this);
   }
+  /**
+   * Returns true if the start of another request has already arrived on this
+   * connection. The header bytes that were read are kept by the request
+   * message for its next read. Leaves the channel in non-blocking mode.
+   */
+  private boolean isRequestPending() throws IOException {
+    getSelectableChannel().configureBlocking(false);
+    return this.requestMsg.readHeaderIfAvailable();
+  }
+
   /**
    * Switch this guy to blocking mode so we can use oldIO to read and write msgs.
    */
@@ -16,6 +16,7 @@ import com.gemstone.gemfire.cache.operations.GetOperationContext;
 import com.gemstone.gemfire.distributed.internal.DistributionStats;
 import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.cache.CachedDeserializable;
+import com.gemstone.gemfire.internal.cache.DiskValueTransfer;
 import com.gemstone.gemfire.internal.cache.EntryEventImpl;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
@@ -42,6 +43,13 @@ public class Get70 extends BaseCommand {
 
   private final static Get70 singleton = new Get70();
 
+  /**
+   * Values on disk of at least this many bytes are sent straight from the
+   * oplog to the client. A negative value disables this.
+   * @since 9.0
+   */
+  static final int DISK_VALUE_TRANSFER_MIN_SIZE = Integer.getInteger("gemfire.Get.diskValueTransferMinSize", 64 * 1024).intValue();
+
   public static Command getCommand() {
     return singleton;
   }
@@ -155,6 +163,46 @@ public class Get70 extends BaseCommand {
             return;
           }
 
+        // Large values that are only on disk are sent without reading
+        // them into the heap
+        DiskValueTransfer diskValue = null;
+        EntryEventImpl versionHolder = null;
+        if (DISK_VALUE_TRANSFER_MIN_SIZE >= 0 && callbackArg == null
+            && servConn.getPostAuthzRequest() == null
+            && region instanceof LocalRegion
+            && !(region instanceof PartitionedRegion)) {
+          servConn.setModificationInfo(true, regionName, key);
+          versionHolder = EntryEventImpl.createVersionTagHolder();
+          try {
+            diskValue = ((LocalRegion)region).getValueTransferOnDisk(key,
+                DISK_VALUE_TRANSFER_MIN_SIZE, versionHolder);
+          }
+          catch (Exception e) {
+            writeException(msg, e, false, servConn);
+            servConn.setAsTrue(RESPONDED);
+            return;
+          }
+        }
+        if (diskValue != null) {
+          {
+            long oldStart = start;
+            start = DistributionStats.getStatTime();
+            stats.incProcessGetTime(start - oldStart);
+          }
+          try {
+            writeResponse(diskValue, msg, versionHolder.getVersionTag(), servConn);
+          }
+          finally {
+            diskValue.release();
+          }
+          servConn.setAsTrue(RESPONDED);
+          if (logger.isDebugEnabled()) {
+            logger.debug("{}: Wrote get response from disk back to {} for region {} key {}", servConn.getName(), servConn.getSocketString(), regionName, key);
+          }
+          stats.incWriteGetResponseTime(DistributionStats.getStatTime() - start);
+          return;
+        }
+
         // Get the value and update the statistics. Do not deserialize
         // the value if it is a byte[].
         Entry entry;
@@ -376,6 +424,34 @@ public class Get70 extends BaseCommand {
     origMsg.flush();
   }
   
+  /**
+   * Writes a response whose value is sent straight from disk.
+   */
+  private void writeResponse(DiskValueTransfer diskValue, Message origMsg,
+      VersionTag versionTag, ServerConnection servConn) throws IOException {
+    Message responseMsg = servConn.getResponseMessage();
+    responseMsg.setMessageType(MessageType.RESPONSE);
+    responseMsg.setTransactionId(origMsg.getTransactionId());
+
+    int numParts = 2;
+    int flags = 0;
+
+    if (versionTag != null) {
+      numParts++;
+      flags |= GetOp.HAS_VERSION_TAG;
+    }
+
+    responseMsg.setNumberOfParts(numParts);
+    responseMsg.addDiskValuePart(diskValue);
+    responseMsg.addIntPart(flags);
+    if (versionTag != null) {
+      responseMsg.addObjPart(versionTag);
+    }
+    servConn.getCache().getCancelCriterion().checkCancelInProgress(null);
+    responseMsg.send(servConn);
+    origMsg.flush();
+  }
+
   protected static void writeResponse(Object data, Object callbackArg,
       Message origMsg, boolean isObject, ServerConnection servConn)
       throws IOException {
@@ -593,6 +593,9 @@ public abstract class CacheXml implements EntityResolver2, ErrorHandler {
   /** name of the disk store property for disk usage critical percentage */
   public static final String DISK_USAGE_CRITICAL_PERCENTAGE = "disk-usage-critical-percentage";
 
+  /** name of the disk store property for the group commit max delay */
+  public static final String GROUP_COMMIT_MAX_DELAY = "group-commit-max-delay";
+
   /** Name of region property specifying the cloning **/
   public static final String CLONING_ENABLED = "cloning-enabled";
 
@@ -1132,6 +1132,15 @@ public class CacheXmlGenerator extends CacheXml implements XMLReader {
               String.valueOf(ds.getDiskUsageCriticalPercentage()));
         }
       }
+
+      if (this.version.compareTo(CacheXmlVersion.VERSION_8_1) >= 0) {
+        if ((!(ds instanceof DiskStoreAttributesCreation) ||
+            ((DiskStoreAttributesCreation) ds).hasGroupCommitMaxDelay())) {
+          if (generateDefaults() || ds.getGroupCommitMaxDelay() != DiskStoreFactory.DEFAULT_GROUP_COMMIT_MAX_DELAY)
+          atts.addAttribute("", "", GROUP_COMMIT_MAX_DELAY, "", 
+              String.valueOf(ds.getGroupCommitMaxDelay()));
+        }
+      }
     } finally {
       handler.startElement("", DISK_STORE, DISK_STORE, atts);
       
@@ -1004,6 +1004,11 @@ public class CacheXmlParser extends CacheXml implements ContentHandler {
       attrs.setDiskUsageCriticalPercentage(parseFloat(criticalPct));
     }
 
+    String groupCommitMaxDelay = atts.getValue(GROUP_COMMIT_MAX_DELAY);
+    if (groupCommitMaxDelay != null) {
+      attrs.setGroupCommitMaxDelay(parseLong(groupCommitMaxDelay));
+    }
+
     stack.push(attrs);
   }
   
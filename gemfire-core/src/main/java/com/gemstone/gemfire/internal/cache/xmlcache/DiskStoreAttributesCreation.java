@@ -59,6 +59,7 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     this.queueSize = attrs.getQueueSize();
     this.diskDirs = attrs.getDiskDirs();
     this.diskDirSizes = attrs.getDiskDirSizes();
+    this.groupCommitMaxDelay = attrs.getGroupCommitMaxDelay();
     
     setDiskUsageWarningPercentage(attrs.getDiskUsageWarningPercentage());
     setDiskUsageCriticalPercentage(attrs.getDiskUsageCriticalPercentage());
@@ -203,6 +204,10 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     if (! equal(getDiskUsageCriticalPercentage(), other.getDiskUsageCriticalPercentage())) {
       throw new RuntimeException(LocalizedStrings.DiskStoreAttributesCreation_DISK_USAGE_CRITICAL_ARE_NOT_THE_SAME.toLocalizedString(name));
     }
+    if (this.groupCommitMaxDelay != other.getGroupCommitMaxDelay()) {
+      throw new RuntimeException("GroupCommitMaxDelay of disk store " + name + " is not the same: this: "
+          + this.groupCommitMaxDelay + " other: " + other.getGroupCommitMaxDelay());
+    }
     return true;
   }
   
@@ -244,6 +249,11 @@ public class DiskStoreAttributesCreation extends UserSpecifiedDiskStoreAttribute
     this.queueSize = queueSize;
     this.setHasQueueSize(true);
   }
+
+  public void setGroupCommitMaxDelay(long groupCommitMaxDelay) {
+    this.groupCommitMaxDelay = groupCommitMaxDelay;
+    this.setHasGroupCommitMaxDelay(true);
+  }
   
   public void setDiskDirs(File[] diskDirs)
   {
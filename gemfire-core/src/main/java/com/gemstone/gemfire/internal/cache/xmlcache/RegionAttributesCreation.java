@@ -174,6 +174,13 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
    * @since 8.0
    */
   private Compressor compressor;
+
+  /**
+   * True if this region stores its values off-heap.
+   * 
+   * @since 9.0
+   */
+  private boolean offHeap;
   
   private static RegionAttributes getDefaultAttributes(CacheCreation cc) {
     if (cc != null) {
@@ -256,6 +263,7 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
     this.multicastEnabled = attrs.getMulticastEnabled();
     this.cloningEnabled = attrs.getCloningEnabled();
     this.compressor = attrs.getCompressor();
+    this.offHeap = attrs.getOffHeap();
     if (attrs instanceof UserSpecifiedRegionAttributes) {
       UserSpecifiedRegionAttributes nonDefault = (UserSpecifiedRegionAttributes) attrs;
       this.requiresPoolName = nonDefault.requiresPoolName;
@@ -484,6 +492,9 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
     if(! equal(this.compressor, other.getCompressor())) {
       throw new RuntimeException("Compressors are not the same.");
     }
+    if (this.offHeap != other.getOffHeap()) {
+      throw new RuntimeException("OffHeap is not the same: " + this.offHeap + "!=" + other.getOffHeap());
+    }
     return true;
   }
 
@@ -1440,6 +1451,15 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
         setCompressor(parent.getCompressor());
       }
     }
+    if (!hasOffHeap()) {
+      if (parentIsUserSpecified) {
+        if (parentWithHas.hasOffHeap()) {
+          setOffHeap(parent.getOffHeap());
+        }
+      } else {
+        setOffHeap(parent.getOffHeap());
+      }
+    }
     if (!hasConcurrencyChecksEnabled()) {
       if (parentIsUserSpecified) {
         if (parentWithHas.hasConcurrencyChecksEnabled()) {
@@ -1549,6 +1569,15 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
   public Compressor getCompressor() {
     return this.compressor;
   }
+
+  public void setOffHeap(boolean offHeap) {
+    this.offHeap = offHeap;
+    setHasOffHeap(true);
+  }
+
+  public boolean getOffHeap() {
+    return this.offHeap;
+  }
   
   public void prepareForValidation() {
     // As of 6.5 we automatically enable stats if expiration is used.
@@ -0,0 +1,51 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+/**
+ * A growable stack of primitive longs used to hold the addresses of free
+ * off-heap chunks. Pushing and popping do not allocate unless the backing
+ * array needs to grow.
+ *
+ * @since 9.0
+ */
+final class LongStack {
+  private long[] elements;
+  private int size;
+
+  LongStack() {
+    this.elements = new long[16];
+  }
+
+  synchronized void push(long v) {
+    if (this.size == this.elements.length) {
+      long[] tmp = new long[this.size * 2];
+      System.arraycopy(this.elements, 0, tmp, 0, this.size);
+      this.elements = tmp;
+    }
+    this.elements[this.size++] = v;
+  }
+
+  /**
+   * Returns the most recently pushed value or 0 if the stack is empty.
+   */
+  synchronized long poll() {
+    if (this.size == 0) {
+      return 0L;
+    }
+    return this.elements[--this.size];
+  }
+
+  synchronized int size() {
+    return this.size;
+  }
+
+  synchronized void clear() {
+    this.size = 0;
+  }
+}
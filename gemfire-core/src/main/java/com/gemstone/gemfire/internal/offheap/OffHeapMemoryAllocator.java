@@ -0,0 +1,430 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gemstone.gemfire.cache.OutOfOffHeapMemoryException;
+import com.gemstone.gemfire.internal.cache.CachePerfStats;
+import com.gemstone.gemfire.pdx.internal.unsafe.UnsafeWrapper;
+
+/**
+ * A slab allocator for region values that are stored outside of the Java heap.
+ * <p>
+ * All of the configured memory is reserved up front as one or more slabs.
+ * Chunks are carved off the slabs with a bump pointer. When a chunk is freed
+ * it is pushed on the free list for its size class so the next allocation of
+ * that size can reuse it. Chunks bigger than {@link #MAX_TINY_CHUNK_SIZE} are
+ * kept on a single "huge" list that is searched best-fit.
+ * <p>
+ * Each chunk starts with a {@link #HEADER_SIZE} byte header holding the chunk
+ * size, a reference count, the size of the data and the caller's flags. The
+ * data immediately follows the header. A chunk goes back to its free list when
+ * its reference count drops to zero. Freed chunks are never handed back to the
+ * operating system so a stale address can always be read safely; callers
+ * detect staleness with {@link #retain(long)}.
+ * <p>
+ * There is at most one allocator per JVM. It survives a cache close so that a
+ * reconnecting cache can reuse the memory it reserved.
+ *
+ * @since 9.0
+ */
+public final class OffHeapMemoryAllocator {
+
+  /** Size in bytes of the header that precedes the data of each chunk. */
+  public static final int HEADER_SIZE = 16;
+
+  private static final int CHUNK_SIZE_OFFSET = 0;
+  private static final int REF_COUNT_OFFSET = 4;
+  private static final int DATA_SIZE_OFFSET = 8;
+  private static final int FLAGS_OFFSET = 12;
+
+  /** Every chunk size is a multiple of this. */
+  static final int CHUNK_ALIGNMENT = 8;
+
+  /** Chunks up to this size have their own free list. */
+  public static final int MAX_TINY_CHUNK_SIZE = Integer.getInteger(
+      "gemfire.OFF_HEAP_MAX_TINY_CHUNK_SIZE", 64 * 1024);
+
+  /** The largest slab that will be reserved with a single allocation. */
+  public static final int MAX_SLAB_SIZE = Integer.getInteger(
+      "gemfire.OFF_HEAP_SLAB_SIZE", Integer.MAX_VALUE & ~(CHUNK_ALIGNMENT - 1));
+
+  private static final UnsafeWrapper unsafe = new UnsafeWrapper();
+
+  private static volatile OffHeapMemoryAllocator singleton;
+
+  private final long totalMemory;
+  private final long[] slabs;
+  private final int[] slabSizes;
+  private final AtomicInteger[] slabOffsets;
+  private volatile int currentSlab;
+
+  private final LongStack[] tinyFreeLists;
+  private final TreeMap<Integer, LongStack> hugeFreeLists = new TreeMap<Integer, LongStack>();
+
+  private final AtomicLong usedMemory = new AtomicLong();
+  private final AtomicLong objects = new AtomicLong();
+
+  private volatile CachePerfStats stats;
+  private volatile boolean slabsFreed;
+
+  /**
+   * Returns the allocator of this JVM, creating it on the first call.
+   *
+   * @param size the total number of bytes to reserve
+   * @param stats the statistics that allocations and frees are recorded in
+   * @throws IllegalStateException if an allocator of a different size exists
+   */
+  public static synchronized OffHeapMemoryAllocator create(long size, CachePerfStats stats) {
+    OffHeapMemoryAllocator result = singleton;
+    if (result != null) {
+      if (result.getTotalMemory() != size) {
+        throw new IllegalStateException("The off-heap memory of this JVM was already reserved with "
+            + result.getTotalMemory() + " bytes and can not be changed to " + size + " bytes.");
+      }
+    } else {
+      result = new OffHeapMemoryAllocator(size, MAX_SLAB_SIZE);
+      singleton = result;
+    }
+    result.setStats(stats);
+    return result;
+  }
+
+  /**
+   * Parses the value of the <code>off-heap-memory-size</code> gemfire
+   * property. The value is a number of megabytes optionally followed by
+   * <code>m</code> or <code>g</code>.
+   *
+   * @return the size in bytes or 0 if <code>value</code> is null or empty
+   * @throws IllegalArgumentException if <code>value</code> can not be parsed
+   */
+  public static long parseOffHeapMemorySize(String value) {
+    if (value == null) {
+      return 0L;
+    }
+    String v = value.trim();
+    if (v.length() == 0) {
+      return 0L;
+    }
+    long multiplier = 1024L * 1024L;
+    char last = Character.toLowerCase(v.charAt(v.length() - 1));
+    if (last == 'g') {
+      multiplier *= 1024L;
+      v = v.substring(0, v.length() - 1);
+    } else if (last == 'm') {
+      v = v.substring(0, v.length() - 1);
+    }
+    long result;
+    try {
+      result = Long.parseLong(v);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Could not parse off-heap memory size \"" + value
+          + "\". It must be a number of megabytes optionally followed by m or g.");
+    }
+    if (result < 0) {
+      throw new IllegalArgumentException("Off-heap memory size \"" + value + "\" must not be negative.");
+    }
+    return result * multiplier;
+  }
+
+  /**
+   * Returns the allocator of this JVM or null if off-heap memory has not been
+   * configured.
+   */
+  public static OffHeapMemoryAllocator getAllocator() {
+    return singleton;
+  }
+
+  /**
+   * Frees all of the memory reserved by the allocator of this JVM. Only call
+   * this when nothing can still reference an off-heap address.
+   */
+  public static synchronized void freeOffHeapMemory() {
+    OffHeapMemoryAllocator result = singleton;
+    if (result != null) {
+      singleton = null;
+      result.freeSlabs();
+    }
+  }
+
+  OffHeapMemoryAllocator(long totalMemory, int maxSlabSize) {
+    if (totalMemory <= 0) {
+      throw new IllegalArgumentException("Off-heap memory size must be greater than zero but was " + totalMemory);
+    }
+    maxSlabSize &= ~(CHUNK_ALIGNMENT - 1);
+    int slabCount = (int)((totalMemory + maxSlabSize - 1) / maxSlabSize);
+    this.slabs = new long[slabCount];
+    this.slabSizes = new int[slabCount];
+    this.slabOffsets = new AtomicInteger[slabCount];
+    long remaining = totalMemory;
+    try {
+      for (int i = 0; i < slabCount; i++) {
+        int slabSize = (int)Math.min(remaining, maxSlabSize);
+        this.slabs[i] = unsafe.allocateMemory(slabSize);
+        this.slabSizes[i] = slabSize;
+        this.slabOffsets[i] = new AtomicInteger();
+        remaining -= slabSize;
+      }
+    } catch (OutOfMemoryError e) {
+      for (long addr : this.slabs) {
+        if (addr != 0L) {
+          unsafe.freeMemory(addr);
+        }
+      }
+      throw new IllegalStateException("Could not reserve " + totalMemory + " bytes of off-heap memory", e);
+    }
+    this.totalMemory = totalMemory;
+    this.tinyFreeLists = new LongStack[MAX_TINY_CHUNK_SIZE / CHUNK_ALIGNMENT + 1];
+    for (int i = 0; i < this.tinyFreeLists.length; i++) {
+      this.tinyFreeLists[i] = new LongStack();
+    }
+  }
+
+  public void setStats(CachePerfStats stats) {
+    this.stats = stats;
+    if (stats != null) {
+      stats.setOffHeapMaxMemory(this.totalMemory);
+    }
+  }
+
+  public long getTotalMemory() {
+    return this.totalMemory;
+  }
+
+  public long getUsedMemory() {
+    return this.usedMemory.get();
+  }
+
+  public long getFreeMemory() {
+    return this.totalMemory - this.usedMemory.get();
+  }
+
+  public long getObjects() {
+    return this.objects.get();
+  }
+
+  /**
+   * Copies <code>data</code> into a newly allocated chunk and returns its
+   * address. The chunk starts with a reference count of one.
+   *
+   * @param flags caller defined bits stored with the chunk
+   * @throws OutOfOffHeapMemoryException if no chunk big enough is available
+   */
+  public long allocate(byte[] data, int flags) {
+    final int dataSize = data.length;
+    final int chunkSize = computeChunkSize(dataSize);
+    long addr = pollFreeChunk(chunkSize);
+    if (addr == 0L) {
+      addr = allocateFromSlab(chunkSize);
+      if (addr != 0L) {
+        unsafe.putInt(null, addr + CHUNK_SIZE_OFFSET, chunkSize);
+      } else {
+        addr = pollLargerFreeChunk(chunkSize);
+        if (addr == 0L) {
+          throw new OutOfOffHeapMemoryException("Could not allocate " + chunkSize
+              + " bytes of off-heap memory. Used " + getUsedMemory() + " of " + this.totalMemory + " bytes.");
+        }
+      }
+    }
+    final int actualChunkSize = getChunkSize(addr);
+    unsafe.putInt(null, addr + DATA_SIZE_OFFSET, dataSize);
+    unsafe.putInt(null, addr + FLAGS_OFFSET, flags);
+    unsafe.copyMemory(data, unsafe.arrayBaseOffset(byte[].class), null, addr + HEADER_SIZE, dataSize);
+    // publish the chunk last so that a successful retain sees the new contents
+    unsafe.putIntVolatile(null, addr + REF_COUNT_OFFSET, 1);
+    this.usedMemory.addAndGet(actualChunkSize);
+    this.objects.incrementAndGet();
+    CachePerfStats s = this.stats;
+    if (s != null) {
+      s.incOffHeapAllocation(actualChunkSize);
+    }
+    return addr;
+  }
+
+  /**
+   * Increments the reference count of the chunk at <code>addr</code> unless it
+   * has already been freed.
+   *
+   * @return true if the chunk was retained; false if it has been freed
+   */
+  public static boolean retain(long addr) {
+    while (true) {
+      int rc = unsafe.getIntVolatile(null, addr + REF_COUNT_OFFSET);
+      if (rc <= 0) {
+        return false;
+      }
+      if (unsafe.compareAndSwapInt(null, addr + REF_COUNT_OFFSET, rc, rc + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Decrements the reference count of the chunk at <code>addr</code> and
+   * frees it once the count reaches zero.
+   */
+  public void release(long addr) {
+    while (true) {
+      int rc = unsafe.getIntVolatile(null, addr + REF_COUNT_OFFSET);
+      if (rc <= 0) {
+        throw new IllegalStateException("Off-heap chunk at address 0x" + Long.toHexString(addr)
+            + " was already freed");
+      }
+      if (unsafe.compareAndSwapInt(null, addr + REF_COUNT_OFFSET, rc, rc - 1)) {
+        if (rc == 1) {
+          free(addr);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns a heap copy of the data stored in the chunk at <code>addr</code>.
+   * The caller must have retained the chunk.
+   */
+  public static byte[] readBytes(long addr) {
+    int dataSize = getDataSize(addr);
+    byte[] result = new byte[dataSize];
+    unsafe.copyMemory(null, addr + HEADER_SIZE, result, unsafe.arrayBaseOffset(byte[].class), dataSize);
+    return result;
+  }
+
+  public static int getDataSize(long addr) {
+    return unsafe.getInt(null, addr + DATA_SIZE_OFFSET);
+  }
+
+  public static int getFlags(long addr) {
+    return unsafe.getInt(null, addr + FLAGS_OFFSET);
+  }
+
+  public static int getChunkSize(long addr) {
+    return unsafe.getInt(null, addr + CHUNK_SIZE_OFFSET);
+  }
+
+  static int getRefCount(long addr) {
+    return unsafe.getIntVolatile(null, addr + REF_COUNT_OFFSET);
+  }
+
+  static int computeChunkSize(int dataSize) {
+    long size = (long)dataSize + HEADER_SIZE;
+    size = (size + CHUNK_ALIGNMENT - 1) & ~(CHUNK_ALIGNMENT - 1);
+    if (size > Integer.MAX_VALUE) {
+      throw new OutOfOffHeapMemoryException("Can not store " + dataSize + " bytes in a single off-heap chunk");
+    }
+    return (int)size;
+  }
+
+  private void free(long addr) {
+    int chunkSize = getChunkSize(addr);
+    if (chunkSize <= MAX_TINY_CHUNK_SIZE) {
+      this.tinyFreeLists[chunkSize / CHUNK_ALIGNMENT].push(addr);
+    } else {
+      synchronized (this.hugeFreeLists) {
+        LongStack list = this.hugeFreeLists.get(chunkSize);
+        if (list == null) {
+          list = new LongStack();
+          this.hugeFreeLists.put(chunkSize, list);
+        }
+        list.push(addr);
+      }
+    }
+    this.usedMemory.addAndGet(-chunkSize);
+    this.objects.decrementAndGet();
+    CachePerfStats s = this.stats;
+    if (s != null) {
+      s.incOffHeapFree(chunkSize);
+    }
+  }
+
+  private long pollFreeChunk(int chunkSize) {
+    if (chunkSize <= MAX_TINY_CHUNK_SIZE) {
+      return this.tinyFreeLists[chunkSize / CHUNK_ALIGNMENT].poll();
+    }
+    synchronized (this.hugeFreeLists) {
+      LongStack list = this.hugeFreeLists.get(chunkSize);
+      return list == null ? 0L : list.poll();
+    }
+  }
+
+  /**
+   * Called when the slabs are exhausted. Reuses the smallest free chunk that
+   * is bigger than <code>chunkSize</code>; the chunk keeps its original size.
+   */
+  private long pollLargerFreeChunk(int chunkSize) {
+    if (chunkSize <= MAX_TINY_CHUNK_SIZE) {
+      for (int i = chunkSize / CHUNK_ALIGNMENT + 1; i < this.tinyFreeLists.length; i++) {
+        long addr = this.tinyFreeLists[i].poll();
+        if (addr != 0L) {
+          return addr;
+        }
+      }
+    }
+    synchronized (this.hugeFreeLists) {
+      for (Map.Entry<Integer, LongStack> e : this.hugeFreeLists.tailMap(chunkSize, false).entrySet()) {
+        long addr = e.getValue().poll();
+        if (addr != 0L) {
+          return addr;
+        }
+      }
+    }
+    return 0L;
+  }
+
+  private long allocateFromSlab(int chunkSize) {
+    if (this.slabsFreed) {
+      throw new IllegalStateException("The off-heap memory has been freed");
+    }
+    for (int i = this.currentSlab; i < this.slabs.length; i++) {
+      AtomicInteger offset = this.slabOffsets[i];
+      while (true) {
+        int oldOffset = offset.get();
+        int newOffset = oldOffset + chunkSize;
+        if (newOffset < 0 || newOffset > this.slabSizes[i]) {
+          break;
+        }
+        if (offset.compareAndSet(oldOffset, newOffset)) {
+          return this.slabs[i] + oldOffset;
+        }
+      }
+      if (i == this.currentSlab && i + 1 < this.slabs.length) {
+        // only move on once the remainder of this slab is too small for most chunks
+        if (this.slabSizes[i] - offset.get() < MAX_TINY_CHUNK_SIZE) {
+          this.currentSlab = i + 1;
+        }
+      }
+    }
+    return 0L;
+  }
+
+  private synchronized void freeSlabs() {
+    if (this.slabsFreed) {
+      return;
+    }
+    this.slabsFreed = true;
+    for (long addr : this.slabs) {
+      unsafe.freeMemory(addr);
+    }
+    for (LongStack list : this.tinyFreeLists) {
+      list.clear();
+    }
+    synchronized (this.hugeFreeLists) {
+      this.hugeFreeLists.clear();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapMemoryAllocator[total=" + this.totalMemory + "; used=" + getUsedMemory()
+        + "; objects=" + getObjects() + "; slabs=" + this.slabs.length + "]";
+  }
+}
@@ -0,0 +1,41 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+
+/**
+ * Any RegionEntry that stores its value off-heap must implement this
+ * interface. Instead of a reference to its value the entry keeps a single long
+ * that is either the address of an off-heap chunk or an encoded
+ * {@link com.gemstone.gemfire.internal.cache.Token}.
+ *
+ * @see OffHeapRegionEntryHelper
+ * @since 9.0
+ */
+public interface OffHeapRegionEntry extends RegionEntry {
+  /**
+   * Returns the encoded value of this entry.
+   */
+  public long getAddress();
+
+  /**
+   * Atomically changes the encoded value of this entry.
+   *
+   * @return true if the current address was <code>expectedAddr</code> and it
+   *         was changed to <code>newAddr</code>
+   */
+  public boolean setAddress(long expectedAddr, long newAddr);
+
+  /**
+   * Frees the off-heap memory held by this entry. Called when the entry is
+   * discarded without its value being changed, for example when its region is
+   * closed.
+   */
+  public void release();
+}
@@ -0,0 +1,176 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.internal.cache.CachedDeserializable;
+import com.gemstone.gemfire.internal.cache.CachedDeserializableFactory;
+import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.Token;
+
+/**
+ * The static methods used by the generated off-heap region entry classes to
+ * encode, decode and free their values.
+ * <p>
+ * An entry's address is 0 for a null value, a small constant for each
+ * {@link Token} and otherwise the address of a chunk owned by the
+ * {@link OffHeapMemoryAllocator}. Chunk addresses are never smaller than
+ * {@link #MAX_TOKEN_ADDRESS}.
+ * <p>
+ * Values read back from off-heap are always heap copies: raw byte arrays come
+ * back as <code>byte[]</code> and everything else as a
+ * {@link CachedDeserializable} of its serialized form.
+ *
+ * @since 9.0
+ */
+public final class OffHeapRegionEntryHelper {
+
+  private OffHeapRegionEntryHelper() {
+  }
+
+  static final long NULL_ADDRESS = 0L;
+  static final long INVALID_ADDRESS = 1L;
+  static final long LOCAL_INVALID_ADDRESS = 2L;
+  static final long DESTROYED_ADDRESS = 3L;
+  static final long REMOVED_PHASE1_ADDRESS = 4L;
+  static final long REMOVED_PHASE2_ADDRESS = 5L;
+  static final long END_OF_STREAM_ADDRESS = 6L;
+  static final long NOT_AVAILABLE_ADDRESS = 7L;
+  static final long TOMBSTONE_ADDRESS = 8L;
+  static final long MAX_TOKEN_ADDRESS = 255L;
+
+  /** Chunk flag: the data is the serialized form of an object. */
+  static final int SERIALIZED_FLAG = 0x1;
+
+  private static final Token[] addrToToken = new Token[] {
+    null,
+    Token.INVALID,
+    Token.LOCAL_INVALID,
+    Token.DESTROYED,
+    Token.REMOVED_PHASE1,
+    Token.REMOVED_PHASE2,
+    Token.END_OF_STREAM,
+    Token.NOT_AVAILABLE,
+    Token.TOMBSTONE,
+  };
+
+  static boolean isChunkAddress(long addr) {
+    return addr > MAX_TOKEN_ADDRESS;
+  }
+
+  private static long tokenToAddress(Token t) {
+    for (int i = 1; i < addrToToken.length; i++) {
+      if (addrToToken[i] == t) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("Can not store token " + t + " in an off-heap region entry");
+  }
+
+  /**
+   * Returns the address that <code>v</code> should be stored as, allocating
+   * an off-heap chunk for it if it is not null or a token.
+   */
+  static long encode(Object v) {
+    if (v == null) {
+      return NULL_ADDRESS;
+    }
+    if (v instanceof Token) {
+      return tokenToAddress((Token)v);
+    }
+    OffHeapMemoryAllocator allocator = getAllocator();
+    if (v instanceof byte[]) {
+      return allocator.allocate((byte[])v, 0);
+    }
+    byte[] serialized;
+    if (v instanceof CachedDeserializable) {
+      serialized = ((CachedDeserializable)v).getSerializedValue();
+    } else {
+      serialized = EntryEventImpl.serialize(v);
+    }
+    return allocator.allocate(serialized, SERIALIZED_FLAG);
+  }
+
+  private static OffHeapMemoryAllocator getAllocator() {
+    OffHeapMemoryAllocator allocator = OffHeapMemoryAllocator.getAllocator();
+    if (allocator == null) {
+      throw new IllegalStateException("Off-heap memory has not been configured. Set the "
+          + "off-heap-memory-size gemfire property to use off-heap regions.");
+    }
+    return allocator;
+  }
+
+  /**
+   * Stores <code>v</code> as the value of <code>re</code> and frees the
+   * previous value.
+   */
+  public static void setValue(OffHeapRegionEntry re, Object v) {
+    final long newAddr = encode(v);
+    while (true) {
+      long oldAddr = re.getAddress();
+      if (re.setAddress(oldAddr, newAddr)) {
+        releaseAddress(oldAddr);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns a heap copy of the value of <code>re</code>.
+   */
+  public static Object getValue(OffHeapRegionEntry re) {
+    while (true) {
+      long addr = re.getAddress();
+      if (!isChunkAddress(addr)) {
+        return addrToToken[(int)addr];
+      }
+      if (OffHeapMemoryAllocator.retain(addr)) {
+        try {
+          // the chunk may have been freed and reused by someone else
+          // between reading the address and retaining it
+          if (re.getAddress() == addr) {
+            byte[] bytes = OffHeapMemoryAllocator.readBytes(addr);
+            if ((OffHeapMemoryAllocator.getFlags(addr) & SERIALIZED_FLAG) != 0) {
+              return CachedDeserializableFactory.create(bytes);
+            }
+            return bytes;
+          }
+        } finally {
+          getAllocator().release(addr);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the token stored in <code>re</code> without copying its value
+   * to the heap.
+   *
+   * @return null, a token, or {@link Token#NOT_A_TOKEN} if the value is
+   *         stored off-heap
+   */
+  public static Token getValueAsToken(OffHeapRegionEntry re) {
+    long addr = re.getAddress();
+    if (isChunkAddress(addr)) {
+      return Token.NOT_A_TOKEN;
+    }
+    return addrToToken[(int)addr];
+  }
+
+  /**
+   * Frees the value of <code>re</code> and marks it as removed.
+   */
+  public static void releaseEntry(OffHeapRegionEntry re) {
+    setValue(re, Token.REMOVED_PHASE2);
+  }
+
+  private static void releaseAddress(long addr) {
+    if (isChunkAddress(addr)) {
+      getAllocator().release(addr);
+    }
+  }
+}
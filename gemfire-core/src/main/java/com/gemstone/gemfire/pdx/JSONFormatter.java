@@ -1,7 +1,11 @@
 package com.gemstone.gemfire.pdx;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonParseException;
@@ -29,6 +33,9 @@ import com.gemstone.gemfire.pdx.internal.json.PdxToJSON;
  * 
  * JSON objects are converted into PdxInstance
  * JSON arrays are converted into List.
+ * 
+ * Documents are parsed and written in a single pass, so the stream methods
+ * never hold a whole document as a string.
  *  
  *  @author hiteshk
  */
@@ -37,6 +44,15 @@ public class JSONFormatter {
   
   public static final String JSON_CLASSNAME = "__GEMFIRE_JSON";
   
+  /**
+   * Factories are thread safe, and reusing one lets parsers share its
+   * symbol tables and recycle their buffers.
+   */
+  private static final JsonFactory jsonFactory = new JsonFactory()
+      .enable(Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+      .enable(Feature.ALLOW_UNQUOTED_FIELD_NAMES)
+      .disable(Feature.AUTO_CLOSE_SOURCE);
+  
   enum states {NONE, ObJECT_START,  FIELD_NAME, INNER_OBJECT_FOUND, SCALER_FOUND, LIST_FOUND, OBJECT_ENDS};
   
   private JSONFormatter() {
@@ -51,8 +67,7 @@ public class JSONFormatter {
   public static PdxInstance fromJSON(String jsonString) {
     JsonParser jp = null;
     try {
-      jp = new JsonFactory().createParser(jsonString);
-      enableJSONParserFeature(jp);
+      jp = jsonFactory.createParser(jsonString);
       return new JSONFormatter().getPdxInstance(jp, states.NONE, null).getPdxInstance();
     } catch (JsonParseException jpe) {
       throw new JSONFormatterException("Could not parse JSON document " , jpe);
@@ -60,7 +75,9 @@ public class JSONFormatter {
       throw new JSONFormatterException("Could not parse JSON document: " + jp.getCurrentLocation(), e);
     } catch(Exception e) {
       throw new JSONFormatterException("Could not parse JSON document: " + jp.getCurrentLocation(), e);
-    }  
+    } finally {
+      close(jp);
+    }
   }
   
   /**
@@ -72,8 +89,7 @@ public class JSONFormatter {
   public static PdxInstance fromJSON(byte[] jsonByteArray) {
     JsonParser jp = null;
     try {
-      jp = new JsonFactory().createParser(jsonByteArray);
-      enableJSONParserFeature(jp);
+      jp = jsonFactory.createParser(jsonByteArray);
       return new JSONFormatter().getPdxInstance(jp, states.NONE, null).getPdxInstance();
     }  catch (JsonParseException jpe) {
       throw new JSONFormatterException("Could not parse JSON document " , jpe);
@@ -81,12 +97,90 @@ public class JSONFormatter {
       throw new JSONFormatterException("Could not parse JSON document: " + jp.getCurrentLocation(), e);
     } catch(Exception e) {
       throw new JSONFormatterException("Could not parse JSON document: " + jp.getCurrentLocation(), e);
-    } 
+    } finally {
+      close(jp);
+    }
+  }
+  
+  /**
+   * To create PdxInstance from the JSON document in a stream, which is read
+   * as it is parsed. The stream is not closed.
+   * 
+   * @return the PdxInstance.
+   * @throws JSONFormatterException if unable to parse JSON doucment
+   * @since 9.0
+   */
+  public static PdxInstance fromJSON(InputStream jsonStream) {
+    JsonParser jp = null;
+    try {
+      jp = jsonFactory.createParser(jsonStream);
+      return new JSONFormatter().getPdxInstance(jp, states.NONE, null).getPdxInstance();
+    }  catch (JsonParseException jpe) {
+      throw new JSONFormatterException("Could not parse JSON document " , jpe);
+    } catch (IOException e) {
+      throw new JSONFormatterException("Could not parse JSON document: " + getLocation(jp), e);
+    } catch(Exception e) {
+      throw new JSONFormatterException("Could not parse JSON document: " + getLocation(jp), e);
+    } finally {
+      close(jp);
+    }
+  }
+  
+  /**
+   * To create a PdxInstance for each JSON document in a JSON array read from
+   * a stream. Each document is created as soon as it is parsed. The stream
+   * is not closed.
+   * 
+   * @return the PdxInstances in the order of the array.
+   * @throws JSONFormatterException if unable to parse the JSON array or if
+   *           one of its elements is not a JSON document
+   * @since 9.0
+   */
+  public static List<PdxInstance> fromJSONArray(InputStream jsonStream) {
+    JsonParser jp = null;
+    try {
+      jp = jsonFactory.createParser(jsonStream);
+      if (jp.nextToken() != JsonToken.START_ARRAY) {
+        throw new JSONFormatterException("Expected a JSON array but found " + jp.getCurrentToken());
+      }
+      List<PdxInstance> result = new ArrayList<PdxInstance>();
+      JsonToken nt;
+      while ((nt = jp.nextToken()) != JsonToken.END_ARRAY) {
+        if (nt != JsonToken.START_OBJECT) {
+          throw new JSONFormatterException("Expected a JSON document in the JSON array but found " + nt);
+        }
+        // the object has started like it does in a list
+        result.add(new JSONFormatter().getPdxInstance(jp, states.ObJECT_START, null).getPdxInstance());
+      }
+      return result;
+    }  catch (JsonParseException jpe) {
+      throw new JSONFormatterException("Could not parse JSON document " , jpe);
+    } catch (IOException e) {
+      throw new JSONFormatterException("Could not parse JSON document: " + getLocation(jp), e);
+    } catch (JSONFormatterException e) {
+      throw e;
+    } catch(Exception e) {
+      throw new JSONFormatterException("Could not parse JSON document: " + getLocation(jp), e);
+    } finally {
+      close(jp);
+    }
   }
   
-  private static void enableJSONParserFeature(JsonParser jp) {
-    jp.enable(Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER);
-    jp.enable(Feature.ALLOW_UNQUOTED_FIELD_NAMES);
+  /**
+   * Closes the parser, which returns its buffers for reuse, but not its
+   * source.
+   */
+  private static void close(JsonParser jp) {
+    if (jp != null) {
+      try {
+        jp.close();
+      } catch (IOException ignore) {
+      }
+    }
+  }
+  
+  private static Object getLocation(JsonParser jp) {
+    return jp == null ? null : jp.getCurrentLocation();
   }
   
   /**
@@ -119,6 +213,22 @@ public class JSONFormatter {
     }    
   }
   
+  /**
+   *To write the JSON document of a PdxInstance to a stream as it is
+   * created. The stream is flushed but not closed.
+   * 
+   * @throws JSONFormatterException if unable to create JSON doucment from PdxInstance
+   * @since 9.0
+   */
+  public static void toJSON(PdxInstance pdxInstance, OutputStream out) {
+    try {
+      PdxToJSON pj = new PdxToJSON(pdxInstance);
+      pj.writeJSON(out);
+    } catch (Exception e) {
+      throw new JSONFormatterException("Could not create JSON document from PdxInstance ", e);
+    }    
+  }
+  
   private PdxInstanceHelper getPdxInstance(JsonParser jp, states currentState, PdxInstanceHelper currentPdxInstance) throws JsonParseException, IOException {
     String currentFieldName = null;
     if(currentState == states.ObJECT_START && currentPdxInstance == null)
@@ -235,7 +345,7 @@ public class JSONFormatter {
           //write string
           doublefound(currentState);
           currentState = states.SCALER_FOUND;
-          currentPdxInstance.addStringField(currentFieldName, new String(jp.getText()));
+          currentPdxInstance.addStringField(currentFieldName, jp.getText());
           currentFieldName = null;
           break;
         }
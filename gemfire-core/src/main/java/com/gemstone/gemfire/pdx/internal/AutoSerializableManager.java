@@ -422,6 +422,13 @@ public class AutoSerializableManager {
         fieldList.addAll(variableLenFields);
         classInfo = new AutoClassInfo(clazz, fieldList);
         logger.info("Auto serializer generating type for {} for fields: {}", clazz, classInfo.toFormattedString());
+        try {
+          classInfo.setGeneratedSerializer(AutoSerializerGenerator.generate(this, clazz, fieldList));
+        } catch (RuntimeException ex) {
+          logger.debug("Could not generate a serializer for {}", clazz, ex);
+        } catch (LinkageError ex) {
+          logger.debug("Could not generate a serializer for {}", clazz, ex);
+        }
         classMap.put(clazz, classInfo);
       } // end sync
     }
@@ -613,12 +620,17 @@ public class AutoSerializableManager {
     unsafe = tmp;
   }
 
+  static UnsafeWrapper getUnsafe() {
+    return unsafe;
+  }
+
   public static abstract class PdxFieldWrapper {
     private final FieldWrapper field;
     private final String fieldName;
     private final boolean transformValue;
     private final AutoSerializableManager owner;
     private final boolean isIdentityField;
+    private FieldType fieldType;
     
     protected PdxFieldWrapper(AutoSerializableManager owner, Field f, String name, boolean transformValue, boolean isIdentityField) {
       FieldWrapper tmp;
@@ -634,6 +646,11 @@ public class AutoSerializableManager {
       this.isIdentityField = isIdentityField;
     }
     public static PdxFieldWrapper create(AutoSerializableManager owner, Field f, FieldType ft, String name, boolean transformValue, boolean isIdentityField) {
+      PdxFieldWrapper result = newWrapper(owner, f, ft, name, transformValue, isIdentityField);
+      result.fieldType = ft;
+      return result;
+    }
+    private static PdxFieldWrapper newWrapper(AutoSerializableManager owner, Field f, FieldType ft, String name, boolean transformValue, boolean isIdentityField) {
       switch (ft) {
       case INT:
         return new IntField(owner, f, name, transformValue, isIdentityField);
@@ -692,6 +709,12 @@ public class AutoSerializableManager {
     public String getName() {
       return this.fieldName;
     }
+    /**
+     * Returns the type this field is serialized as.
+     */
+    public FieldType getFieldType() {
+      return this.fieldType;
+    }
     public boolean transform() {
       return this.transformValue;
     }
@@ -1847,12 +1870,19 @@ public class AutoSerializableManager {
     return false;
   }
 
-  private static void handleException(Exception ex, boolean serialization, String fieldName, Object obj) {
+  /**
+   * @param fieldName the field that could not be serialized, or null if
+   *          it is not known
+   */
+  static void handleException(Exception ex, boolean serialization, String fieldName, Object obj) {
     if (ex instanceof CancelException) {
       // fix for bug 43936
       throw (CancelException)ex;
     } else if (ex instanceof NonPortableClassException) {
       throw (NonPortableClassException)ex;
+    } else if (fieldName == null) {
+      throw new PdxSerializationException((serialization ? "Serialization" : "Deserialization")
+          + " error for class " + obj.getClass().getName(), ex);
     } else {
       throw new PdxSerializationException((serialization ? "Serialization" : "Deserialization") 
           + " error on field "
@@ -1882,6 +1912,15 @@ public class AutoSerializableManager {
         optimizeFieldWrites = true;
       }
     }
+    GeneratedAutoSerializer serializer = autoClassInfo.getGeneratedSerializer();
+    if (optimizeFieldWrites && serializer != null) {
+      try {
+        serializer.writeFields(w, obj);
+      } catch (Exception ex) {
+        handleException(ex, true, null, obj);
+      }
+      return;
+    }
     for (PdxFieldWrapper f : autoClassInfo.getFields()) {
       //System.out.println("DEBUG writing field=" + f.getField().getName() + " offset=" + ((PdxWriterImpl)writer).position());
       if (f.transform()) {
@@ -2030,6 +2069,12 @@ public class AutoSerializableManager {
      * The PdxType created by the first serialization by the auto serializer.
      */
     private PdxType serializedType = null;
+
+    /**
+     * The generated serializer of the class, or null if the fields are
+     * serialized by their wrappers.
+     */
+    private volatile GeneratedAutoSerializer generatedSerializer = null;
     
     public AutoClassInfo(Class<?> clazz, List<PdxFieldWrapper> fields) {
       this.clazzRef = new WeakReference<Class<?>>(clazz);
@@ -2052,10 +2097,14 @@ public class AutoSerializableManager {
     public Object newInstance(Class<?> clazz) {
       Object result;
       try {
+        GeneratedAutoSerializer serializer = this.generatedSerializer;
         if (unsafe != null && !USE_CONSTRUCTOR) {
           result = unsafe.allocateInstance(clazz);
         } else {
-          result = clazz.newInstance();
+          result = serializer != null ? serializer.newInstance() : null;
+          if (result == null) {
+            result = clazz.newInstance();
+          }
         }
       } catch (Exception ex) {
         throw new PdxSerializationException(
@@ -2071,6 +2120,13 @@ public class AutoSerializableManager {
     public PdxType getSerializedType() {
       return this.serializedType;
     }
+
+    public void setGeneratedSerializer(GeneratedAutoSerializer v) {
+      this.generatedSerializer = v;
+    }
+    public GeneratedAutoSerializer getGeneratedSerializer() {
+      return this.generatedSerializer;
+    }
     
     public Class<?> getInfoClass() {
       return this.clazzRef.get();
@@ -0,0 +1,293 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import static com.gemstone.gemfire.internal.ClassFileWriter.*;
+
+import java.lang.reflect.Modifier;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.gemstone.gemfire.InternalGemFireError;
+import com.gemstone.gemfire.internal.ClassFileWriter;
+import com.gemstone.gemfire.pdx.FieldType;
+import com.gemstone.gemfire.pdx.internal.AutoSerializableManager.PdxFieldWrapper;
+import com.gemstone.gemfire.pdx.internal.unsafe.UnsafeWrapper;
+
+/**
+ * Generates the bytecode of a {@link GeneratedAutoSerializer} for an auto
+ * serialized class. Fields, which are usually private, are accessed with
+ * {@link UnsafeWrapper} at offsets that are constants in the generated code,
+ * so the generated <code>writeFields</code> is equivalent to
+ *
+ * <pre>
+ * public void writeFields(PdxWriterImpl writer, Object obj) {
+ *   writer.writeInt(unsafe.getInt(obj, 12L));
+ *   writer.writeString((String)unsafe.getObject(obj, 16L));
+ *   writer.writeObject(unsafe.getObject(obj, 20L), checkPortability());
+ * }
+ * </pre>
+ *
+ * and <code>readFields</code> is equivalent to
+ *
+ * <pre>
+ * public void readFields(PdxReaderImpl reader, Object obj) {
+ *   unsafe.putInt(obj, 12L, reader.readInt());
+ *   unsafe.putObject(obj, 16L, reader.readString());
+ *   unsafe.putObject(obj, 20L, reader.readObject());
+ * }
+ * </pre>
+ *
+ * A class whose fields are transformed by the {@link com.gemstone.gemfire.pdx.ReflectionBasedAutoSerializer},
+ * or are serialized as a type other than the one of their declaration, is
+ * not generated for.
+ *
+ * @since 9.0
+ */
+final class AutoSerializerGenerator {
+
+  /**
+   * Set this to use the field wrappers even where a serializer could be
+   * generated.
+   */
+  static final boolean DISABLED = Boolean.getBoolean("gemfire.autopdx.disableGeneratedSerializers");
+
+  private static final String SUPER_CLASS = internalName(GeneratedAutoSerializer.class);
+
+  private static final String CLASS_NAME_PREFIX = SUPER_CLASS + "$Generated";
+
+  private static final String WRITER_CLASS = internalName(PdxWriterImpl.class);
+
+  private static final String READER_CLASS = internalName(PdxReaderImpl.class);
+
+  private static final String UNSAFE_CLASS = internalName(UnsafeWrapper.class);
+
+  private static final AtomicInteger classCount = new AtomicInteger();
+
+  private AutoSerializerGenerator() {
+  }
+
+  /**
+   * Returns a new serializer for the given fields of <code>clazz</code>, or
+   * null if one can not be generated for them.
+   */
+  static GeneratedAutoSerializer generate(AutoSerializableManager manager,
+      Class<?> clazz, List<PdxFieldWrapper> fields) {
+    if (DISABLED || AutoSerializableManager.getUnsafe() == null) {
+      return null;
+    }
+    for (PdxFieldWrapper f : fields) {
+      if (f.transform()
+          || f.getFieldType() != FieldType.get(f.getField().getType())) {
+        return null;
+      }
+    }
+    String className = CLASS_NAME_PREFIX + classCount.incrementAndGet();
+    byte[] bytes = writeClass(className, clazz, fields);
+    Class generated = ClassFileWriter.defineClass(className, bytes,
+        clazz.getClassLoader(), AutoSerializerGenerator.class);
+    GeneratedAutoSerializer result;
+    try {
+      result = (GeneratedAutoSerializer)generated.newInstance();
+    } catch (InstantiationException e) {
+      throw new InternalGemFireError(e);
+    } catch (IllegalAccessException e) {
+      throw new InternalGemFireError(e);
+    }
+    result.setManager(manager);
+    return result;
+  }
+
+  private static byte[] writeClass(String className, Class<?> clazz,
+      List<PdxFieldWrapper> fields) {
+    ClassFileWriter cfw = new ClassFileWriter(className, SUPER_CLASS);
+    cfw.addDefaultConstructor(SUPER_CLASS);
+    int unsafe = cfw.fieldRef(SUPER_CLASS, "unsafe", descriptor(UnsafeWrapper.class));
+
+    Code write = new Code();
+    Code read = new Code();
+    for (PdxFieldWrapper f : fields) {
+      FieldType ft = f.getFieldType();
+      Class<?> type = javaType(ft);
+      String unsafeType = type.isPrimitive() ? descriptor(type) : "Ljava/lang/Object;";
+      String unsafeSuffix = type.isPrimitive() ? methodSuffix(ft) : "Object";
+      int offset = cfw.longConstant(AutoSerializableManager.getUnsafe().objectFieldOffset(f.getField()));
+
+      // writer.writeX((X)unsafe.getX(obj, offset))
+      write.op(ALOAD_1);
+      write.op(GETSTATIC, unsafe);
+      write.op(ALOAD_2);
+      write.op(LDC2_W, offset);
+      write.op(INVOKEVIRTUAL, cfw.methodRef(UNSAFE_CLASS, "get" + unsafeSuffix,
+          "(Ljava/lang/Object;J)" + unsafeType));
+      if (!type.isPrimitive() && type != Object.class) {
+        write.op(CHECKCAST, cfw.classRef(internalName(type)));
+      }
+      String portability = "";
+      if (ft == FieldType.OBJECT || ft == FieldType.OBJECT_ARRAY) {
+        write.op(ALOAD_0);
+        write.op(INVOKEVIRTUAL, cfw.methodRef(className, "checkPortability", "()Z"));
+        portability = "Z";
+      }
+      write.op(INVOKEVIRTUAL, cfw.methodRef(WRITER_CLASS, "write" + methodSuffix(ft),
+          "(" + descriptor(type) + portability + ")V"));
+
+      // unsafe.putX(obj, offset, reader.readX())
+      read.op(GETSTATIC, unsafe);
+      read.op(ALOAD_2);
+      read.op(LDC2_W, offset);
+      read.op(ALOAD_1);
+      read.op(INVOKEVIRTUAL, cfw.methodRef(READER_CLASS, "read" + methodSuffix(ft),
+          "()" + descriptor(type)));
+      read.op(INVOKEVIRTUAL, cfw.methodRef(UNSAFE_CLASS, "put" + unsafeSuffix,
+          "(Ljava/lang/Object;J" + unsafeType + ")V"));
+    }
+    write.op(RETURN);
+    read.op(RETURN);
+    // the unsafe, the object and the offset, which takes two slots, are
+    // followed by a value that takes up to two
+    cfw.addMethod("writeFields", "(L" + WRITER_CLASS + ";Ljava/lang/Object;)V", 6, 3, write);
+    cfw.addMethod("readFields", "(L" + READER_CLASS + ";Ljava/lang/Object;)V", 6, 3, read);
+
+    if (hasPublicConstructor(clazz)) {
+      Code newInstance = new Code();
+      int clazzRef = cfw.classRef(internalName(clazz));
+      newInstance.op(NEW, clazzRef);
+      newInstance.op(DUP);
+      newInstance.op(INVOKESPECIAL, cfw.methodRef(internalName(clazz), "<init>", "()V"));
+      newInstance.op(ARETURN);
+      cfw.addMethod("newInstance", "()Ljava/lang/Object;", 2, 1, newInstance);
+    }
+    return cfw.toByteArray();
+  }
+
+  private static boolean hasPublicConstructor(Class<?> clazz) {
+    if (!Modifier.isPublic(clazz.getModifiers())
+        || Modifier.isAbstract(clazz.getModifiers())) {
+      return false;
+    }
+    try {
+      clazz.getConstructor();
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the class of the values of the given type, which is the one that
+   * {@link FieldType#get} maps to it.
+   */
+  private static Class<?> javaType(FieldType ft) {
+    switch (ft) {
+    case BOOLEAN:
+      return boolean.class;
+    case BYTE:
+      return byte.class;
+    case CHAR:
+      return char.class;
+    case SHORT:
+      return short.class;
+    case INT:
+      return int.class;
+    case LONG:
+      return long.class;
+    case FLOAT:
+      return float.class;
+    case DOUBLE:
+      return double.class;
+    case STRING:
+      return String.class;
+    case DATE:
+      return Date.class;
+    case BOOLEAN_ARRAY:
+      return boolean[].class;
+    case BYTE_ARRAY:
+      return byte[].class;
+    case CHAR_ARRAY:
+      return char[].class;
+    case SHORT_ARRAY:
+      return short[].class;
+    case INT_ARRAY:
+      return int[].class;
+    case LONG_ARRAY:
+      return long[].class;
+    case FLOAT_ARRAY:
+      return float[].class;
+    case DOUBLE_ARRAY:
+      return double[].class;
+    case STRING_ARRAY:
+      return String[].class;
+    case ARRAY_OF_BYTE_ARRAYS:
+      return byte[][].class;
+    case OBJECT_ARRAY:
+      return Object[].class;
+    case OBJECT:
+      return Object.class;
+    default:
+      throw new IllegalStateException("unhandled field type " + ft);
+    }
+  }
+
+  /**
+   * Returns the name of the type in the ordered reads and writes of the pdx
+   * reader and writer, for example <code>Int</code> for
+   * {@link PdxWriterImpl#writeInt(int)}.
+   */
+  private static String methodSuffix(FieldType ft) {
+    switch (ft) {
+    case BOOLEAN:
+      return "Boolean";
+    case BYTE:
+      return "Byte";
+    case CHAR:
+      return "Char";
+    case SHORT:
+      return "Short";
+    case INT:
+      return "Int";
+    case LONG:
+      return "Long";
+    case FLOAT:
+      return "Float";
+    case DOUBLE:
+      return "Double";
+    case STRING:
+      return "String";
+    case DATE:
+      return "Date";
+    case BOOLEAN_ARRAY:
+      return "BooleanArray";
+    case BYTE_ARRAY:
+      return "ByteArray";
+    case CHAR_ARRAY:
+      return "CharArray";
+    case SHORT_ARRAY:
+      return "ShortArray";
+    case INT_ARRAY:
+      return "IntArray";
+    case LONG_ARRAY:
+      return "LongArray";
+    case FLOAT_ARRAY:
+      return "FloatArray";
+    case DOUBLE_ARRAY:
+      return "DoubleArray";
+    case STRING_ARRAY:
+      return "StringArray";
+    case ARRAY_OF_BYTE_ARRAYS:
+      return "ArrayOfByteArrays";
+    case OBJECT_ARRAY:
+      return "ObjectArray";
+    case OBJECT:
+      return "Object";
+    default:
+      throw new IllegalStateException("unhandled field type " + ft);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import com.gemstone.gemfire.pdx.internal.unsafe.UnsafeWrapper;
+
+/**
+ * The superclass of the serializers {@link AutoSerializerGenerator} generates
+ * for auto serialized classes. A generated serializer writes and reads the
+ * fields of one class in the order of its {@link AutoSerializableManager.AutoClassInfo}
+ * without the per field dispatch of {@link AutoSerializableManager.PdxFieldWrapper}.
+ * It is only used when the fields are written or read in that order, that is
+ * when the pdx type of the class is already known.
+ * <p>
+ * This class and its members are public because the generated classes are
+ * defined in a class loader of their own.
+ *
+ * @since 9.0
+ */
+public abstract class GeneratedAutoSerializer {
+
+  /** used by the generated code to get and set fields at their offsets */
+  protected static final UnsafeWrapper unsafe = AutoSerializableManager.getUnsafe();
+
+  private AutoSerializableManager manager;
+
+  final void setManager(AutoSerializableManager manager) {
+    this.manager = manager;
+  }
+
+  protected final boolean checkPortability() {
+    return this.manager.getCheckPortability();
+  }
+
+  /**
+   * Writes all the fields of <code>obj</code> with the ordered writes of
+   * <code>writer</code>.
+   */
+  public abstract void writeFields(PdxWriterImpl writer, Object obj);
+
+  /**
+   * Sets all the fields of <code>obj</code> with the ordered reads of
+   * <code>reader</code>.
+   */
+  public abstract void readFields(PdxReaderImpl reader, Object obj);
+
+  /**
+   * Returns a new instance of the class created with its public no-arg
+   * constructor, or null if the class does not have one.
+   */
+  public Object newInstance() {
+    return null;
+  }
+}
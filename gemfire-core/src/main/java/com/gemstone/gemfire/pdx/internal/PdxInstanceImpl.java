@@ -30,7 +30,10 @@ import com.gemstone.gemfire.internal.DSCODE;
 import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.internal.InternalDataSerializer.Sendable;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.pdx.FieldType;
 import com.gemstone.gemfire.pdx.JSONFormatter;
+import com.gemstone.gemfire.pdx.PdxFieldDoesNotExistException;
+import com.gemstone.gemfire.pdx.PdxFieldTypeMismatchException;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.pdx.WritablePdxInstance;
@@ -66,6 +69,14 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
    */
   private static final int UNUSED_HASH_CODE = 0;
   private transient volatile int cachedHashCode = UNUSED_HASH_CODE;
+
+  /**
+   * The position of each field in the blob, indexed by field index. It is
+   * computed by the first field read so that later reads, for example by
+   * the several where clause conditions and index keys of a query, do not
+   * look up the variable length field offsets again.
+   */
+  private transient volatile int[] fieldPositions;
   
   private static final ThreadLocal<Boolean> pdxGetObjectInProgress = new ThreadLocal<Boolean>();
   
@@ -118,6 +129,124 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
   public Object getField(String fieldName) {
     return getUnmodifiableReader(fieldName).readField(fieldName);
   }
+
+  /**
+   * Returns the index of the named field in {@link #getPdxType()}, or -1 if
+   * the type has no such field. The index is a handle for the field methods
+   * that take one, and is the same for all the instances of a type, so
+   * callers can look it up once per type.
+   * @since 9.0
+   */
+  public int getFieldIndex(String fieldName) {
+    PdxField ft = getPdxType().getPdxField(fieldName);
+    if (ft == null) {
+      return -1;
+    }
+    return ft.getFieldIndex();
+  }
+
+  /**
+   * Returns the value of the field with the given index.
+   * @see #getFieldIndex(String)
+   * @since 9.0
+   */
+  public Object getField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex);
+    return getUnmodifiableReader(ft.getFieldName()).readField(ft);
+  }
+
+  /**
+   * Returns the value of the field with the given index like
+   * {@link #getRawField(String)}.
+   * @see #getFieldIndex(String)
+   * @since 9.0
+   */
+  public Object getRawField(int fieldIndex) {
+    return getRawField(getPdxFieldByIndex(fieldIndex));
+  }
+
+  // The following read a field of a primitive type without boxing its value.
+  // They throw PdxFieldTypeMismatchException if the field has another type.
+
+  public boolean getBooleanField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.BOOLEAN);
+    return getUnmodifiableReader(ft.getFieldName()).readBoolean(ft);
+  }
+
+  public byte getByteField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.BYTE);
+    return getUnmodifiableReader(ft.getFieldName()).readByte(ft);
+  }
+
+  public char getCharField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.CHAR);
+    return getUnmodifiableReader(ft.getFieldName()).readChar(ft);
+  }
+
+  public short getShortField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.SHORT);
+    return getUnmodifiableReader(ft.getFieldName()).readShort(ft);
+  }
+
+  public int getIntField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.INT);
+    return getUnmodifiableReader(ft.getFieldName()).readInt(ft);
+  }
+
+  public long getLongField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.LONG);
+    return getUnmodifiableReader(ft.getFieldName()).readLong(ft);
+  }
+
+  public float getFloatField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.FLOAT);
+    return getUnmodifiableReader(ft.getFieldName()).readFloat(ft);
+  }
+
+  public double getDoubleField(int fieldIndex) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex, FieldType.DOUBLE);
+    return getUnmodifiableReader(ft.getFieldName()).readDouble(ft);
+  }
+
+  private PdxField getPdxFieldByIndex(int fieldIndex) {
+    PdxType pt = getPdxType();
+    if (fieldIndex < 0 || fieldIndex >= pt.getFieldCount()
+        || pt.getPdxFieldByIndex(fieldIndex).isDeleted()) {
+      throw new PdxFieldDoesNotExistException("A field with index "
+          + fieldIndex + " does not exist on " + pt);
+    }
+    return pt.getPdxFieldByIndex(fieldIndex);
+  }
+
+  private PdxField getPdxFieldByIndex(int fieldIndex, FieldType expected) {
+    PdxField ft = getPdxFieldByIndex(fieldIndex);
+    if (ft.getFieldType() != expected) {
+      throw new PdxFieldTypeMismatchException("Expected " + expected
+          + " field but found field of type " + ft.getTypeIdString());
+    }
+    return ft;
+  }
+
+  @Override
+  protected int getPositionForField(PdxField ft) {
+    int[] positions = this.fieldPositions;
+    if (positions == null) {
+      positions = computeFieldPositions();
+      this.fieldPositions = positions;
+    }
+    int idx = ft.getFieldIndex();
+    // the field may come from another version of the type
+    if (idx < positions.length && getPdxType().getPdxFieldByIndex(idx) == ft) {
+      return positions[idx];
+    }
+    return super.getPositionForField(ft);
+  }
+
+  @Override
+  protected void basicSetBuffer(ByteBuffer bb) {
+    super.basicSetBuffer(bb);
+    this.fieldPositions = null;
+  }
   
   private PdxWriterImpl convertToTypeWithNoDeletedFields(PdxReaderImpl ur) {
     PdxOutputStream os = new PdxOutputStream();
@@ -579,6 +708,11 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
     return super.readField(fieldName);
   }
 
+  @Override
+  public synchronized Object readField(PdxField ft) {
+    return super.readField(ft);
+  }
+
   @Override
   protected synchronized Object basicGetObject() {
     DMStats stats = InternalDataSerializer.getDMStats(null);
@@ -617,6 +751,17 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
   public Object getRawField(String fieldName){
     return getUnmodifiableReader(fieldName).readRawField(fieldName);
   }
+
+  /**
+   * Returns the value of a field like {@link #getRawField(String)} without
+   * looking the field up by name. The field must be one of the fields of
+   * {@link #getPdxType()}, which the caller can look up once for all the
+   * instances of a type.
+   * @since 9.0
+   */
+  public Object getRawField(PdxField ft) {
+    return getUnmodifiableReader(ft.getFieldName()).readRawField(ft);
+  }
   
   
  public Object getDefaultValueIfFieldExistsInAnyPdxVersions(String fieldName,
@@ -12,6 +12,7 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Date;
+import java.util.List;
 
 import com.gemstone.gemfire.InternalGemFireException;
 import com.gemstone.gemfire.internal.DSCODE;
@@ -563,10 +564,29 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     }
   }
 
-  private int getPositionForField(PdxField ft) {
+  /**
+   * Returns the position of the given field in the blob. Readers of a blob
+   * that is read many times can override this to remember the positions
+   * computed by {@link #computeFieldPositions()}.
+   */
+  protected int getPositionForField(PdxField ft) {
     return getAbsolutePosition(ft);
   }
 
+  /**
+   * Returns the position of each field of the blob's type in the blob,
+   * indexed by field index.
+   * @since 9.0
+   */
+  protected final int[] computeFieldPositions() {
+    List<PdxField> fields = this.blobType.getFields();
+    int[] result = new int[fields.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = getAbsolutePosition(fields.get(i));
+    }
+    return result;
+  }
+
   private int getAbsolutePosition(PdxField ft) {
     int pos = 0;
     int idx0 = ft.getRelativeOffset();
@@ -616,6 +636,14 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft == null) {
       return null;
     }
+    return readField(ft);
+  }
+
+  /**
+   * Reads the value of a field of the type of this reader.
+   * @since 9.0
+   */
+  public Object readField(PdxField ft) {
     switch (ft.getFieldType()) {
     case CHAR:
       return readChar(ft);
@@ -827,6 +855,15 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
    */
   public void orderedDeserialize(Object obj, AutoClassInfo ci) {
     PdxReaderImpl reader = prepForOrderedReading();
+    GeneratedAutoSerializer serializer = ci.getGeneratedSerializer();
+    if (serializer != null) {
+      try {
+        serializer.readFields(reader, obj);
+      } catch (Exception ex) {
+        AutoSerializableManager.handleException(ex, false, null, obj);
+      }
+      return;
+    }
     for (PdxFieldWrapper f: ci.getFields()) {
       //System.out.println("DEBUG reading field=" + f.getField().getName() + " offset=" + reader.dis.position());
       f.orderedDeserialize(reader, obj);
@@ -843,7 +880,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     }
     int pos = 0;
     if (result.blobType.getFieldCount() > 0) {
-      pos = getPositionForField(result.blobType.getFields().get(0));
+      pos = result.getPositionForField(result.blobType.getFields().get(0));
     }
     result.dis.position(pos);
     return result;
@@ -866,6 +903,20 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
       return readField(field);
     }
   }
+
+  /**
+   * Like {@link #readRawField(String)} but for a field that has already been
+   * looked up in the type of this reader.
+   * @since 9.0
+   */
+  public Object readRawField(PdxField ft) {
+    if (ft.getFieldType() == FieldType.STRING) {
+      return readPdxString(ft);
+    }
+    else {
+      return readField(ft);
+    }
+  }
   
   /**
    * 
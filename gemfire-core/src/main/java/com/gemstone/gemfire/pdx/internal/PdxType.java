@@ -325,7 +325,7 @@ public class PdxType implements DataSerializable {
   }
   public int getUndeletedFieldCount() {
     if (!getHasDeletedField()) {
-      return 0;
+      return this.fields.size();
     }
     int result = this.fields.size();
     for (PdxField f: this.fields) {
@@ -42,6 +42,7 @@ public class TypeRegistry {
   private final Map<Integer, EnumInfo> idToEnum = new CopyOnWriteHashMap<Integer, EnumInfo>();
   private final Map<EnumInfo, Integer> enumInfoToId = new CopyOnWriteHashMap<EnumInfo, Integer>();
   private final Map<Enum<?>, Integer> localEnumIds = new CopyOnWriteWeakHashMap<Enum<?>, Integer>();
+  private final Map<Class<?>, Integer> localClassIds = new CopyOnWriteWeakHashMap<Class<?>, Integer>();
   private final TypeRegistration distributedTypeRegistry;
   private final GemFireCacheImpl cache;
   
@@ -420,6 +421,36 @@ public class TypeRegistry {
     return ei;
   }
   
+  /**
+   * Returns the id by which the name of the given class can be sent instead
+   * of the name itself, defining it if needed. The id is that of a type of
+   * the class with no fields, so class names are distributed, persisted and
+   * sent to other distributed systems along with the pdx types.
+   * @since 9.0
+   */
+  public int getClassId(Class<?> c) {
+    Integer id = this.localClassIds.get(c);
+    if (id != null) {
+      return id.intValue();
+    }
+    int result = defineType(new PdxType(c.getName(), false));
+    this.localClassIds.put(c, Integer.valueOf(result));
+    return result;
+  }
+
+  /**
+   * Returns the name of the class with the given id.
+   * @see #getClassId(Class)
+   * @since 9.0
+   */
+  public String getClassNameById(int classId) {
+    PdxType pt = getType(classId);
+    if (pt == null) {
+      throw new PdxSerializationException("Could not find a PDX registration for the class with id " + classId);
+    }
+    return pt.getClassName();
+  }
+
   /**
    * Clear all of the cached PDX types in this registry. This method
    * is used on a client when the server side distributed system
@@ -435,6 +466,7 @@ public class TypeRegistry {
       idToEnum.clear();
       enumInfoToId.clear();
       localEnumIds.clear();
+      localClassIds.clear();
       AutoSerializableManager autoSerializer = getAutoSerializableManager();
       if(autoSerializer != null) {
         autoSerializer.resetCachedTypes();
@@ -7,23 +7,61 @@
  */
 package com.gemstone.gemfire.pdx.internal;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Date;
+import java.util.zip.CRC32;
 
+import com.gemstone.gemfire.Delta;
 import com.gemstone.gemfire.InternalGemFireException;
+import com.gemstone.gemfire.InvalidDeltaException;
+import com.gemstone.gemfire.internal.DSCODE;
+import com.gemstone.gemfire.internal.InternalDataSerializer;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.pdx.PdxFieldDoesNotExistException;
 import com.gemstone.gemfire.pdx.PdxFieldTypeMismatchException;
 import com.gemstone.gemfire.pdx.WritablePdxInstance;
 
+/**
+ * A pdx instance whose fields can be set. It is also a {@link Delta} of the
+ * instance it was created from: when it is put in a region that propagates
+ * deltas, only the fields that changed are sent, and receivers apply them to
+ * the serialized form of their old value. A delta is written as
+ *
+ * <pre>
+ * int DELTA_HEADER, int typeId, int baseLength, int baseChecksum,
+ * arrayLength fieldCount,
+ * fieldCount times (arrayLength fieldIndex, arrayLength size, size bytes)
+ * </pre>
+ *
+ * where the bytes are the serialized form of the field. The base length and
+ * checksum are those of the serialized fields the delta was computed from.
+ * A receiver whose old value has other fields, because another member
+ * changed it in the meantime, rejects the delta with an
+ * {@link InvalidDeltaException} so that the full value is sent instead.
+ */
 public class WritablePdxInstanceImpl extends PdxInstanceImpl implements
-    WritablePdxInstance {
+    WritablePdxInstance, Delta {
   private static final long serialVersionUID = 7398999150097596214L;
   private static final Object NULL_TOKEN = new Object();
+  /**
+   * Starts every pdx delta, so that it is not taken for the delta of an
+   * application class; "PDXD"
+   */
+  private static final int DELTA_HEADER = 0x50445844;
   private Object[] dirtyFields = null;
+  /**
+   * The fields as of the last delta; null if they are unknown, for example
+   * after java serialization
+   */
+  private transient PdxReaderImpl deltaBase;
+  private transient boolean hasDelta;
 
   public WritablePdxInstanceImpl(PdxReaderImpl original) {
     super(original);
+    this.deltaBase = new PdxReaderImpl(original);
   }
 
   private synchronized void dirtyField(PdxField f, Object value) {
@@ -34,6 +72,7 @@ public class WritablePdxInstanceImpl extends PdxInstanceImpl implements
       value = NULL_TOKEN;
     }
     this.dirtyFields[f.getFieldIndex()] = value;
+    this.hasDelta = true;
     clearCachedState();
   }
   /**
@@ -84,7 +123,9 @@ public class WritablePdxInstanceImpl extends PdxInstanceImpl implements
           continue;
         }
         Object dv = this.dirtyFields[f.getFieldIndex()];
-        if (dv != null) {
+        if (dv instanceof SerializedField) {
+          writer.writeRawField(f, ((SerializedField)dv).bytes);
+        } else if (dv != null) {
           if (dv == NULL_TOKEN) {
             dv = null;
           }
@@ -276,4 +317,146 @@ public class WritablePdxInstanceImpl extends PdxInstanceImpl implements
     // Overriding just to make this clear
     return super.equals(obj);
   }
+
+  /**
+   * Returns true if a field was set since this instance was created or its
+   * last delta was written. A type with deleted fields is serialized as a
+   * new type, so its changes are never sent as a delta.
+   * @since 9.0
+   */
+  public synchronized boolean hasDelta() {
+    return this.hasDelta && this.deltaBase != null
+        && !getPdxType().getHasDeletedField();
+  }
+
+  /**
+   * Writes the fields whose serialized form differs from the one they had
+   * when this instance was created or its last delta was written.
+   * @since 9.0
+   */
+  public synchronized void toDelta(DataOutput out) throws IOException {
+    PdxReaderImpl ur = getUnmodifiableReader();
+    PdxType type = ur.getPdxType();
+    int count = 0;
+    int baseLength = 0;
+    CRC32 baseChecksum = new CRC32();
+    ByteBuffer[] changed = new ByteBuffer[type.getFieldCount()];
+    for (PdxField f: type.getFields()) {
+      ByteBuffer value = ur.getRaw(f);
+      ByteBuffer baseValue = this.deltaBase.getRaw(f);
+      baseLength += baseValue.remaining();
+      update(baseChecksum, baseValue);
+      if (!value.equals(baseValue)) {
+        changed[f.getFieldIndex()] = value;
+        count++;
+      }
+    }
+    out.writeInt(DELTA_HEADER);
+    out.writeInt(type.getTypeId());
+    out.writeInt(baseLength);
+    out.writeInt((int)baseChecksum.getValue());
+    InternalDataSerializer.writeArrayLength(count, out);
+    for (int i = 0; i < changed.length; i++) {
+      ByteBuffer value = changed[i];
+      if (value != null) {
+        InternalDataSerializer.writeArrayLength(i, out);
+        InternalDataSerializer.writeArrayLength(value.remaining(), out);
+        while (value.hasRemaining()) {
+          out.writeByte(value.get());
+        }
+      }
+    }
+    this.deltaBase = new PdxReaderImpl(ur);
+    this.hasDelta = false;
+  }
+
+  /**
+   * Sets the fields written by {@link #toDelta}.
+   * @throws InvalidDeltaException if the delta is not one of this pdx type
+   *           or was not computed from the fields this instance has
+   * @since 9.0
+   */
+  public synchronized void fromDelta(DataInput in) throws IOException,
+      InvalidDeltaException {
+    if (in.readInt() != DELTA_HEADER) {
+      throw new InvalidDeltaException("Not a pdx delta");
+    }
+    int typeId = in.readInt();
+    if (typeId != getPdxType().getTypeId()) {
+      throw new InvalidDeltaException("The pdx delta of type " + typeId
+          + " can not be applied to " + getPdxType());
+    }
+    int baseLength = in.readInt();
+    int baseChecksum = in.readInt();
+    PdxReaderImpl ur = getUnmodifiableReader();
+    int length = 0;
+    CRC32 checksum = new CRC32();
+    for (PdxField f: ur.getPdxType().getFields()) {
+      ByteBuffer value = ur.getRaw(f);
+      length += value.remaining();
+      update(checksum, value);
+    }
+    if (length != baseLength || (int)checksum.getValue() != baseChecksum) {
+      throw new InvalidDeltaException("The pdx delta was computed from other field values than "
+          + getPdxType() + " has");
+    }
+    int count = InternalDataSerializer.readArrayLength(in);
+    for (int i = 0; i < count; i++) {
+      PdxField f = getPdxType().getPdxFieldByIndex(InternalDataSerializer.readArrayLength(in));
+      if (f == null) {
+        throw new InvalidDeltaException("The pdx delta has a field that " + getPdxType() + " does not have");
+      }
+      byte[] bytes = new byte[InternalDataSerializer.readArrayLength(in)];
+      in.readFully(bytes);
+      dirtyField(f, new SerializedField(bytes));
+    }
+  }
+
+  private static void update(CRC32 checksum, ByteBuffer value) {
+    if (value.hasArray()) {
+      checksum.update(value.array(), value.arrayOffset() + value.position(), value.remaining());
+    } else {
+      byte[] bytes = new byte[value.remaining()];
+      value.duplicate().get(bytes);
+      checksum.update(bytes, 0, bytes.length);
+    }
+  }
+
+  /**
+   * Returns the serialized form of the pdx <code>oldValue</code> with
+   * <code>delta</code> applied to it, or null if <code>delta</code> was not
+   * written by {@link #toDelta} for a value of its type, in which case it may
+   * be the delta of an application class.
+   * @throws InvalidDeltaException if <code>delta</code> was computed from
+   *           other field values than <code>oldValue</code> has
+   * @since 9.0
+   */
+  public static byte[] applyDelta(byte[] oldValue, byte[] delta) throws IOException {
+    if (delta.length < 16 || oldValue.length < PdxWriterImpl.HEADER_SIZE) {
+      return null;
+    }
+    ByteBuffer deltaHeader = ByteBuffer.wrap(delta);
+    ByteBuffer oldHeader = ByteBuffer.wrap(oldValue);
+    if (deltaHeader.getInt(0) != DELTA_HEADER
+        || oldValue[0] != DSCODE.PDX
+        || deltaHeader.getInt(4) != oldHeader.getInt(5)) {
+      return null;
+    }
+    GemFireCacheImpl gfc = GemFireCacheImpl.getForPdx("PDX registry is unavailable because the Cache has been closed.");
+    PdxInstanceImpl old = (PdxInstanceImpl)InternalDataSerializer.readPdxInstance(oldValue, gfc);
+    WritablePdxInstanceImpl result = (WritablePdxInstanceImpl)old.createWriter();
+    result.fromDelta(new PdxInputStream(delta));
+    return result.toBytes();
+  }
+
+  /**
+   * The serialized form of a field set by a delta.
+   */
+  private static final class SerializedField {
+    final byte[] bytes;
+
+    SerializedField(byte[] bytes) {
+      this.bytes = bytes;
+    }
+  }
 }
@@ -25,18 +25,21 @@ public class PdxInstanceHelper {
   private static final Logger logger = LogService.getLogger();
   
   PdxInstanceHelper m_parent;
+  GemFireCacheImpl m_cache;
   PdxInstanceFactoryImpl m_pdxInstanceFactory;
   PdxInstance m_pdxInstance;
   String m_PdxName;//when pdx is member, else null if part of lists
   
   public PdxInstanceHelper(String className , PdxInstanceHelper parent)
   {
-    GemFireCacheImpl gci = (GemFireCacheImpl)CacheFactory.getAnyInstance();
+    // nested objects use the cache of their parent instead of looking it up
+    GemFireCacheImpl gci = parent != null ? parent.m_cache : (GemFireCacheImpl)CacheFactory.getAnyInstance();
     if(logger.isTraceEnabled()) {
       logger.trace("ClassName {}", className );
     }
     m_PdxName = className;
     m_parent = parent;
+    m_cache = gci;
     m_pdxInstanceFactory = (PdxInstanceFactoryImpl)gci.createPdxInstanceFactory(JSONFormatter.JSON_CLASSNAME, false);
   }
   
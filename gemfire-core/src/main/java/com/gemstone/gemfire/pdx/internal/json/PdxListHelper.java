@@ -8,14 +8,12 @@
 package com.gemstone.gemfire.pdx.internal.json; 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.logging.log4j.Logger;
 
-import com.gemstone.gemfire.cache.CacheFactory;
 import com.gemstone.gemfire.i18n.LogWriterI18n;
-import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.logging.LogService;
 
 /*
@@ -26,11 +24,10 @@ public class PdxListHelper {
   
   String m_name;
   PdxListHelper m_parent;
-  List list = new LinkedList();
+  List list = new ArrayList();
   
   public PdxListHelper(PdxListHelper parent, String name)
   {
-    GemFireCacheImpl gci = (GemFireCacheImpl)CacheFactory.getAnyInstance();
     m_name = name;
     if(logger.isTraceEnabled()) {
       logger.trace("PdxListHelper name: {}", name  );
@@ -7,6 +7,8 @@
  */
 package com.gemstone.gemfire.pdx.internal.json; 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collection;
@@ -32,6 +34,9 @@ import com.gemstone.gemfire.pdx.internal.EnumInfo.PdxInstanceEnumInfo;
 public class PdxToJSON 
 {
   public static boolean PDXTOJJSON_UNQUOTEFIELDNAMES = Boolean.getBoolean("pdxToJson.unQuoteFieldNames");
+  
+  /** shared so that generators recycle their buffers */
+  private static final JsonFactory jsonFactory = new JsonFactory();
   private PdxInstance m_pdxInstance;
   public PdxToJSON(PdxInstance pdx)
   {
@@ -40,32 +45,25 @@ public class PdxToJSON
   
   public String getJSON()
   {
-    JsonFactory jf = new JsonFactory();
-   // OutputStream os = new ByteArrayOutputStream();
-    HeapDataOutputStream hdos = new HeapDataOutputStream(com.gemstone.gemfire.internal.Version.CURRENT);
+    // the generator escapes non ascii characters, so chars are written
+    // directly instead of as utf-8 bytes that are then decoded
+    StringWriter sw = new StringWriter();
     try {
-      JsonGenerator jg = jf.createJsonGenerator(hdos, JsonEncoding.UTF8);
+      JsonGenerator jg = jsonFactory.createGenerator(sw);
       enableDisableJSONGeneratorFeature(jg);
       getJSONString(jg, m_pdxInstance);
       jg.close();
-      return new String(hdos.toByteArray());
+      return sw.toString();
     } catch (IOException e) {
-      // TODO Auto-generated catch block
       throw new RuntimeException(e.getMessage());
-    }finally{
-        hdos.close();
     }
   }
   
   public byte[] getJSONByteArray()
   {
-    JsonFactory jf = new JsonFactory();
     HeapDataOutputStream hdos = new HeapDataOutputStream(com.gemstone.gemfire.internal.Version.CURRENT);
     try {
-      JsonGenerator jg = jf.createJsonGenerator(hdos, JsonEncoding.UTF8);
-      enableDisableJSONGeneratorFeature(jg);
-      getJSONString(jg, m_pdxInstance);
-      jg.close();      
+      writeJSON(hdos);
       return hdos.toByteArray();
     } catch (IOException e) {
       // TODO Auto-generated catch block
@@ -75,6 +73,19 @@ public class PdxToJSON
     }    
   }
   
+  /**
+   * Writes the JSON document as utf-8 to <code>out</code> while the fields
+   * are read. <code>out</code> is flushed but not closed.
+   * @since 9.0
+   */
+  public void writeJSON(OutputStream out) throws IOException
+  {
+    JsonGenerator jg = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+    enableDisableJSONGeneratorFeature(jg);
+    getJSONString(jg, m_pdxInstance);
+    jg.close();
+  }
+  
   private void enableDisableJSONGeneratorFeature(JsonGenerator jg) {
     jg.enable(Feature.ESCAPE_NON_ASCII);
     jg.disable(Feature.AUTO_CLOSE_TARGET); 
@@ -0,0 +1,148 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.query.NameNotFoundException;
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class AttributeAccessorJUnitTest {
+
+  @Test
+  public void testGeneratedFieldAccess() throws Exception {
+    Holder holder = new Holder();
+    assertGenerated(accessor(Holder.class, "count", false));
+    assertEquals(Integer.valueOf(7), accessor(Holder.class, "count", false).read(holder));
+    assertEquals("name", accessor(Holder.class, "name", false).read(holder));
+    assertNull(accessor(Holder.class, "empty", false).read(holder));
+  }
+
+  @Test
+  public void testGeneratedGetterAccess() throws Exception {
+    Holder holder = new Holder();
+    // the bean getter is found for the attribute name
+    assertGenerated(accessor(Holder.class, "price", false));
+    assertEquals(Double.valueOf(1.5), accessor(Holder.class, "price", false).read(holder));
+    assertEquals(Long.valueOf(Long.MAX_VALUE), accessor(Holder.class, "big", false).read(holder));
+    assertEquals(Boolean.TRUE, accessor(Holder.class, "isActive", true).read(holder));
+    assertEquals(Character.valueOf('x'), accessor(Holder.class, "letter", true).read(holder));
+    int[] values = (int[])accessor(Holder.class, "values", true).read(holder);
+    assertEquals(2, values.length);
+  }
+
+  @Test
+  public void testInterfaceAndInheritedMembers() throws Exception {
+    // a method inherited from a JDK class
+    assertEquals(Integer.valueOf(3), accessor(String.class, "length", true).read("abc"));
+    assertEquals(Integer.valueOf(7), accessor(SubHolder.class, "count", false).read(new SubHolder()));
+  }
+
+  @Test
+  public void testNonPublicClassUsesReflection() throws Exception {
+    AttributeAccessor accessor = accessor(Hidden.class, "id", false);
+    assertTrue(accessor instanceof AttributeAccessor.ReflectiveAccessor);
+    assertEquals(Integer.valueOf(3), accessor.read(new Hidden()));
+  }
+
+  @Test
+  public void testExceptionsArePassedOn() throws Exception {
+    try {
+      accessor(Holder.class, "fail", true).read(new Holder());
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+    try {
+      accessor(Holder.class, "failChecked", true).read(new Holder());
+      fail("expected IOException");
+    } catch (Exception expected) {
+      assertTrue(expected instanceof IOException);
+    }
+  }
+
+  @Test
+  public void testAccessorsAreCached() throws Exception {
+    assertSame(accessor(Holder.class, "name", false),
+        accessor(Holder.class, "name", false));
+  }
+
+  @Test
+  public void testUnknownName() throws Exception {
+    try {
+      accessor(Holder.class, "nosuch", false);
+      fail("expected NameNotFoundException");
+    } catch (NameNotFoundException expected) {
+    }
+    try {
+      accessor(Holder.class, "nosuch", true);
+      fail("expected NameNotFoundException");
+    } catch (NameNotFoundException expected) {
+    }
+  }
+
+  private static AttributeAccessor accessor(Class c, String name,
+      boolean isMethod) throws NameNotFoundException {
+    return AttributeAccessor.getAccessor(c, name, isMethod);
+  }
+
+  private static void assertGenerated(AttributeAccessor accessor) {
+    assertFalse(accessor instanceof AttributeAccessor.ReflectiveAccessor);
+  }
+
+  public static class Holder {
+    public int count = 7;
+    public String name = "name";
+    public Object empty;
+
+    public double getPrice() {
+      return 1.5;
+    }
+
+    public long getBig() {
+      return Long.MAX_VALUE;
+    }
+
+    public boolean isActive() {
+      return true;
+    }
+
+    public char letter() {
+      return 'x';
+    }
+
+    public int[] values() {
+      return new int[] { 1, 2 };
+    }
+
+    public int fail() {
+      throw new IllegalStateException();
+    }
+
+    public int failChecked() throws IOException {
+      throw new IOException();
+    }
+  }
+
+  public static class SubHolder extends Holder {
+  }
+
+  static class Hidden {
+    public int id = 3;
+  }
+}
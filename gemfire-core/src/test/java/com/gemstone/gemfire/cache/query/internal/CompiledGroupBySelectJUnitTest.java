@@ -0,0 +1,106 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.query.QueryInvalidException;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class CompiledGroupBySelectJUnitTest {
+
+  private static CompiledSelect compile(String query) {
+    return (CompiledSelect)new QCompiler().compileQuery(query);
+  }
+
+  @Test
+  public void testGroupByCompilesToGroupedSelect() {
+    CompiledSelect cs = compile("select p.status, count(*), sum(p.ID) from /portfolios p "
+        + "where p.ID > 0 group by p.status having max(p.ID) > 2 order by p.status desc limit 5");
+    assertTrue(cs.isGroupBy());
+    CompiledGroupBySelect gs = (CompiledGroupBySelect)cs;
+    assertEquals(1, gs.getGroupByAttrs().size());
+    List projAttrs = gs.getProjectionAttributes();
+    assertEquals(3, projAttrs.size());
+    // the grouping expression is evaluated once per group
+    assertEquals(CompiledValue.GROUP_KEY, ((CompiledValue)((Object[])projAttrs.get(0))[1]).getType());
+    assertEquals(CompiledValue.AGG_FUNC, ((CompiledValue)((Object[])projAttrs.get(1))[1]).getType());
+    assertNotNull(gs.getOrderByAttrs());
+    assertNotNull(gs.getWhereClause());
+  }
+
+  @Test
+  public void testAggregateWithoutGroupBy() {
+    assertTrue(compile("select sum(p.ID) from /portfolios p").isGroupBy());
+    assertTrue(compile("select count(p.status) from /portfolios p").isGroupBy());
+    assertTrue(compile("select min(p.ID), max(p.ID) from /portfolios p").isGroupBy());
+  }
+
+  @Test
+  public void testCountStarKeepsUngroupedSelect() {
+    CompiledSelect cs = compile("select count(*) from /portfolios p where p.ID > 0");
+    assertFalse(cs.isGroupBy());
+    assertTrue(cs.isCount());
+    assertFalse(compile("select * from /portfolios p order by p.ID").isGroupBy());
+  }
+
+  @Test
+  public void testInvalidAggregates() {
+    String[] queries = { "select p.ID from /portfolios p where sum(p.ID) > 1",
+        "select sum(max(p.ID)) from /portfolios p", "select * from /portfolios p group by p.status",
+        "select p.status from /portfolios p group by count(*)" };
+    for (String query : queries) {
+      try {
+        compile(query);
+        fail("expected QueryInvalidException for " + query);
+      }
+      catch (QueryInvalidException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void testSumAndMerge() throws Exception {
+    CompiledAggregateFunction sum = new CompiledAggregateFunction(OQLLexerTokenTypes.LITERAL_sum,
+        new CompiledLiteral(null));
+    assertEquals(Long.valueOf(7), sum.merge(Long.valueOf(3), Long.valueOf(4)));
+    assertEquals(Double.valueOf(3.5), sum.merge(Long.valueOf(3), Double.valueOf(0.5)));
+    assertEquals(Long.valueOf(3), sum.merge(null, Long.valueOf(3)));
+    assertNull(sum.getResult(null));
+  }
+
+  @Test
+  public void testAvgMergesSumsAndCounts() throws Exception {
+    CompiledAggregateFunction avg = new CompiledAggregateFunction(OQLLexerTokenTypes.LITERAL_avg,
+        new CompiledLiteral(null));
+    Object state = avg.merge(new Object[] { Long.valueOf(10), 4 }, new Object[] { Long.valueOf(2), 2 });
+    assertEquals(Double.valueOf(2.0), avg.getResult(state));
+    assertNull(avg.getResult(null));
+  }
+
+  @Test
+  public void testCountMinMax() throws Exception {
+    CompiledAggregateFunction count = new CompiledAggregateFunction(OQLLexerTokenTypes.LITERAL_count, null);
+    assertEquals(Integer.valueOf(0), count.getResult(null));
+    assertEquals(Integer.valueOf(5), count.merge(2, 3));
+    CompiledAggregateFunction min = new CompiledAggregateFunction(OQLLexerTokenTypes.LITERAL_min,
+        new CompiledLiteral(null));
+    assertEquals("a", min.merge("b", "a"));
+    assertEquals(Integer.valueOf(1), min.merge(Integer.valueOf(1), Long.valueOf(2)));
+    CompiledAggregateFunction max = new CompiledAggregateFunction(OQLLexerTokenTypes.LITERAL_max,
+        new CompiledLiteral(null));
+    assertEquals("b", max.merge("b", "a"));
+  }
+}
@@ -0,0 +1,220 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.Struct;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.PRQueryProcessor;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Executes GROUP BY queries with HAVING, ORDER BY and each aggregate function
+ * on a replicated region and on a partitioned region, where the partial
+ * groups of the buckets are merged by the querying member.
+ */
+@Category(IntegrationTest.class)
+public class GroupByQueryJUnitTest {
+
+  private static final int PORTFOLIOS = 100;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Object, Object> replicated = this.cache.createRegionFactory(RegionShortcut.REPLICATE)
+        .create("replicated");
+    Region<Object, Object> partitioned = this.cache.createRegionFactory(RegionShortcut.PARTITION)
+        .create("partitioned");
+    this.cache.createRegionFactory(RegionShortcut.PARTITION).create("empty");
+    for (int i = 0; i < PORTFOLIOS; i++) {
+      replicated.put(i, new Portfolio(i));
+      partitioned.put(i, new Portfolio(i));
+    }
+    // scan the buckets separately so that each one returns partial groups
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+  }
+
+  @After
+  public void tearDown() {
+    PRQueryProcessor.TEST_NUM_THREADS = 0;
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private List<Object> execute(String query) throws Exception {
+    return new ArrayList<Object>((SelectResults)this.cache.getQueryService().newQuery(query).execute());
+  }
+
+  /**
+   * Returns the rows of the results keyed by their first field.
+   */
+  private Map<Object, List<Object>> executeGrouped(String query) throws Exception {
+    Map<Object, List<Object>> rows = new HashMap<Object, List<Object>>();
+    for (Object o : execute(query)) {
+      List<Object> values = Arrays.asList(((Struct)o).getFieldValues());
+      assertNull(query, rows.put(values.get(0), values.subList(1, values.size())));
+    }
+    return rows;
+  }
+
+  private static List<Object> row(Object... values) {
+    return Arrays.asList(values);
+  }
+
+  @Test
+  public void testCountByGroupReplicated() throws Exception {
+    checkCountByGroup("/replicated");
+  }
+
+  @Test
+  public void testCountByGroupPartitioned() throws Exception {
+    checkCountByGroup("/partitioned");
+  }
+
+  private void checkCountByGroup(String region) throws Exception {
+    Map<Object, List<Object>> expected = new HashMap<Object, List<Object>>();
+    expected.put("active", row((Object)(PORTFOLIOS / 2)));
+    expected.put("inactive", row((Object)(PORTFOLIOS / 2)));
+    assertEquals(expected, executeGrouped("select p.status, count(*) from " + region + " p group by p.status"));
+
+    expected.clear();
+    expected.put("active", row((Object)5));
+    expected.put("inactive", row((Object)5));
+    assertEquals(expected, executeGrouped("select p.status, count(*) from " + region
+        + " p where p.ID < 10 group by p.status"));
+  }
+
+  @Test
+  public void testAggregatesReplicated() throws Exception {
+    checkAggregates("/replicated");
+  }
+
+  @Test
+  public void testAggregatesPartitioned() throws Exception {
+    checkAggregates("/partitioned");
+  }
+
+  private void checkAggregates(String region) throws Exception {
+    Map<Object, List<Object>> expected = new HashMap<Object, List<Object>>();
+    for (int type = 0; type < 3; type++) {
+      long sum = 0;
+      int count = 0;
+      int min = Integer.MAX_VALUE;
+      int max = Integer.MIN_VALUE;
+      int described = 0;
+      for (int i = type; i < PORTFOLIOS; i += 3) {
+        sum += i;
+        count++;
+        min = Math.min(min, i);
+        max = Math.max(max, i);
+        if (i % 2 != 0) {
+          // the description of even portfolios is null, which count skips
+          described++;
+        }
+      }
+      expected.put("type" + type, row(sum, (double)sum / count, min, max, described));
+    }
+    assertEquals(expected, executeGrouped("select p.getType(), sum(p.ID), avg(p.ID), min(p.ID), max(p.ID), "
+        + "count(p.description) from " + region + " p group by p.getType()"));
+
+    // without group by all the rows are one group
+    assertEquals(row(Long.valueOf(PORTFOLIOS * (PORTFOLIOS - 1) / 2)),
+        execute("select sum(p.ID) from " + region + " p"));
+    List<Object> results = execute("select min(p.ID), max(p.ID), avg(p.ID) from " + region + " p where p.ID < 10");
+    assertEquals(1, results.size());
+    assertEquals(row(0, 9, 4.5), Arrays.asList(((Struct)results.get(0)).getFieldValues()));
+    // and a group without rows still gives one
+    results = execute("select count(p.ID), sum(p.ID) from " + region + " p where p.ID < 0");
+    assertEquals(1, results.size());
+    assertEquals(row(0, null), Arrays.asList(((Struct)results.get(0)).getFieldValues()));
+  }
+
+  @Test
+  public void testHavingReplicated() throws Exception {
+    checkHaving("/replicated");
+  }
+
+  @Test
+  public void testHavingPartitioned() throws Exception {
+    checkHaving("/partitioned");
+  }
+
+  private void checkHaving(String region) throws Exception {
+    // the sums of the IDs from 10 are 1665, 1605 and 1635 by type
+    Map<Object, List<Object>> expected = new HashMap<Object, List<Object>>();
+    expected.put("type0", row((Object)30));
+    assertEquals(expected, executeGrouped("select p.getType(), count(*) from " + region
+        + " p where p.ID >= 10 group by p.getType() having sum(p.ID) > 1640"));
+
+    expected.put("type2", row((Object)30));
+    assertEquals(expected, executeGrouped("select p.getType(), count(*) from " + region
+        + " p where p.ID >= 10 group by p.getType() having sum(p.ID) > 1610 and max(p.ID) >= 98"));
+
+    assertTrue(execute("select p.getType(), count(*) from " + region
+        + " p group by p.getType() having count(*) > " + PORTFOLIOS).isEmpty());
+  }
+
+  @Test
+  public void testOrderByAndLimitReplicated() throws Exception {
+    checkOrderByAndLimit("/replicated");
+  }
+
+  @Test
+  public void testOrderByAndLimitPartitioned() throws Exception {
+    checkOrderByAndLimit("/partitioned");
+  }
+
+  private void checkOrderByAndLimit(String region) throws Exception {
+    List<Object> results = execute("select p.getType(), max(p.ID) from " + region
+        + " p group by p.getType() order by p.getType() desc");
+    assertEquals(3, results.size());
+    assertEquals(row("type2", 98), Arrays.asList(((Struct)results.get(0)).getFieldValues()));
+    assertEquals(row("type1", 97), Arrays.asList(((Struct)results.get(1)).getFieldValues()));
+    assertEquals(row("type0", 99), Arrays.asList(((Struct)results.get(2)).getFieldValues()));
+
+    // the sums of all the IDs are 1683, 1617 and 1650 by type
+    results = execute("select p.getType(), sum(p.ID) from " + region
+        + " p group by p.getType() order by sum(p.ID) limit 2");
+    assertEquals(2, results.size());
+    assertEquals(row("type1", 1617L), Arrays.asList(((Struct)results.get(0)).getFieldValues()));
+    assertEquals(row("type2", 1650L), Arrays.asList(((Struct)results.get(1)).getFieldValues()));
+  }
+
+  @Test
+  public void testEmptyPartitionedRegion() throws Exception {
+    assertEquals(row(0), execute("select count(p.ID) from /empty p"));
+    assertTrue(execute("select p.getType(), count(*) from /empty p group by p.getType()").isEmpty());
+  }
+}
@@ -0,0 +1,211 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Index;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests the choices of the {@link IndexCostModel}: which index evaluates an
+ * AND junction of conditions of skewed selectivity, when the results of a
+ * second index are intersected with it, and in which order the joins of a
+ * composite junction are evaluated.
+ */
+@Category(IntegrationTest.class)
+public class IndexCostModelJUnitTest implements OQLLexerTokenTypes {
+
+  private static final int ITEMS = 1000;
+
+  private Cache cache;
+
+  /** the names of the indexes the planner selected, in order */
+  private final List<String> selected = new ArrayList<String>();
+
+  /** the names of the index pairs of the merge joins, in order */
+  private final List<String> joined = new ArrayList<String>();
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void indexSelected(Index index, int estimatedSize, double estimatedCost) {
+        IndexCostModelJUnitTest.this.selected.add(index.getName());
+      }
+
+      @Override
+      public void beforeMergeJoinOfDoubleIndexResults(Index index1, Index index2, Collection initialResult) {
+        IndexCostModelJUnitTest.this.joined.add(index1.getName() + "," + index2.getName());
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    QueryObserverHolder.reset();
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private Region<Object, Object> createRegion(String name, int size) {
+    Region<Object, Object> region = this.cache.createRegionFactory(RegionShortcut.REPLICATE).create(name);
+    for (int i = 0; i < size; i++) {
+      region.put(i, new Item(i));
+    }
+    return region;
+  }
+
+  private int execute(String query) throws Exception {
+    this.selected.clear();
+    this.joined.clear();
+    return ((SelectResults)this.cache.getQueryService().newQuery(query).execute()).size();
+  }
+
+  private static Filter filter(int operator) {
+    return new CompiledComparison(new CompiledLiteral(Integer.valueOf(0)), new CompiledLiteral(Integer.valueOf(0)),
+        operator);
+  }
+
+  @Test
+  public void testIsBetterFilter() {
+    // a selective range is better than an unselective equality
+    assertTrue(IndexCostModel.isBetterFilter(filter(TOK_LT), 10, filter(TOK_EQ), 500));
+    assertFalse(IndexCostModel.isBetterFilter(filter(TOK_EQ), 500, filter(TOK_LT), 10));
+    // with the same size an equality takes fewer probes than a range,
+    // which takes fewer than an inequality
+    assertTrue(IndexCostModel.isBetterFilter(filter(TOK_EQ), 100, filter(TOK_GE), 100));
+    assertFalse(IndexCostModel.isBetterFilter(filter(TOK_GE), 100, filter(TOK_EQ), 100));
+    assertTrue(IndexCostModel.isBetterFilter(filter(TOK_GT), 100, filter(TOK_NE), 100));
+    assertFalse(IndexCostModel.isBetterFilter(filter(TOK_NE), 100, filter(TOK_GT), 100));
+    // and equal costs keep the filter compared
+    assertTrue(IndexCostModel.isBetterFilter(filter(TOK_EQ), 100, filter(TOK_EQ), 100));
+  }
+
+  @Test
+  public void testShouldIntersect() {
+    // a second lookup of about the size of the results is cheaper than
+    // evaluating the condition on each result
+    assertTrue(IndexCostModel.shouldIntersect(100, filter(TOK_EQ), 100));
+    assertTrue(IndexCostModel.shouldIntersect(100, filter(TOK_LT), 140));
+    // a much larger one is not
+    assertFalse(IndexCostModel.shouldIntersect(100, filter(TOK_LT), 200));
+    assertFalse(IndexCostModel.shouldIntersect(10, filter(TOK_EQ), 1000));
+    // nor is any lookup when there are no results to condition
+    assertFalse(IndexCostModel.shouldIntersect(0, filter(TOK_EQ), 0));
+  }
+
+  @Test
+  public void testSkewedSelectivity() throws Exception {
+    createRegion("items", ITEMS);
+    QueryService qs = this.cache.getQueryService();
+    qs.createIndex("idIndex", "p.id", "/items p");
+    qs.createIndex("statusIndex", "p.status", "/items p");
+
+    // almost every item is active, so the range on the id is more selective
+    // than the equality on the status
+    assertEquals(20, execute("select * from /items p where p.status = 'active' and p.id < 20"));
+    assertEquals(Arrays.asList("idIndex"), this.selected);
+
+    // and only a few are inactive
+    assertEquals(5, execute("select * from /items p where p.status = 'inactive' and p.id >= 500"));
+    assertEquals(Arrays.asList("statusIndex"), this.selected);
+
+    // whichever order they are written in
+    assertEquals(20, execute("select * from /items p where p.id < 20 and p.status = 'active'"));
+    assertEquals(Arrays.asList("idIndex"), this.selected);
+  }
+
+  @Test
+  public void testIntersection() throws Exception {
+    createRegion("items", ITEMS);
+    QueryService qs = this.cache.getQueryService();
+    qs.createIndex("idIndex", "p.id", "/items p");
+    qs.createIndex("rankIndex", "p.rank", "/items p");
+    qs.createIndex("statusIndex", "p.status", "/items p");
+
+    // the ranks are the ids halved, so the second range is about as
+    // selective as the first and is worth intersecting
+    assertEquals(100, execute("select * from /items p where p.id < 100 and p.rank < 55"));
+    assertEquals(Arrays.asList("idIndex", "rankIndex"), this.selected);
+
+    // while the status is not
+    assertEquals(99, execute("select * from /items p where p.id < 100 and p.status = 'active'"));
+    assertEquals(Arrays.asList("idIndex"), this.selected);
+  }
+
+  @Test
+  public void testJoinOrder() throws Exception {
+    createRegion("left", 100);
+    createRegion("right", 100);
+    QueryService qs = this.cache.getQueryService();
+    qs.createIndex("leftId", "a.id", "/left a");
+    qs.createIndex("rightId", "b.id", "/right b");
+    qs.createIndex("leftStatus", "a.status", "/left a");
+    qs.createIndex("rightStatus", "b.status", "/right b");
+
+    // every id matches one item while every status matches a hundred, so
+    // the join on the ids is evaluated first though it is written last
+    assertEquals(100, execute("select * from /left a, /right b where a.status = b.status and a.id = b.id"));
+    assertEquals(1, this.joined.size());
+    assertTrue(this.joined.toString(), this.joined.get(0).contains("Id"));
+
+    assertEquals(100, execute("select * from /left a, /right b where a.id = b.id and a.status = b.status"));
+    assertEquals(1, this.joined.size());
+    assertTrue(this.joined.toString(), this.joined.get(0).contains("Id"));
+  }
+
+  public static class Item implements Serializable {
+    public int id;
+    public int rank;
+    public String status;
+
+    public Item(int id) {
+      this.id = id;
+      this.rank = id / 2;
+      this.status = id % 100 == 99 ? "inactive" : "active";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Item && ((Item)o).id == this.id;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.id;
+    }
+  }
+}
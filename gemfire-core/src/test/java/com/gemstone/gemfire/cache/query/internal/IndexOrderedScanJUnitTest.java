@@ -0,0 +1,237 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.PRQueryProcessor;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that a select ordered by an indexed expression with a limit gives
+ * the same results when it reads its region in the order of the index as
+ * when it sorts them, on a replicated region and on the merged bucket
+ * indexes of a partitioned region.
+ */
+@Category(IntegrationTest.class)
+public class IndexOrderedScanJUnitTest {
+
+  private static final int ITEMS = 200;
+
+  private Cache cache;
+
+  /** the number of values the last query evaluated */
+  private int iterations;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Object, Object> replicated = this.cache.createRegionFactory(RegionShortcut.REPLICATE)
+        .create("replicated");
+    Region<Object, Object> partitioned = this.cache.createRegionFactory(RegionShortcut.PARTITION)
+        .create("partitioned");
+    this.cache.getQueryService().createIndex("replicatedRank", "p.detail.rank", "/replicated p");
+    this.cache.getQueryService().createIndex("partitionedRank", "p.detail.rank", "/partitioned p");
+    for (int i = 0; i < ITEMS; i++) {
+      // the keys are not in the order of the ranks
+      Item item = new Item(i, (i * 7) % ITEMS);
+      if (i == 13) {
+        // indexed under null
+        item.detail.rank = null;
+      } else if (i == 17) {
+        // indexed under UNDEFINED
+        item.detail = null;
+      }
+      replicated.put(i, item);
+      partitioned.put(i, item);
+    }
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeIterationEvaluation(CompiledValue executer, Object currentObject) {
+        IndexOrderedScanJUnitTest.this.iterations++;
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    CompiledSelect.INDEX_ORDERED_SCAN = true;
+    PRQueryProcessor.TEST_NUM_THREADS = 0;
+    QueryObserverHolder.reset();
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private List<Object> execute(String query, boolean indexOrdered) throws Exception {
+    CompiledSelect.INDEX_ORDERED_SCAN = indexOrdered;
+    this.iterations = 0;
+    return new ArrayList<Object>((SelectResults)this.cache.getQueryService().newQuery(query).execute());
+  }
+
+  /**
+   * Asserts that the query gives the same results in the same order either
+   * way and returns them.
+   *
+   * @param scansIndex whether reading in index order must have read fewer
+   *          values than sorting
+   */
+  private List<Object> assertSameAsSorted(String query, boolean scansIndex) throws Exception {
+    List<Object> sorted = execute(query, false);
+    int sortedIterations = this.iterations;
+    List<Object> indexOrdered = execute(query, true);
+    assertEquals(query, sorted, indexOrdered);
+    if (scansIndex) {
+      assertTrue(query + " read " + this.iterations + " values", this.iterations < sortedIterations);
+    }
+    return indexOrdered;
+  }
+
+  private void checkQueries(String region, boolean scansIndex) throws Exception {
+    String select = "select distinct * from " + region + " p ";
+
+    List<Object> results = assertSameAsSorted(select + "order by p.detail.rank limit 10", scansIndex);
+    assertEquals(10, results.size());
+    // null sorts first, then UNDEFINED
+    assertEquals(13, ((Item)results.get(0)).id);
+    assertEquals(17, ((Item)results.get(1)).id);
+    for (int i = 2; i < 10; i++) {
+      assertEquals(Integer.valueOf(i - 2), ((Item)results.get(i)).detail.rank);
+    }
+
+    results = assertSameAsSorted(select + "order by p.detail.rank desc limit 10", scansIndex);
+    assertEquals(10, results.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.valueOf(ITEMS - 1 - i), ((Item)results.get(i)).detail.rank);
+    }
+
+    // a limit beyond the size reads everything, with null and UNDEFINED last
+    results = assertSameAsSorted(select + "order by p.detail.rank desc limit 250", false);
+    assertEquals(ITEMS, results.size());
+    assertEquals(17, ((Item)results.get(ITEMS - 2)).id);
+    assertEquals(13, ((Item)results.get(ITEMS - 1)).id);
+
+    // the where clause is applied to each value read
+    results = assertSameAsSorted(select + "where p.id > 50 order by p.detail.rank limit 5", scansIndex);
+    assertEquals(5, results.size());
+    for (Object o : results) {
+      assertTrue(((Item)o).id > 50);
+    }
+    assertSameAsSorted(select + "where p.id < 150 and p.id > 20 order by p.detail.rank desc limit 7", scansIndex);
+    assertTrue(assertSameAsSorted(select + "where p.id < 0 order by p.detail.rank limit 5", false).isEmpty());
+
+    // and the projection
+    results = assertSameAsSorted("select distinct p.detail.rank from " + region
+        + " p where p.detail != null order by p.detail.rank limit 5", scansIndex);
+    assertEquals(5, results.size());
+    assertEquals(null, results.get(0));
+    for (int i = 1; i < 5; i++) {
+      assertEquals(Integer.valueOf(i - 1), results.get(i));
+    }
+  }
+
+  @Test
+  public void testReplicated() throws Exception {
+    checkQueries("/replicated", true);
+  }
+
+  @Test
+  public void testPartitionedMergesBuckets() throws Exception {
+    // all the buckets are evaluated together, through their merged indexes
+    PRQueryProcessor.TEST_NUM_THREADS = 1;
+    checkQueries("/partitioned", true);
+  }
+
+  @Test
+  public void testPartitionedPerBucket() throws Exception {
+    // each bucket is evaluated on its own and the results merged by sorting
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    checkQueries("/partitioned", false);
+  }
+
+  @Test
+  public void testUpdatedValues() throws Exception {
+    Region<Object, Object> replicated = this.cache.getRegion("replicated");
+    Region<Object, Object> partitioned = this.cache.getRegion("partitioned");
+    for (int i = 0; i < 10; i++) {
+      // moves the first ranks to the end
+      Item item = new Item(i, ITEMS + i);
+      replicated.put(i, item);
+      partitioned.put(i, item);
+    }
+    replicated.remove(20);
+    partitioned.remove(20);
+    checkUpdated("/replicated");
+    PRQueryProcessor.TEST_NUM_THREADS = 1;
+    checkUpdated("/partitioned");
+  }
+
+  private void checkUpdated(String region) throws Exception {
+    String select = "select distinct * from " + region + " p ";
+    List<Object> results = assertSameAsSorted(select + "order by p.detail.rank desc limit 3", true);
+    assertEquals(Integer.valueOf(ITEMS + 9), ((Item)results.get(0)).detail.rank);
+    results = assertSameAsSorted(select + "where p.detail != null order by p.detail.rank limit 3", true);
+    assertEquals(null, ((Item)results.get(0)).detail.rank);
+    // the rank of item 20 was 140
+    assertTrue(assertSameAsSorted(select + "where p.detail.rank = 140 order by p.detail.rank limit 3",
+        false).isEmpty());
+  }
+
+  public static class Item implements Serializable {
+    public int id;
+    public Detail detail;
+
+    public Item(int id, int rank) {
+      this.id = id;
+      this.detail = new Detail(rank);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Item && ((Item)o).id == this.id;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.id;
+    }
+
+    @Override
+    public String toString() {
+      return "Item(" + this.id + ", " + (this.detail == null ? null : this.detail.rank) + ")";
+    }
+  }
+
+  public static class Detail implements Serializable {
+    public Integer rank;
+
+    public Detail(Integer rank) {
+      this.rank = rank;
+    }
+  }
+}
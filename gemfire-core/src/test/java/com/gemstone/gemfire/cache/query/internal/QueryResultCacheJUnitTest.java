@@ -0,0 +1,188 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.CachePerfStats;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests the {@link QueryResultCache} through the executions of queries on a
+ * region that enables it.
+ */
+@Category(IntegrationTest.class)
+public class QueryResultCacheJUnitTest {
+
+  static {
+    // read when the QueryResultCache class is initialized
+    System.setProperty("gemfire.Query.RESULT_CACHE_SIZE", "10");
+  }
+
+  private static final String QUERY = "select * from /portfolios p where p.ID > 0";
+
+  private GemFireCacheImpl cache;
+  private Region<Object, Object> region;
+  private Query query;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = (GemFireCacheImpl)new CacheFactory(props).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.REPLICATE).create("portfolios");
+    for (int i = 1; i <= 3; i++) {
+      this.region.put(i, new Portfolio(i));
+    }
+    DefaultQueryService queryService = (DefaultQueryService)this.cache.getQueryService();
+    queryService.setResultCacheEnabled(this.region, true);
+    this.query = queryService.newQuery(QUERY);
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private CachePerfStats getStats() {
+    return this.cache.getCachePerfStats();
+  }
+
+  private SelectResults execute() throws Exception {
+    return (SelectResults)this.query.execute();
+  }
+
+  private static Set<Integer> ids(SelectResults results) {
+    Set<Integer> ids = new HashSet<Integer>();
+    for (Iterator it = results.iterator(); it.hasNext();) {
+      ids.add(((Portfolio)it.next()).ID);
+    }
+    return ids;
+  }
+
+  private static Set<Integer> ids(int... values) {
+    Set<Integer> ids = new HashSet<Integer>();
+    for (int i = 0; i < values.length; i++) {
+      ids.add(values[i]);
+    }
+    return ids;
+  }
+
+  @Test
+  public void testHitReturnsEqualResults() throws Exception {
+    int hits = getStats().getQueryResultCacheHits();
+    int misses = getStats().getQueryResultCacheMisses();
+    SelectResults first = execute();
+    assertEquals(misses + 1, getStats().getQueryResultCacheMisses());
+
+    SelectResults second = execute();
+    assertEquals(hits + 1, getStats().getQueryResultCacheHits());
+    assertEquals(misses + 1, getStats().getQueryResultCacheMisses());
+    assertEquals(ids(1, 2, 3), ids(first));
+    assertEquals(ids(first), ids(second));
+    assertEquals(first.size(), second.size());
+    assertEquals(first.getCollectionType(), second.getCollectionType());
+  }
+
+  @Test
+  public void testResultsCannotBeModified() throws Exception {
+    SelectResults[] results = { execute(), execute() };
+    for (int i = 0; i < results.length; i++) {
+      SelectResults result = results[i];
+      assertFalse(result.isModifiable());
+      try {
+        result.clear();
+        fail("expected UnsupportedOperationException");
+      } catch (UnsupportedOperationException expected) {
+      }
+      try {
+        result.add(new Portfolio(4));
+        fail("expected UnsupportedOperationException");
+      } catch (UnsupportedOperationException expected) {
+      }
+      Iterator it = result.iterator();
+      it.next();
+      try {
+        it.remove();
+        fail("expected UnsupportedOperationException");
+      } catch (UnsupportedOperationException expected) {
+      }
+      // the copies may be modified
+      result.asList().clear();
+      result.asSet().clear();
+    }
+    SelectResults next = execute();
+    assertEquals(ids(1, 2, 3), ids(next));
+    assertEquals(3, next.size());
+  }
+
+  @Test
+  public void testChangesInvalidateResults() throws Exception {
+    execute();
+
+    this.region.put(4, new Portfolio(4));
+    assertMiss(ids(1, 2, 3, 4));
+
+    this.region.invalidate(4);
+    assertMiss(ids(1, 2, 3));
+
+    this.region.destroy(3);
+    assertMiss(ids(1, 2));
+
+    this.region.clear();
+    assertMiss(ids());
+  }
+
+  /**
+   * Executes the query, which must miss the cache and see the given ids, and
+   * then executes it again, which must hit.
+   */
+  private void assertMiss(Set<Integer> expected) throws Exception {
+    int hits = getStats().getQueryResultCacheHits();
+    int misses = getStats().getQueryResultCacheMisses();
+    assertEquals(expected, ids(execute()));
+    assertEquals(misses + 1, getStats().getQueryResultCacheMisses());
+    assertEquals(expected, ids(execute()));
+    assertEquals(hits + 1, getStats().getQueryResultCacheHits());
+  }
+
+  @Test
+  public void testRegionNotEnabledIsNotCached() throws Exception {
+    DefaultQueryService queryService = (DefaultQueryService)this.cache.getQueryService();
+    queryService.setResultCacheEnabled(this.region, false);
+    int hits = getStats().getQueryResultCacheHits();
+    SelectResults first = execute();
+    execute();
+    assertEquals(hits, getStats().getQueryResultCacheHits());
+    assertTrue(first.isModifiable());
+  }
+}
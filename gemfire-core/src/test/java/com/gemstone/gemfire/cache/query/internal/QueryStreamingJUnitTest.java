@@ -0,0 +1,184 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.ServerOperationException;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryResultIterator;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.tier.sockets.BaseCommand;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests {@link Query#executeStreaming} on a pool, which reads the results
+ * from the server one chunk at a time, and on the local cache.
+ */
+@Category(IntegrationTest.class)
+public class QueryStreamingJUnitTest {
+
+  /** enough portfolios for several chunks and a partial last one */
+  private static final int PORTFOLIOS = 3 * BaseCommand.maximumChunkSize + 50;
+
+  private static final String QUERY = "select * from /portfolios p";
+
+  private Cache cache;
+  private PoolImpl pool;
+  private QueryService poolQueryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    Region<Object, Object> region = this.cache.createRegionFactory(RegionShortcut.REPLICATE)
+        .create("portfolios");
+    for (int i = 0; i < PORTFOLIOS; i++) {
+      region.put(i, new Portfolio(i));
+    }
+    CacheServer server = this.cache.addCacheServer();
+    server.setPort(0);
+    server.start();
+    // with a single connection a query that reuses a connection with unread
+    // chunks would read the results of the previous one
+    this.pool = (PoolImpl)PoolManager.createFactory()
+        .addServer("localhost", server.getPort()).setMinConnections(0)
+        .setMaxConnections(1).create("pool");
+    this.poolQueryService = this.pool.getQueryService();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.pool != null) {
+      this.pool.destroy();
+    }
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private QueryResultIterator<Object> executeStreaming(QueryService queryService,
+      String query, Object... params) throws Exception {
+    return queryService.newQuery(query).executeStreaming(params);
+  }
+
+  private static Set<Integer> ids(QueryResultIterator<Object> it) {
+    Set<Integer> ids = new HashSet<Integer>();
+    try {
+      while (it.hasNext()) {
+        assertTrue(ids.add(((Portfolio)it.next()).ID));
+      }
+    } finally {
+      it.close();
+    }
+    return ids;
+  }
+
+  private static Set<Integer> ids(int from, int to) {
+    Set<Integer> ids = new HashSet<Integer>();
+    for (int i = from; i < to; i++) {
+      ids.add(i);
+    }
+    return ids;
+  }
+
+  private static void assertDone(QueryResultIterator<Object> it) {
+    assertFalse(it.hasNext());
+    try {
+      it.next();
+      fail("expected NoSuchElementException");
+    } catch (NoSuchElementException expected) {
+    }
+  }
+
+  @Test
+  public void testAllChunks() throws Exception {
+    QueryResultIterator<Object> it = executeStreaming(this.poolQueryService, QUERY);
+    assertEquals(ids(0, PORTFOLIOS), ids(it));
+    assertDone(it);
+    // the connection went back to the pool
+    assertEquals(ids(0, PORTFOLIOS), ids(executeStreaming(this.poolQueryService, QUERY)));
+  }
+
+  @Test
+  public void testSingleChunk() throws Exception {
+    QueryResultIterator<Object> it = executeStreaming(this.poolQueryService,
+        "select * from /portfolios p where p.ID < $1", 10);
+    assertEquals(ids(0, 10), ids(it));
+
+    it = executeStreaming(this.poolQueryService, "select * from /portfolios p where p.ID < 0");
+    assertDone(it);
+    it.close();
+  }
+
+  @Test
+  public void testCloseEarly() throws Exception {
+    QueryResultIterator<Object> it = executeStreaming(this.poolQueryService, QUERY);
+    for (int i = 0; i < 10; i++) {
+      it.next();
+    }
+    it.close();
+    assertDone(it);
+    it.close();
+
+    // the chunks that were not read were dropped with the connection
+    assertEquals(ids(0, 10), ids(executeStreaming(this.poolQueryService,
+        "select * from /portfolios p where p.ID < 10")));
+  }
+
+  @Test
+  public void testServerError() throws Exception {
+    try {
+      executeStreaming(this.poolQueryService, "select * from /missing");
+      fail("expected ServerOperationException");
+    } catch (ServerOperationException expected) {
+    }
+    assertEquals(ids(0, PORTFOLIOS), ids(executeStreaming(this.poolQueryService, QUERY)));
+  }
+
+  @Test
+  public void testLocalQuery() throws Exception {
+    QueryService queryService = this.cache.getQueryService();
+    QueryResultIterator<Object> it = executeStreaming(queryService, QUERY);
+    assertEquals(ids(0, PORTFOLIOS), ids(it));
+    assertDone(it);
+
+    it = executeStreaming(queryService, "select count(*) from /portfolios p");
+    assertEquals(PORTFOLIOS, it.next());
+    assertDone(it);
+
+    it = executeStreaming(queryService, QUERY);
+    it.next();
+    it.close();
+    assertDone(it);
+  }
+}
@@ -0,0 +1,62 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class SortedResultSetJUnitTest {
+
+  @Test
+  public void testApplyLimitKeepsTheFirstElements() {
+    OrderByComparator comparator = new OrderByComparator(TypeUtils.OBJECT_TYPE);
+    SortedResultSet results = new SortedResultSet(comparator);
+    results.setElementType(TypeUtils.OBJECT_TYPE);
+    for (int i = 9; i >= 0; i--) {
+      add(results, comparator, "v" + i, Integer.valueOf(i), true);
+    }
+    results.applyLimit(3);
+    assertEquals(Arrays.asList("v9", "v8", "v7"), results.asList());
+    // the sort keys of the removed elements are dropped as well
+    assertEquals(3, comparator.orderByMap.size());
+    assertFalse(comparator.orderByMap.containsKey("v0"));
+
+    // a greater element is added and trimmed again
+    add(results, comparator, "v10", Integer.valueOf(10), true);
+    results.applyLimit(3);
+    assertEquals(Arrays.asList("v10", "v9", "v8"), results.asList());
+    assertTrue(comparator.orderByMap.containsKey("v10"));
+
+    results.applyLimit(5);
+    assertEquals(3, results.size());
+    results.applyLimit(0);
+    assertTrue(results.isEmpty());
+    assertTrue(comparator.orderByMap.isEmpty());
+  }
+
+  private static void add(SortedResultSet results,
+      OrderByComparator comparator, Object value, Object key,
+      boolean descending) {
+    List evaluated = new ArrayList();
+    evaluated.add(new Object[] { key, Boolean.valueOf(descending) });
+    comparator.orderByMap.put(value, evaluated);
+    results.add(value);
+  }
+}
@@ -0,0 +1,167 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that queries on a region whose index maintenance is asynchronous
+ * wait for the updates made before they started.
+ */
+@Category(IntegrationTest.class)
+public class AsyncIndexMaintenanceJUnitTest {
+
+  private static final String QUERY = "select * from /portfolios p where p.ID >= 0";
+
+  private Cache cache;
+  private Region<Object, Object> region;
+  private QueryService queryService;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.LOCAL)
+        .setIndexMaintenanceSynchronous(false).create("portfolios");
+    this.queryService = this.cache.getQueryService();
+    this.queryService.createIndex("idIndex", "p.ID", "/portfolios p");
+  }
+
+  @After
+  public void tearDown() {
+    IndexManager.testHook = null;
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private IndexManager.IndexUpdaterThread getUpdater() {
+    return ((LocalRegion)this.region).getIndexManager().getUpdaterThread();
+  }
+
+  private int executeQuery() throws Exception {
+    return ((SelectResults)this.queryService.newQuery(QUERY).execute()).size();
+  }
+
+  @Test
+  public void testQuerySeesPutsQueuedBeforeIt() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    IndexManager.testHook = new IndexManager.TestHook() {
+      @Override
+      public void hook(int spot) {
+        if (spot == 6) {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }
+    };
+    for (int i = 0; i < 50; i++) {
+      this.region.put(i, new Portfolio(i));
+    }
+    assertFalse(getUpdater().isDone());
+
+    Thread releaser = new Thread("releaser") {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(500);
+        } catch (InterruptedException ignore) {
+        }
+        release.countDown();
+      }
+    };
+    releaser.start();
+    // waits for the updater instead of reading the index while it is behind
+    assertEquals(50, executeQuery());
+    assertTrue(getUpdater().isDone());
+    releaser.join();
+
+    IndexManager.testHook = null;
+    this.region.destroy(0);
+    this.region.put(50, new Portfolio(50));
+    assertEquals(50, executeQuery());
+  }
+
+  @Test
+  public void testFailedUpdateDoesNotStopUpdater() throws Exception {
+    IndexManager.testHook = new IndexManager.TestHook() {
+      @Override
+      public void hook(int spot) {
+        if (spot == 6) {
+          IndexManager.testHook = null;
+          throw new IllegalStateException("expected by test");
+        }
+      }
+    };
+    this.region.put(0, new Portfolio(0));
+    this.region.put(1, new Portfolio(1));
+    ((LocalRegion)this.region).getIndexManager().waitForPendingUpdates();
+    assertTrue(getUpdater().isAlive());
+    assertTrue(getUpdater().isDone());
+    // the update after the failed one is in the index
+    assertEquals(1, ((SelectResults)this.queryService.newQuery(
+        "select * from /portfolios p where p.ID = 1").execute()).size());
+  }
+
+  @Test
+  public void testWaitForPendingTasksReturnsOnceUpdaterDied() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    IndexManager.testHook = new IndexManager.TestHook() {
+      @Override
+      public void hook(int spot) {
+        if (spot == 6) {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          throw new AssertionError("expected by test");
+        }
+      }
+    };
+    this.region.put(0, new Portfolio(0));
+    assertTrue(blocked.await(30, TimeUnit.SECONDS));
+    // queued while the updater is applying the first update, so never applied
+    this.region.put(1, new Portfolio(1));
+    release.countDown();
+    getUpdater().join(30000);
+    assertFalse(getUpdater().isAlive());
+    assertFalse(getUpdater().isDone());
+
+    ((LocalRegion)this.region).getIndexManager().waitForPendingUpdates();
+  }
+}
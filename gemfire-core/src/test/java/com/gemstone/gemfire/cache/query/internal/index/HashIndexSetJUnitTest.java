@@ -0,0 +1,326 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+import com.gemstone.gemfire.internal.cache.VMThinRegionEntryHeapObjectKey;
+import com.gemstone.junit.UnitTest;
+
+/**
+ * Tests that concurrent adds and removes of a {@link HashIndexSet}, and the
+ * rehashes they cause, neither lose nor duplicate entries, and that iterators
+ * created before a rehash keep working.
+ */
+@Category(UnitTest.class)
+public class HashIndexSetJUnitTest {
+
+  private static final int THREADS = 8;
+
+  /** entries with the same key modulo this have the same index key */
+  private static final int INDEX_KEYS = 50;
+
+  private HashIndexSet set;
+
+  @Before
+  public void setUp() {
+    this.set = createSet();
+  }
+
+  private static HashIndexSet createSet() {
+    HashIndexSet set = new HashIndexSet(10);
+    set.setHashIndexStrategy(new TestStrategy());
+    set.internalIndexStats = new AbstractIndex.InternalIndexStatistics() {
+    };
+    return set;
+  }
+
+  private static RegionEntry entry(int key) {
+    return new VMThinRegionEntryHeapObjectKey(null, Integer.valueOf(key), "value" + key);
+  }
+
+  private static List<RegionEntry> entries(int from, int to) {
+    List<RegionEntry> result = new ArrayList<RegionEntry>();
+    for (int i = from; i < to; i++) {
+      result.add(entry(i));
+    }
+    return result;
+  }
+
+  private void add(RegionEntry entry) throws Exception {
+    this.set.add(indexKey(entry), entry);
+  }
+
+  private boolean remove(RegionEntry entry) {
+    return this.set.remove(indexKey(entry), entry, true);
+  }
+
+  private static Object indexKey(Object entry) {
+    return Integer.valueOf(((Integer)((RegionEntry)entry).getKey()).intValue() % INDEX_KEYS);
+  }
+
+  /**
+   * Returns the entries of the set, failing if one is returned twice.
+   */
+  private static Set<Object> contents(Iterator it) {
+    Set<Object> result = new HashSet<Object>();
+    while (it.hasNext()) {
+      Object entry = it.next();
+      assertTrue("returned twice: " + entry, result.add(entry));
+    }
+    return result;
+  }
+
+  private void assertContainsExactly(List<RegionEntry> expected) {
+    assertEquals(expected.size(), this.set.size());
+    assertEquals(new HashSet<Object>(expected), contents(this.set.getAll()));
+    for (RegionEntry entry : expected) {
+      assertTrue(this.set.contains(entry));
+    }
+    for (int key = 0; key < INDEX_KEYS; key++) {
+      Set<Object> matching = new HashSet<Object>();
+      for (RegionEntry entry : expected) {
+        if (indexKey(entry).equals(key)) {
+          matching.add(entry);
+        }
+      }
+      assertEquals(matching, contents(this.set.get(Integer.valueOf(key))));
+    }
+  }
+
+  /**
+   * Runs the tasks on threads that start together and rethrows the first
+   * failure.
+   */
+  private static void runConcurrently(List<? extends Task> tasks) throws Exception {
+    final CyclicBarrier barrier = new CyclicBarrier(tasks.size());
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (final Task task : tasks) {
+      Thread thread = new Thread("HashIndexSetJUnitTest") {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            task.run();
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join(60000);
+      assertFalse(thread.isAlive());
+    }
+    if (failure.get() instanceof Exception) {
+      throw (Exception)failure.get();
+    } else if (failure.get() != null) {
+      throw (Error)failure.get();
+    }
+  }
+
+  private interface Task {
+    void run() throws Exception;
+  }
+
+  private Task adds(final List<RegionEntry> entries) {
+    return new Task() {
+      @Override
+      public void run() throws Exception {
+        for (RegionEntry entry : entries) {
+          add(entry);
+        }
+      }
+    };
+  }
+
+  private Task removes(final List<RegionEntry> entries) {
+    return new Task() {
+      @Override
+      public void run() {
+        for (RegionEntry entry : entries) {
+          assertTrue(remove(entry));
+        }
+      }
+    };
+  }
+
+  @Test
+  public void testAddAndRemove() throws Exception {
+    List<RegionEntry> entries = entries(0, 500);
+    for (RegionEntry entry : entries) {
+      add(entry);
+    }
+    assertContainsExactly(entries);
+
+    // removed slots keep the probe sequences of the other entries intact
+    List<RegionEntry> remaining = new ArrayList<RegionEntry>();
+    for (RegionEntry entry : entries) {
+      if (((Integer)entry.getKey()).intValue() % 3 == 0) {
+        assertTrue(remove(entry));
+      } else {
+        remaining.add(entry);
+      }
+    }
+    assertFalse(remove(entries.get(0)));
+    assertContainsExactly(remaining);
+  }
+
+  @Test
+  public void testConcurrentAdds() throws Exception {
+    List<RegionEntry> all = new ArrayList<RegionEntry>();
+    List<Task> tasks = new ArrayList<Task>();
+    for (int t = 0; t < THREADS; t++) {
+      List<RegionEntry> entries = entries(t * 2000, (t + 1) * 2000);
+      all.addAll(entries);
+      tasks.add(adds(entries));
+    }
+    // the set starts small so the adds rehash it many times
+    runConcurrently(tasks);
+    assertContainsExactly(all);
+  }
+
+  @Test
+  public void testConcurrentAddsAndRemoves() throws Exception {
+    List<RegionEntry> removed = entries(0, THREADS * 1000);
+    for (RegionEntry entry : removed) {
+      add(entry);
+    }
+    List<RegionEntry> expected = new ArrayList<RegionEntry>();
+    List<Task> tasks = new ArrayList<Task>();
+    for (int t = 0; t < THREADS; t++) {
+      tasks.add(removes(removed.subList(t * 1000, (t + 1) * 1000)));
+      List<RegionEntry> added = entries((THREADS + t) * 1000, (THREADS + t + 1) * 1000);
+      expected.addAll(added);
+      tasks.add(adds(added));
+    }
+    runConcurrently(tasks);
+    assertContainsExactly(expected);
+  }
+
+  @Test
+  public void testConcurrentRehashes() throws Exception {
+    HashIndexSet.TEST_ALWAYS_REHASH = true;
+    try {
+      List<RegionEntry> all = new ArrayList<RegionEntry>();
+      List<Task> tasks = new ArrayList<Task>();
+      for (int t = 0; t < THREADS; t++) {
+        List<RegionEntry> entries = entries(t * 200, (t + 1) * 200);
+        all.addAll(entries);
+        tasks.add(adds(entries));
+      }
+      runConcurrently(tasks);
+      assertContainsExactly(all);
+    } finally {
+      HashIndexSet.TEST_ALWAYS_REHASH = false;
+    }
+  }
+
+  @Test
+  public void testIterationDuringRehash() throws Exception {
+    final List<RegionEntry> original = entries(0, 1000);
+    for (RegionEntry entry : original) {
+      add(entry);
+    }
+    final Iterator all = this.set.getAll();
+    final Iterator matching = this.set.get(Integer.valueOf(7));
+    List<Task> tasks = new ArrayList<Task>();
+    tasks.add(adds(entries(1000, 20000)));
+    tasks.add(new Task() {
+      @Override
+      public void run() {
+        // the iterators keep reading the table they were created on
+        Set<Object> seen = contents(all);
+        assertTrue(seen.containsAll(original));
+        for (Object entry : contents(matching)) {
+          assertEquals(Integer.valueOf(7), indexKey(entry));
+        }
+      }
+    });
+    runConcurrently(tasks);
+    assertEquals(20000, this.set.size());
+  }
+
+  @Test
+  public void testIteratorRemoveAfterRehash() throws Exception {
+    List<RegionEntry> entries = entries(0, 100);
+    for (RegionEntry entry : entries) {
+      add(entry);
+    }
+    Iterator it = this.set.get(Integer.valueOf(7));
+    Object removed = it.next();
+    this.set.ensureCapacity(10000);
+    it.remove();
+    assertFalse(this.set.contains(removed));
+    entries.remove(removed);
+    assertContainsExactly(entries);
+  }
+
+  @Test
+  public void testClear() throws Exception {
+    for (RegionEntry entry : entries(0, 100)) {
+      add(entry);
+    }
+    this.set.clear();
+    assertTrue(this.set.isEmpty());
+    assertFalse(this.set.getAll().hasNext());
+    List<RegionEntry> entries = entries(100, 200);
+    for (RegionEntry entry : entries) {
+      add(entry);
+    }
+    assertContainsExactly(entries);
+  }
+
+  /**
+   * Indexes region entries by their key modulo {@link #INDEX_KEYS}.
+   */
+  private static class TestStrategy implements HashIndexStrategy {
+    @Override
+    public int computeHashCode(Object o) {
+      return o.hashCode();
+    }
+
+    @Override
+    public int computeHashCode(Object o, boolean recomputeKey) {
+      return recomputeKey ? computeKey(o).hashCode() : o.hashCode();
+    }
+
+    @Override
+    public Object computeKey(Object o) {
+      return indexKey(o);
+    }
+
+    @Override
+    public boolean equalsOnAdd(Object o1, Object o2) {
+      return o1 == o2;
+    }
+
+    @Override
+    public boolean equalsOnGet(Object getValue, Object o) {
+      return getValue.equals(computeKey(o));
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class KeyHistogramJUnitTest {
+
+  @Test
+  public void testEmptyHistogram() {
+    KeyHistogram histogram = new KeyHistogram();
+    assertEquals(0, histogram.getTotal());
+    assertEquals(-1, histogram.estimateBelow(Integer.valueOf(5)));
+    assertEquals(-1, histogram.estimateBelow("abc"));
+  }
+
+  @Test
+  public void testNonNumericKeysAreNotCounted() {
+    KeyHistogram histogram = new KeyHistogram();
+    histogram.add("abc", 1);
+    histogram.add(null, 1);
+    histogram.add(Double.valueOf(Double.POSITIVE_INFINITY), 1);
+    assertEquals(0, histogram.getTotal());
+  }
+
+  @Test
+  public void testSmallIntegerKeysAreExact() {
+    KeyHistogram histogram = new KeyHistogram();
+    for (int i = 0; i < 10; i++) {
+      histogram.add(Integer.valueOf(i), i + 1);
+    }
+    assertEquals(55, histogram.getTotal());
+    assertEquals(0, histogram.estimateBelow(Integer.valueOf(0)));
+    // 1 + 2 + 3 + 4 + 5
+    assertEquals(15, histogram.estimateBelow(Integer.valueOf(5)));
+    assertEquals(55, histogram.estimateBelow(Integer.valueOf(10)));
+    assertEquals(55, histogram.estimateBelow(Long.valueOf(1000)));
+    assertEquals(0, histogram.estimateBelow(Long.valueOf(-1000)));
+  }
+
+  @Test
+  public void testWideningKeepsCounts() {
+    KeyHistogram histogram = new KeyHistogram();
+    for (int i = 0; i < 10000; i++) {
+      histogram.add(Integer.valueOf(i), 1);
+    }
+    for (int i = -1; i >= -10000; i--) {
+      histogram.add(Integer.valueOf(i), 1);
+    }
+    assertEquals(20000, histogram.getTotal());
+    assertEstimate(10000, histogram.estimateBelow(Integer.valueOf(0)), 20000);
+    assertEstimate(15000, histogram.estimateBelow(Integer.valueOf(5000)), 20000);
+    assertEstimate(2000, histogram.estimateBelow(Integer.valueOf(-8000)), 20000);
+  }
+
+  @Test
+  public void testSkewedKeys() {
+    KeyHistogram histogram = new KeyHistogram();
+    for (int i = 0; i < 1000; i++) {
+      histogram.add(Integer.valueOf(i), 1);
+    }
+    // most of the values share a single high key
+    histogram.add(Integer.valueOf(900), 9000);
+    assertEquals(10000, histogram.getTotal());
+    assertEstimate(100, histogram.estimateBelow(Integer.valueOf(100)), 10000);
+    assertEstimate(9900, histogram.estimateBelow(Integer.valueOf(950)), 10000);
+  }
+
+  @Test
+  public void testRemove() {
+    KeyHistogram histogram = new KeyHistogram();
+    for (int i = 0; i < 100; i++) {
+      histogram.add(Double.valueOf(i + 0.5), 1);
+    }
+    for (int i = 0; i < 50; i++) {
+      histogram.add(Double.valueOf(i + 0.5), -1);
+    }
+    assertEquals(50, histogram.getTotal());
+    assertEstimate(0, histogram.estimateBelow(Integer.valueOf(50)), 100);
+    // removing a key that was never counted changes nothing
+    histogram.add(Integer.valueOf(100000), -1);
+    assertEquals(50, histogram.getTotal());
+  }
+
+  @Test
+  public void testDates() {
+    KeyHistogram histogram = new KeyHistogram();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 100; i++) {
+      histogram.add(new Date(now + i * 1000L), 1);
+    }
+    assertEstimate(50, histogram.estimateBelow(new Date(now + 50000L)), 100);
+  }
+
+  @Test
+  public void testClear() {
+    KeyHistogram histogram = new KeyHistogram();
+    histogram.add(Integer.valueOf(1), 10);
+    histogram.clear();
+    assertEquals(0, histogram.getTotal());
+    assertEquals(-1, histogram.estimateBelow(Integer.valueOf(1)));
+    histogram.add(Integer.valueOf(1000), 1);
+    assertEquals(1, histogram.getTotal());
+    assertEquals(1, histogram.estimateBelow(Integer.valueOf(1001)));
+  }
+
+  /**
+   * Asserts that an estimate is off by no more than the values of one bucket
+   * of a histogram over <code>total</code> evenly spread values.
+   */
+  private static void assertEstimate(long expected, long actual, long total) {
+    long tolerance = Math.max(1, total / KeyHistogram.NUM_BUCKETS * 2);
+    assertTrue("expected " + expected + " but was " + actual,
+        Math.abs(expected - actual) <= tolerance);
+  }
+}
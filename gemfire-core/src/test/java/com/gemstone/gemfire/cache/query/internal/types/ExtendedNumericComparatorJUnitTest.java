@@ -0,0 +1,57 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.cache.query.internal.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class ExtendedNumericComparatorJUnitTest {
+
+  private final Comparator comparator = TypeUtils.getExtendedNumericComparator();
+
+  @Test
+  public void testUndefinedIsLessThanNull() {
+    assertTrue(this.comparator.compare(QueryService.UNDEFINED, IndexManager.NULL) < 0);
+    assertTrue(this.comparator.compare(IndexManager.NULL, QueryService.UNDEFINED) > 0);
+    assertEquals(0, this.comparator.compare(IndexManager.NULL, IndexManager.NULL));
+    assertEquals(0, this.comparator.compare(QueryService.UNDEFINED, QueryService.UNDEFINED));
+  }
+
+  @Test
+  public void testTokensAreLessThanValues() {
+    Object[] values = { Integer.valueOf(-5), Long.valueOf(3), "a" };
+    for (Object value : values) {
+      assertTrue(this.comparator.compare(value, IndexManager.NULL) > 0);
+      assertTrue(this.comparator.compare(IndexManager.NULL, value) < 0);
+      assertTrue(this.comparator.compare(value, QueryService.UNDEFINED) > 0);
+      assertTrue(this.comparator.compare(QueryService.UNDEFINED, value) < 0);
+    }
+  }
+
+  @Test
+  public void testSkipListKeepsOneNodePerToken() {
+    ConcurrentSkipListMap map = new ConcurrentSkipListMap(this.comparator);
+    for (int i = 0; i < 1000; i++) {
+      map.put(i % 2 == 0 ? IndexManager.NULL : QueryService.UNDEFINED, "x");
+      map.put(Integer.valueOf(i), "x");
+    }
+    assertEquals(1002, map.size());
+    assertEquals(QueryService.UNDEFINED, map.firstKey());
+  }
+}
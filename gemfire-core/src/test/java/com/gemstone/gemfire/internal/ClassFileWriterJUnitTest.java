@@ -0,0 +1,120 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal;
+
+import static com.gemstone.gemfire.internal.ClassFileWriter.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.ClassFileWriter.Code;
+import com.gemstone.junit.UnitTest;
+
+/**
+ * Tests that the classes written by {@link ClassFileWriter} can be defined
+ * and run.
+ */
+@Category(UnitTest.class)
+public class ClassFileWriterJUnitTest {
+
+  private static final String TARGET = internalName(Target.class);
+
+  @Test
+  public void testGeneratedMethods() throws Exception {
+    String className = "com/gemstone/gemfire/internal/ClassFileWriterJUnitTest$Generated1";
+    ClassFileWriter cfw = new ClassFileWriter(className, TARGET);
+    cfw.addDefaultConstructor(TARGET);
+
+    // return new ArrayList()
+    Code create = new Code();
+    create.op(NEW, cfw.classRef("java/util/ArrayList"));
+    create.op(DUP);
+    create.op(INVOKESPECIAL, cfw.methodRef("java/util/ArrayList", "<init>", "()V"));
+    create.op(ARETURN);
+    cfw.addMethod("create", "()Ljava/lang/Object;", 2, 1, create);
+
+    // return Long.valueOf(-5000000000L)
+    Code constant = new Code();
+    constant.op(LDC2_W, cfw.longConstant(-5000000000L));
+    constant.op(INVOKESTATIC, cfw.methodRef("java/lang/Long", "valueOf", "(J)Ljava/lang/Long;"));
+    constant.op(ARETURN);
+    cfw.addMethod("constant", "()Ljava/lang/Object;", 2, 1, constant);
+
+    // return Integer.valueOf(((List)list).size())
+    Code size = new Code();
+    size.op(ALOAD_1);
+    size.op(CHECKCAST, cfw.classRef("java/util/List"));
+    size.invokeInterface(cfw.interfaceMethodRef("java/util/List", "size", "()I"), 1);
+    size.op(INVOKESTATIC, cfw.methodRef("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"));
+    size.op(ARETURN);
+    cfw.addMethod("size", "(Ljava/lang/Object;)Ljava/lang/Object;", 1, 2, size);
+
+    // return this.name
+    Code name = new Code();
+    name.op(ALOAD_0);
+    name.op(GETFIELD, cfw.fieldRef(TARGET, "name", "Ljava/lang/String;"));
+    name.op(ARETURN);
+    cfw.addMethod("name", "()Ljava/lang/Object;", 1, 1, name);
+
+    // the generated class only sees the test classes through the fallback
+    Class<?> c = defineClass(className, cfw.toByteArray(), null, ClassFileWriterJUnitTest.class);
+    assertEquals(className.replace('/', '.'), c.getName());
+    assertNotSame(Target.class.getClassLoader(), c.getClassLoader());
+    Target target = (Target)c.newInstance();
+    assertEquals(ArrayList.class, target.create().getClass());
+    assertEquals(Long.valueOf(-5000000000L), target.constant());
+    assertEquals(Integer.valueOf(3), target.size(Arrays.asList(1, 2, 3)));
+    assertEquals("target", target.name());
+    assertSame(Target.class, c.getSuperclass());
+  }
+
+  @Test
+  public void testConstantsAreShared() {
+    ClassFileWriter cfw = new ClassFileWriter("Generated", "java/lang/Object");
+    assertEquals(cfw.utf8("x"), cfw.utf8("x"));
+    assertEquals(cfw.classRef("java/util/List"), cfw.classRef("java/util/List"));
+    assertEquals(cfw.methodRef("java/util/List", "size", "()I"), cfw.methodRef("java/util/List", "size", "()I"));
+    int longIndex = cfw.longConstant(1L);
+    assertEquals(longIndex, cfw.longConstant(1L));
+    // a long constant takes two entries
+    assertEquals(longIndex + 2, cfw.utf8("y"));
+    // a field with the name and type of a method only adds its own entry
+    assertEquals(cfw.methodRef("A", "b", "I") + 1, cfw.fieldRef("A", "b", "I"));
+  }
+
+  @Test
+  public void testDescriptors() {
+    assertEquals("I", descriptor(int.class));
+    assertEquals("J", descriptor(long.class));
+    assertEquals("Z", descriptor(boolean.class));
+    assertEquals("V", descriptor(void.class));
+    assertEquals("Ljava/lang/String;", descriptor(String.class));
+    assertEquals("[[B", descriptor(byte[][].class));
+    assertEquals("[Ljava/lang/Object;", descriptor(Object[].class));
+    assertEquals("java/util/Map$Entry", internalName(java.util.Map.Entry.class));
+  }
+
+  public static abstract class Target {
+    public String name = "target";
+
+    public abstract Object create();
+
+    public abstract Object constant();
+
+    public abstract Object size(Object list);
+
+    public abstract Object name();
+  }
+}
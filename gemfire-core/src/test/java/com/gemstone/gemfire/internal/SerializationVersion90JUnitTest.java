@@ -0,0 +1,237 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.PdxSerializationException;
+import com.gemstone.gemfire.pdx.internal.TypeRegistry;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests the 9.0 serialization format: DataSerializables and enums written
+ * with the ids of their classes in the pdx registry, and the codes for
+ * LinkedHashMap and ConcurrentHashMap.
+ */
+@Category(IntegrationTest.class)
+public class SerializationVersion90JUnitTest {
+
+  static {
+    // read once when InternalDataSerializer is loaded
+    System.setProperty("gemfire.serializationVersion", "9.0");
+  }
+
+  private GemFireCacheImpl cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = (GemFireCacheImpl)new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null && !this.cache.isClosed()) {
+      this.cache.close();
+    }
+  }
+
+  private static Object roundTrip(Object o, byte expectedCode) throws Exception {
+    byte[] bytes = BlobHelper.serializeToBlob(o);
+    assertEquals(expectedCode, bytes[0]);
+    return BlobHelper.deserializeBlob(bytes);
+  }
+
+  @Test
+  public void testFormatIsEnabled() {
+    assertTrue(InternalDataSerializer.is90SerializationEnabled());
+    assertTrue(InternalDataSerializer.is662SerializationEnabled());
+    assertFalse(DSCODE.LINKED_HASH_MAP == DSCODE.DATA_SERIALIZABLE_CLASS_ID);
+  }
+
+  @Test
+  public void testDataSerializableWrittenAsClassId() throws Exception {
+    Document doc = new Document("doc", 1);
+    assertEquals(doc, roundTrip(doc, DSCODE.DATA_SERIALIZABLE_CLASS_ID));
+
+    TypeRegistry registry = this.cache.getPdxRegistry();
+    int classId = registry.getClassId(Document.class);
+    assertEquals(classId, registry.getClassId(Document.class));
+    assertEquals(Document.class.getName(), registry.getClassNameById(classId));
+
+    // the id is much shorter than the name
+    byte[] bytes = BlobHelper.serializeToBlob(doc);
+    assertTrue(bytes.length < Document.class.getName().length());
+    // and is written the same way every time
+    assertTrue(Arrays.equals(bytes, BlobHelper.serializeToBlob(doc)));
+  }
+
+  @Test
+  public void testGemFireClassWrittenByName() throws Exception {
+    Internal internal = new Internal();
+    internal.value = 3;
+    assertEquals(3, ((Internal)roundTrip(internal, DSCODE.DATA_SERIALIZABLE)).value);
+  }
+
+  @Test
+  public void testWrittenByNameWithoutCache() throws Exception {
+    Document doc = new Document("doc", 1);
+    this.cache.close();
+    byte[] bytes = BlobHelper.serializeToBlob(doc);
+    assertEquals(DSCODE.DATA_SERIALIZABLE, bytes[0]);
+  }
+
+  @Test
+  public void testUnknownClassId() throws Exception {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    out.writeByte(DSCODE.DATA_SERIALIZABLE_CLASS_ID);
+    // an id that was never defined
+    out.writeByte(0);
+    InternalDataSerializer.writeArrayLength(0xFFFFF, out);
+    out.writeUTF("doc");
+    out.writeInt(1);
+    try {
+      BlobHelper.deserializeBlob(out.toByteArray());
+      fail("expected PdxSerializationException");
+    } catch (PdxSerializationException expected) {
+    }
+    // the class ids that are defined can still be read
+    Document doc = new Document("doc", 1);
+    assertEquals(doc, roundTrip(doc, DSCODE.DATA_SERIALIZABLE_CLASS_ID));
+  }
+
+  @Test
+  public void testEnumWrittenAsPdxEnum() throws Exception {
+    assertSame(Color.GREEN, roundTrip(Color.GREEN, DSCODE.PDX_ENUM));
+    assertSame(Color.RED, roundTrip(Color.RED, DSCODE.PDX_ENUM));
+  }
+
+  @Test
+  public void testLinkedHashMap() throws Exception {
+    LinkedHashMap<String, Integer> map = new LinkedHashMap<String, Integer>();
+    for (int i = 9; i >= 0; i--) {
+      map.put("k" + i, i);
+    }
+    Object read = roundTrip(map, DSCODE.LINKED_HASH_MAP);
+    assertSame(LinkedHashMap.class, read.getClass());
+    assertEquals(map, read);
+    assertEquals(new ArrayList<String>(map.keySet()),
+        new ArrayList<String>(((Map<String, Integer>)read).keySet()));
+
+    // a map ordered by access is read ordered by insertion
+    LinkedHashMap<String, Integer> accessOrdered = new LinkedHashMap<String, Integer>(16, 0.75f, true);
+    accessOrdered.put("a", 1);
+    accessOrdered.put("b", 2);
+    accessOrdered.get("a");
+    Map<String, Integer> readAccessOrdered = (Map<String, Integer>)roundTrip(accessOrdered, DSCODE.LINKED_HASH_MAP);
+    readAccessOrdered.get("b");
+    List<String> expected = Arrays.asList("b", "a");
+    assertEquals(expected, new ArrayList<String>(readAccessOrdered.keySet()));
+
+    assertEquals(new LinkedHashMap<String, Integer>(),
+        roundTrip(new LinkedHashMap<String, Integer>(), DSCODE.LINKED_HASH_MAP));
+  }
+
+  @Test
+  public void testConcurrentHashMap() throws Exception {
+    ConcurrentHashMap<String, Integer> map = new ConcurrentHashMap<String, Integer>();
+    map.put("a", 1);
+    map.put("b", 2);
+    Object read = roundTrip(map, DSCODE.CONCURRENT_HASH_MAP);
+    assertSame(ConcurrentHashMap.class, read.getClass());
+    assertEquals(map, read);
+  }
+
+  public static enum Color implements PdxSerializerObject {
+    RED, GREEN
+  }
+
+  /**
+   * An application DataSerializable; being in the com.gemstone package it
+   * must say so.
+   */
+  public static class Document implements DataSerializable, PdxSerializerObject {
+    private String name;
+    private int counter;
+
+    public Document() {
+    }
+
+    public Document(String name, int counter) {
+      this.name = name;
+      this.counter = counter;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeUTF(this.name);
+      out.writeInt(this.counter);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException {
+      this.name = in.readUTF();
+      this.counter = in.readInt();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Document)) {
+        return false;
+      }
+      Document other = (Document)o;
+      return this.name.equals(other.name) && this.counter == other.counter;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.name.hashCode() ^ this.counter;
+    }
+  }
+
+  public static class Internal implements DataSerializable {
+    private int value;
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(this.value);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException {
+      this.value = in.readInt();
+    }
+  }
+}
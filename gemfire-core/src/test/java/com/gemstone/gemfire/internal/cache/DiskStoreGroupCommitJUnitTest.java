@@ -0,0 +1,208 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.DiskStore;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.xmlcache.CacheXml;
+import com.gemstone.gemfire.internal.cache.xmlcache.CacheXmlGenerator;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that synchronous writes to a disk store whose group commit max delay
+ * is set are on disk when they return although they share their syncs, and
+ * that a max delay of zero syncs every write.
+ */
+@Category(IntegrationTest.class)
+public class DiskStoreGroupCommitJUnitTest {
+
+  private static final int THREADS = 16;
+  private static final int PUTS = 20;
+  private static final int VALUE_SIZE = 1000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File diskDir;
+  private Cache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    this.diskDir = this.temporaryFolder.newFolder("diskDir");
+    this.cache = createCache();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static Cache createCache() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    return new CacheFactory(props).create();
+  }
+
+  private DiskStoreImpl createDiskStore(long groupCommitMaxDelay) {
+    return (DiskStoreImpl)this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] { this.diskDir }).setMaxOplogSize(1)
+        .setGroupCommitMaxDelay(groupCommitMaxDelay).create("store");
+  }
+
+  private Region<Object, Object> createRegion() {
+    return this.cache.createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").setDiskSynchronous(true).create("region");
+  }
+
+  private static String marker(int key) {
+    return String.format("value-%08d", key);
+  }
+
+  private static byte[] value(int key) throws Exception {
+    byte[] value = new byte[VALUE_SIZE];
+    byte[] marker = marker(key).getBytes("ISO-8859-1");
+    System.arraycopy(marker, 0, value, 0, marker.length);
+    return value;
+  }
+
+  /**
+   * Returns true if the value of the key was flushed to a crf file.
+   */
+  private boolean isFlushed(int key) throws Exception {
+    for (File file : this.diskDir.listFiles()) {
+      if (file.getName().endsWith(".crf")) {
+        byte[] bytes = new byte[(int)file.length()];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+          raf.readFully(bytes);
+        } finally {
+          raf.close();
+        }
+        if (new String(bytes, "ISO-8859-1").contains(marker(key))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testConcurrentSyncPutsAreDurable() throws Exception {
+    DiskStoreImpl store = createDiskStore(5);
+    assertTrue(store.isGroupCommitEnabled());
+    final Region<Object, Object> region = createRegion();
+    final long initialCommits = store.getStats().getGroupCommits();
+    final long initialRecords = store.getStats().getGroupCommitRecords();
+
+    final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      Thread putter = new Thread("DiskStoreGroupCommitJUnitTest") {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            for (int i = 0; i < PUTS; i++) {
+              int key = thread * PUTS + i;
+              region.put(key, value(key));
+              // flushed by the group commit the put waited for
+              assertTrue("put of " + key + " not flushed", isFlushed(key));
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      };
+      putter.start();
+      threads.add(putter);
+    }
+    for (Thread putter : threads) {
+      putter.join(60000);
+      assertFalse(putter.isAlive());
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+
+    int puts = THREADS * PUTS;
+    long commits = store.getStats().getGroupCommits() - initialCommits;
+    long records = store.getStats().getGroupCommitRecords() - initialRecords;
+    assertEquals(puts, records);
+    assertTrue("expected fewer than " + puts + " group commits but was " + commits, commits < puts);
+    assertTrue(commits > 0);
+
+    this.cache.close();
+    this.cache = createCache();
+    createDiskStore(5);
+    Region<Object, Object> recovered = createRegion();
+    assertEquals(puts, recovered.size());
+    for (int key = 0; key < puts; key++) {
+      assertTrue(Arrays.equals(value(key), (byte[])recovered.get(key)));
+    }
+  }
+
+  @Test
+  public void testZeroDelaySyncsEveryWrite() throws Exception {
+    DiskStoreImpl store = createDiskStore(0);
+    assertFalse(store.isGroupCommitEnabled());
+    Region<Object, Object> region = createRegion();
+    for (int key = 0; key < PUTS; key++) {
+      region.put(key, value(key));
+      // flushed although it fits in the write buffer
+      assertTrue("put of " + key + " not flushed", isFlushed(key));
+    }
+    assertEquals(0, store.getStats().getGroupCommits());
+    assertEquals(0, store.getStats().getGroupCommitRecords());
+  }
+
+  @Test
+  public void testCacheXml() throws Exception {
+    createDiskStore(7);
+    StringWriter xml = new StringWriter();
+    CacheXmlGenerator.generate(this.cache, new PrintWriter(xml), true, false);
+    assertTrue(xml.toString().contains(CacheXml.GROUP_COMMIT_MAX_DELAY + "=\"7\""));
+
+    this.cache.close();
+    this.cache = createCache();
+    this.cache.loadCacheXml(new ByteArrayInputStream(xml.toString().getBytes("UTF-8")));
+    DiskStore store = this.cache.findDiskStore("store");
+    assertEquals(7, store.getGroupCommitMaxDelay());
+  }
+}
@@ -0,0 +1,125 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.junit.UnitTest;
+
+/**
+ * Tests that a {@link DiskValueTransfer} copies the bytes of its value and
+ * keeps its file open until it is released.
+ */
+@Category(UnitTest.class)
+public class DiskValueTransferJUnitTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    this.file = this.temporaryFolder.newFile("test.crf");
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte)i;
+    }
+    FileOutputStream out = new FileOutputStream(this.file);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static byte[] range(int from, int to) {
+    byte[] bytes = new byte[to - from];
+    for (int i = from; i < to; i++) {
+      bytes[i - from] = (byte)i;
+    }
+    return bytes;
+  }
+
+  private static byte[] transfer(DiskValueTransfer dvt) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    dvt.transferTo(Channels.newChannel(out));
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testTransfer() throws Exception {
+    DiskValueTransfer.SharedChannel channel = DiskValueTransfer.SharedChannel.open(this.file);
+    DiskValueTransfer dvt = channel.createTransfer(10, 20, true);
+    assertEquals(20, dvt.getLength());
+    assertTrue(dvt.isSerialized());
+    assertArrayEquals(range(10, 30), transfer(dvt));
+
+    ByteBuffer bb = ByteBuffer.allocate(30);
+    bb.position(5);
+    dvt.readInto(bb);
+    assertEquals(25, bb.position());
+    assertEquals(30, bb.limit());
+    assertEquals(10, bb.get(5));
+    assertEquals(29, bb.get(24));
+    dvt.release();
+    channel.close();
+  }
+
+  @Test
+  public void testTransferAfterChannelClosed() throws Exception {
+    DiskValueTransfer.SharedChannel channel = DiskValueTransfer.SharedChannel.open(this.file);
+    DiskValueTransfer dvt = channel.createTransfer(0, 10, false);
+    DiskValueTransfer other = channel.createTransfer(10, 10, false);
+    // the oplog is closed while the values are being sent
+    channel.close();
+    assertArrayEquals(range(0, 10), transfer(dvt));
+    dvt.release();
+    // releasing twice does not close the file under the other transfer
+    dvt.release();
+    assertArrayEquals(range(10, 20), transfer(other));
+    other.release();
+    // the file was closed with the last transfer
+    assertNull(channel.createTransfer(0, 10, false));
+  }
+
+  @Test
+  public void testTransferBeyondEndOfFile() throws Exception {
+    DiskValueTransfer.SharedChannel channel = DiskValueTransfer.SharedChannel.open(this.file);
+    DiskValueTransfer dvt = channel.createTransfer(90, 20, false);
+    try {
+      transfer(dvt);
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+    try {
+      dvt.readInto(ByteBuffer.allocate(20));
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+    dvt.release();
+    channel.close();
+  }
+}
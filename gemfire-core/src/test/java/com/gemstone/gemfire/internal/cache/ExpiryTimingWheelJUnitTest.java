@@ -0,0 +1,214 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.ExpirationAttributes;
+import com.gemstone.junit.UnitTest;
+
+@Category(UnitTest.class)
+public class ExpiryTimingWheelJUnitTest {
+
+  private ExpiryTimingWheel wheel;
+
+  @Before
+  public void setUp() {
+    Executor inline = new Executor() {
+      public void execute(Runnable command) {
+        command.run();
+      }
+    };
+    this.wheel = new ExpiryTimingWheel(1, inline, Thread.currentThread().getThreadGroup(), "Test Timing Wheel");
+  }
+
+  @After
+  public void tearDown() {
+    this.wheel.stop();
+  }
+
+  @Test
+  public void testFiresInOrderAndNotEarly() throws Exception {
+    final long now = System.currentTimeMillis();
+    final AtomicInteger order = new AtomicInteger();
+    TestTask late = new TestTask(order);
+    TestTask early = new TestTask(order);
+    assertTrue(this.wheel.schedule(late, now + 60));
+    assertTrue(this.wheel.schedule(early, now + 20));
+    assertEquals(2, this.wheel.size());
+    assertTrue(late.await());
+    assertTrue(early.await());
+    assertEquals(1, early.position);
+    assertEquals(2, late.position);
+    assertTrue(early.firedAt >= now + 20);
+    assertTrue(late.firedAt >= now + 60);
+    assertEquals(0, this.wheel.size());
+  }
+
+  @Test
+  public void testCascadesFromHigherLevels() throws Exception {
+    // more than one full turn of the first level
+    final long when = System.currentTimeMillis() + ExpiryTimingWheel.SLOTS + 150;
+    TestTask task = new TestTask(null);
+    assertTrue(this.wheel.schedule(task, when));
+    assertTrue(task.await());
+    assertTrue(task.firedAt >= when);
+    assertEquals(1, task.runs.get());
+  }
+
+  @Test
+  public void testPastTimeFiresImmediately() throws Exception {
+    TestTask task = new TestTask(null);
+    assertTrue(this.wheel.schedule(task, System.currentTimeMillis() - 1000));
+    assertEquals(1, task.runs.get());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    TestTask task = new TestTask(null);
+    assertTrue(this.wheel.schedule(task, System.currentTimeMillis() + 50));
+    assertTrue(task.cancel());
+    assertEquals(0, this.wheel.size());
+    assertFalse(task.cancel());
+    assertFalse(this.wheel.schedule(task, System.currentTimeMillis()));
+    Thread.sleep(100);
+    assertEquals(0, task.runs.get());
+  }
+
+  @Test
+  public void testCancelBeforeSchedule() {
+    TestTask task = new TestTask(null);
+    assertFalse(task.cancel());
+    assertFalse(this.wheel.schedule(task, System.currentTimeMillis() + 10));
+  }
+
+  @Test
+  public void testScheduledTaskIsNotScheduledTwice() {
+    TestTask task = new TestTask(null);
+    assertTrue(this.wheel.schedule(task, System.currentTimeMillis() + 10000));
+    assertFalse(this.wheel.schedule(task, System.currentTimeMillis() + 10));
+    assertEquals(1, this.wheel.size());
+  }
+
+  @Test
+  public void testTaskReschedulesItself() throws Exception {
+    final CountDownLatch twice = new CountDownLatch(2);
+    TestTask task = new TestTask(null) {
+      @Override
+      protected void runInThreadPool() {
+        super.runInThreadPool();
+        twice.countDown();
+        if (this.runs.get() == 1) {
+          assertTrue(wheel.schedule(this, System.currentTimeMillis() + 5));
+        }
+      }
+    };
+    assertTrue(this.wheel.schedule(task, System.currentTimeMillis() + 5));
+    assertTrue(twice.await(10, TimeUnit.SECONDS));
+    assertEquals(2, task.runs.get());
+  }
+
+  private static class TestTask extends ExpiryTask {
+    private final AtomicInteger order;
+    private final CountDownLatch fired = new CountDownLatch(1);
+    final AtomicInteger runs = new AtomicInteger();
+    volatile long firedAt;
+    volatile int position;
+
+    TestTask(AtomicInteger order) {
+      super(null);
+      this.order = order;
+    }
+
+    boolean await() throws InterruptedException {
+      return this.fired.await(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected void runInThreadPool() {
+      this.firedAt = System.currentTimeMillis();
+      if (this.order != null) {
+        this.position = this.order.incrementAndGet();
+      }
+      this.runs.incrementAndGet();
+      this.fired.countDown();
+    }
+
+    @Override
+    protected ExpirationAttributes getIdleAttributes() {
+      return null;
+    }
+
+    @Override
+    protected ExpirationAttributes getTTLAttributes() {
+      return null;
+    }
+
+    @Override
+    protected void basicPerformTimeout(boolean isPending) {
+    }
+
+    @Override
+    protected void reschedule() {
+    }
+
+    @Override
+    protected long getLastModifiedTime() {
+      return 0;
+    }
+
+    @Override
+    protected long getLastAccessedTime() {
+      return 0;
+    }
+
+    @Override
+    protected boolean invalidate() {
+      return false;
+    }
+
+    @Override
+    protected boolean destroy(boolean isPending) {
+      return false;
+    }
+
+    @Override
+    protected boolean localInvalidate() {
+      return false;
+    }
+
+    @Override
+    protected boolean localDestroy() {
+      return false;
+    }
+
+    @Override
+    protected void addExpiryTask() {
+    }
+
+    @Override
+    public boolean isPending() {
+      return false;
+    }
+
+    @Override
+    public Object getKey() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that values are faulted in from a memory mapping of the crf of an
+ * oplog that is no longer appended to, and from the file otherwise.
+ */
+@Category(IntegrationTest.class)
+public class MappedCrfReadsJUnitTest {
+
+  static {
+    // read when the Oplog class is initialized
+    System.setProperty("gemfire.mmapCrfReads", "true");
+  }
+
+  private static final int ENTRIES = 100;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+  private DiskStoreImpl store;
+  private Region<Object, Object> region;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.store = (DiskStoreImpl)this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] { this.temporaryFolder.newFolder("diskDir") })
+        .setAutoCompact(false).setAllowForceCompaction(true).setMaxOplogSize(1)
+        .create("store");
+    // all but one value are only on disk
+    this.region = this.cache.createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create("region");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static String value(int key) {
+    return "value" + key;
+  }
+
+  private void putAll(int from, int to) {
+    for (int key = from; key < to; key++) {
+      this.region.put(key, value(key));
+    }
+  }
+
+  private void assertValues(int from, int to) {
+    for (int key = from; key < to; key++) {
+      assertEquals(value(key), this.region.get(key));
+    }
+  }
+
+  private Oplog getActiveOplog() {
+    return this.store.persistentOplogs.getChild();
+  }
+
+  private List<Oplog> getSealedOplogs() {
+    List<Oplog> result = new ArrayList<Oplog>();
+    Oplog active = getActiveOplog();
+    for (Oplog oplog : this.store.persistentOplogs.getAllOplogs()) {
+      if (oplog != null && oplog != active) {
+        result.add(oplog);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testSealedOplogIsMapped() throws Exception {
+    putAll(0, ENTRIES);
+    this.store.forceRoll();
+    List<Oplog> sealed = getSealedOplogs();
+    assertEquals(1, sealed.size());
+    assertFalse(sealed.get(0).testIsCrfMapped());
+
+    assertValues(0, ENTRIES);
+    assertTrue(sealed.get(0).testIsCrfMapped());
+    // reading again uses the same mapping
+    assertValues(0, ENTRIES);
+    assertTrue(sealed.get(0).testIsCrfMapped());
+  }
+
+  @Test
+  public void testActiveOplogIsReadFromFile() throws Exception {
+    putAll(0, ENTRIES);
+    assertTrue(getSealedOplogs().isEmpty());
+    assertValues(0, ENTRIES);
+    assertFalse(getActiveOplog().testIsCrfMapped());
+
+    // values in both the sealed and the new active oplog
+    this.store.forceRoll();
+    putAll(ENTRIES, 2 * ENTRIES);
+    assertValues(0, 2 * ENTRIES);
+    assertTrue(getSealedOplogs().get(0).testIsCrfMapped());
+    assertFalse(getActiveOplog().testIsCrfMapped());
+  }
+
+  @Test
+  public void testCompactionUnmapsCrf() throws Exception {
+    putAll(0, ENTRIES);
+    this.store.forceRoll();
+    Oplog sealed = getSealedOplogs().get(0);
+    assertValues(0, ENTRIES);
+    assertTrue(sealed.testIsCrfMapped());
+
+    // the live values are copied to the active oplog
+    for (int key = 1; key < ENTRIES; key++) {
+      this.region.destroy(key);
+    }
+    assertTrue(this.store.forceCompaction());
+    assertTrue(sealed.testConfirmCompacted());
+    assertFalse(sealed.testIsCrfMapped());
+    assertEquals(value(0), this.region.get(0));
+  }
+
+  @Test
+  public void testMappedCrf() throws Exception {
+    File file = this.temporaryFolder.newFile("test.crf");
+    byte[] bytes = new byte[100];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte)i;
+    }
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+
+    // only the flushed part of the file is mapped
+    Oplog.MappedCrf mapped = Oplog.MappedCrf.map(file, 50);
+    assertEquals(50, mapped.getSize());
+    byte[] read = new byte[10];
+    assertTrue(mapped.retain());
+    mapped.read(40, read);
+    assertArrayEquals(new byte[] { 40, 41, 42, 43, 44, 45, 46, 47, 48, 49 }, read);
+
+    // a reader that retained the mapping can still read after it was closed
+    mapped.close();
+    mapped.read(0, read);
+    assertEquals(9, read[9]);
+    mapped.release();
+    assertFalse(mapped.retain());
+
+    assertNull(Oplog.MappedCrf.map(file, 0));
+  }
+}
@@ -0,0 +1,247 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that a disk store recovers the same entries from several oplogs
+ * whether their files are read ahead by {@link OplogRecoveryPrefetcher},
+ * read ahead within a small bound, or read directly, and that the
+ * prefetcher keeps to its bound.
+ */
+@Category(IntegrationTest.class)
+public class OplogRecoveryPrefetcherJUnitTest {
+
+  private static final int ENTRIES = 200;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final int recoveryThreads = OplogRecoveryPrefetcher.RECOVERY_THREADS;
+  private final long maxPrefetchBytes = OplogRecoveryPrefetcher.MAX_PREFETCH_BYTES;
+
+  private File diskDir;
+  private Cache cache;
+  private DiskStoreImpl store;
+  private Region<Object, Object> region;
+
+  @Before
+  public void setUp() throws Exception {
+    this.diskDir = this.temporaryFolder.newFolder("diskDir");
+    // prefetches whatever the number of processors
+    OplogRecoveryPrefetcher.RECOVERY_THREADS = 2;
+  }
+
+  @After
+  public void tearDown() {
+    OplogRecoveryPrefetcher.RECOVERY_THREADS = this.recoveryThreads;
+    OplogRecoveryPrefetcher.MAX_PREFETCH_BYTES = this.maxPrefetchBytes;
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private void createCache() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.store = (DiskStoreImpl)this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] { this.diskDir })
+        .setAutoCompact(false).setMaxOplogSize(1)
+        .create("store");
+    this.region = this.cache.createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("store").create("region");
+  }
+
+  private void recover() {
+    this.cache.close();
+    createCache();
+  }
+
+  private static String value(int key, int version) {
+    StringBuilder sb = new StringBuilder("value").append(key).append('.').append(version);
+    while (sb.length() < 200) {
+      sb.append('x');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Writes the entries over four oplogs so that the newer oplogs update,
+   * destroy and recreate entries of the older ones, and returns the entries
+   * that must be recovered.
+   */
+  private Map<Object, Object> writeOplogs() {
+    Map<Object, Object> expected = new HashMap<Object, Object>();
+    for (int key = 0; key < ENTRIES; key++) {
+      this.region.put(key, value(key, 1));
+      expected.put(key, value(key, 1));
+    }
+    this.store.forceRoll();
+    for (int key = 0; key < ENTRIES / 2; key++) {
+      this.region.put(key, value(key, 2));
+      expected.put(key, value(key, 2));
+    }
+    this.store.forceRoll();
+    for (int key = 0; key < ENTRIES / 4; key++) {
+      this.region.destroy(key);
+      expected.remove(key);
+    }
+    this.store.forceRoll();
+    for (int key = 0; key < ENTRIES / 8; key++) {
+      this.region.put(key, value(key, 3));
+      expected.put(key, value(key, 3));
+    }
+    return expected;
+  }
+
+  private void assertRecovered(Map<Object, Object> expected) {
+    // the four oplogs written and a new one for each recovery
+    assertTrue(this.store.persistentOplogs.getAllOplogs().length > 4);
+    assertEquals(expected.size(), this.region.size());
+    for (int key = 0; key < ENTRIES; key++) {
+      assertEquals(String.valueOf(key), expected.get(key), this.region.get(key));
+    }
+  }
+
+  @Test
+  public void testRecoverPrefetched() throws Exception {
+    createCache();
+    Map<Object, Object> expected = writeOplogs();
+    recover();
+    assertRecovered(expected);
+    assertTrue(this.store.getStats().getRecoveryPrefetchedBytes() > 0);
+
+    // and again from the oplogs that were recovered
+    recover();
+    assertRecovered(expected);
+  }
+
+  @Test
+  public void testRecoverWithSmallPrefetchBound() throws Exception {
+    createCache();
+    Map<Object, Object> expected = writeOplogs();
+    // only the smaller files are read ahead, one or two at a time
+    OplogRecoveryPrefetcher.MAX_PREFETCH_BYTES = 1024;
+    recover();
+    assertRecovered(expected);
+    assertTrue(this.store.getStats().getRecoveryPrefetchedBytes() > 0);
+  }
+
+  @Test
+  public void testRecoverWithoutThreads() throws Exception {
+    createCache();
+    Map<Object, Object> expected = writeOplogs();
+    OplogRecoveryPrefetcher.RECOVERY_THREADS = 0;
+    recover();
+    assertRecovered(expected);
+    assertEquals(0, this.store.getStats().getRecoveryPrefetchedBytes());
+  }
+
+  private File createFile(String name, int size) throws IOException {
+    File file = this.temporaryFolder.newFile(name);
+    byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte)size);
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static byte[] contents(File f) {
+    byte[] bytes = new byte[(int)f.length()];
+    Arrays.fill(bytes, (byte)f.length());
+    return bytes;
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[256];
+      int n;
+      while ((n = in.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  private long prefetches() {
+    return this.store.getStats().getStats().getLong("recoveryPrefetches");
+  }
+
+  @Test
+  public void testPrefetchBound() throws Exception {
+    createCache();
+    List<File> files = new ArrayList<File>();
+    files.add(createFile("1.drf", 600));
+    files.add(createFile("2.drf", 300));
+    files.add(createFile("3.krf", 2000));
+    files.add(createFile("4.krf", 700));
+    files.add(createFile("5.krf", 600));
+    OplogRecoveryPrefetcher.MAX_PREFETCH_BYTES = 1000;
+    long before = prefetches();
+    OplogRecoveryPrefetcher prefetcher = OplogRecoveryPrefetcher.start(this.store, files);
+    try {
+      // only the first two fit in the bound until recovery opens them
+      Thread.sleep(500);
+      assertTrue(prefetches() - before <= 2);
+      for (File f : files) {
+        assertArrayEquals(f.getName(), contents(f), readAll(prefetcher.open(f)));
+      }
+      // all but the one larger than the bound were read ahead
+      assertEquals(4, prefetches() - before);
+
+      // a file opened again is read directly
+      assertArrayEquals(contents(files.get(1)), readAll(prefetcher.open(files.get(1))));
+      assertEquals(4, prefetches() - before);
+    } finally {
+      prefetcher.close();
+    }
+
+    // no threads, no prefetcher
+    OplogRecoveryPrefetcher.RECOVERY_THREADS = 0;
+    assertNull(OplogRecoveryPrefetcher.start(this.store, files));
+  }
+}
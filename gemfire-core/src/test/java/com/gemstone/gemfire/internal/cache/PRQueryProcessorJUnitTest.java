@@ -0,0 +1,253 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.RegionDestroyedException;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.internal.CompiledValue;
+import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
+import com.gemstone.gemfire.cache.query.internal.QueryExecutionCanceledException;
+import com.gemstone.gemfire.cache.query.internal.QueryMonitor;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverAdapter;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverHolder;
+import com.gemstone.gemfire.cache.query.data.Portfolio;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.PartitionedRegionQueryEvaluator.MemberResultsList;
+import com.gemstone.gemfire.internal.cache.execute.BucketMovedException;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that {@link PRQueryProcessor} gives the same results when it scans
+ * the local buckets of a partitioned region in parallel as when it scans
+ * them one after another, and that the threads scanning for one query stop
+ * together.
+ */
+@Category(IntegrationTest.class)
+public class PRQueryProcessorJUnitTest {
+
+  private static final int PORTFOLIOS = 300;
+
+  private Cache cache;
+  private PartitionedRegion region;
+  private Thread queryThread;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.region = (PartitionedRegion)this.cache.createRegionFactory(RegionShortcut.PARTITION)
+        .create("portfolios");
+    for (int i = 0; i < PORTFOLIOS; i++) {
+      this.region.put(i, new Portfolio(i));
+    }
+    this.queryThread = Thread.currentThread();
+  }
+
+  @After
+  public void tearDown() {
+    PRQueryProcessor.TEST_NUM_THREADS = 0;
+    QueryObserverHolder.reset();
+    QueryMonitor.getQueryExecutionStatus().set(false);
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private List<Object> execute(String query, int threads) throws Exception {
+    PRQueryProcessor.TEST_NUM_THREADS = threads;
+    try {
+      return new ArrayList<Object>((SelectResults)this.cache.getQueryService().newQuery(query).execute());
+    } finally {
+      PRQueryProcessor.TEST_NUM_THREADS = 0;
+    }
+  }
+
+  /**
+   * Returns the results as strings, sorted unless the query is ordered.
+   */
+  private static List<String> toStrings(List<Object> results, boolean ordered) {
+    List<String> strings = new ArrayList<String>(results.size());
+    for (Object o : results) {
+      strings.add(String.valueOf(o));
+    }
+    if (!ordered) {
+      Collections.sort(strings);
+    }
+    return strings;
+  }
+
+  private void assertSameAsSequential(String query, boolean ordered) throws Exception {
+    List<Object> sequential = execute(query, 1);
+    List<Object> parallel = execute(query, 4);
+    assertEquals(query, toStrings(sequential, ordered), toStrings(parallel, ordered));
+  }
+
+  /**
+   * Returns a processor for the query over all the buckets of the region.
+   */
+  private PRQueryProcessor createProcessor(String query) {
+    List<Integer> buckets = new ArrayList<Integer>(this.region.getDataStore().getAllLocalBucketIds());
+    Collections.sort(buckets);
+    assertTrue(buckets.size() > 10);
+    return new PRQueryProcessor(this.region,
+        (DefaultQuery)this.cache.getQueryService().newQuery(query), null, buckets);
+  }
+
+  @Test
+  public void testParallelResultsEqualSequential() throws Exception {
+    assertSameAsSequential("select * from /portfolios p", false);
+    assertSameAsSequential("select p.ID from /portfolios p where p.ID > 100 and p.status = 'active'", false);
+    assertSameAsSequential("select p.ID, p.status from /portfolios p where p.ID < 50", false);
+    assertSameAsSequential("select distinct p.status from /portfolios p", false);
+    assertSameAsSequential("select distinct p.ID from /portfolios p order by p.ID desc", true);
+    assertEquals(PORTFOLIOS, execute("select * from /portfolios p", 4).size());
+
+    // and with index lookups split per bucket
+    this.cache.getQueryService().createIndex("idIndex", "p.ID", "/portfolios p");
+    assertSameAsSequential("select p.ID from /portfolios p where p.ID >= 250", false);
+    assertEquals(50, execute("select p.ID from /portfolios p where p.ID >= 250", 4).size());
+  }
+
+  @Test
+  public void testCountAcrossBuckets() throws Exception {
+    assertEquals(Collections.singletonList((Object)PORTFOLIOS),
+        execute("select count(*) from /portfolios p", 4));
+    assertEquals(Collections.singletonList((Object)200),
+        execute("select count(*) from /portfolios p where p.ID >= 100", 4));
+    assertEquals(Collections.singletonList((Object)(PORTFOLIOS / 2)),
+        execute("select count(*) from /portfolios p where p.status = 'active'", 4));
+    assertSameAsSequential("select count(*) from /portfolios p where p.ID < 123", false);
+  }
+
+  @Test
+  public void testLimitStopsEarly() throws Exception {
+    List<Object> results = execute("select * from /portfolios p limit 5", 4);
+    assertEquals(5, results.size());
+    for (Object o : results) {
+      assertTrue(o instanceof Portfolio);
+    }
+
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    PRQueryProcessor processor = createProcessor("select * from /portfolios p limit 5");
+    MemberResultsList collector = new MemberResultsList();
+    processor.executeQuery(collector);
+    // each scanned bucket adds one collection, and no bucket holds 5 portfolios
+    assertTrue("scanned " + collector.size() + " buckets", collector.size() > 1);
+    assertTrue("scanned " + collector.size() + " buckets",
+        collector.size() < this.region.getDataStore().getAllLocalBucketIds().size() / 2);
+    int total = 0;
+    for (Object c : collector) {
+      total += ((Collection<?>)c).size();
+    }
+    assertTrue(total >= 5);
+  }
+
+  /**
+   * Blocks the query thread in its first iteration until a pool thread has
+   * run <code>action</code> in one of its own.
+   */
+  private void inPoolThread(final Runnable action) {
+    final CountDownLatch done = new CountDownLatch(1);
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      private boolean waited;
+
+      @Override
+      public void beforeIterationEvaluation(CompiledValue executer, Object currentObject) {
+        if (Thread.currentThread() == PRQueryProcessorJUnitTest.this.queryThread) {
+          if (!this.waited) {
+            this.waited = true;
+            try {
+              assertTrue(done.await(30, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        } else if (done.getCount() > 0) {
+          done.countDown();
+          action.run();
+        }
+      }
+    });
+  }
+
+  @Test
+  public void testCancelThroughSharedExecutionStatus() throws Exception {
+    inPoolThread(new Runnable() {
+      public void run() {
+        QueryMonitor.getQueryExecutionStatus().set(true);
+      }
+    });
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    try {
+      createProcessor("select * from /portfolios p").executeQuery(new MemberResultsList());
+      fail("expected QueryExecutionCanceledException");
+    } catch (QueryExecutionCanceledException expected) {
+    }
+    // the pool thread canceled the status of the thread executing the query
+    assertTrue(QueryMonitor.getQueryExecutionStatus().get());
+  }
+
+  @Test
+  public void testForceReattemptFromPoolThread() throws Exception {
+    inPoolThread(new Runnable() {
+      public void run() {
+        throw new BucketMovedException("moved during the test");
+      }
+    });
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    try {
+      createProcessor("select * from /portfolios p").executeQuery(new MemberResultsList());
+      fail("expected ForceReattemptException");
+    } catch (ForceReattemptException expected) {
+      assertTrue(expected.getCause() instanceof BucketMovedException);
+    }
+  }
+
+  @Test
+  public void testQueryExceptionFromPoolThread() throws Exception {
+    inPoolThread(new Runnable() {
+      public void run() {
+        throw new RegionDestroyedException("destroyed during the test", "/portfolios");
+      }
+    });
+    PRQueryProcessor.TEST_NUM_THREADS = 4;
+    try {
+      createProcessor("select * from /portfolios p").executeQuery(new MemberResultsList());
+      fail("expected QueryInvocationTargetException");
+    } catch (QueryInvocationTargetException expected) {
+      assertTrue(expected.getCause() instanceof RegionDestroyedException);
+    }
+
+    // the next query is not affected
+    QueryObserverHolder.reset();
+    assertEquals(PORTFOLIOS, execute("select * from /portfolios p", 4).size());
+  }
+}
@@ -0,0 +1,143 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.InvalidDeltaException;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Operation;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.DSCODE;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.WritablePdxInstance;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.WritablePdxInstanceImpl;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests how a region applies the pdx deltas of another member. Each delta is
+ * applied the way an UpdateMessage applies it on a replica.
+ */
+@Category(IntegrationTest.class)
+public class PdxDeltaUpdateJUnitTest {
+
+  private static final String KEY = "key";
+
+  private GemFireCacheImpl cache;
+  private Region<Object, Object> region;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = (GemFireCacheImpl)new CacheFactory(props).setPdxReadSerialized(true).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.REPLICATE).create("documents");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private PdxInstance createDocument() {
+    return this.cache.createPdxInstanceFactory("Document")
+        .writeString("name", "doc")
+        .writeInt("counter", 1)
+        .writeByteArray("body", new byte[1000])
+        .create();
+  }
+
+  private static byte[] toDelta(WritablePdxInstance writer) throws Exception {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    ((WritablePdxInstanceImpl)writer).toDelta(hdos);
+    return hdos.toByteArray();
+  }
+
+  /**
+   * Applies a delta received from another member.
+   */
+  private void receive(byte[] delta) {
+    LocalRegion lr = (LocalRegion)this.region;
+    EntryEventImpl event = new EntryEventImpl(lr, Operation.UPDATE, KEY, null, null,
+        true, this.cache.getMyId(), true, new EventID(this.cache.getDistributedSystem()));
+    event.setDeltaBytes(delta);
+    lr.basicUpdate(event, false, true, 0L, false);
+  }
+
+  private int getDeltaFailedUpdates() {
+    return ((LocalRegion)this.region).getCachePerfStats().getDeltaFailedUpdates();
+  }
+
+  @Test
+  public void testDeltaOfSameOldValueIsApplied() throws Exception {
+    this.region.put(KEY, createDocument());
+    WritablePdxInstance writer = createDocument().createWriter();
+    writer.setField("counter", 2);
+    receive(toDelta(writer));
+    assertEquals(writer, this.region.get(KEY));
+
+    // a later delta is computed from the value of the first one
+    writer.setField("name", "changed");
+    receive(toDelta(writer));
+    assertEquals(writer, this.region.get(KEY));
+  }
+
+  @Test
+  public void testDeltaOfOtherOldValueIsRejected() throws Exception {
+    PdxInstance x = createDocument();
+    WritablePdxInstance other = x.createWriter();
+    other.setField("name", "concurrent");
+    this.region.put(KEY, other);
+
+    WritablePdxInstance writer = x.createWriter();
+    writer.setField("counter", 2);
+    byte[] delta = toDelta(writer);
+    int failed = getDeltaFailedUpdates();
+    try {
+      receive(delta);
+      fail("expected InvalidDeltaException");
+    } catch (InvalidDeltaException expected) {
+    }
+    // the sender is asked for the full value instead
+    assertEquals(failed + 1, getDeltaFailedUpdates());
+    assertEquals(other, this.region.get(KEY));
+  }
+
+  @Test
+  public void testApplicationDeltaIsNotTakenForPdxDelta() throws Exception {
+    PdxInstance x = createDocument();
+    this.region.put(KEY, x);
+    // starts like a pdx serialized object whose length is the type id
+    ByteBuffer delta = ByteBuffer.allocate(20);
+    delta.put(DSCODE.PDX);
+    delta.putInt(((PdxInstanceImpl)x).getPdxType().getTypeId());
+    try {
+      receive(delta.array());
+      fail("expected InvalidDeltaException");
+    } catch (InvalidDeltaException expected) {
+    }
+    assertEquals(x, this.region.get(KEY));
+  }
+}
@@ -0,0 +1,117 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.junit.PerformanceTest;
+
+/**
+ * Measures put throughput on an LRU region from many threads with a single
+ * list clock and with a {@link ShardedLRUClockHand}. Every put past the limit
+ * appends one entry to the clock and evicts another so the clock lock is on
+ * the path of every operation.
+ *
+ * @since 9.0
+ */
+@Category(PerformanceTest.class)
+public class LRUClockHandContentionJUnitTest {
+
+  private static final int THREADS = Integer.getInteger("LRUClockHandContentionJUnitTest.threads",
+      Math.max(4, Runtime.getRuntime().availableProcessors()));
+  private static final long RUN_MILLIS = 5000;
+  private static final int MAX_ENTRIES = 10000;
+  private static final int KEYS_PER_THREAD = 100000;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ShardedLRUClockHand.SHARDS_PROPERTY);
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  @Test
+  public void testContention() throws Exception {
+    long single = run("single", 1);
+    long sharded = run("sharded", 16);
+    // both clocks kept evicting; a slower sharded clock would show a regression
+    assertTrue("single list: " + single + " puts/s", single > 0);
+    assertTrue("16 shards: " + sharded + " puts/s, single list: " + single + " puts/s",
+        sharded * 2 >= single);
+  }
+
+  private long run(String name, int shards) throws Exception {
+    System.setProperty(ShardedLRUClockHand.SHARDS_PROPERTY, String.valueOf(shards));
+    final Region<Integer, byte[]> r = this.cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL)
+        .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(MAX_ENTRIES, EvictionAction.LOCAL_DESTROY))
+        .create(name);
+    final AtomicLong ops = new AtomicLong();
+    final CyclicBarrier barrier = new CyclicBarrier(THREADS + 1);
+    final long[] deadline = new long[1];
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int base = t * KEYS_PER_THREAD;
+      threads[t] = new Thread(name + "-" + t) {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            long count = 0;
+            byte[] value = new byte[16];
+            while (System.currentTimeMillis() < deadline[0]) {
+              for (int i = 0; i < 1000; i++) {
+                r.put(base + (int)(count % KEYS_PER_THREAD), value);
+                count++;
+              }
+            }
+            ops.addAndGet(count);
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    deadline[0] = System.currentTimeMillis() + RUN_MILLIS;
+    barrier.await();
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertTrue(ops.get() > MAX_ENTRIES);
+    assertTrue("size " + r.size(), r.size() <= MAX_ENTRIES);
+    r.destroyRegion();
+    return ops.get() * 1000 / RUN_MILLIS;
+  }
+}
@@ -0,0 +1,123 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.lru;
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.cache.AbstractLRURegionMap;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests eviction from LRU regions whose clock is a {@link ShardedLRUClockHand}.
+ *
+ * @since 9.0
+ */
+@Category(IntegrationTest.class)
+public class ShardedLRUClockHandJUnitTest {
+
+  private static final int MAX_ENTRIES = 100;
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    System.setProperty(ShardedLRUClockHand.SHARDS_PROPERTY, "8");
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ShardedLRUClockHand.SHARDS_PROPERTY);
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private Region<Integer, String> createRegion() {
+    return this.cache.<Integer, String>createRegionFactory(RegionShortcut.LOCAL)
+        .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(MAX_ENTRIES, EvictionAction.LOCAL_DESTROY))
+        .create("sharded");
+  }
+
+  private static AbstractLRURegionMap getRegionMap(Region<?, ?> r) {
+    return (AbstractLRURegionMap)((LocalRegion)r).getRegionMap();
+  }
+
+  @Test
+  public void testEvictsDownToLimit() {
+    Region<Integer, String> r = createRegion();
+    for (int i = 0; i < 1000; i++) {
+      r.put(i, "value" + i);
+    }
+    assertEquals(MAX_ENTRIES, r.size());
+    LRUStatistics stats = getRegionMap(r).getLRUStatistics();
+    assertEquals(900, stats.getEvictions());
+    assertEquals(MAX_ENTRIES, stats.getCounter());
+  }
+
+  @Test
+  public void testConcurrentPuts() throws Exception {
+    final Region<Integer, String> r = createRegion();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int base = t * 1000;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 1000; i++) {
+            r.put(base + i, "value" + i);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(MAX_ENTRIES, r.size());
+    LRUStatistics stats = getRegionMap(r).getLRUStatistics();
+    assertEquals(8000 - MAX_ENTRIES, stats.getEvictions());
+    assertEquals(MAX_ENTRIES, stats.getCounter());
+  }
+
+  @Test
+  public void testDestroyAndClear() {
+    Region<Integer, String> r = createRegion();
+    for (int i = 0; i < MAX_ENTRIES; i++) {
+      r.put(i, "value" + i);
+    }
+    for (int i = 0; i < MAX_ENTRIES; i += 2) {
+      r.destroy(i);
+    }
+    assertEquals(MAX_ENTRIES / 2, r.size());
+    r.clear();
+    assertEquals(0, r.size());
+    for (int i = 0; i < 2 * MAX_ENTRIES; i++) {
+      r.put(i, "value" + i);
+    }
+    assertEquals(MAX_ENTRIES, r.size());
+  }
+}
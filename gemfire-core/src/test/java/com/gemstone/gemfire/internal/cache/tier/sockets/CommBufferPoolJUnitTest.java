@@ -0,0 +1,226 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.Connection;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.BridgeServerImpl;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests the {@link CommBufferPool} and that a cache server reads the
+ * requests of its clients into buffers from it and gives them back once the
+ * request was handled or could not be read.
+ */
+@Category(IntegrationTest.class)
+public class CommBufferPoolJUnitTest {
+
+  private static final String REGION = "documents";
+
+  private Cache cache;
+  private Region<Object, Object> region;
+  private BridgeServerImpl server;
+  private PoolImpl pool;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.REPLICATE).create(REGION);
+    this.region.put("k1", "v1");
+    this.server = (BridgeServerImpl)this.cache.addCacheServer();
+    this.server.setPort(0);
+    this.server.start();
+    this.pool = (PoolImpl)PoolManager.createFactory()
+        .addServer("localhost", this.server.getPort()).setMinConnections(0)
+        .create("pool");
+  }
+
+  @After
+  public void tearDown() {
+    if (this.pool != null) {
+      this.pool.destroy();
+    }
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private CacheServerStats getStats() {
+    return this.server.getAcceptor().getStats();
+  }
+
+  /**
+   * Returns the bytes of a get request as the client would send them.
+   */
+  private static byte[] getRequest(Connection connection, int transactionId, Object key)
+      throws IOException {
+    Message request = new Message(2, Version.CURRENT);
+    request.setMessageType(MessageType.REQUEST);
+    request.setTransactionId(transactionId);
+    request.addStringPart("/" + REGION);
+    request.addStringOrObjPart(key);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    request.setComms(connection.getSocket(), null, bytes,
+        ByteBuffer.allocate(connection.getCommBuffer().capacity()), null);
+    request.send(false);
+    return bytes.toByteArray();
+  }
+
+  private static Object get(Connection connection, Object key) throws Exception {
+    OutputStream out = connection.getOutputStream();
+    out.write(getRequest(connection, 1, key));
+    out.flush();
+    Message response = new Message(2, Version.CURRENT);
+    response.setComms(connection.getSocket(), connection.getInputStream(),
+        connection.getOutputStream(), connection.getCommBuffer(), null);
+    response.recv();
+    assertEquals(MessageType.RESPONSE, response.getMessageType());
+    return response.getPart(0).getObject();
+  }
+
+  @Test
+  public void testRequestsReuseBuffers() throws Exception {
+    Connection connection = this.pool.acquireConnection();
+    try {
+      long hits = getStats().getCommBufferPoolHits();
+      long misses = getStats().getCommBufferPoolMisses();
+      assertEquals("v1", get(connection, "k1"));
+      assertEquals(misses + 1, getStats().getCommBufferPoolMisses());
+
+      // the region name and key parts were read out of the pooled buffer
+      assertEquals("v1", get(connection, "k1"));
+      assertNull(get(connection, "k2"));
+      assertEquals(hits + 2, getStats().getCommBufferPoolHits());
+      assertEquals(misses + 1, getStats().getCommBufferPoolMisses());
+    } finally {
+      connection.destroy();
+    }
+  }
+
+  @Test
+  public void testLargeRequestIsNotPooled() throws Exception {
+    char[] chars = new char[CommBufferPool.MAX_BUFFER_SIZE + 1];
+    Arrays.fill(chars, 'k');
+    String key = new String(chars);
+    this.region.put(key, "large");
+    Connection connection = this.pool.acquireConnection();
+    try {
+      long hits = getStats().getCommBufferPoolHits();
+      long misses = getStats().getCommBufferPoolMisses();
+      assertEquals("large", get(connection, key));
+      assertEquals(hits, getStats().getCommBufferPoolHits());
+      assertEquals(misses, getStats().getCommBufferPoolMisses());
+    } finally {
+      connection.destroy();
+    }
+  }
+
+  @Test
+  public void testBufferReleasedWhenPayloadIsTruncated() throws Exception {
+    Connection first = this.pool.acquireConnection();
+    try {
+      assertEquals("v1", get(first, "k1"));
+    } finally {
+      first.destroy();
+    }
+    long hits = getStats().getCommBufferPoolHits();
+    long misses = getStats().getCommBufferPoolMisses();
+
+    // the server takes the pooled buffer and then reaches the end of the stream
+    Connection truncated = this.pool.acquireConnection();
+    try {
+      byte[] request = getRequest(truncated, 1, "k1");
+      OutputStream out = truncated.getOutputStream();
+      out.write(request, 0, request.length - 2);
+      out.flush();
+      truncated.getSocket().shutdownOutput();
+      assertEquals(-1, truncated.getInputStream().read());
+    } finally {
+      truncated.destroy();
+    }
+    assertEquals(hits + 1, getStats().getCommBufferPoolHits());
+
+    // which it gave back to the pool
+    Connection next = this.pool.acquireConnection();
+    try {
+      assertEquals("v1", get(next, "k1"));
+    } finally {
+      next.destroy();
+    }
+    assertEquals(hits + 2, getStats().getCommBufferPoolHits());
+    assertEquals(misses, getStats().getCommBufferPoolMisses());
+  }
+
+  @Test
+  public void testSizeClasses() throws Exception {
+    CommBufferPool bufferPool = new CommBufferPool(getStats());
+    assertEquals(0, CommBufferPool.sizeClass(1));
+    assertEquals(0, CommBufferPool.sizeClass(CommBufferPool.MIN_BUFFER_SIZE));
+    assertEquals(1, CommBufferPool.sizeClass(CommBufferPool.MIN_BUFFER_SIZE + 1));
+    assertEquals(1, CommBufferPool.sizeClass(2 * CommBufferPool.MIN_BUFFER_SIZE));
+
+    ByteBuffer bb = bufferPool.acquire(1500);
+    assertTrue(bb.isDirect());
+    assertEquals(2048, bb.capacity());
+    assertEquals(0, bb.position());
+    assertEquals(1500, bb.limit());
+    bb.position(100);
+    bufferPool.release(bb);
+
+    // a buffer of the same size class is reused and reset
+    ByteBuffer again = bufferPool.acquire(2000);
+    assertSame(bb, again);
+    assertEquals(0, again.position());
+    assertEquals(2000, again.limit());
+    assertFalse(bufferPool.acquire(2000) == bb);
+
+    // buffers that were not allocated by the pool are not kept
+    bufferPool.release(ByteBuffer.allocateDirect(1500));
+    assertEquals(2048, bufferPool.acquire(1500).capacity());
+
+    int large = CommBufferPool.MAX_BUFFER_SIZE + 1;
+    assertFalse(bufferPool.isPooledSize(large));
+    ByteBuffer unpooled = bufferPool.acquire(large);
+    assertEquals(large, unpooled.capacity());
+    bufferPool.release(unpooled);
+    assertFalse(bufferPool.acquire(large) == unpooled);
+
+    bufferPool.release(again);
+    bufferPool.clear();
+    assertFalse(bufferPool.acquire(1024) == again);
+  }
+}
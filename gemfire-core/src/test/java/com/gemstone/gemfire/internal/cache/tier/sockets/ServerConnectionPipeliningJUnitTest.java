@@ -0,0 +1,191 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.Connection;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.BridgeServerImpl;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that a server connection in selector mode handles the requests that
+ * a client sent back to back, before the responses to the earlier ones, and
+ * answers each of them in order.
+ */
+@Category(IntegrationTest.class)
+public class ServerConnectionPipeliningJUnitTest {
+
+  static {
+    // off by default; read when ServerConnection is loaded
+    System.setProperty("gemfire.ServerConnection.maxPipelinedRequests", "16");
+  }
+
+  private static final String REGION = "documents";
+
+  private Cache cache;
+  private Region<Object, Object> region;
+  private PoolImpl pool;
+  private Connection connection;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.REPLICATE).create(REGION);
+    this.region.put("k1", "v1");
+    this.region.put("k2", "v2");
+    BridgeServerImpl server = (BridgeServerImpl)this.cache.addCacheServer();
+    server.setPort(0);
+    server.setMaxThreads(2);
+    server.start();
+    assertTrue(server.getAcceptor().isSelector());
+    this.pool = (PoolImpl)PoolManager.createFactory()
+        .addServer("localhost", server.getPort()).setMinConnections(0)
+        .create("pool");
+    this.connection = this.pool.acquireConnection();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.connection != null) {
+      this.connection.destroy();
+    }
+    if (this.pool != null) {
+      this.pool.destroy();
+    }
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  /**
+   * Returns the bytes of a get request as the client would send them.
+   */
+  private byte[] getRequest(int transactionId, String key) throws IOException {
+    Message request = new Message(2, Version.CURRENT);
+    request.setMessageType(MessageType.REQUEST);
+    request.setTransactionId(transactionId);
+    request.addStringPart("/" + REGION);
+    request.addStringOrObjPart(key);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    request.setComms(this.connection.getSocket(), null, bytes,
+        ByteBuffer.allocate(this.connection.getCommBuffer().capacity()), null);
+    request.send(false);
+    return bytes.toByteArray();
+  }
+
+  private static byte[] concat(byte[] a, byte[] b) {
+    byte[] result = new byte[a.length + b.length];
+    System.arraycopy(a, 0, result, 0, a.length);
+    System.arraycopy(b, 0, result, a.length, b.length);
+    return result;
+  }
+
+  private Message readResponse() throws IOException {
+    Message response = new Message(2, Version.CURRENT);
+    response.setComms(this.connection.getSocket(), this.connection.getInputStream(),
+        this.connection.getOutputStream(), this.connection.getCommBuffer(), null);
+    response.recv();
+    return response;
+  }
+
+  private void assertResponse(int transactionId, Object value) throws Exception {
+    Message response = readResponse();
+    assertEquals(MessageType.RESPONSE, response.getMessageType());
+    assertEquals(transactionId, response.getTransactionId());
+    assertEquals(value, response.getPart(0).getObject());
+  }
+
+  private void assertClosedByServer() throws Exception {
+    try {
+      readResponse();
+      fail("expected the server to close the connection");
+    } catch (EOFException expected) {
+    } catch (IOException expected) {
+      // the connection may also be reset
+    }
+  }
+
+  @Test
+  public void testBackToBackRequests() throws Exception {
+    OutputStream out = this.connection.getOutputStream();
+    out.write(concat(getRequest(1, "k1"), getRequest(2, "k2")));
+    out.flush();
+    assertResponse(1, "v1");
+    assertResponse(2, "v2");
+
+    // the connection is still served once it went back to the selector
+    out.write(getRequest(3, "k1"));
+    out.flush();
+    assertResponse(3, "v1");
+  }
+
+  @Test
+  public void testPartialHeader() throws Exception {
+    byte[] second = getRequest(2, "k2");
+    OutputStream out = this.connection.getOutputStream();
+    // the first request and the start of the header of the second
+    out.write(concat(getRequest(1, "k1"), new byte[] { second[0], second[1], second[2] }));
+    out.flush();
+    assertResponse(1, "v1");
+    Thread.sleep(200);
+    out.write(second, 3, second.length - 3);
+    out.flush();
+    assertResponse(2, "v2");
+  }
+
+  @Test
+  public void testEndOfStreamAfterRequest() throws Exception {
+    Socket socket = this.connection.getSocket();
+    OutputStream out = this.connection.getOutputStream();
+    out.write(getRequest(1, "k1"));
+    out.flush();
+    socket.shutdownOutput();
+    assertResponse(1, "v1");
+    assertClosedByServer();
+  }
+
+  @Test
+  public void testEndOfStreamInPartialHeader() throws Exception {
+    byte[] second = getRequest(2, "k2");
+    Socket socket = this.connection.getSocket();
+    OutputStream out = this.connection.getOutputStream();
+    out.write(concat(getRequest(1, "k1"), new byte[] { second[0], second[1], second[2] }));
+    out.flush();
+    socket.shutdownOutput();
+    assertResponse(1, "v1");
+    assertClosedByServer();
+  }
+}
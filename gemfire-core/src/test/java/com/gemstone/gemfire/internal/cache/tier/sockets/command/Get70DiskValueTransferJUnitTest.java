@@ -0,0 +1,202 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.Connection;
+import com.gemstone.gemfire.cache.client.internal.GetOp;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.BridgeServerImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.TXManagerImpl;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that {@link Get70} sends large values that are only on disk straight
+ * from the oplog, without faulting them in, and everything else as before.
+ */
+@Category(IntegrationTest.class)
+public class Get70DiskValueTransferJUnitTest {
+
+  private static final String REGION = "documents";
+
+  private static final int LARGE = Get70.DISK_VALUE_TRANSFER_MIN_SIZE;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Cache cache;
+  private LocalRegion region;
+  private PoolImpl pool;
+  private Connection connection;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] { this.temporaryFolder.newFolder("diskDir") })
+        .create("store");
+    // only the most recently used value is in memory
+    this.region = (LocalRegion)this.cache.createRegionFactory(RegionShortcut.REPLICATE_PERSISTENT)
+        .setDiskStoreName("store").setEvictionAttributes(
+            EvictionAttributes.createLRUEntryAttributes(1, EvictionAction.OVERFLOW_TO_DISK))
+        .create(REGION);
+    BridgeServerImpl server = (BridgeServerImpl)this.cache.addCacheServer();
+    server.setPort(0);
+    server.start();
+    this.pool = (PoolImpl)PoolManager.createFactory()
+        .addServer("localhost", server.getPort()).setMinConnections(0)
+        .create("pool");
+    this.connection = this.pool.acquireConnection();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.connection != null) {
+      this.connection.destroy();
+    }
+    if (this.pool != null) {
+      this.pool.destroy();
+    }
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static byte[] bytes(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = (byte)i;
+    }
+    return bytes;
+  }
+
+  /**
+   * Puts the value and then another entry so that the value is evicted.
+   */
+  private void putOnDisk(Object key, Object value) {
+    this.region.put(key, value);
+    this.region.put("filler", "filler");
+    assertNull(this.region.getValueInVM(key));
+  }
+
+  /**
+   * Sends a get request for the key and returns the response.
+   */
+  private Message get(Object key) throws Exception {
+    Message request = new Message(2, Version.CURRENT);
+    request.setMessageType(MessageType.REQUEST);
+    request.setTransactionId(TXManagerImpl.NOTX);
+    request.addStringPart("/" + REGION);
+    request.addStringOrObjPart(key);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    request.setComms(this.connection.getSocket(), null, bytes,
+        ByteBuffer.allocate(this.connection.getCommBuffer().capacity()), null);
+    request.send(false);
+    OutputStream out = this.connection.getOutputStream();
+    out.write(bytes.toByteArray());
+    out.flush();
+
+    Message response = new Message(3, Version.CURRENT);
+    response.setComms(this.connection.getSocket(), this.connection.getInputStream(),
+        this.connection.getOutputStream(), this.connection.getCommBuffer(), null);
+    response.recv();
+    assertEquals(MessageType.RESPONSE, response.getMessageType());
+    return response;
+  }
+
+  @Test
+  public void testLargeByteArrayOnDisk() throws Exception {
+    byte[] value = bytes(LARGE + 1);
+    putOnDisk("k", value);
+    Message response = get("k");
+    assertTrue(response.getPart(0).isBytes());
+    assertArrayEquals(value, (byte[])response.getPart(0).getObject());
+    // the value was not faulted in
+    assertNull(this.region.getValueInVM("k"));
+    // and the version tag of the entry was sent with it
+    assertEquals(3, response.getNumberOfParts());
+    assertTrue((response.getPart(1).getInt() & GetOp.HAS_VERSION_TAG) != 0);
+    assertNotNull(response.getPart(2).getObject());
+  }
+
+  @Test
+  public void testLargeObjectOnDisk() throws Exception {
+    char[] chars = new char[LARGE];
+    Arrays.fill(chars, 'v');
+    String value = new String(chars);
+    putOnDisk("k", value);
+    Message response = get("k");
+    assertTrue(response.getPart(0).isObject());
+    assertEquals(value, response.getPart(0).getObject());
+    assertNull(this.region.getValueInVM("k"));
+  }
+
+  @Test
+  public void testSmallValueOnDiskIsFaultedIn() throws Exception {
+    byte[] value = bytes(LARGE - 1);
+    putOnDisk("k", value);
+    assertArrayEquals(value, (byte[])get("k").getPart(0).getObject());
+    assertNotNull(this.region.getValueInVM("k"));
+  }
+
+  @Test
+  public void testLargeValueInMemory() throws Exception {
+    byte[] value = bytes(LARGE + 1);
+    this.region.put("k", value);
+    assertNotNull(this.region.getValueInVM("k"));
+    assertArrayEquals(value, (byte[])get("k").getPart(0).getObject());
+  }
+
+  @Test
+  public void testValueOnDiskAfterCompaction() throws Exception {
+    byte[] value = bytes(LARGE + 1);
+    putOnDisk("k", value);
+    assertArrayEquals(value, (byte[])get("k").getPart(0).getObject());
+
+    // the oplog the first transfer read from is replaced
+    this.cache.findDiskStore("store").forceRoll();
+    byte[] updated = bytes(LARGE + 2);
+    putOnDisk("k", updated);
+    this.cache.findDiskStore("store").forceCompaction();
+    assertArrayEquals(updated, (byte[])get("k").getPart(0).getObject());
+    assertNull(this.region.getValueInVM("k"));
+  }
+}
@@ -0,0 +1,140 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.OutOfOffHeapMemoryException;
+import com.gemstone.junit.UnitTest;
+
+/**
+ * Tests {@link OffHeapMemoryAllocator}.
+ *
+ * @since 9.0
+ */
+@Category(UnitTest.class)
+public class OffHeapMemoryAllocatorJUnitTest {
+
+  private static final long MEMORY_SIZE = 1024 * 1024;
+
+  private OffHeapMemoryAllocator allocator;
+
+  @Before
+  public void setUp() {
+    this.allocator = OffHeapMemoryAllocator.create(MEMORY_SIZE, null);
+  }
+
+  @After
+  public void tearDown() {
+    OffHeapMemoryAllocator.freeOffHeapMemory();
+  }
+
+  @Test
+  public void testAllocateAndRead() {
+    byte[] data = new byte[] {1, 2, 3, 4, 5};
+    long addr = this.allocator.allocate(data, 1);
+    assertTrue(addr > 255);
+    assertEquals(5, OffHeapMemoryAllocator.getDataSize(addr));
+    assertEquals(1, OffHeapMemoryAllocator.getFlags(addr));
+    assertEquals(1, OffHeapMemoryAllocator.getRefCount(addr));
+    assertTrue(Arrays.equals(data, OffHeapMemoryAllocator.readBytes(addr)));
+    assertEquals(1, this.allocator.getObjects());
+    assertEquals(OffHeapMemoryAllocator.computeChunkSize(5), this.allocator.getUsedMemory());
+  }
+
+  @Test
+  public void testReleaseFreesChunk() {
+    long addr = this.allocator.allocate(new byte[10], 0);
+    assertTrue(OffHeapMemoryAllocator.retain(addr));
+    assertEquals(2, OffHeapMemoryAllocator.getRefCount(addr));
+    this.allocator.release(addr);
+    assertEquals(1, this.allocator.getObjects());
+    this.allocator.release(addr);
+    assertEquals(0, this.allocator.getObjects());
+    assertEquals(0, this.allocator.getUsedMemory());
+    assertFalse(OffHeapMemoryAllocator.retain(addr));
+    try {
+      this.allocator.release(addr);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void testFreedChunkIsReused() {
+    long addr = this.allocator.allocate(new byte[100], 0);
+    this.allocator.release(addr);
+    assertEquals(addr, this.allocator.allocate(new byte[100], 0));
+  }
+
+  @Test
+  public void testOutOfOffHeapMemory() {
+    byte[] data = new byte[1000];
+    try {
+      while (true) {
+        this.allocator.allocate(data, 0);
+      }
+    } catch (OutOfOffHeapMemoryException expected) {
+    }
+    assertTrue(this.allocator.getFreeMemory() < OffHeapMemoryAllocator.computeChunkSize(data.length));
+  }
+
+  @Test
+  public void testLargerFreeChunkIsUsedWhenFull() {
+    byte[] big = new byte[4000];
+    long bigAddr = this.allocator.allocate(big, 0);
+    try {
+      while (true) {
+        this.allocator.allocate(big, 0);
+      }
+    } catch (OutOfOffHeapMemoryException expected) {
+    }
+    try {
+      while (true) {
+        this.allocator.allocate(new byte[10], 0);
+      }
+    } catch (OutOfOffHeapMemoryException expected) {
+    }
+    this.allocator.release(bigAddr);
+    long addr = this.allocator.allocate(new byte[10], 0);
+    assertEquals(bigAddr, addr);
+    assertEquals(OffHeapMemoryAllocator.computeChunkSize(big.length), OffHeapMemoryAllocator.getChunkSize(addr));
+    assertEquals(10, OffHeapMemoryAllocator.getDataSize(addr));
+  }
+
+  @Test
+  public void testCreateWithDifferentSize() {
+    assertSame(this.allocator, OffHeapMemoryAllocator.create(MEMORY_SIZE, null));
+    try {
+      OffHeapMemoryAllocator.create(MEMORY_SIZE * 2, null);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  @Test
+  public void testParseOffHeapMemorySize() {
+    assertEquals(0, OffHeapMemoryAllocator.parseOffHeapMemorySize(null));
+    assertEquals(0, OffHeapMemoryAllocator.parseOffHeapMemorySize(""));
+    assertEquals(10L * 1024 * 1024, OffHeapMemoryAllocator.parseOffHeapMemorySize("10"));
+    assertEquals(10L * 1024 * 1024, OffHeapMemoryAllocator.parseOffHeapMemorySize("10m"));
+    assertEquals(2L * 1024 * 1024 * 1024, OffHeapMemoryAllocator.parseOffHeapMemorySize("2G"));
+    try {
+      OffHeapMemoryAllocator.parseOffHeapMemorySize("lots");
+      fail("expected IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
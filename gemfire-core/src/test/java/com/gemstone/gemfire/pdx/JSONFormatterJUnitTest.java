@@ -0,0 +1,135 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests the stream methods of {@link JSONFormatter} against the string ones.
+ */
+@Category(IntegrationTest.class)
+public class JSONFormatterJUnitTest {
+
+  private static final String DOCUMENT = "{\"name\":\"doc\",\"count\":3,\"ratio\":1.5,"
+      + "\"flag\":true,\"none\":null,\"nested\":{\"list\":[1,\"two\",{\"three\":3}]}}";
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static CloseTrackingInputStream stream(String json) throws IOException {
+    return new CloseTrackingInputStream(json.getBytes("UTF-8"));
+  }
+
+  @Test
+  public void testFromJSONStreamMatchesString() throws Exception {
+    CloseTrackingInputStream in = stream(DOCUMENT);
+    PdxInstance pdx = JSONFormatter.fromJSON(in);
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), pdx);
+    assertEquals("doc", pdx.getField("name"));
+    assertFalse(in.closed);
+  }
+
+  @Test
+  public void testFromJSONStreamInvalid() throws Exception {
+    try {
+      JSONFormatter.fromJSON(stream("{\"name\": "));
+      fail("expected JSONFormatterException");
+    } catch (JSONFormatterException expected) {
+    }
+    try {
+      JSONFormatter.fromJSON(stream(""));
+      fail("expected JSONFormatterException");
+    } catch (JSONFormatterException expected) {
+    }
+  }
+
+  @Test
+  public void testFromJSONArray() throws Exception {
+    CloseTrackingInputStream in = stream(" [" + DOCUMENT + ", {\"k\":1}] ");
+    List<PdxInstance> pdxs = JSONFormatter.fromJSONArray(in);
+    assertEquals(2, pdxs.size());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), pdxs.get(0));
+    assertEquals(JSONFormatter.fromJSON("{\"k\":1}"), pdxs.get(1));
+    assertFalse(in.closed);
+
+    assertTrue(JSONFormatter.fromJSONArray(stream("[]")).isEmpty());
+  }
+
+  @Test
+  public void testFromJSONArrayInvalid() throws Exception {
+    String[] invalid = { DOCUMENT, "", "[1, 2]", "[{\"k\":1}, [{\"k\":2}]]", "[{\"k\":1}" };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        JSONFormatter.fromJSONArray(stream(invalid[i]));
+        fail("expected JSONFormatterException for " + invalid[i]);
+      } catch (JSONFormatterException expected) {
+      }
+    }
+  }
+
+  @Test
+  public void testToJSONStreamMatchesString() throws Exception {
+    PdxInstance pdx = JSONFormatter.fromJSON(DOCUMENT);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONFormatter.toJSON(pdx, out);
+    assertEquals(JSONFormatter.toJSON(pdx), out.toString("UTF-8"));
+    assertEquals(pdx, JSONFormatter.fromJSON(out.toByteArray()));
+
+    // the document is appended to what the stream already has
+    JSONFormatter.toJSON(pdx, out);
+    assertEquals(2 * JSONFormatter.toJSONByteArray(pdx).length, out.size());
+  }
+
+  private static class CloseTrackingInputStream extends ByteArrayInputStream {
+    boolean closed;
+
+    CloseTrackingInputStream(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.closed = true;
+      super.close();
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.PdxSerializerObject;
+import com.gemstone.gemfire.internal.util.BlobHelper;
+import com.gemstone.gemfire.pdx.FieldType;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.gemfire.pdx.ReflectionBasedAutoSerializer;
+import com.gemstone.gemfire.pdx.internal.AutoSerializableManager.AutoClassInfo;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that the serializers generated by {@link AutoSerializerGenerator}
+ * write the same bytes as the field wrappers of the
+ * {@link ReflectionBasedAutoSerializer}, and read them back.
+ */
+@Category(IntegrationTest.class)
+public class AutoSerializerGeneratorJUnitTest {
+
+  private static final String NO_HARDCODED_EXCLUDES = "gemfire.auto.serialization.no.hardcoded.excludes";
+
+  private Cache cache;
+  private ReflectionBasedAutoSerializer serializer;
+
+  @Before
+  public void setUp() {
+    // the domain classes of this test are in a com.gemstone package
+    System.setProperty(NO_HARDCODED_EXCLUDES, "true");
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.serializer = new ReflectionBasedAutoSerializer(AutoSerializerGeneratorJUnitTest.class.getName() + "\\$.*") {
+      @Override
+      public boolean transformFieldValue(Field f, Class<?> clazz) {
+        return clazz == Transformed.class && f.getName().equals("secret");
+      }
+
+      @Override
+      public Object writeTransform(Field f, Class<?> clazz, Object originalValue) {
+        return originalValue == null ? null : new StringBuilder((String)originalValue).reverse().toString();
+      }
+
+      @Override
+      public Object readTransform(Field f, Class<?> clazz, Object serializedValue) {
+        return writeTransform(f, clazz, serializedValue);
+      }
+
+      @Override
+      public FieldType getFieldType(Field f, Class<?> clazz) {
+        if (clazz == Retyped.class && f.getName().equals("when")) {
+          return FieldType.OBJECT;
+        }
+        return super.getFieldType(f, clazz);
+      }
+    };
+    this.cache = new CacheFactory(props).setPdxSerializer(this.serializer).create();
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(NO_HARDCODED_EXCLUDES);
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  /**
+   * Returns true if serializers are generated in this JVM.
+   */
+  protected boolean isGenerated() {
+    return true;
+  }
+
+  private AutoClassInfo getClassInfo(Class<?> clazz) {
+    return AutoSerializableManager.getInstance(this.serializer).getExistingClassInfo(clazz);
+  }
+
+  /**
+   * Serializes <code>obj</code> twice, the first time with the field wrappers
+   * since its pdx type is not known yet, and deserializes both.
+   */
+  private Object roundTrip(Object obj) throws Exception {
+    byte[] first = BlobHelper.serializeToBlob(obj);
+    AutoClassInfo classInfo = getClassInfo(obj.getClass());
+    assertNotNull(classInfo);
+    if (isGenerated()) {
+      assertNotNull(classInfo.getGeneratedSerializer());
+    } else {
+      assertNull(classInfo.getGeneratedSerializer());
+    }
+    byte[] second = BlobHelper.serializeToBlob(obj);
+    assertArrayEquals(first, second);
+    assertEquals(obj, BlobHelper.deserializeBlob(first));
+    Object result = BlobHelper.deserializeBlob(second);
+    assertEquals(obj, result);
+    return result;
+  }
+
+  @Test
+  public void testAllFieldTypes() throws Exception {
+    AllTypes obj = AllTypes.filled(new AllTypes());
+    obj.notSerialized = 7;
+    AllTypes result = (AllTypes)roundTrip(obj);
+    assertEquals(0, result.notSerialized);
+    assertEquals(obj.getClass(), result.getClass());
+  }
+
+  @Test
+  public void testNullValues() throws Exception {
+    roundTrip(new AllTypes());
+  }
+
+  @Test
+  public void testEmptyValues() throws Exception {
+    roundTrip(AllTypes.empty(new AllTypes()));
+  }
+
+  @Test
+  public void testSuperclassFields() throws Exception {
+    Sub obj = (Sub)AllTypes.filled(new Sub());
+    obj.subName = "sub";
+    obj.subCount = 5;
+    Sub result = (Sub)roundTrip(obj);
+    assertEquals("sub", result.subName);
+    assertEquals(obj.getInt(), result.getInt());
+  }
+
+  @Test
+  public void testReadOrderMatchesType() throws Exception {
+    BlobHelper.serializeToBlob(AllTypes.filled(new AllTypes()));
+    AutoClassInfo classInfo = getClassInfo(AllTypes.class);
+    PdxType type = classInfo.getSerializedType();
+    assertEquals(classInfo.getFields().size(), type.getUndeletedFieldCount());
+    // so its blobs are read in field order, by the generated serializer if any
+    assertTrue(classInfo.matchesPdxType(type));
+  }
+
+  @Test
+  public void testTransformedFieldIsNotGenerated() throws Exception {
+    Transformed obj = new Transformed();
+    obj.secret = "abc";
+    obj.count = 3;
+    byte[] blob = BlobHelper.serializeToBlob(obj);
+    assertNull(getClassInfo(Transformed.class).getGeneratedSerializer());
+    assertEquals(obj, BlobHelper.deserializeBlob(blob));
+    assertEquals(obj, BlobHelper.deserializeBlob(BlobHelper.serializeToBlob(obj)));
+
+    // the value written is the transformed one
+    DefaultQuery.setPdxReadSerialized(this.cache, true);
+    try {
+      PdxInstance pdx = (PdxInstance)BlobHelper.deserializeBlob(blob);
+      assertEquals("cba", pdx.getField("secret"));
+    } finally {
+      DefaultQuery.setPdxReadSerialized(this.cache, false);
+    }
+  }
+
+  @Test
+  public void testRetypedFieldIsNotGenerated() throws Exception {
+    Retyped obj = new Retyped();
+    obj.when = new Date(1000L);
+    obj.count = 3;
+    byte[] blob = BlobHelper.serializeToBlob(obj);
+    assertNull(getClassInfo(Retyped.class).getGeneratedSerializer());
+    assertEquals(obj, BlobHelper.deserializeBlob(blob));
+    assertEquals(obj, BlobHelper.deserializeBlob(BlobHelper.serializeToBlob(obj)));
+  }
+
+  public static class AllTypes implements PdxSerializerObject {
+    private boolean booleanField;
+    private byte byteField;
+    private char charField;
+    private short shortField;
+    private int intField;
+    private long longField;
+    private float floatField;
+    private double doubleField;
+    private String stringField;
+    private Date dateField;
+    private boolean[] booleanArray;
+    private byte[] byteArray;
+    private char[] charArray;
+    private short[] shortArray;
+    private int[] intArray;
+    private long[] longArray;
+    private float[] floatArray;
+    private double[] doubleArray;
+    private String[] stringArray;
+    private byte[][] arrayOfByteArrays;
+    private Object[] objectArray;
+    private Object objectField;
+    transient int notSerialized;
+
+    public AllTypes() {
+    }
+
+    static AllTypes filled(AllTypes obj) {
+      obj.booleanField = true;
+      obj.byteField = -1;
+      obj.charField = 'c';
+      obj.shortField = Short.MIN_VALUE;
+      obj.intField = Integer.MAX_VALUE;
+      obj.longField = Long.MIN_VALUE;
+      obj.floatField = 1.5f;
+      obj.doubleField = -2.5d;
+      obj.stringField = "string";
+      obj.dateField = new Date(123456789L);
+      obj.booleanArray = new boolean[] { true, false };
+      obj.byteArray = new byte[] { 1, 2, 3 };
+      obj.charArray = new char[] { 'a', 'b' };
+      obj.shortArray = new short[] { 1, -1 };
+      obj.intArray = new int[] { 1, 2, 3, 4 };
+      obj.longArray = new long[] { Long.MAX_VALUE };
+      obj.floatArray = new float[] { 0.5f };
+      obj.doubleArray = new double[] { 0.25d, 4d };
+      obj.stringArray = new String[] { "a", null, "c" };
+      obj.arrayOfByteArrays = new byte[][] { { 1 }, null, {} };
+      obj.objectArray = new Object[] { "x", Integer.valueOf(1) };
+      obj.objectField = Long.valueOf(9L);
+      return obj;
+    }
+
+    static AllTypes empty(AllTypes obj) {
+      obj.stringField = "";
+      obj.booleanArray = new boolean[0];
+      obj.byteArray = new byte[0];
+      obj.charArray = new char[0];
+      obj.shortArray = new short[0];
+      obj.intArray = new int[0];
+      obj.longArray = new long[0];
+      obj.floatArray = new float[0];
+      obj.doubleArray = new double[0];
+      obj.stringArray = new String[0];
+      obj.arrayOfByteArrays = new byte[0][];
+      obj.objectArray = new Object[0];
+      return obj;
+    }
+
+    int getInt() {
+      return this.intField;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == null || o.getClass() != getClass()) {
+        return false;
+      }
+      AllTypes other = (AllTypes)o;
+      return this.booleanField == other.booleanField
+          && this.byteField == other.byteField
+          && this.charField == other.charField
+          && this.shortField == other.shortField
+          && this.intField == other.intField
+          && this.longField == other.longField
+          && this.floatField == other.floatField
+          && this.doubleField == other.doubleField
+          && equal(this.stringField, other.stringField)
+          && equal(this.dateField, other.dateField)
+          && Arrays.equals(this.booleanArray, other.booleanArray)
+          && Arrays.equals(this.byteArray, other.byteArray)
+          && Arrays.equals(this.charArray, other.charArray)
+          && Arrays.equals(this.shortArray, other.shortArray)
+          && Arrays.equals(this.intArray, other.intArray)
+          && Arrays.equals(this.longArray, other.longArray)
+          && Arrays.equals(this.floatArray, other.floatArray)
+          && Arrays.equals(this.doubleArray, other.doubleArray)
+          && Arrays.equals(this.stringArray, other.stringArray)
+          && Arrays.deepEquals(this.arrayOfByteArrays, other.arrayOfByteArrays)
+          && Arrays.equals(this.objectArray, other.objectArray)
+          && equal(this.objectField, other.objectField);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.intField;
+    }
+  }
+
+  public static class Sub extends AllTypes {
+    private String subName;
+    private int subCount;
+
+    public Sub() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return super.equals(o) && equal(this.subName, ((Sub)o).subName)
+          && this.subCount == ((Sub)o).subCount;
+    }
+
+    @Override
+    public int hashCode() {
+      return super.hashCode();
+    }
+  }
+
+  public static class Transformed implements PdxSerializerObject {
+    private String secret;
+    private int count;
+
+    public Transformed() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Transformed && equal(this.secret, ((Transformed)o).secret)
+          && this.count == ((Transformed)o).count;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.count;
+    }
+  }
+
+  public static class Retyped implements PdxSerializerObject {
+    private Date when;
+    private int count;
+
+    public Retyped() {
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Retyped && equal(this.when, ((Retyped)o).when)
+          && this.count == ((Retyped)o).count;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.count;
+    }
+  }
+
+  static boolean equal(Object a, Object b) {
+    return a == null ? b == null : a.equals(b);
+  }
+}
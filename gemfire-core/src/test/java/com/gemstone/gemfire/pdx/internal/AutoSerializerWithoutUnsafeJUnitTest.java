@@ -0,0 +1,31 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Runs the tests of {@link AutoSerializerGeneratorJUnitTest} without Unsafe,
+ * so that no serializer can be generated and fields are accessed by
+ * reflection.
+ */
+@Category(IntegrationTest.class)
+public class AutoSerializerWithoutUnsafeJUnitTest extends AutoSerializerGeneratorJUnitTest {
+
+  static {
+    // read when the AutoSerializableManager class is initialized
+    System.setProperty("gemfire.AutoSerializer.SAFE", "true");
+  }
+
+  @Override
+  protected boolean isGenerated() {
+    return false;
+  }
+}
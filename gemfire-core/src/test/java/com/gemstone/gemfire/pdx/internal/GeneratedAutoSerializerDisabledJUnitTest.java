@@ -0,0 +1,30 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Runs the tests of {@link AutoSerializerGeneratorJUnitTest} with the
+ * generated serializers disabled, so that the field wrappers are used.
+ */
+@Category(IntegrationTest.class)
+public class GeneratedAutoSerializerDisabledJUnitTest extends AutoSerializerGeneratorJUnitTest {
+
+  static {
+    // read when the AutoSerializerGenerator class is initialized
+    System.setProperty("gemfire.autopdx.disableGeneratedSerializers", "true");
+  }
+
+  @Override
+  protected boolean isGenerated() {
+    return false;
+  }
+}
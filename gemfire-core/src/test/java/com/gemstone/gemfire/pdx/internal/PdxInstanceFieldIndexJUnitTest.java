@@ -0,0 +1,155 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.pdx.PdxFieldDoesNotExistException;
+import com.gemstone.gemfire.pdx.PdxFieldTypeMismatchException;
+import com.gemstone.gemfire.pdx.WritablePdxInstance;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests reading the fields of a {@link PdxInstanceImpl} by index, and that
+ * the field positions it remembers follow the changes flushed by a
+ * {@link WritablePdxInstance}.
+ */
+@Category(IntegrationTest.class)
+public class PdxInstanceFieldIndexJUnitTest {
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  /**
+   * Creates an instance whose variable length fields come before and after
+   * its fixed length ones.
+   */
+  private PdxInstanceImpl createDocument(String name, int counter) {
+    return (PdxInstanceImpl)this.cache.createPdxInstanceFactory("Document")
+        .writeString("name", name)
+        .writeInt("counter", counter)
+        .writeByteArray("body", new byte[] { 1, 2, 3 })
+        .writeBoolean("flag", true)
+        .writeByte("b", (byte)4)
+        .writeChar("c", 'x')
+        .writeShort("s", (short)5)
+        .writeLong("big", Long.MAX_VALUE)
+        .writeFloat("f", 1.5f)
+        .writeDouble("ratio", 0.25)
+        .writeString("tail", "end")
+        .create();
+  }
+
+  @Test
+  public void testFieldIndex() {
+    PdxInstanceImpl doc = createDocument("doc", 1);
+    String[] names = { "name", "counter", "body", "flag", "b", "c", "s", "big", "f", "ratio", "tail" };
+    for (int i = 0; i < names.length; i++) {
+      assertEquals(i, doc.getFieldIndex(names[i]));
+    }
+    assertEquals(-1, doc.getFieldIndex("missing"));
+    // the index is the same for every instance of the type
+    assertEquals(doc.getFieldIndex("tail"), createDocument("other", 2).getFieldIndex("tail"));
+  }
+
+  @Test
+  public void testReadByIndex() {
+    PdxInstanceImpl doc = createDocument("doc", 7);
+    assertEquals("doc", doc.getField(doc.getFieldIndex("name")));
+    assertEquals(new PdxString("doc"), doc.getRawField(doc.getFieldIndex("name")));
+    assertEquals(7, doc.getIntField(doc.getFieldIndex("counter")));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[])doc.getField(doc.getFieldIndex("body")));
+    assertTrue(doc.getBooleanField(doc.getFieldIndex("flag")));
+    assertEquals(4, doc.getByteField(doc.getFieldIndex("b")));
+    assertEquals('x', doc.getCharField(doc.getFieldIndex("c")));
+    assertEquals(5, doc.getShortField(doc.getFieldIndex("s")));
+    assertEquals(Long.MAX_VALUE, doc.getLongField(doc.getFieldIndex("big")));
+    assertEquals(1.5f, doc.getFloatField(doc.getFieldIndex("f")), 0);
+    assertEquals(0.25, doc.getDoubleField(doc.getFieldIndex("ratio")), 0);
+    assertEquals("end", doc.getField(doc.getFieldIndex("tail")));
+    // reads by name use the same positions
+    assertEquals("end", doc.getField("tail"));
+    assertEquals(7, doc.getField("counter"));
+  }
+
+  @Test
+  public void testWrongTypeOrIndex() {
+    PdxInstanceImpl doc = createDocument("doc", 1);
+    try {
+      doc.getIntField(doc.getFieldIndex("big"));
+      fail("expected PdxFieldTypeMismatchException");
+    } catch (PdxFieldTypeMismatchException expected) {
+    }
+    try {
+      doc.getField(-1);
+      fail("expected PdxFieldDoesNotExistException");
+    } catch (PdxFieldDoesNotExistException expected) {
+    }
+    try {
+      doc.getLongField(doc.getPdxType().getFieldCount());
+      fail("expected PdxFieldDoesNotExistException");
+    } catch (PdxFieldDoesNotExistException expected) {
+    }
+  }
+
+  @Test
+  public void testPositionsAfterWritableFlush() {
+    PdxInstanceImpl doc = createDocument("doc", 1);
+    // remembers the positions of the fields
+    assertEquals("end", doc.getField("tail"));
+
+    WritablePdxInstanceImpl writer = (WritablePdxInstanceImpl)doc.createWriter();
+    assertEquals("end", writer.getField("tail"));
+    // moves every field after it
+    writer.setField("name", "a much longer name than before");
+    writer.setField("counter", 2);
+    assertEquals("a much longer name than before", writer.getField("name"));
+    assertEquals(2, writer.getIntField(writer.getFieldIndex("counter")));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[])writer.getField("body"));
+    assertEquals(0.25, writer.getDoubleField(writer.getFieldIndex("ratio")), 0);
+    assertEquals("end", writer.getField("tail"));
+    assertEquals(new PdxString("end"), writer.getRawField(writer.getFieldIndex("tail")));
+
+    // and shortens them again
+    writer.setField("name", "");
+    assertEquals("end", writer.getField("tail"));
+    assertEquals(Long.MAX_VALUE, writer.getLongField(writer.getFieldIndex("big")));
+
+    // the instance the writer was created from is unchanged
+    assertEquals("doc", doc.getField("name"));
+    assertEquals(1, doc.getIntField(doc.getFieldIndex("counter")));
+    assertEquals("end", doc.getField("tail"));
+  }
+}
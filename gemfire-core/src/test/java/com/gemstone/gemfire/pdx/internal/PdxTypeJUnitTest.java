@@ -0,0 +1,46 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.pdx.FieldType;
+import com.gemstone.junit.UnitTest;
+
+/**
+ * Tests the field counts of {@link PdxType}.
+ */
+@Category(UnitTest.class)
+public class PdxTypeJUnitTest {
+
+  private static PdxType createType(int fieldCount) {
+    PdxType type = new PdxType("Domain", true);
+    for (int i = 0; i < fieldCount; i++) {
+      type.addField(new PdxField("f" + i, i, 0, FieldType.INT, false));
+    }
+    return type;
+  }
+
+  @Test
+  public void testUndeletedFieldCountWithoutDeletedFields() {
+    assertEquals(0, createType(0).getUndeletedFieldCount());
+    assertEquals(3, createType(3).getUndeletedFieldCount());
+  }
+
+  @Test
+  public void testUndeletedFieldCountWithDeletedFields() {
+    PdxType type = createType(3);
+    type.getPdxField("f1").setDeleted(true);
+    type.setHasDeletedField(true);
+    assertEquals(3, type.getFieldCount());
+    assertEquals(2, type.getUndeletedFieldCount());
+  }
+}
@@ -0,0 +1,166 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.pdx.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.InvalidDeltaException;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.DSCODE;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.InternalDataSerializer;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.pdx.PdxInstance;
+import com.gemstone.junit.IntegrationTest;
+
+@Category(IntegrationTest.class)
+public class WritablePdxInstanceDeltaJUnitTest {
+
+  private Cache cache;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private PdxInstanceImpl createDocument(String className) {
+    return (PdxInstanceImpl)this.cache.createPdxInstanceFactory(className)
+        .writeString("name", "doc")
+        .writeInt("counter", 1)
+        .writeByteArray("body", new byte[10000])
+        .writeObject("tags", null)
+        .create();
+  }
+
+  private PdxInstance read(byte[] bytes) {
+    return InternalDataSerializer.readPdxInstance(bytes, (GemFireCacheImpl)this.cache);
+  }
+
+  private static byte[] toDelta(WritablePdxInstanceImpl writer) throws Exception {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    writer.toDelta(hdos);
+    return hdos.toByteArray();
+  }
+
+  @Test
+  public void testDeltaHasOnlyChangedFields() throws Exception {
+    PdxInstanceImpl old = createDocument("Document");
+    WritablePdxInstanceImpl writer = (WritablePdxInstanceImpl)old.createWriter();
+    assertFalse(writer.hasDelta());
+    writer.setField("counter", 2);
+    writer.setField("name", "doc");
+    assertTrue(writer.hasDelta());
+
+    byte[] delta = toDelta(writer);
+    assertFalse(writer.hasDelta());
+    // the header, the count and one int field
+    assertEquals(16 + 1 + 2 + 4, delta.length);
+
+    byte[] result = WritablePdxInstanceImpl.applyDelta(old.toBytes(), delta);
+    assertArrayEquals(writer.toBytes(), result);
+    PdxInstance applied = read(result);
+    assertEquals(2, applied.getField("counter"));
+    assertEquals("doc", applied.getField("name"));
+  }
+
+  @Test
+  public void testDeltasAreSinceTheLastDelta() throws Exception {
+    PdxInstanceImpl old = createDocument("Document");
+    WritablePdxInstanceImpl writer = (WritablePdxInstanceImpl)old.createWriter();
+    writer.setField("counter", 2);
+    byte[] first = toDelta(writer);
+    writer.setField("tags", new String[] {"a", "b"});
+    byte[] second = toDelta(writer);
+
+    byte[] result = WritablePdxInstanceImpl.applyDelta(
+        WritablePdxInstanceImpl.applyDelta(old.toBytes(), first), second);
+    PdxInstance applied = read(result);
+    assertEquals(2, applied.getField("counter"));
+    assertArrayEquals(new String[] {"a", "b"}, (String[])applied.getField("tags"));
+  }
+
+  @Test
+  public void testDeltaOfAnotherOldValue() throws Exception {
+    PdxInstanceImpl old = createDocument("Document");
+    WritablePdxInstanceImpl concurrent = (WritablePdxInstanceImpl)old.createWriter();
+    concurrent.setField("name", "concurrent");
+    WritablePdxInstanceImpl writer = (WritablePdxInstanceImpl)old.createWriter();
+    writer.setField("counter", 2);
+    byte[] delta = toDelta(writer);
+
+    try {
+      WritablePdxInstanceImpl.applyDelta(concurrent.toBytes(), delta);
+      fail("expected InvalidDeltaException");
+    } catch (InvalidDeltaException expected) {
+    }
+    try {
+      concurrent.fromDelta(new PdxInputStream(delta));
+      fail("expected InvalidDeltaException");
+    } catch (InvalidDeltaException expected) {
+    }
+    assertEquals("concurrent", concurrent.getField("name"));
+    assertEquals(1, concurrent.getField("counter"));
+
+    // an equal old value created elsewhere has the same base
+    byte[] result = WritablePdxInstanceImpl.applyDelta(createDocument("Document").toBytes(), delta);
+    assertEquals(2, read(result).getField("counter"));
+  }
+
+  @Test
+  public void testApplicationDeltaStartingWithPdx() throws Exception {
+    PdxInstanceImpl old = createDocument("Document");
+    // an application delta that starts with a pdx serialized object; its
+    // length is at the offset a type id would be at
+    byte[] delta = new byte[20];
+    delta[0] = DSCODE.PDX;
+    ByteBuffer.wrap(delta).putInt(1, old.getPdxType().getTypeId());
+    assertNull(WritablePdxInstanceImpl.applyDelta(old.toBytes(), delta));
+    assertNull(WritablePdxInstanceImpl.applyDelta(old.toBytes(), old.toBytes()));
+  }
+
+  @Test
+  public void testDeltaOfAnotherType() throws Exception {
+    WritablePdxInstanceImpl writer = (WritablePdxInstanceImpl)createDocument("Document").createWriter();
+    writer.setField("counter", 2);
+    byte[] delta = toDelta(writer);
+
+    PdxInstanceImpl other = createDocument("OtherDocument");
+    assertNull(WritablePdxInstanceImpl.applyDelta(other.toBytes(), delta));
+    try {
+      ((WritablePdxInstanceImpl)other.createWriter()).fromDelta(new PdxInputStream(delta));
+      fail("expected InvalidDeltaException");
+    } catch (InvalidDeltaException expected) {
+    }
+  }
+}
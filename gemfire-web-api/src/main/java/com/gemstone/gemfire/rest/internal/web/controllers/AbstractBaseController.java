@@ -9,11 +9,13 @@
 package com.gemstone.gemfire.rest.internal.web.controllers;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,6 +36,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -144,6 +147,18 @@ public abstract class AbstractBaseController {
     }
   }
   
+  /**
+   * Converts the JSON document in a request body while it is read, so that
+   * the body is never held as a string.
+   */
+  protected PdxInstance convert(final InputStream json){
+    try{
+      return JSONFormatter.fromJSON(json);
+    }catch(JSONFormatterException jpe){
+      throw new MalformedJsonException("Json doc specified is either not supported or invalid!", jpe);
+    }
+  }
+  
   protected String convert(final PdxInstance pdxObj){
     try {
       return (pdxObj != null ? JSONFormatter.toJSON(pdxObj) : null);
@@ -197,6 +212,18 @@ public abstract class AbstractBaseController {
     }
   }
   
+  /**
+   * Converts each JSON document of the JSON array in a request body while it
+   * is read.
+   */
+  protected Collection<PdxInstance> convertJsonArrayIntoPdxCollection(final InputStream jsonArray) {
+    try {
+      return JSONFormatter.fromJSONArray(jsonArray);
+    } catch (JSONFormatterException jpe) {
+      throw new MalformedJsonException("Json document specified in request body is not valid!", jpe);
+    }
+  }
+  
   protected Collection<PdxInstance> convertJsonArrayIntoPdxCollection(final String jsonArray) {
     JSONArray jsonArr = null;
     try {
@@ -680,16 +707,17 @@ public abstract class AbstractBaseController {
     } 
   }
   
-  public ResponseEntity<String> updateSingleKey(final String region, final String key, final String json, final String opValue){    
+  public ResponseEntity<String> updateSingleKey(final String region, final String key, final InputStream json, final String opValue){    
     
-    final JSONTypes jsonType = validateJsonAndFindType(json);
+    final JSONTypes jsonType = findJsonType(json);
     
     final UpdateOp op = UpdateOp.valueOf(opValue.toUpperCase());
     String existingValue = null;
     
     switch (op) {
       case CAS:  
-        PdxInstance existingPdxObj = casValue(region, key, json);
+        // the @old and @new documents are split out of the body as strings
+        PdxInstance existingPdxObj = casValue(region, key, readBody(json));
         existingValue = convert(existingPdxObj);
         break;
         
@@ -713,31 +741,25 @@ public abstract class AbstractBaseController {
   }
   
   
-  public ResponseEntity<String> updateMultipleKeys(final String region, final String[] keys, final String json){
+  public ResponseEntity<String> updateMultipleKeys(final String region, final String[] keys, final InputStream json){
     
-    JSONArray jsonArr = null;
+    final List<PdxInstance> pdxObjs;
     try {
-      jsonArr = new JSONArray(json);  
-    } catch (JSONException e) {
+      pdxObjs = JSONFormatter.fromJSONArray(json);
+    } catch (JSONFormatterException e) {
       throw new MalformedJsonException("JSON document specified in the request is incorrect", e);
     }
   
-    if(jsonArr.length() != keys.length){
+    if(pdxObjs.size() != keys.length){
       throw new MalformedJsonException("Each key must have corresponding value (JSON document) specified in the request");
     }
     
     Map<Object, PdxInstance> map = new HashMap<Object, PdxInstance>();    
     for(int i=0; i<keys.length; i++){
       if (logger.isDebugEnabled()) {
-        logger.debug("Updating (put) Json document ({}) having key ({}) in Region ({})", json, keys[i], region);
-      }
-        
-      try {
-        PdxInstance pdxObj = convert( jsonArr.getJSONObject(i).toString());    
-        map.put(keys[i], pdxObj);
-      } catch (JSONException e) {
-        throw new MalformedJsonException(String.format("JSON document at index (%1$s) in the request body is incorrect", i), e);
+        logger.debug("Updating (put) Json document having key ({}) in Region ({})", keys[i], region);
       }
+      map.put(keys[i], pdxObjs.get(i));
     }
      
     if(!CollectionUtils.isEmpty(map)){ 
@@ -749,6 +771,38 @@ public abstract class AbstractBaseController {
     return new ResponseEntity<String>(headers, HttpStatus.OK);
   }
   
+  /**
+   * Returns the type of the JSON value in a request body from its first
+   * character, without reading the value. The stream must support mark.
+   */
+  protected JSONTypes findJsonType(final InputStream json){
+    try {
+      int c;
+      do {
+        json.mark(1);
+        c = json.read();
+      } while (c != -1 && Character.isWhitespace(c));
+      json.reset();
+      if (c == '{') {
+        return JSONTypes.JSON_OBJECT;
+      } else if (c == '[') {
+        return JSONTypes.JSON_ARRAY;
+      } else {
+        return JSONTypes.UNRECOGNIZED_JSON;
+      }
+    } catch (IOException e) {
+      throw new MalformedJsonException("JSON document specified in the request is incorrect", e);
+    }
+  }
+  
+  protected String readBody(final InputStream json){
+    try {
+      return StreamUtils.copyToString(json, Charset.forName(DEFAULT_ENCODING));
+    } catch (IOException e) {
+      throw new MalformedJsonException("JSON document specified in the request is incorrect", e);
+    }
+  }
+  
   public JSONTypes validateJsonAndFindType(String json){
     try {
       Object jsonObj = new JSONTokener(json).nextValue();
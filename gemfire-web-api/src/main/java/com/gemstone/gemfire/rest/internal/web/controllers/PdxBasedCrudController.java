@@ -7,6 +7,8 @@
  */
 package com.gemstone.gemfire.rest.internal.web.controllers;
 
+import java.io.BufferedInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -19,7 +21,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -65,7 +66,8 @@ public class PdxBasedCrudController extends CommonCrudController {
    * Creating entry into the region
    * @param region region name where data will be created
    * @param key gemfire region key
-   * @param json JSON document that is stored against the key
+   * @param body JSON document that is stored against the key, which is
+   *        converted while it is read from the request
    * @return JSON document
    */
   
@@ -86,19 +88,20 @@ public class PdxBasedCrudController extends CommonCrudController {
   } )
   public ResponseEntity<?> create(@PathVariable("region") String region,
       @RequestParam(value = "key", required = false) String key,
-      @RequestBody final String json) {
+      final InputStream body) {
     
     key = generateKey(key);
     
     if(logger.isDebugEnabled()){
-      logger.debug("Posting (creating/putIfAbsent) JSON document ({}) to Region ({}) with Key ({})...",
-          json, region, key);
+      logger.debug("Posting (creating/putIfAbsent) JSON document to Region ({}) with Key ({})...",
+          region, key);
     }
     region = decode(region);
     Object existingPdxObj = null;
     
     //Check whether the user has supplied single JSON doc or Array of JSON docs  
-    final JSONTypes jsonType = validateJsonAndFindType(json);
+    final InputStream json = new BufferedInputStream(body);
+    final JSONTypes jsonType = findJsonType(json);
     if(JSONTypes.JSON_ARRAY.equals(jsonType)){
       existingPdxObj = postValue(region, key, convertJsonArrayIntoPdxCollection(json));
     }else {
@@ -278,7 +281,7 @@ public class PdxBasedCrudController extends CommonCrudController {
    * @param region gemfire data region
    * @param keys keys for which update operation is requested
    * @param opValue type of update (put, replace, cas etc)
-   * @param json new data for the key(s)
+   * @param body new data for the key(s), which is converted while it is read
    * @return JSON document
    */
   @RequestMapping(method = RequestMethod.PUT, value = "/{region}/{keys}",
@@ -301,12 +304,13 @@ public class PdxBasedCrudController extends CommonCrudController {
   public ResponseEntity<?> update(@PathVariable("region") String region,
       @PathVariable("keys") final String[] keys,
       @RequestParam(value = "op", defaultValue = "PUT") final String opValue,
-      @RequestBody final String json) {
+      final InputStream body) {
     
     if(logger.isDebugEnabled()){
       logger.debug("updating key(s) for region ({}) ", region);
     }
     region = decode(region);
+    final InputStream json = new BufferedInputStream(body);
     
     if(keys.length > 1){
       //putAll case
@@ -0,0 +1,190 @@
+/*=========================================================================
+ * Copyright (c) 2010-2014 Pivotal Software, Inc. All Rights Reserved.
+ * This product is protected by U.S. and international copyright
+ * and intellectual property laws. Pivotal products are covered by
+ * one or more patents listed at http://www.pivotal.io/patents.
+ *=========================================================================
+ */
+package com.gemstone.gemfire.rest.internal.web.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.pdx.JSONFormatter;
+import com.gemstone.gemfire.rest.internal.web.controllers.support.JSONTypes;
+import com.gemstone.gemfire.rest.internal.web.exception.MalformedJsonException;
+import com.gemstone.junit.IntegrationTest;
+
+/**
+ * Tests that the PdxBasedCrudController converts the JSON request bodies of
+ * create, put and putAll while they are read.
+ */
+@Category(IntegrationTest.class)
+public class PdxBasedCrudControllerJUnitTest {
+
+  private static final String REGION = "documents";
+  private static final String DOCUMENT = "{\"name\":\"doc\",\"nested\":{\"list\":[1,2]}}";
+  private static final String OTHER_DOCUMENT = "{\"name\":\"other\"}";
+
+  private Cache cache;
+  private Region<Object, Object> region;
+  private PdxBasedCrudController controller;
+
+  @Before
+  public void setUp() {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    this.cache = new CacheFactory(props).create();
+    this.region = this.cache.createRegionFactory(RegionShortcut.LOCAL).create(REGION);
+    this.controller = new PdxBasedCrudController() {
+      @Override protected URI toUri(final String... pathSegments) {
+        return URI.create(getRestApiVersion() + "/" + pathSegments[pathSegments.length - 1]);
+      }
+    };
+  }
+
+  @After
+  public void tearDown() {
+    if (this.cache != null) {
+      this.cache.close();
+    }
+  }
+
+  private static InputStream body(String json) throws IOException {
+    return new ByteArrayInputStream(json.getBytes("UTF-8"));
+  }
+
+  @Test
+  public void testFindJsonType() throws Exception {
+    InputStream json = new BufferedInputStream(body(" \r\n\t" + DOCUMENT));
+    assertEquals(JSONTypes.JSON_OBJECT, this.controller.findJsonType(json));
+    // the type is found without consuming the document
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), this.controller.convert(json));
+
+    json = new BufferedInputStream(body("[" + DOCUMENT + "]"));
+    assertEquals(JSONTypes.JSON_ARRAY, this.controller.findJsonType(json));
+    assertEquals(1, this.controller.convertJsonArrayIntoPdxCollection(json).size());
+
+    assertEquals(JSONTypes.UNRECOGNIZED_JSON, this.controller.findJsonType(
+        new BufferedInputStream(body("  "))));
+    assertEquals(JSONTypes.UNRECOGNIZED_JSON, this.controller.findJsonType(
+        new BufferedInputStream(body("x"))));
+  }
+
+  @Test
+  public void testCreateDocument() throws Exception {
+    ResponseEntity<?> response = this.controller.create(REGION, "1", body(DOCUMENT));
+    assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    assertEquals(URI.create("/v1/1"), response.getHeaders().getLocation());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), this.region.get("1"));
+
+    response = this.controller.create(REGION, "1", body(OTHER_DOCUMENT));
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), this.region.get("1"));
+  }
+
+  @Test
+  public void testCreateArray() throws Exception {
+    ResponseEntity<?> response = this.controller.create(REGION, "1",
+        body("[" + DOCUMENT + "," + OTHER_DOCUMENT + "]"));
+    assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    List<Object> values = new ArrayList<Object>((Collection<?>)this.region.get("1"));
+    assertEquals(2, values.size());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), values.get(0));
+    assertEquals(JSONFormatter.fromJSON(OTHER_DOCUMENT), values.get(1));
+  }
+
+  @Test
+  public void testCreateMalformedOrEmpty() throws Exception {
+    String[] invalid = { "{\"name\":", "", "   ", "[" + DOCUMENT, "[1, 2]", "x" };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        this.controller.create(REGION, "1", body(invalid[i]));
+        fail("expected MalformedJsonException for " + invalid[i]);
+      } catch (MalformedJsonException expected) {
+      }
+    }
+    assertFalse(this.region.containsKey("1"));
+  }
+
+  @Test
+  public void testUpdateSingleKey() throws Exception {
+    ResponseEntity<?> response = this.controller.update(REGION, new String[] { "1" }, "PUT", body(DOCUMENT));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), this.region.get("1"));
+
+    response = this.controller.update(REGION, new String[] { "1" }, "REPLACE", body(OTHER_DOCUMENT));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(JSONFormatter.fromJSON(OTHER_DOCUMENT), this.region.get("1"));
+  }
+
+  @Test
+  public void testUpdateCompareAndSet() throws Exception {
+    this.region.put("1", JSONFormatter.fromJSON(DOCUMENT));
+    String cas = "{\"@old\":" + DOCUMENT + ",\"@new\":" + OTHER_DOCUMENT + "}";
+    ResponseEntity<?> response = this.controller.update(REGION, new String[] { "1" }, "CAS", body(cas));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNull(response.getBody());
+    assertEquals(JSONFormatter.fromJSON(OTHER_DOCUMENT), this.region.get("1"));
+
+    // the old value no longer matches
+    response = this.controller.update(REGION, new String[] { "1" }, "CAS", body(cas));
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+  }
+
+  @Test
+  public void testUpdateMultipleKeys() throws Exception {
+    ResponseEntity<?> response = this.controller.update(REGION, new String[] { "1", "2" }, "PUT",
+        body("[" + DOCUMENT + "," + OTHER_DOCUMENT + "]"));
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(JSONFormatter.fromJSON(DOCUMENT), this.region.get("1"));
+    assertEquals(JSONFormatter.fromJSON(OTHER_DOCUMENT), this.region.get("2"));
+  }
+
+  @Test
+  public void testUpdateMalformedOrEmpty() throws Exception {
+    String[] invalid = { "{\"name\":", "", "x" };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        this.controller.update(REGION, new String[] { "1" }, "PUT", body(invalid[i]));
+        fail("expected MalformedJsonException for " + invalid[i]);
+      } catch (MalformedJsonException expected) {
+      }
+    }
+    String[] invalidArrays = { DOCUMENT, "", "[" + DOCUMENT + "]", "[" + DOCUMENT + "," };
+    for (int i = 0; i < invalidArrays.length; i++) {
+      try {
+        this.controller.update(REGION, new String[] { "1", "2" }, "PUT", body(invalidArrays[i]));
+        fail("expected MalformedJsonException for " + invalidArrays[i]);
+      } catch (MalformedJsonException expected) {
+      }
+    }
+    assertTrue(this.region.isEmpty());
+  }
+}